@@ -45,6 +45,11 @@ dependencies {
     androidTestImplementation(libs.espresso.core)
     implementation("androidx.viewpager2:viewpager2:1.0.0")
     implementation("androidx.recyclerview:recyclerview:1.3.2")
+    // Фоновое надувание карточек и строк списка (ViewPrewarmer)
+    implementation("androidx.asynclayoutinflater:asynclayoutinflater:1.0.0")
+
+    // WorkManager для фоновой синхронизации кеша
+    implementation("androidx.work:work-runtime:2.9.1")
 
 
 
@@ -65,4 +70,24 @@ dependencies {
     implementation("androidx.room:room-ktx:$room_version")
 
     implementation ("com.google.code.gson:gson:2.10.1")
-}
\ No newline at end of file
+}
+
+// Снимок публичных библиотек в assets/database для мгновенного первого запуска.
+// Нужен доступ к Firestore (GOOGLE_APPLICATION_CREDENTIALS), поэтому в обычную сборку не встроен.
+tasks.register<Exec>("snapshotPublicLibraries") {
+    group = "newwords"
+    description = "Собирает prebuilt SQLite с публичными библиотеками из Firestore"
+    workingDir = rootDir
+    commandLine("python3", "scripts/snapshot_public_libraries.py", "app/src/main/assets/database")
+}
+
+// Сжатые бандлы публичных библиотек (gzip JSON) - клиент качает библиотеку одним запросом.
+// Без -Pbucket=... бандлы только пишутся в build/library_bundles для локальной раздачи.
+tasks.register<Exec>("publishLibraryBundles") {
+    group = "newwords"
+    description = "Собирает и публикует gzip-бандлы публичных библиотек"
+    workingDir = rootDir
+    val bucket = project.findProperty("bucket")?.toString()
+    commandLine(listOf("python3", "scripts/publish_library_bundles.py", "build/library_bundles") +
+            (if (bucket != null) listOf("--upload", bucket) else emptyList()))
+}
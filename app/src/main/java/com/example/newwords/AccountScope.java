@@ -0,0 +1,185 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Разделение локальных данных по аккаунтам: у каждого uid свой файл Room
+ * (newwords_database_<uid>) и свои SharedPreferences метаданных кеша (<имя>_<uid>).
+ *
+ * Выход из аккаунта ничего не удаляет: при повторном входе тем же аккаунтом кеш на месте,
+ * другой аккаунт просто открывает свой файл. Новому аккаунту публичные библиотеки
+ * достаются из снимка APK или копируются из базы другого аккаунта (AppDatabase.seedPublicFrom).
+ */
+public final class AccountScope {
+    private static final String TAG = "AccountScope";
+
+    static final String ANONYMOUS = "anonymous";
+
+    // Метаданные кеша, которые относятся к содержимому базы и живут вместе с ней
+    static final String CACHE_METADATA = "cache_metadata";
+    static final String LANGUAGE_HYDRATION = "language_hydration";
+    private static final String[] SCOPED_PREFS = {CACHE_METADATA, LANGUAGE_HYDRATION};
+    // Первичная загрузка данных аккаунта (MainActivity); раньше лежала в общих настройках "app"
+    static final String KEY_FIRST_LAUNCH = "is_first_launch";
+
+    private static final String[] DATABASE_SUFFIXES = {"", "-wal", "-shm", "-journal"};
+
+    /**
+     * Экран, который держит объекты, привязанные к базе (импорт, ссылка на AppDatabase).
+     * Вызывается в потоке, открывшем новую базу
+     */
+    public interface AccountChangeListener {
+        void onAccountChanged();
+    }
+
+    private static final List<AccountChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private AccountScope() {
+    }
+
+    public static void addAccountChangeListener(AccountChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeAccountChangeListener(AccountChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Единая точка смены аккаунта: AppDatabase.getInstance зовёт её, открыв базу нового
+     * аккаунта. Кеши и наблюдатели старой базы отпускаются здесь; задачи, которые ещё идут,
+     * держат старую базу арендой (AppDatabase.acquire), и закроется она только после них
+     */
+    static void onAccountChanged(AppDatabase previous) {
+        Log.d(TAG, "👤 Смена аккаунта: пересоздаём зависимые от базы объекты");
+        LanguageWordCache.release(previous);
+        WordSearchIndex.release(previous);
+        DueSummary.release(previous);
+        for (AccountChangeListener listener : listeners) {
+            listener.onAccountChanged();
+        }
+    }
+
+    /**
+     * uid текущего пользователя или ANONYMOUS (как WordRepository.userId)
+     */
+    public static String currentUserId() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        return user != null ? user.getUid() : ANONYMOUS;
+    }
+
+    static String databaseName(String userId) {
+        return AppDatabase.DATABASE_NAME + "_" + userId;
+    }
+
+    /**
+     * SharedPreferences метаданных кеша текущего аккаунта
+     */
+    static SharedPreferences prefs(Context context, String baseName) {
+        return prefs(context, baseName, currentUserId());
+    }
+
+    static SharedPreferences prefs(Context context, String baseName, String userId) {
+        return context.getApplicationContext()
+                .getSharedPreferences(baseName + "_" + userId, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * До разделения была одна база на всех. Её получает первый вошедший аккаунт - это тот,
+     * кто был залогинен при обновлении (выход раньше стирал кеш, значит база его)
+     */
+    static void adoptLegacyDatabase(Context context, String userId) {
+        File legacy = context.getDatabasePath(AppDatabase.DATABASE_NAME);
+        File target = context.getDatabasePath(databaseName(userId));
+        if (!legacy.exists() || target.exists() || ANONYMOUS.equals(userId)) {
+            return;
+        }
+
+        for (String suffix : DATABASE_SUFFIXES) {
+            File from = new File(legacy.getPath() + suffix);
+            if (from.exists() && !from.renameTo(new File(target.getPath() + suffix))) {
+                Log.w(TAG, "⚠️ Не удалось перенести " + from.getName());
+            }
+        }
+
+        for (String baseName : SCOPED_PREFS) {
+            SharedPreferences old = context.getSharedPreferences(baseName, Context.MODE_PRIVATE);
+            SharedPreferences.Editor editor = prefs(context, baseName, userId).edit();
+            for (Map.Entry<String, ?> entry : old.getAll().entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof Long) {
+                    editor.putLong(entry.getKey(), (Long) value);
+                } else if (value instanceof Boolean) {
+                    editor.putBoolean(entry.getKey(), (Boolean) value);
+                } else if (value instanceof Integer) {
+                    editor.putInt(entry.getKey(), (Integer) value);
+                } else if (value instanceof String) {
+                    editor.putString(entry.getKey(), (String) value);
+                }
+            }
+            editor.apply();
+            old.edit().clear().apply();
+        }
+        SharedPreferences app = context.getSharedPreferences("app", Context.MODE_PRIVATE);
+        prefs(context, CACHE_METADATA, userId).edit()
+                .putBoolean(KEY_FIRST_LAUNCH, app.getBoolean(KEY_FIRST_LAUNCH, true))
+                .apply();
+        Log.d(TAG, "📦 Общая база перешла аккаунту " + userId);
+    }
+
+    /**
+     * База другого аккаунта, из которой можно взять публичные библиотеки (самая свежая)
+     */
+    static File findSiblingDatabase(Context context, String userId) {
+        File own = context.getDatabasePath(databaseName(userId));
+        File[] files = own.getParentFile() != null ? own.getParentFile().listFiles() : null;
+        if (files == null) {
+            return null;
+        }
+        String prefix = AppDatabase.DATABASE_NAME + "_";
+        File newest = null;
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.startsWith(prefix) || name.contains("-") || file.equals(own)) {
+                continue;
+            }
+            if (newest == null || file.lastModified() > newest.lastModified()) {
+                newest = file;
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * uid владельца файла базы (обратное к databaseName)
+     */
+    static String ownerOf(File database) {
+        return database.getName().substring(AppDatabase.DATABASE_NAME.length() + 1);
+    }
+
+    /**
+     * Языки, которые у аккаунта загружены целиком (отметки LanguageHydrator)
+     */
+    static Set<String> loadedLanguages(Context context, String userId) {
+        SharedPreferences hydration = prefs(context, LANGUAGE_HYDRATION, userId);
+        Set<String> result = new HashSet<>();
+        for (String language : LanguageHydrator.SUPPORTED_LANGUAGES) {
+            if (hydration.getBoolean(LanguageHydrator.KEY_LOADED_PREFIX + language, false)) {
+                result.add(language);
+            }
+        }
+        return result;
+    }
+}
@@ -35,6 +35,17 @@ public class AddLibraryDialog extends DialogFragment {
         this.listener = listener;
     }
 
+    // Библиотека из колоды Anki: название берётся из файла, из диалога нужен только язык
+    public interface OnAnkiImportRequestedListener {
+        void onAnkiImportRequested(String language);
+    }
+
+    private OnAnkiImportRequestedListener ankiImportListener;
+
+    public void setOnAnkiImportRequestedListener(OnAnkiImportRequestedListener listener) {
+        this.ankiImportListener = listener;
+    }
+
     @NonNull
     @Override
     public Dialog onCreateDialog(@Nullable Bundle savedInstanceState) {
@@ -67,6 +78,16 @@ public class AddLibraryDialog extends DialogFragment {
 
         createButton.setOnClickListener(v -> createLibrary());
         cancelButton.setOnClickListener(v -> dismiss());
+
+        View importAnkiOption = view.findViewById(R.id.importAnkiOption);
+        if (ankiImportListener != null) {
+            importAnkiOption.setOnClickListener(v -> {
+                ankiImportListener.onAnkiImportRequested(getSelectedLanguage());
+                dismiss();
+            });
+        } else {
+            importAnkiOption.setVisibility(View.GONE);
+        }
     }
 
     private void setupSpinners() {
@@ -2,6 +2,7 @@ package com.example.newwords;
 
 import android.app.AlertDialog;
 import android.app.Dialog;
+import android.content.Context;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -101,11 +102,65 @@ public class AddWordDialog extends DialogFragment {
             return;
         }
 
+        // Для слияния с дублем нужна именно введённая заметка, без подстановки по умолчанию
+        String typedNote = note;
         if (note.isEmpty()) {
             // Заменили на ресурс
             note = getString(R.string.word_add_default_note);
         }
 
+        // Такое слово с таким переводом уже есть у пользователя - спрашиваем
+        String finalNote = note;
+        addButton.setEnabled(false);
+        WordRepository.getInstance(requireContext()).findDuplicate(libraryId, word, translation, existing -> {
+            if (!isAdded()) return;
+            addButton.setEnabled(true);
+            if (existing == null) {
+                confirmAdd(word, translation, finalNote);
+            } else {
+                showDuplicateDialog(existing, typedNote, () -> confirmAdd(word, translation, finalNote));
+            }
+        });
+    }
+
+    /**
+     * Дубль в этой библиотеке: объединить или пропустить. Дубль в другой библиотеке языка -
+     * можно ещё и добавить сюда отдельным словом
+     */
+    private void showDuplicateDialog(WordItem existing, String note, Runnable addAnyway) {
+        boolean sameLibrary = libraryId != null && libraryId.equals(existing.getLibraryId());
+        AlertDialog.Builder builder = new AlertDialog.Builder(getActivity())
+                .setTitle(R.string.word_add_duplicate_title)
+                .setMessage(getString(sameLibrary
+                                ? R.string.word_add_duplicate_message
+                                : R.string.word_add_duplicate_message_other,
+                        existing.getWord(), existing.getTranslation()))
+                .setPositiveButton(R.string.word_add_duplicate_merge, (d, which) -> mergeInto(existing, note))
+                .setNegativeButton(R.string.word_add_duplicate_skip, (d, which) -> dismiss());
+        if (!sameLibrary) {
+            builder.setNeutralButton(R.string.word_add_duplicate_confirm, (d, which) -> addAnyway.run());
+        }
+        builder.show();
+    }
+
+    private void mergeInto(WordItem existing, String note) {
+        Context context = requireContext().getApplicationContext();
+        WordRepository.getInstance(context).mergeIntoDuplicate(existing, note,
+                new WordRepository.OnWordUpdatedListener() {
+                    @Override
+                    public void onWordUpdated() {
+                        Toast.makeText(context, R.string.word_add_merged, Toast.LENGTH_SHORT).show();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Toast.makeText(context, R.string.word_add_error_toast, Toast.LENGTH_SHORT).show();
+                    }
+                });
+        dismiss();
+    }
+
+    private void confirmAdd(String word, String translation, String note) {
         if (listener != null) {
             listener.onWordAdded(word, translation, note);
         }
@@ -2,6 +2,7 @@ package com.example.newwords;
 
 import android.app.AlertDialog;
 import android.app.Dialog;
+import android.content.Context;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -60,7 +61,7 @@ public class AddWordWithLibraryDialog extends DialogFragment {
         // Устанавливаем фон программно или он уже есть в XML (лучше в XML)
         view.setBackgroundColor(0xFF211B20);
 
-        wordRepository = new WordRepository(getContext());
+        wordRepository = WordRepository.getInstance(requireContext());
         initViews(view);
         loadUserLibraries();
 
@@ -212,15 +213,66 @@ public class AddWordWithLibraryDialog extends DialogFragment {
         }
 
         int selectedPosition = librarySpinner.getSelectedItemPosition();
-        if (selectedPosition >= 0 && selectedPosition < userLibraries.size()) {
-            WordLibrary selectedLibrary = userLibraries.get(selectedPosition);
-            if (listener != null) {
-                listener.onWordAdded(word, translation, note, selectedLibrary.getLibraryId());
-            }
-        } else {
+        if (selectedPosition < 0 || selectedPosition >= userLibraries.size()) {
             Toast.makeText(getContext(), R.string.error_select_lib, Toast.LENGTH_SHORT).show();
             return;
         }
+        String libraryId = userLibraries.get(selectedPosition).getLibraryId();
+
+        // Такое слово с таким переводом уже есть у пользователя - спрашиваем
+        addButton.setEnabled(false);
+        wordRepository.findDuplicate(libraryId, word, translation, existing -> {
+            if (!isAdded()) return;
+            addButton.setEnabled(true);
+            if (existing == null) {
+                confirmAdd(word, translation, note, libraryId);
+            } else {
+                showDuplicateDialog(existing, note, libraryId,
+                        () -> confirmAdd(word, translation, note, libraryId));
+            }
+        });
+    }
+
+    /**
+     * Дубль в выбранной библиотеке: объединить или пропустить. Дубль в другой библиотеке
+     * языка - можно ещё и добавить в выбранную отдельным словом
+     */
+    private void showDuplicateDialog(WordItem existing, String note, String libraryId, Runnable addAnyway) {
+        boolean sameLibrary = libraryId.equals(existing.getLibraryId());
+        AlertDialog.Builder builder = new AlertDialog.Builder(getActivity())
+                .setTitle(R.string.word_add_duplicate_title)
+                .setMessage(getString(sameLibrary
+                                ? R.string.word_add_duplicate_message
+                                : R.string.word_add_duplicate_message_other,
+                        existing.getWord(), existing.getTranslation()))
+                .setPositiveButton(R.string.word_add_duplicate_merge, (d, which) -> mergeInto(existing, note))
+                .setNegativeButton(R.string.word_add_duplicate_skip, (d, which) -> dismiss());
+        if (!sameLibrary) {
+            builder.setNeutralButton(R.string.word_add_duplicate_confirm, (d, which) -> addAnyway.run());
+        }
+        builder.show();
+    }
+
+    private void mergeInto(WordItem existing, String note) {
+        Context context = requireContext().getApplicationContext();
+        wordRepository.mergeIntoDuplicate(existing, note, new WordRepository.OnWordUpdatedListener() {
+            @Override
+            public void onWordUpdated() {
+                Toast.makeText(context, R.string.word_add_merged, Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(context, R.string.word_add_error_toast, Toast.LENGTH_SHORT).show();
+            }
+        });
+        dismiss();
+    }
+
+    private void confirmAdd(String word, String translation, String note, String libraryId) {
+        if (listener != null) {
+            listener.onWordAdded(word, translation, note, libraryId);
+        }
         dismiss();
     }
 }
\ No newline at end of file
@@ -0,0 +1,230 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.text.Html;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Колода Anki (.apkg) как источник WordImporter.
+ *
+ * .apkg - zip с SQLite-коллекцией внутри: collection.anki21 (или collection.anki2 у старых
+ * колод). Нужный файл распаковывается потоком в свой временный файл - SQLite читает только с диска,
+ * затем заметки идут курсором по одной, окно курсора держит в памяти лишь часть строк.
+ *
+ * Поля заметки: первое - слово, второе - перевод, третье (если есть) - заметка; HTML и [sound:]
+ * вычищаются. С withProgress этап и дата повторения берутся у первой карточки заметки
+ * (cards.ivl/due, единицы due зависят от cards.queue), число повторений - cards.reps, верные ответы - revlog с ease > 1.
+ */
+class AnkiDeckReader implements WordImporter.RowSource {
+    private static final String TAG = "AnkiDeckReader";
+
+    private static final String COLLECTION_V2 = "collection.anki21";
+    private static final String COLLECTION_V1 = "collection.anki2";
+    // Новый формат Anki 2.1.50+: сжат zstd, без сторонней библиотеки не прочитать
+    private static final String COLLECTION_ZSTD = "collection.anki21b";
+
+    private static final char FIELD_SEPARATOR = '\u001f';
+    private static final Pattern SOUND_TAG = Pattern.compile("\\[sound:[^\\]]*\\]");
+    // Картинку fromHtml превращает в символ объекта
+    private static final char OBJECT_CHAR = '\uFFFC';
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    // Типы карточек Anki (cards.type)
+    private static final int CARD_NEW = 0;
+    private static final int CARD_REVIEW = 2;
+    // Очереди Anki (cards.queue): у изучения внутри дня due - unix-время в секундах,
+    // у повторения и межсуточного изучения - номер дня от создания коллекции
+    private static final int QUEUE_LEARNING = 1;
+    private static final int QUEUE_REVIEW = 2;
+    private static final int QUEUE_DAY_LEARNING = 3;
+    private static final int QUEUE_PREVIEW = 4;
+    // Отложенные и закопанные карточки (queue < 0) хранят due своей очереди - различаем по величине:
+    // номер дня до такого значения не дорастёт, а unix-время давно больше
+    private static final long UNIX_SECONDS_THRESHOLD = 1_000_000_000L;
+
+    private static final String NOTES_QUERY = "SELECT flds FROM notes ORDER BY id";
+    private static final String NOTES_WITH_PROGRESS_QUERY =
+            "SELECT n.flds, c.type, c.queue, c.ivl, c.due, c.reps, " +
+            "(SELECT COUNT(*) FROM revlog r WHERE r.cid = c.id AND r.ease > 1) AS correct " +
+            "FROM notes n LEFT JOIN cards c ON c.id = (SELECT MIN(id) FROM cards WHERE nid = n.id) " +
+            "ORDER BY n.id";
+
+    private final File collectionFile;
+    private final SQLiteDatabase collection;
+    private final Cursor cursor;
+    private final boolean withProgress;
+    // Начало коллекции в секундах: от него считается due у карточек на повторении
+    private final long createdAtSeconds;
+
+    private AnkiDeckReader(File collectionFile, boolean withProgress) {
+        this.collectionFile = collectionFile;
+        this.withProgress = withProgress;
+        this.collection = SQLiteDatabase.openDatabase(collectionFile.getPath(), null,
+                SQLiteDatabase.OPEN_READONLY | SQLiteDatabase.NO_LOCALIZED_COLLATORS);
+        this.createdAtSeconds = readCreatedAt(collection);
+        this.cursor = collection.rawQuery(withProgress ? NOTES_WITH_PROGRESS_QUERY : NOTES_QUERY, null);
+    }
+
+    /**
+     * Распаковывает коллекцию из .apkg и открывает её. Вызывать не из UI-потока
+     */
+    static AnkiDeckReader open(Context context, Uri uri, boolean withProgress) throws IOException {
+        File dir = new File(context.getCacheDir(), "anki_import");
+        dir.mkdirs();
+        // Имя файла у каждого импорта своё: два импорта подряд (или хвост прошлого) не затрут друг друга
+        File collectionFile = extractCollection(context, uri, dir);
+        try {
+            return new AnkiDeckReader(collectionFile, withProgress);
+        } catch (RuntimeException e) {
+            collectionFile.delete();
+            throw new IOException("Не удалось открыть коллекцию Anki", e);
+        }
+    }
+
+    private static File extractCollection(Context context, Uri uri, File dir) throws IOException {
+        InputStream input = context.getContentResolver().openInputStream(uri);
+        if (input == null) {
+            throw new IOException("Не удалось открыть файл: " + uri);
+        }
+
+        File collectionFile = null;
+        boolean hasV2 = false;
+        boolean zstdOnly = false;
+
+        try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(input))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (name.equals(COLLECTION_V2) || name.equals(COLLECTION_V1)) {
+                    if (collectionFile == null) {
+                        collectionFile = File.createTempFile("collection", ".db", dir);
+                    }
+                    // В колодах с anki21 файл anki2 - заглушка «обновите Anki»: anki21 его перезаписывает
+                    copy(zip, collectionFile);
+                    if (name.equals(COLLECTION_V2)) {
+                        hasV2 = true;
+                        break;
+                    }
+                } else if (name.equals(COLLECTION_ZSTD)) {
+                    zstdOnly = true;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (collectionFile != null) {
+                collectionFile.delete();
+            }
+            throw e;
+        }
+
+        if (hasV2 || (collectionFile != null && !zstdOnly)) {
+            return collectionFile;
+        }
+        if (collectionFile != null) {
+            collectionFile.delete();
+        }
+        if (zstdOnly) {
+            throw new IOException("Колода в новом формате Anki: экспортируйте её с галочкой " +
+                    "«Поддержка старых версий Anki»");
+        }
+        throw new IOException("В файле нет коллекции Anki");
+    }
+
+    private static void copy(InputStream from, File to) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = new FileOutputStream(to)) {
+            int read;
+            while ((read = from.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static long readCreatedAt(SQLiteDatabase collection) {
+        try (Cursor c = collection.rawQuery("SELECT crt FROM col", null)) {
+            return c.moveToFirst() ? c.getLong(0) : 0;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "⚠️ Нет col.crt - даты повторения не перенесутся", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public WordImporter.ImportRow next() {
+        if (!cursor.moveToNext()) {
+            return null;
+        }
+
+        String[] fields = cursor.getString(0).split(String.valueOf(FIELD_SEPARATOR), -1);
+        WordImporter.ImportRow row = new WordImporter.ImportRow();
+        row.word = cleanField(fields[0]);
+        row.translation = fields.length > 1 ? cleanField(fields[1]) : null;
+        row.note = fields.length > 2 ? cleanField(fields[2]) : null;
+
+        // Заметка без карточек: LEFT JOIN даст NULL в колонках карточки
+        if (withProgress && !cursor.isNull(1)) {
+            applyProgress(row, cursor.getInt(1), cursor.getInt(2), cursor.getInt(3),
+                    cursor.getLong(4), cursor.getInt(5), cursor.getInt(6));
+        }
+        return row;
+    }
+
+    private void applyProgress(WordImporter.ImportRow row, int type, int queue, int ivl, long due,
+                               int reps, int correct) {
+        row.reviewCount = reps;
+        row.correctAnswers = correct;
+        if (type == CARD_NEW) {
+            return;
+        }
+        // ivl - дни; изучение и переучивание - первый этап
+        row.reviewStage = type == CARD_REVIEW ? SimpleRepetitionSystem.stageForInterval(ivl) : 1;
+        row.nextReviewDate = dueDate(queue, due);
+    }
+
+    @Nullable
+    private Date dueDate(int queue, long due) {
+        boolean inSeconds;
+        if (queue == QUEUE_LEARNING || queue == QUEUE_PREVIEW) {
+            inSeconds = true;
+        } else if (queue == QUEUE_REVIEW || queue == QUEUE_DAY_LEARNING) {
+            inSeconds = false;
+        } else {
+            inSeconds = due > UNIX_SECONDS_THRESHOLD;
+        }
+        if (inSeconds) {
+            return new Date(due * 1000);
+        }
+        // Без col.crt номер дня не во что перевести - дату оставляем пустой
+        return createdAtSeconds > 0 ? new Date(createdAtSeconds * 1000 + due * DAY_MS) : null;
+    }
+
+    private static String cleanField(String raw) {
+        String withoutSound = SOUND_TAG.matcher(raw).replaceAll("");
+        String text = Html.fromHtml(withoutSound, Html.FROM_HTML_MODE_LEGACY).toString();
+        return text.replace(OBJECT_CHAR, ' ').replace('\u00A0', ' ').trim();
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+        collection.close();
+        collectionFile.delete();
+        // Журнал, если SQLite успел его создать
+        new File(collectionFile.getPath() + "-journal").delete();
+    }
+}
@@ -4,35 +4,228 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 import android.content.Context;
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
-@Database(entities = {LocalWordLibrary.class, LocalWordItem.class, UserStats.class}, version = 3, exportSchema = false)
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Database(entities = {LocalWordLibrary.class, LocalWordItem.class, UserStats.class, HydrationCheckpoint.class}, version = AppDatabase.VERSION, exportSchema = false)
 @TypeConverters(Converters.class)
 public abstract class AppDatabase extends RoomDatabase {
 
+    // Должна совпадать со schemaVersion в scripts/snapshot_public_libraries.py
+    static final int VERSION = 9;
+    private static final String TAG = "AppDatabase";
+    // Общее имя до разделения по аккаунтам; файлы аккаунтов - DATABASE_NAME_<uid>
+    static final String DATABASE_NAME = "newwords_database";
+
     public abstract LocalLibraryDao libraryDao();
     public abstract LocalWordDao wordDao();
     public abstract UserStatsDao statsDao(); // ← ДОБАВЬТЕ ЭТУ СТРОКУ
+    public abstract HydrationCheckpointDao checkpointDao();
     @TypeConverters({Converters.class})
     private static volatile AppDatabase INSTANCE;
+    // Файл открытой базы: у каждого аккаунта свой (AccountScope)
+    private static volatile String instanceName;
+
+    // Короткие фоновые задачи (один запрос в своём потоке) аренду не берут - столько им даём
+    // доработать со старой базой после смены аккаунта
+    private static final long RETIRE_GRACE_MS = 10 * 1000;
 
+    // Долгие фоновые задачи, которые держат базу (acquire/release)
+    private final AtomicInteger leases = new AtomicInteger();
+    private volatile boolean retired;
+    private volatile boolean graceOver;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * База текущего аккаунта. При смене аккаунта открывается его файл, зависимые от базы
+     * объекты пересоздаются (AccountScope.onAccountChanged), а прежняя база закрывается
+     * не сразу (retire): после RETIRE_GRACE_MS и когда её отпустит последняя долгая задача.
+     * Закрытие посреди чужого запроса бросило бы IllegalStateException в фоновом потоке
+     */
     public static AppDatabase getInstance(Context context) {
-        if (INSTANCE == null) {
+        String name = AccountScope.databaseName(AccountScope.currentUserId());
+        AppDatabase instance = INSTANCE;
+        if (instance == null || !name.equals(instanceName)) {
             synchronized (AppDatabase.class) {
-                if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(
-                                    context.getApplicationContext(),
-                                    AppDatabase.class,
-                                    "newwords_database"
-                            )
-                            .fallbackToDestructiveMigration() // Пересоздаем при изменении версии
-                            .build();
+                instance = INSTANCE;
+                if (instance == null || !name.equals(instanceName)) {
+                    AppDatabase previous = instance;
+                    instance = open(context.getApplicationContext(), AccountScope.currentUserId());
+                    INSTANCE = instance;
+                    instanceName = name;
+                    if (previous != null) {
+                        AccountScope.onAccountChanged(previous);
+                        previous.retire();
+                    }
                 }
             }
         }
-        return INSTANCE;
+        return instance;
+    }
+
+    /**
+     * Аренда базы долгой фоновой задачей (импорт, удаление библиотеки, синхронизация, копия):
+     * после смены аккаунта база не закроется, пока задача не вызовет release()
+     *
+     * @return false - аккаунт уже сменился, база закрывается; release() не нужен
+     */
+    public boolean acquire() {
+        leases.incrementAndGet();
+        if (retired) {
+            release();
+            return false;
+        }
+        return true;
+    }
+
+    public void release() {
+        if (leases.decrementAndGet() == 0 && retired) {
+            closeIfUnused();
+        }
+    }
+
+    private void retire() {
+        retired = true;
+        new Handler(Looper.getMainLooper()).postDelayed(() -> {
+            graceOver = true;
+            closeIfUnused();
+        }, RETIRE_GRACE_MS);
     }
 
+    private void closeIfUnused() {
+        if (graceOver && leases.get() == 0 && closed.compareAndSet(false, true)) {
+            close();
+            Log.d(TAG, "🗄️ База прежнего аккаунта закрыта");
+        } else if (!closed.get()) {
+            Log.d(TAG, "⏳ База прежнего аккаунта ещё занята: задач " + leases.get());
+        }
+    }
+
+    private static AppDatabase open(Context appContext, String userId) {
+        AccountScope.adoptLegacyDatabase(appContext, userId);
+        String name = AccountScope.databaseName(userId);
+        boolean isNew = !appContext.getDatabasePath(name).exists();
+
+        // Первый запуск: берём готовую базу публичных библиотек из APK,
+        // а без снимка - публичное из базы другого аккаунта на этом устройстве
+        boolean fromSnapshot = isNew && PublicSnapshot.isBundled(appContext, VERSION);
+        File sibling = isNew && !fromSnapshot ? AccountScope.findSiblingDatabase(appContext, userId) : null;
+
+        RoomDatabase.Builder<AppDatabase> builder = Room.databaseBuilder(
+                        appContext,
+                        AppDatabase.class,
+                        name
+                )
+                .fallbackToDestructiveMigration() // Пересоздаем при изменении версии
+                .addCallback(new Callback() {
+                    private boolean created;
+                    // createFromAsset ленив: снимок копируется при первом открытии, не в build()
+                    private boolean snapshotPending = fromSnapshot;
+
+                    @Override
+                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                        created = true;
+                    }
+
+                    @Override
+                    public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                        if (snapshotPending) {
+                            snapshotPending = false;
+                            PublicSnapshot.markInstalled(appContext, userId);
+                        }
+                        // ATTACH нельзя внутри транзакции onCreate - копируем здесь
+                        if (created && sibling != null) {
+                            created = false;
+                            seedPublicFrom(appContext, db, sibling, userId);
+                        }
+                    }
+
+                    @Override
+                    public void onDestructiveMigration(@NonNull SupportSQLiteDatabase db) {
+                        // База пересоздана пустой - отметки о снимке и загруженных языках
+                        // больше не правда, иначе слова не скачаются заново
+                        PublicSnapshot.reset(appContext);
+                        LanguageHydrator.getInstance(appContext).reset();
+                    }
+                });
+
+        if (fromSnapshot) {
+            builder.createFromAsset(PublicSnapshot.ASSET_DATABASE);
+        }
+
+        AppDatabase database = builder.build();
+        Log.d(TAG, "🗄️ Открыта база " + name);
+        return database;
+    }
+
+    /**
+     * Копирует публичные библиотеки и их слова из базы другого аккаунта: без прогресса,
+     * избранного и активности - это данные того аккаунта. Схема источника должна совпадать
+     */
+    private static void seedPublicFrom(Context appContext, SupportSQLiteDatabase db, File source, String userId) {
+        try {
+            db.execSQL("ATTACH DATABASE ? AS seed", new Object[]{source.getPath()});
+        } catch (RuntimeException e) {
+            Log.w(TAG, "⚠️ Не удалось открыть базу " + source.getName(), e);
+            return;
+        }
+        try {
+            int sourceVersion;
+            try (Cursor cursor = db.query("PRAGMA seed.user_version")) {
+                sourceVersion = cursor.moveToFirst() ? cursor.getInt(0) : -1;
+            }
+            if (sourceVersion != VERSION) {
+                Log.w(TAG, "⚠️ База " + source.getName() + " на схеме " + sourceVersion + ", не копируем");
+                return;
+            }
+
+            db.beginTransaction();
+            try {
+                db.execSQL(SEED_PUBLIC_LIBRARIES);
+                db.execSQL(SEED_PUBLIC_WORDS, new Object[]{System.currentTimeMillis()});
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            PublicSnapshot.markSeeded(appContext, userId, AccountScope.ownerOf(source));
+        } catch (RuntimeException e) {
+            // Не страшно: публичные слова скачаются при загрузке языка
+            Log.e(TAG, "❌ Ошибка копирования публичных библиотек", e);
+        } finally {
+            db.execSQL("DETACH DATABASE seed");
+        }
+    }
+
+    // Списки колонок - как в LocalWordLibrary/LocalWordItem и scripts/snapshot_public_libraries.py
+    private static final String SEED_PUBLIC_LIBRARIES =
+            "INSERT OR IGNORE INTO local_libraries (libraryId, name, description, subcategory, " +
+            "wordCount, category, languageFrom, languageTo, isPublic, isActive, createdAt, " +
+            "createdBy, lastSynced, searchName, searchDescription, contentVersion) " +
+            "SELECT libraryId, name, description, subcategory, wordCount, category, languageFrom, " +
+            "languageTo, 1, 0, createdAt, createdBy, lastSynced, searchName, searchDescription, " +
+            "contentVersion " +
+            "FROM seed.local_libraries WHERE isPublic = 1";
+
+    private static final String SEED_PUBLIC_WORDS =
+            "INSERT OR IGNORE INTO local_words (wordId, word, translation, note, isFavorite, " +
+            "difficulty, reviewCount, correctAnswers, isCustomWord, libraryId, userId, createdAt, " +
+            "lastReviewed, lastSynced, reviewStage, nextReviewDate, consecutiveShows, " +
+            "searchWord, searchTranslation, searchNote) " +
+            "SELECT w.wordId, w.word, w.translation, w.note, 0, w.difficulty, 0, 0, 0, w.libraryId, " +
+            "NULL, w.createdAt, NULL, w.lastSynced, 0, ?1, 0, " +
+            "w.searchWord, w.searchTranslation, w.searchNote " +
+            "FROM seed.local_words w JOIN seed.local_libraries l ON l.libraryId = w.libraryId " +
+            "WHERE l.isPublic = 1 AND w.isCustomWord = 0";
+
     // Вспомогательный метод для получения или создания статистики
     public UserStats getOrCreateStats(String userId) {
         UserStats stats = statsDao().getStats(userId);
@@ -0,0 +1,166 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Диагностика локального кеша по запросу (скрытый пункт в профиле, только в debug-сборке).
+ * Все ответы - агрегатные COUNT/GROUP BY запросы: ни одна строка слов в память не грузится,
+ * поэтому отчёт одинаково дешёвый на сотне слов и на сотне тысяч.
+ */
+public class CacheDiagnostics {
+    private static final String TAG = "CacheDiagnostics";
+
+    /**
+     * Библиотеки языка (LocalLibraryDao.getLibraryStatsByLanguage)
+     */
+    public static class LibraryStats {
+        public String language;
+        public int libraries;
+        public int activeLibraries;
+        public int publicLibraries;
+        public long declaredWords;
+    }
+
+    /**
+     * Слова языка по состоянию повторения (LocalWordDao.getWordStatsByLanguage)
+     */
+    public static class WordStats {
+        public String language;
+        public int words;
+        public int activeWords;
+        public int newWords;
+        public int learningWords;
+        public int learnedWords;
+        public int dueWords;
+        public int favorites;
+        public int customWords;
+    }
+
+    // Всё, что читается из базы, - одной транзакцией, чтобы итоги и разбивка сходились
+    private static class Counts {
+        int libraries;
+        int activeLibraries;
+        int words;
+        int wordsFromActive;
+        int orphanWords;
+        List<LibraryStats> libraryStats;
+        List<WordStats> wordStats;
+    }
+
+    public interface OnReportListener {
+        void onReportReady(JSONObject report);
+        void onError(Exception e);
+    }
+
+    private final Context context;
+    private final AppDatabase localDb;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public CacheDiagnostics(Context context) {
+        this.context = context.getApplicationContext();
+        this.localDb = AppDatabase.getInstance(this.context);
+    }
+
+    /**
+     * Собирает отчёт в фоне, результат - в UI-потоке
+     */
+    public void buildReport(OnReportListener listener) {
+        new Thread(() -> {
+            try {
+                long started = System.currentTimeMillis();
+                JSONObject report = collect();
+                report.put("tookMs", System.currentTimeMillis() - started);
+                Log.d(TAG, "📊 Отчёт о кеше готов за " + report.optLong("tookMs") + " мс");
+                mainHandler.post(() -> listener.onReportReady(report));
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Ошибка сбора диагностики", e);
+                mainHandler.post(() -> listener.onError(e));
+            }
+        }).start();
+    }
+
+    private JSONObject collect() throws JSONException {
+        long now = System.currentTimeMillis();
+
+        Counts counts = new Counts();
+        localDb.runInTransaction(() -> {
+            counts.libraries = localDb.libraryDao().getLibraryCount();
+            counts.activeLibraries = localDb.libraryDao().getActiveLibraryCount();
+            counts.words = localDb.wordDao().getWordCount();
+            counts.wordsFromActive = localDb.wordDao().getActiveWordCount();
+            counts.orphanWords = localDb.wordDao().getOrphanWordCount();
+            counts.libraryStats = localDb.libraryDao().getLibraryStatsByLanguage();
+            counts.wordStats = localDb.wordDao().getWordStatsByLanguage(now);
+        });
+
+        JSONObject report = new JSONObject();
+        report.put("generatedAt", now);
+        report.put("schemaVersion", AppDatabase.VERSION);
+        report.put("databaseBytes", context.getDatabasePath(
+                AccountScope.databaseName(AccountScope.currentUserId())).length());
+        report.put("fromSnapshot", PublicSnapshot.isInstalled(context));
+
+        JSONObject summary = new JSONObject();
+        summary.put("libraries", counts.libraries);
+        summary.put("activeLibraries", counts.activeLibraries);
+        summary.put("words", counts.words);
+        summary.put("wordsFromActive", counts.wordsFromActive);
+        summary.put("orphanWords", counts.orphanWords);
+        report.put("totals", summary);
+
+        // Язык библиотеки может быть без слов и наоборот - собираем по общему ключу
+        Map<String, JSONObject> languages = new TreeMap<>();
+        LanguageHydrator hydrator = LanguageHydrator.getInstance(context);
+        for (LibraryStats lib : counts.libraryStats) {
+            JSONObject language = languageEntry(languages, lib.language);
+            language.put("libraries", lib.libraries);
+            language.put("activeLibraries", lib.activeLibraries);
+            language.put("publicLibraries", lib.publicLibraries);
+            language.put("declaredWords", lib.declaredWords);
+        }
+        for (WordStats words : counts.wordStats) {
+            JSONObject language = languageEntry(languages, words.language);
+            language.put("words", words.words);
+            language.put("activeWords", words.activeWords);
+            language.put("new", words.newWords);
+            language.put("learning", words.learningWords);
+            language.put("learned", words.learnedWords);
+            language.put("due", words.dueWords);
+            language.put("favorites", words.favorites);
+            language.put("custom", words.customWords);
+        }
+
+        JSONArray languageArray = new JSONArray();
+        for (Map.Entry<String, JSONObject> entry : languages.entrySet()) {
+            JSONObject language = entry.getValue();
+            if (!"?".equals(entry.getKey())) {
+                language.put("hydration", hydrator.getState(entry.getKey()).name());
+            }
+            languageArray.put(language);
+        }
+        report.put("languages", languageArray);
+        return report;
+    }
+
+    private static JSONObject languageEntry(Map<String, JSONObject> languages, String code) throws JSONException {
+        String key = code != null ? code : "?";
+        JSONObject entry = languages.get(key);
+        if (entry == null) {
+            entry = new JSONObject();
+            entry.put("language", key);
+            languages.put(key, entry);
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkContinuation;
+import androidx.work.WorkManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Планирует синхронизацию кеша через WorkManager вместо потоков при старте.
+ * Периодическая работа - только на безлимитной сети, при нормальном заряде и в простое.
+ * Разовая - цепочка по языкам, один запрос на все вызовы (unique work).
+ * Синхронизируются только уже загруженные языки (см. LanguageHydrator).
+ */
+public class CacheSyncScheduler {
+    private static final String TAG = "CacheSyncScheduler";
+
+    private static final String UNIQUE_ONE_TIME = "cache_sync_once";
+    private static final String UNIQUE_PERIODIC_PREFIX = "cache_sync_periodic_";
+
+    private static final long PERIODIC_INTERVAL_HOURS = 24;
+    private static final long BACKOFF_MINUTES = 1;
+
+    private CacheSyncScheduler() {
+    }
+
+    /**
+     * Ставит ежедневную синхронизацию для каждого языка (повторный вызов ничего не меняет)
+     */
+    public static void schedulePeriodicSync(Context context) {
+        WorkManager workManager = WorkManager.getInstance(context.getApplicationContext());
+
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresBatteryNotLow(true)
+                .setRequiresDeviceIdle(true)
+                .build();
+
+        for (String language : LanguageHydrator.getInstance(context).getHydratedLanguages()) {
+            PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                    CacheSyncWorker.class, PERIODIC_INTERVAL_HOURS, TimeUnit.HOURS)
+                    .setConstraints(constraints)
+                    .setInputData(CacheSyncWorker.inputFor(language, false))
+                    .addTag(TAG)
+                    .build();
+
+            workManager.enqueueUniquePeriodicWork(
+                    UNIQUE_PERIODIC_PREFIX + language,
+                    ExistingPeriodicWorkPolicy.KEEP,
+                    request);
+        }
+        Log.d(TAG, "📅 Периодическая синхронизация запланирована");
+    }
+
+    /**
+     * Разовая проверка устаревшего кеша: языки идут цепочкой друг за другом.
+     * Сам воркер решает, устарел ли кеш, поэтому вызов на старте ничего не грузит.
+     */
+    public static void enqueueStaleRefresh(Context context) {
+        enqueueOneTime(context, false, ExistingWorkPolicy.KEEP);
+    }
+
+    /**
+     * Принудительная синхронизация всех языков (заменяет уже стоящую в очереди)
+     */
+    public static void enqueueForcedRefresh(Context context) {
+        enqueueOneTime(context, true, ExistingWorkPolicy.REPLACE);
+    }
+
+    public static void cancelAll(Context context) {
+        WorkManager.getInstance(context.getApplicationContext()).cancelAllWorkByTag(TAG);
+    }
+
+    private static void enqueueOneTime(Context context, boolean force, ExistingWorkPolicy policy) {
+        WorkManager workManager = WorkManager.getInstance(context.getApplicationContext());
+
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+
+        WorkContinuation chain = null;
+        for (String language : LanguageHydrator.getInstance(context).getHydratedLanguages()) {
+            OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(CacheSyncWorker.class)
+                    .setConstraints(constraints)
+                    .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_MINUTES, TimeUnit.MINUTES)
+                    .setInputData(CacheSyncWorker.inputFor(language, force))
+                    .addTag(TAG)
+                    .build();
+
+            chain = chain == null
+                    ? workManager.beginUniqueWork(UNIQUE_ONE_TIME, policy, request)
+                    : chain.then(request);
+        }
+
+        if (chain != null) {
+            chain.enqueue();
+            Log.d(TAG, "🔄 Разовая синхронизация поставлена в очередь, force=" + force);
+        }
+    }
+}
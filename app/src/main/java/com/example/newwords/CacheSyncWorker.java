@@ -0,0 +1,145 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.firebase.auth.FirebaseAuth;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Фоновая синхронизация кеша одного языка через WorkManager.
+ * Запускается только из CacheSyncScheduler, UI-поток не трогает.
+ */
+public class CacheSyncWorker extends Worker {
+    private static final String TAG = "CacheSyncWorker";
+
+    public static final String KEY_LANGUAGE = "language";
+    public static final String KEY_FORCE = "force";
+
+    // Сколько ждём ответа Firebase, прежде чем отдать работу на повтор
+    private static final long SYNC_TIMEOUT_MINUTES = 5;
+    private static final int MAX_ATTEMPTS = 5;
+
+    public CacheSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String language = getInputData().getString(KEY_LANGUAGE);
+        boolean force = getInputData().getBoolean(KEY_FORCE, false);
+
+        if (language == null) {
+            Log.e(TAG, "❌ Не передан язык для синхронизации");
+            return Result.failure();
+        }
+
+        if (FirebaseAuth.getInstance().getCurrentUser() == null) {
+            Log.d(TAG, "👤 Пользователь не авторизован, пропускаем " + language);
+            return Result.success();
+        }
+
+        // Синхронизация держит базу аккаунта: после смены аккаунта она не закроется под воркером
+        AppDatabase localDb = AppDatabase.getInstance(getApplicationContext());
+        if (!localDb.acquire()) {
+            Log.d(TAG, "👤 Аккаунт сменился, пропускаем " + language);
+            return Result.success();
+        }
+        try {
+            return sync(language, force);
+        } finally {
+            localDb.release();
+        }
+    }
+
+    private Result sync(String language, boolean force) {
+        WordRepository repository = WordRepository.getInstance(getApplicationContext());
+
+        if (!force && !repository.isCacheStale(language)) {
+            Log.d(TAG, "✅ Кеш для " + language + " свежий, синхронизация не нужна");
+            return Result.success();
+        }
+
+        Log.d(TAG, "🔄 Синхронизация кеша для " + language + " (попытка " + (getRunAttemptCount() + 1) + ")");
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicBoolean failed = new AtomicBoolean(false);
+
+        repository.syncWordsFromFirebaseForLanguage(language, new WordRepository.OnWordsLoadedListener() {
+            @Override
+            public void onWordsLoaded(List<WordItem> words) {
+                Log.d(TAG, "✅ Синхронизировано " + words.size() + " слов для " + language);
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "❌ Ошибка синхронизации " + language, e);
+                failed.set(true);
+                latch.countDown();
+            }
+        });
+
+        try {
+            if (!latch.await(SYNC_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                Log.w(TAG, "⏱️ Таймаут синхронизации " + language);
+                failed.set(true);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+
+        if (!failed.get()) {
+            syncPublicLibraries(repository);
+        }
+
+        if (failed.get()) {
+            // Даём WorkManager повторить с backoff, но не бесконечно
+            if (getRunAttemptCount() + 1 < MAX_ATTEMPTS) {
+                return Result.retry();
+            }
+            // failure() оборвал бы цепочку остальных языков - сдаёмся тихо
+            Log.w(TAG, "⚠️ Синхронизация " + language + " отложена до следующего периода");
+        }
+        return Result.success();
+    }
+
+    /**
+     * Публичные библиотеки всех языков сверяются по версиям - перекачиваются только изменённые.
+     * Ошибка не повод повторять синхронизацию языка: сверка повторится со следующей
+     */
+    private void syncPublicLibraries(WordRepository repository) {
+        CountDownLatch latch = new CountDownLatch(1);
+        repository.syncPublicLibraries(synced -> {
+            if (!synced) {
+                Log.w(TAG, "⚠️ Публичные библиотеки не сверены");
+            }
+            latch.countDown();
+        });
+        try {
+            if (!latch.await(SYNC_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                Log.w(TAG, "⏱️ Таймаут сверки публичных библиотек");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static Data inputFor(String language, boolean force) {
+        return new Data.Builder()
+                .putString(KEY_LANGUAGE, language)
+                .putBoolean(KEY_FORCE, force)
+                .build();
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сколько слов ждёт повторения - по языкам, для напоминаний (NotificationReceiver).
+ *
+ * Сводка пересчитывается одним GROUP BY после записей в local_words/local_libraries
+ * (прогресс, активация библиотек, загрузка) через InvalidationTracker. Пересчёт ждёт
+ * QUIET_MS тишины в записях, но не дольше MAX_DELAY_MS от первой из них: загрузка языка
+ * из сотен пачек даёт несколько пересчётов, а не по одному на пачку.
+ * Хранится в SharedPreferences аккаунта: напоминание читает готовые числа и базу не открывает.
+ *
+ * Слова, срок которых ещё не наступил, разложены по часовым корзинам на HORIZON_HOURS вперёд,
+ * поэтому сводка верна и через несколько дней без открытия приложения. Слова дальше горизонта
+ * хранятся одной корзиной «later» (самый ранний и самый поздний срок и число слов): иначе после
+ * долгого перерыва напоминание видело бы ноль и молчало, хотя слова уже ждут.
+ * «К повторению» - как в getDueWords: активная библиотека, этап меньше выученного, срок наступил;
+ * новые слова (ни одного показа) не считаются.
+ */
+public class DueSummary {
+    private static final String TAG = "DueSummary";
+    private static final String PREFS_NAME = "due_summary";
+    private static final String KEY_LANGUAGE_PREFIX = "language_";
+
+    static final long HOUR_MS = 60L * 60 * 1000;
+    private static final int HORIZON_HOURS = 8 * 24;
+    private static final long QUIET_MS = 3000;
+    private static final long MAX_DELAY_MS = 60 * 1000;
+
+    /**
+     * Строка LocalWordDao.getDueBuckets: hour = 0 - срок уже наступил,
+     * k > 0 - наступит в течение k-го часа после момента пересчёта
+     */
+    public static class Bucket {
+        public String language;
+        public int hour;
+        public int words;
+    }
+
+    /**
+     * Строка LocalWordDao.getLaterDue: слова языка со сроком позже горизонта
+     */
+    public static class LaterBucket {
+        public String language;
+        public long first;
+        public long last;
+        public int words;
+    }
+
+    private static volatile DueSummary INSTANCE;
+
+    private final Context appContext;
+    // Сводка пишется в настройки аккаунта, чья это база, даже если он уже сменился
+    private final String userId;
+    private final AppDatabase localDb;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    // Отложенный пересчёт и время первой записи, которую он ждёт (под this)
+    private ScheduledFuture<?> pendingRefresh;
+    private long firstChangeAt;
+    private final InvalidationTracker.Observer observer =
+            new InvalidationTracker.Observer("local_words", "local_libraries") {
+                @Override
+                public void onInvalidated(@NonNull Set<String> tables) {
+                    scheduleRefresh();
+                }
+            };
+
+    private DueSummary(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.userId = AccountScope.currentUserId();
+        this.localDb = AppDatabase.getInstance(appContext);
+        localDb.getInvalidationTracker().addObserver(observer);
+        // Сводка могла устареть, пока процесса не было
+        scheduleRefresh();
+    }
+
+    public static DueSummary getInstance(Context context) {
+        // Другой аккаунт - другая база, сводка считается по ней
+        AppDatabase current = AppDatabase.getInstance(context.getApplicationContext());
+        DueSummary instance = INSTANCE;
+        if (instance == null || instance.localDb != current) {
+            synchronized (DueSummary.class) {
+                instance = INSTANCE;
+                if (instance == null || instance.localDb != current) {
+                    instance = new DueSummary(context);
+                    INSTANCE = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Смена аккаунта (AccountScope.onAccountChanged): наблюдатель снимается со старой базы,
+     * следующий getInstance подпишется на новую. Сводка прежнего аккаунта остаётся в его настройках
+     */
+    static void release(AppDatabase previous) {
+        synchronized (DueSummary.class) {
+            DueSummary instance = INSTANCE;
+            if (instance != null && instance.localDb == previous) {
+                previous.getInvalidationTracker().removeObserver(instance.observer);
+                instance.executor.shutdownNow();
+                INSTANCE = null;
+            }
+        }
+    }
+
+    /**
+     * Слов к повторению на момент at по всем языкам текущего аккаунта.
+     * Только чтение SharedPreferences - можно звать из BroadcastReceiver
+     */
+    public static int countDue(Context context, long at) {
+        int total = 0;
+        SharedPreferences prefs = AccountScope.prefs(context, PREFS_NAME);
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (entry.getKey().startsWith(KEY_LANGUAGE_PREFIX) && entry.getValue() instanceof String) {
+                total += countDue((String) entry.getValue(), at);
+            }
+        }
+        return total;
+    }
+
+    private static int countDue(String summary, long at) {
+        try {
+            JSONObject json = new JSONObject(summary);
+            long computedAt = json.getLong("computedAt");
+            JSONObject buckets = json.getJSONObject("buckets");
+            int due = 0;
+            Iterator<String> hours = buckets.keys();
+            while (hours.hasNext()) {
+                String hour = hours.next();
+                // Корзина засчитывается, только когда прошёл весь её час
+                if (computedAt + Integer.parseInt(hour) * HOUR_MS <= at) {
+                    due += buckets.getInt(hour);
+                }
+            }
+            JSONObject later = json.optJSONObject("later");
+            if (later != null) {
+                if (later.getLong("last") <= at) {
+                    due += later.getInt("words");
+                } else if (later.getLong("first") <= at) {
+                    // Сколько слов из корзины уже наступило, неизвестно - хотя бы одно точно
+                    due += 1;
+                }
+            }
+            return due;
+        } catch (JSONException | NumberFormatException e) {
+            Log.w(TAG, "⚠️ Повреждённая сводка: " + summary, e);
+            return 0;
+        }
+    }
+
+    private synchronized void scheduleRefresh() {
+        long now = SystemClock.elapsedRealtime();
+        // cancel не удался - пересчёт уже идёт или прошёл: эта запись начинает новое ожидание
+        if (pendingRefresh == null || !pendingRefresh.cancel(false)) {
+            firstChangeAt = now;
+        }
+        long delay = Math.min(QUIET_MS, Math.max(0, firstChangeAt + MAX_DELAY_MS - now));
+        try {
+            pendingRefresh = executor.schedule(this::refresh, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Уведомление успело прийти от базы, которую уже отпустили (release)
+            Log.d(TAG, "Сводка прежнего аккаунта больше не пересчитывается");
+        }
+    }
+
+    private void refresh() {
+        long now = System.currentTimeMillis();
+        try {
+            long horizon = now + HORIZON_HOURS * HOUR_MS;
+            List<Bucket> rows = localDb.wordDao().getDueBuckets(now, horizon);
+            List<LaterBucket> laterRows = localDb.wordDao().getLaterDue(horizon);
+
+            Map<String, JSONObject> byLanguage = new HashMap<>();
+            for (Bucket row : rows) {
+                if (row.language == null) continue;
+                JSONObject buckets = byLanguage.get(row.language);
+                if (buckets == null) {
+                    buckets = new JSONObject();
+                    byLanguage.put(row.language, buckets);
+                }
+                buckets.put(String.valueOf(row.hour), row.words);
+            }
+            Map<String, JSONObject> laterByLanguage = new HashMap<>();
+            for (LaterBucket row : laterRows) {
+                if (row.language == null) continue;
+                JSONObject later = new JSONObject();
+                later.put("first", row.first);
+                later.put("last", row.last);
+                later.put("words", row.words);
+                laterByLanguage.put(row.language, later);
+                if (!byLanguage.containsKey(row.language)) {
+                    byLanguage.put(row.language, new JSONObject());
+                }
+            }
+
+            // Языки без слов к повторению исчезают из сводки целиком
+            SharedPreferences.Editor editor = AccountScope.prefs(appContext, PREFS_NAME, userId).edit().clear();
+            for (Map.Entry<String, JSONObject> entry : byLanguage.entrySet()) {
+                JSONObject summary = new JSONObject();
+                summary.put("computedAt", now);
+                summary.put("buckets", entry.getValue());
+                JSONObject later = laterByLanguage.get(entry.getKey());
+                if (later != null) {
+                    summary.put("later", later);
+                }
+                editor.putString(KEY_LANGUAGE_PREFIX + entry.getKey(), summary.toString());
+            }
+            editor.apply();
+            Log.d(TAG, "🔔 Сводка повторений пересчитана: языков " + byLanguage.size());
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Ошибка пересчёта сводки повторений", e);
+        }
+    }
+}
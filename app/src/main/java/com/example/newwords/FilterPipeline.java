@@ -0,0 +1,126 @@
+package com.example.newwords;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фильтрация списков вне UI-потока.
+ * Ввод дебаунсится, снимок входных данных берётся в UI-потоке, фильтр считается в фоне,
+ * а устаревшие запросы отменяются - в UI приходит только результат последнего.
+ *
+ * @param <Q> снимок входных данных (список + параметры фильтра)
+ * @param <R> результат фильтрации
+ */
+public class FilterPipeline<Q, R> {
+    private static final String TAG = "FilterPipeline";
+
+    public static final long DEFAULT_DEBOUNCE_MS = 200;
+
+    /**
+     * Снимает входные данные в UI-потоке (копия списка, текущие фильтры)
+     */
+    public interface QuerySource<Q> {
+        Q snapshot();
+    }
+
+    /**
+     * Считает результат в фоне. Длинные циклы должны проверять isCancelled()
+     */
+    public interface Filter<Q, R> {
+        R apply(Q query, Cancellation cancellation);
+    }
+
+    public interface ResultListener<R> {
+        void onResult(R result);
+    }
+
+    public interface Cancellation {
+        boolean isCancelled();
+    }
+
+    private final long debounceMs;
+    private final QuerySource<Q> source;
+    private final Filter<Q, R> filter;
+    private final ResultListener<R> listener;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicLong generation = new AtomicLong();
+    private final Runnable fireRunnable = this::fire;
+    private Future<?> inFlight;
+    private boolean closed = false;
+
+    public FilterPipeline(long debounceMs, QuerySource<Q> source, Filter<Q, R> filter, ResultListener<R> listener) {
+        this.debounceMs = debounceMs;
+        this.source = source;
+        this.filter = filter;
+        this.listener = listener;
+    }
+
+    /**
+     * Запрос от ввода текста: выполнится, когда ввод затихнет на debounceMs
+     */
+    public void request() {
+        if (closed) return;
+        mainHandler.removeCallbacks(fireRunnable);
+        mainHandler.postDelayed(fireRunnable, debounceMs);
+    }
+
+    /**
+     * Запрос без задержки (смена фильтра, загрузка данных)
+     */
+    public void requestNow() {
+        if (closed) return;
+        mainHandler.removeCallbacks(fireRunnable);
+        fire();
+    }
+
+    /**
+     * Отменяет всё и больше не принимает запросы (вызывать в onDestroyView)
+     */
+    public void close() {
+        closed = true;
+        generation.incrementAndGet();
+        mainHandler.removeCallbacks(fireRunnable);
+        if (inFlight != null) {
+            inFlight.cancel(true);
+        }
+        executor.shutdownNow();
+    }
+
+    private void fire() {
+        if (closed) return;
+        long id = generation.incrementAndGet();
+        if (inFlight != null) {
+            inFlight.cancel(true);
+        }
+
+        Q query = source.snapshot();
+        Cancellation cancellation = () -> generation.get() != id || Thread.currentThread().isInterrupted();
+
+        inFlight = executor.submit(() -> {
+            R result;
+            try {
+                result = filter.apply(query, cancellation);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Ошибка фильтрации", e);
+                return;
+            }
+            if (cancellation.isCancelled()) {
+                return;
+            }
+            mainHandler.post(() -> {
+                // Пока шли в UI-поток, мог прийти более новый запрос
+                if (!closed && generation.get() == id) {
+                    listener.onResult(result);
+                }
+            });
+        });
+    }
+}
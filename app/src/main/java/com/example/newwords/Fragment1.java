@@ -54,7 +54,7 @@ public class Fragment1 extends Fragment {
         currentLanguage = languageManager.getCurrentLanguage();
         Log.d(TAG, "onCreateView: currentLanguage = " + currentLanguage);
 
-        wordRepository = new WordRepository(getContext());
+        wordRepository = WordRepository.getInstance(requireContext());
         initViews(view);
         wordRepository.checkAndResetDailyProgress();
         // Загружаем статистику ИЗ КЕША (мгновенно!)
@@ -411,7 +411,7 @@ public class Fragment1 extends Fragment {
                 Log.d("Fragment1", "📊 getWordsFromCacheOnly вернул: " + words.size() + " слов");
 
                 if (!words.isEmpty()) {
-                    WordsFragment startFragment = WordsFragment.newInstanceWithWords(words, currentLanguage);
+                    WordsFragment startFragment = WordsFragment.newInstanceWithWords(requireContext(), words, currentLanguage);
                     requireActivity().getSupportFragmentManager().beginTransaction()
                             .replace(android.R.id.content, startFragment)
                             .addToBackStack("fragment1_navigation")
@@ -3,6 +3,9 @@ package com.example.newwords;
 import android.app.AlertDialog;
 import android.content.Context;
 import android.content.Intent;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
 import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
@@ -23,6 +26,9 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.util.Consumer;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.fragment.app.Fragment;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -46,6 +52,7 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
     private WordRepository wordRepository;
     private List<WordLibrary> availableLibraries = new ArrayList<>();
     private List<WordLibrary> filteredLibraries = new ArrayList<>(); // ← ДОБАВЬТЕ ЭТУ СТРОКУ
+    private FilterPipeline<LibraryQuery, LibraryQueryResult> libraryFilterPipeline;
     private Map<String, Boolean> activeLibrariesMap = new HashMap<>();
     private ProgressBar progressBar;
     private TextView emptyStateText;
@@ -68,6 +75,51 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
     private List<String> typeOptions = new ArrayList<>();
     private String currentTypeFilter = "all";  // "all", "public", "custom"
     private AdapterView.OnItemSelectedListener typeSpinnerListener;
+
+    // Импорт слов из файла: библиотека запоминается до возврата из выбора файла
+    private WordImporter wordImporter;
+    private String importTargetLibraryId;
+    private final ActivityResultLauncher<String[]> importFilePicker =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::onImportFilePicked);
+    // Колода Anki всегда идёт в новую библиотеку выбранного языка
+    private String ankiTargetLanguage;
+    private final ActivityResultLauncher<String[]> ankiFilePicker =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::onAnkiFilePicked);
+    // Ленивая загрузка слов выбранного языка
+    private LanguageHydrator languageHydrator;
+    private int hydrationDone = 0;
+    private int hydrationTotal = 0;
+    private final LanguageHydrator.HydrationListener hydrationListener = new LanguageHydrator.HydrationListener() {
+        @Override
+        public void onProgress(String language, int librariesDone, int librariesTotal, long bytes) {
+            if (!language.equals(currentLanguage)) return;
+            hydrationDone = librariesDone;
+            hydrationTotal = librariesTotal;
+            updateStartButtonState();
+        }
+
+        @Override
+        public void onStateChanged(String language, LanguageHydrator.LoadState state) {
+            if (!language.equals(currentLanguage)) return;
+            if (state == LanguageHydrator.LoadState.FAILED && isAdded()) {
+                Toast.makeText(getContext(), R.string.hydration_failed, Toast.LENGTH_SHORT).show();
+            }
+            updateStartButtonState();
+        }
+    };
+    // База, репозиторий и импорт привязаны к аккаунту: после смены (AccountScope) берутся заново
+    private final AccountScope.AccountChangeListener accountChangeListener = () -> {
+        if (getActivity() == null) return;
+        getActivity().runOnUiThread(() -> {
+            if (wordImporter != null) {
+                wordImporter.cancel();
+                wordImporter = null;
+            }
+            if (getContext() == null) return;
+            wordRepository = WordRepository.getInstance(getContext());
+            localDb = AppDatabase.getInstance(getContext());
+        });
+    };
     @Nullable
     @Override
 
@@ -78,12 +130,14 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
         View view = inflater.inflate(R.layout.fragment2, container, false);
 
         // Инициализируем репозиторий
-        wordRepository = new WordRepository(getContext());
+        wordRepository = WordRepository.getInstance(requireContext());
         localDb = AppDatabase.getInstance(getContext());
+        AccountScope.addAccountChangeListener(accountChangeListener);
 
         // Инициализируем менеджер языков
         languageManager = new LanguageManager(getContext());
         currentLanguage = languageManager.getCurrentLanguage();
+        languageHydrator = LanguageHydrator.getInstance(requireContext());
 
         // Находим View элементы
         librariesRecyclerView = view.findViewById(R.id.librariesRecyclerView);
@@ -109,11 +163,15 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
         setupRefreshButton(view);
 
         // Настраиваем поиск
+        libraryFilterPipeline = createLibraryFilterPipeline();
         setupSearch();
         setupFilters(view);
         // Загружаем библиотеки (с учетом текущего языка)
         loadLibraries();
 
+        // Слова текущего языка могли ещё не загрузиться (ленивая загрузка)
+        languageHydrator.ensureHydrated(currentLanguage, hydrationListener);
+
         return view;
     }
 
@@ -131,6 +189,7 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
                 // 2. Меняем язык с передачей текущих активных библиотек
                 languageManager.setCurrentLanguage("en", activeLibrariesMap);
                 currentLanguage = "en";
+                languageHydrator.ensureHydrated(currentLanguage, hydrationListener);
 
                 // 3. Обновляем UI
                 updateLanguageUI();
@@ -149,6 +208,7 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
                 // 2. Меняем язык с передачей текущих активных библиотек
                 languageManager.setCurrentLanguage("ba", activeLibrariesMap);
                 currentLanguage = "ba";
+                languageHydrator.ensureHydrated(currentLanguage, hydrationListener);
 
                 // 3. Обновляем UI
                 updateLanguageUI();
@@ -429,6 +489,7 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
      */
 
     private void saveActiveLibrariesToLocalDB() {
+        LanguageWordCache wordCache = LanguageWordCache.getInstance(requireContext());
         new Thread(() -> {
             try {
                 // Обновляем состояние библиотек в локальной БД
@@ -441,6 +502,7 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
                     if (localLib != null) {
                         localLib.setActive(isActive);
                         localDb.libraryDao().updateLibrary(localLib);
+                        wordCache.invalidateLibrary(localLib.getLibraryId());
                     }
                 }
                 Log.d(TAG, "✅ Локальная БД обновлена для языка " + currentLanguage);
@@ -458,6 +520,7 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
         saveActiveLibrariesForCurrentLanguage();
 
         // 2. Сохраняем в локальную БД
+        LanguageWordCache wordCache = LanguageWordCache.getInstance(requireContext());
         new Thread(() -> {
             try {
                 // Сначала деактивируем ВСЕ библиотеки для текущего языка
@@ -479,6 +542,8 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
                     }
                 }
 
+                // Деактивация шла по languageTo, так что задеты могут быть любые языки
+                wordCache.invalidateAll();
                 Log.d(TAG, "✅ Локальное сохранение: активировано " +
                         activatedCount + " библиотек для языка " + currentLanguage);
 
@@ -503,6 +568,12 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
         super.onDestroyView();
         // Сохраняем состояние при уничтожении view
         saveActiveLibrariesForCurrentLanguage();
+        languageHydrator.removeListener(hydrationListener);
+        AccountScope.removeAccountChangeListener(accountChangeListener);
+        if (libraryFilterPipeline != null) {
+            libraryFilterPipeline.close();
+            libraryFilterPipeline = null;
+        }
     }
 
 
@@ -517,7 +588,8 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                filterLibraries(s.toString());
+                // Фильтруем, когда ввод затих, и не в UI-потоке
+                libraryFilterPipeline.request();
             }
 
             @Override
@@ -694,6 +766,17 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
     private void updateStartButtonState() {
         if (startLearningButton != null && getActivity() != null) {
             getActivity().runOnUiThread(() -> {
+                // Пока слова языка загружаются, учить нечего - показываем прогресс
+                if (languageHydrator != null
+                        && languageHydrator.getState(currentLanguage) == LanguageHydrator.LoadState.LOADING) {
+                    startLearningButton.setEnabled(false);
+                    startLearningButton.setAlpha(0.5f);
+                    startLearningButton.setText(hydrationTotal > 0
+                            ? startLearningButton.getContext().getString(R.string.hydration_loading_progress, hydrationDone, hydrationTotal)
+                            : startLearningButton.getContext().getString(R.string.hydration_loading));
+                    return;
+                }
+
                 boolean hasActive = hasActiveLibraries();
                 startLearningButton.setEnabled(hasActive);
                 startLearningButton.setAlpha(hasActive ? 1.0f : 0.5f);
@@ -824,6 +907,11 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
                 createCustomLibrary(name, description, category, language);
             }
         });
+        dialog.setOnAnkiImportRequestedListener(language -> {
+            ankiTargetLanguage = language;
+            // У .apkg нет своего MIME-типа: провайдеры отдают его как zip или octet-stream
+            ankiFilePicker.launch(new String[]{"application/octet-stream", "application/zip", "application/apkg"});
+        });
         dialog.show(getParentFragmentManager(), "add_library_dialog");
     }
 
@@ -874,6 +962,7 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
         TextView titleTextView = view.findViewById(R.id.titleTextView);
         TextView addWordOption = view.findViewById(R.id.addWordOption);
         TextView viewWordsOption = view.findViewById(R.id.viewWordsOption);
+        TextView importWordsOption = view.findViewById(R.id.importWordsOption);
         TextView deleteOption = view.findViewById(R.id.deleteOption);
         Button cancelButton = view.findViewById(R.id.cancelButton);
 
@@ -898,6 +987,14 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
             dialog.dismiss();
         });
 
+        importWordsOption.setOnClickListener(v -> {
+            importTargetLibraryId = library.getLibraryId();
+            // Часть файловых менеджеров отдаёт csv как text/comma-separated-values или octet-stream
+            importFilePicker.launch(new String[]{"text/csv", "text/comma-separated-values",
+                    "text/tab-separated-values", "text/plain", "application/octet-stream"});
+            dialog.dismiss();
+        });
+
         deleteOption.setOnClickListener(v -> {
             deleteLibrary(library);
             dialog.dismiss();
@@ -925,6 +1022,152 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
                 });
     }
 
+    private void onImportFilePicked(@Nullable Uri uri) {
+        String libraryId = importTargetLibraryId;
+        importTargetLibraryId = null;
+        if (uri == null || libraryId == null || getContext() == null) return;
+
+        new AlertDialog.Builder(getContext())
+                .setTitle(R.string.lib_import_duplicates_title)
+                .setMessage(R.string.lib_import_duplicates_msg)
+                .setPositiveButton(R.string.word_add_duplicate_merge, (d, which) -> runImport(listener ->
+                        getWordImporter().importFrom(uri, libraryId, WordDedup.Policy.MERGE, listener)))
+                .setNegativeButton(R.string.word_add_duplicate_skip, (d, which) -> runImport(listener ->
+                        getWordImporter().importFrom(uri, libraryId, WordDedup.Policy.SKIP, listener)))
+                .setNeutralButton(R.string.common_cancel, null)
+                .show();
+    }
+
+    private void onAnkiFilePicked(@Nullable Uri uri) {
+        String language = ankiTargetLanguage;
+        ankiTargetLanguage = null;
+        if (uri == null || language == null || getContext() == null) return;
+
+        new AlertDialog.Builder(getContext())
+                .setTitle(R.string.lib_anki_progress_title)
+                .setMessage(R.string.lib_anki_progress_msg)
+                .setPositiveButton(R.string.lib_anki_progress_yes, (d, which) -> importAnkiDeck(uri, language, true))
+                .setNegativeButton(R.string.lib_anki_progress_no, (d, which) -> importAnkiDeck(uri, language, false))
+                .setNeutralButton(R.string.common_cancel, null)
+                .show();
+    }
+
+    private void importAnkiDeck(Uri uri, String language, boolean withProgress) {
+        String name = deckName(uri);
+        wordRepository.createCustomLibrary(name, getString(R.string.lib_anki_description), "custom", language,
+                new WordRepository.OnLibraryCreatedListener() {
+                    @Override
+                    public void onLibraryCreated(WordLibrary library) {
+                        if (!isAdded()) return;
+                        // Библиотека новая: дубль может найтись только в другой библиотеке языка,
+                        // такие слова просто не переносим. Колода не прочиталась или не дала
+                        // ни одного слова - библиотеку под неё убираем, повтор начнётся с чистой
+                        runImport(listener -> getWordImporter().importAnkiDeck(uri, library.getLibraryId(),
+                                withProgress, WordDedup.Policy.SKIP, listener),
+                                () -> discardImportLibrary(library.getLibraryId()));
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        if (!isAdded()) return;
+                        Toast.makeText(getContext(),
+                                getString(R.string.lib_create_error_params, e.getMessage()),
+                                Toast.LENGTH_LONG).show();
+                    }
+                });
+    }
+
+    /**
+     * Удаляет библиотеку, созданную под неудавшийся импорт (вместе со словами, если часть успела записаться)
+     */
+    private void discardImportLibrary(String libraryId) {
+        Log.d(TAG, "🗑️ Импорт не дал слов, убираем библиотеку " + libraryId);
+        wordRepository.deleteCustomLibrary(libraryId,
+                () -> {
+                    if (isAdded()) loadLibraries();
+                },
+                e -> Log.e(TAG, "❌ Не удалось убрать библиотеку " + libraryId, e));
+    }
+
+    /**
+     * Название колоды - имя файла без .apkg
+     */
+    private String deckName(Uri uri) {
+        String name = null;
+        try (Cursor cursor = requireContext().getContentResolver()
+                .query(uri, new String[]{OpenableColumns.DISPLAY_NAME}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                name = cursor.getString(0);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Не удалось получить имя файла колоды", e);
+        }
+        if (name == null || name.trim().isEmpty()) {
+            return "Anki";
+        }
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private WordImporter getWordImporter() {
+        if (wordImporter == null) {
+            wordImporter = new WordImporter(requireContext());
+        }
+        return wordImporter;
+    }
+
+    private void runImport(Consumer<WordImporter.OnImportListener> starter) {
+        runImport(starter, null);
+    }
+
+    /**
+     * Диалог прогресса с отменой на время импорта; starter запускает сам импорт с готовым слушателем.
+     * onNothingImported - после ошибки или импорта, не добавившего ни одного слова
+     */
+    private void runImport(Consumer<WordImporter.OnImportListener> starter, @Nullable Runnable onNothingImported) {
+        AlertDialog progressDialog = new AlertDialog.Builder(getContext())
+                .setTitle(R.string.lib_import_progress_title)
+                .setMessage(getString(R.string.lib_import_progress_msg, 0, 0))
+                .setCancelable(false)
+                .setNegativeButton(R.string.common_cancel, (d, which) -> getWordImporter().cancel())
+                .show();
+
+        starter.accept(new WordImporter.OnImportListener() {
+            @Override
+            public void onProgress(int imported, int skipped) {
+                if (!isAdded()) return;
+                progressDialog.setMessage(getString(R.string.lib_import_progress_msg, imported, skipped));
+            }
+
+            @Override
+            public void onComplete(WordImporter.Result result) {
+                progressDialog.dismiss();
+                if (result.imported == 0 && onNothingImported != null) {
+                    onNothingImported.run();
+                }
+                if (!isAdded()) return;
+                String message = result.cancelled
+                        ? getString(R.string.lib_import_cancelled, result.imported)
+                        : getString(R.string.lib_import_done, result.imported, result.duplicates + result.invalid);
+                Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
+                loadLibraries();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                progressDialog.dismiss();
+                if (onNothingImported != null) {
+                    onNothingImported.run();
+                }
+                if (!isAdded()) return;
+                Toast.makeText(getContext(), getString(R.string.lib_import_error, e.getMessage()),
+                        Toast.LENGTH_LONG).show();
+                // Часть пачек могла успеть записаться
+                loadLibraries();
+            }
+        });
+    }
+
     private void showLibraryWords(WordLibrary library) {
         Log.d(TAG, "Просмотр слов библиотеки: " + library.getName());
 
@@ -991,48 +1234,6 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
     }
 
 
-    /**
-     * Применяет текстовый поиск к уже отфильтрованному списку
-     */
-    private void applyTextSearchToFilteredList(String query) {
-        String lowerQuery = query.toLowerCase().trim();
-        List<WordLibrary> searchResult = new ArrayList<>();
-
-        for (WordLibrary library : filteredLibraries) {
-            String name = library.getLocalizedName().toLowerCase();
-            String description = library.getLocalizedDescription().toLowerCase();
-
-            if (name.contains(lowerQuery) || description.contains(lowerQuery)) {
-                searchResult.add(library);
-            }
-        }
-
-        libraryAdapter.updateLibraries(searchResult);
-
-        // Показываем состояние пустого списка для поиска
-        if (searchResult.isEmpty() && !query.isEmpty()) {
-            // Ситуация: есть фильтр, но поиск не дал результатов
-            showEmptyState(true);
-            emptyStateText.setText(getString(R.string.lib_search_not_found, query));
-        } else if (searchResult.isEmpty() && filteredLibraries.isEmpty()) {
-            // Ситуация: нет библиотек после фильтрации (и поиск пуст)
-            showEmptyState(true);
-            if (!currentFilter.equals("all")) {
-                emptyStateText.setText(getLocalizedString(
-                        "Нет библиотек с выбранными фильтрами",
-                        "Һайланған фильтрҙар буйынса китапханалар юҡ",
-                        "No libraries with selected filters"
-                ));
-            } else {
-                emptyStateText.setText(R.string.lib_select_tv_empty_state);
-            }
-        } else {
-            // Есть результаты поиска ИЛИ есть библиотеки, но поиск не применялся
-            showEmptyState(false);
-        }
-    }
-
-
     // ============ НОВЫЕ МЕТОДЫ ДЛЯ ОДНОГО SPINNER'А ============
 
     /**
@@ -1091,66 +1292,108 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
 
         typeSpinner.setOnItemSelectedListener(typeSpinnerListener);
     }
-    private boolean isLibraryPublic(WordLibrary library) {
+    private static boolean isLibraryPublic(WordLibrary library) {
         String createdBy = library.getCreatedBy();
         return createdBy == null || createdBy.equals("system");
     }
     private void applyFilter() {
-        Log.d(TAG, "applyFilter: currentFilter = " + currentFilter);
-        Log.d(TAG, "applyFilter: currentTypeFilter = " + currentTypeFilter);
-        Log.d(TAG, "applyFilter: availableLibraries size = " + availableLibraries.size());
+        Log.d(TAG, "applyFilter: currentFilter = " + currentFilter + ", type = " + currentTypeFilter);
+        if (libraryFilterPipeline != null) {
+            libraryFilterPipeline.requestNow();
+        }
+    }
 
-        List<WordLibrary> result;
+    /**
+     * Входные данные фильтра библиотек, снятые в UI-потоке
+     */
+    private static class LibraryQuery {
+        final List<WordLibrary> libraries;
+        final String category;
+        final String type;
+        final String text;
+        final String locale;
+
+        LibraryQuery(List<WordLibrary> libraries, String category, String type, String text, String locale) {
+            this.libraries = libraries;
+            this.category = category;
+            this.type = type;
+            this.text = text;
+            this.locale = locale;
+        }
+    }
 
-        // 1. ФИЛЬТР ПО КАТЕГОРИИ
-        if (!currentFilter.equals("all")) {
-            result = new ArrayList<>();
-            for (WordLibrary library : availableLibraries) {
-                String category = getCategoryDisplayName(library.getCategory());
-                String subcategory = library.getLocalizedSubcategory();
+    private static class LibraryQueryResult {
+        // После фильтров по категории и типу
+        final List<WordLibrary> filtered;
+        // После текстового поиска - то, что показываем
+        final List<WordLibrary> visible;
+
+        LibraryQueryResult(List<WordLibrary> filtered, List<WordLibrary> visible) {
+            this.filtered = filtered;
+            this.visible = visible;
+        }
+    }
 
-                if (currentFilter.equals(category) ||
-                        (subcategory != null && currentFilter.equals(subcategory))) {
-                    result.add(library);
+    private FilterPipeline<LibraryQuery, LibraryQueryResult> createLibraryFilterPipeline() {
+        return new FilterPipeline<>(FilterPipeline.DEFAULT_DEBOUNCE_MS,
+                () -> new LibraryQuery(new ArrayList<>(availableLibraries), currentFilter, currentTypeFilter,
+                        searchEditText.getText().toString(),
+                        getResources().getConfiguration().locale.getLanguage()),
+                Fragment2::filterLibraries,
+                this::showLibraryFilterResult);
+    }
+
+    /**
+     * Фоновая часть: категория -> тип -> текстовый поиск
+     */
+    private static LibraryQueryResult filterLibraries(LibraryQuery query, FilterPipeline.Cancellation cancellation) {
+        List<WordLibrary> filtered = new ArrayList<>();
+        for (WordLibrary library : query.libraries) {
+            if (cancellation.isCancelled()) break;
+
+            // 1. ФИЛЬТР ПО КАТЕГОРИИ
+            if (!query.category.equals("all")) {
+                String category = getCategoryDisplayName(library.getCategory(), query.locale);
+                String subcategory = library.getLocalizedSubcategory();
+                if (!query.category.equals(category) &&
+                        (subcategory == null || !query.category.equals(subcategory))) {
+                    continue;
                 }
             }
-            Log.d(TAG, "applyFilter: после фильтра по категории размер = " + result.size());
-        } else {
-            result = new ArrayList<>(availableLibraries);
-            Log.d(TAG, "applyFilter: показаны все категории, размер = " + result.size());
-        }
 
-        // 2. ФИЛЬТР ПО ТИПУ (публичные / пользовательские)
-        if (!currentTypeFilter.equals("all")) {
-            List<WordLibrary> typeFiltered = new ArrayList<>();
-            for (WordLibrary library : result) {
+            // 2. ФИЛЬТР ПО ТИПУ (публичные / пользовательские)
+            if (!query.type.equals("all")) {
                 boolean isPublic = isLibraryPublic(library);
-                if (currentTypeFilter.equals("public") && isPublic) {
-                    typeFiltered.add(library);
-                } else if (currentTypeFilter.equals("custom") && !isPublic) {
-                    typeFiltered.add(library);
+                if (query.type.equals("public") != isPublic) {
+                    continue;
                 }
             }
-            result = typeFiltered;
-            Log.d(TAG, "applyFilter: после фильтра по типу размер = " + result.size());
-        } else {
-            Log.d(TAG, "applyFilter: показаны все типы");
+            filtered.add(library);
         }
 
-        // ОБНОВЛЯЕМ filteredLibraries
-        filteredLibraries.clear();
-        filteredLibraries.addAll(result);
-        Log.d(TAG, "applyFilter: filteredLibraries size = " + filteredLibraries.size());
-
-        // Применяем текстовый поиск
-        String searchQuery = searchEditText.getText().toString();
-        if (searchQuery.trim().isEmpty()) {
-            libraryAdapter.updateLibraries(filteredLibraries);
-            Log.d(TAG, "applyFilter: показано библиотек (без поиска) = " + filteredLibraries.size());
-        } else {
-            applyTextSearchToFilteredList(searchQuery);
+        // 3. ТЕКСТОВЫЙ ПОИСК
+        String normalizedQuery = SearchNormalizer.normalize(query.text);
+        if (normalizedQuery.isEmpty()) {
+            return new LibraryQueryResult(filtered, filtered);
         }
+        List<WordLibrary> visible = new ArrayList<>();
+        for (WordLibrary library : filtered) {
+            if (cancellation.isCancelled()) break;
+            // Ключ покрывает название и описание на всех языках
+            if (SearchNormalizer.matches(library.getSearchKey(), normalizedQuery)) {
+                visible.add(library);
+            }
+        }
+        return new LibraryQueryResult(filtered, visible);
+    }
+
+    private void showLibraryFilterResult(LibraryQueryResult result) {
+        if (libraryAdapter == null || getContext() == null) return;
 
+        filteredLibraries = result.filtered;
+        Log.d(TAG, "applyFilter: отфильтровано " + filteredLibraries.size() + ", показано " + result.visible.size());
+
+        libraryAdapter.updateLibraries(result.visible);
         libraryAdapter.updateActiveLibraries(activeLibrariesMap);
         updateStartButtonState();
         updateEmptyStateAfterFilter();
@@ -1160,7 +1403,7 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
      * Обновляет состояние пустого списка после применения фильтров
      */
     private void updateEmptyStateAfterFilter() {
-        boolean hasItems = libraryAdapter.getItemCount() > 0;
+        boolean hasItems = libraryAdapter.getSubmittedItemCount() > 0;
         String searchQuery = searchEditText.getText().toString();
 
         if (hasItems) {
@@ -1179,6 +1422,10 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
                         "Нет библиотек с выбранными фильтрами",
                         "Һайланған фильтрҙар буйынса китапханалар юҡ",
                         "No libraries with selected filters"));
+            } else if (availableLibraries.isEmpty()) {
+                // Для языка нет ни одной библиотеки (результат фильтра приходит после loadLibraries)
+                String languageName = languageManager.getLanguageDisplayName(currentLanguage);
+                emptyStateText.setText(getString(R.string.lib_select_error_no_libraries, languageName));
             } else if (filteredLibraries.isEmpty()) {
                 // Нет библиотек вообще
                 emptyStateText.setText(R.string.lib_select_tv_empty_state);
@@ -1244,46 +1491,6 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
         });
     }
 
-    private void filterLibraries(String query) {
-        if (query.isEmpty()) {
-            libraryAdapter.updateLibraries(filteredLibraries);
-            if (filteredLibraries.isEmpty()) {
-                showEmptyState(true);
-                if (!currentFilter.equals("all")) {
-                    emptyStateText.setText(getLocalizedString(
-                            "Нет библиотек с выбранными фильтрами",
-                            "Һайланған фильтрҙар буйынса китапханалар юҡ",
-                            "No libraries with selected filters"));
-                } else {
-                    emptyStateText.setText(R.string.lib_select_tv_empty_state);
-                }
-            } else {
-                showEmptyState(false);
-            }
-        } else {
-            String lowerQuery = query.toLowerCase().trim();
-            List<WordLibrary> searchResult = new ArrayList<>();
-            for (WordLibrary library : filteredLibraries) {
-                String name = library.getLocalizedName().toLowerCase();
-                String description = library.getLocalizedDescription().toLowerCase();
-                String category = library.getCategory() != null ? library.getCategory().toLowerCase() : "";
-                if (name.contains(lowerQuery) || description.contains(lowerQuery) || category.contains(lowerQuery)) {
-                    searchResult.add(library);
-                }
-            }
-            libraryAdapter.updateLibraries(searchResult);
-            if (searchResult.isEmpty()) {
-                showEmptyState(true);
-                emptyStateText.setText(getString(R.string.lib_search_not_found, query));
-            } else {
-                showEmptyState(false);
-            }
-        }
-        libraryAdapter.updateActiveLibraries(activeLibrariesMap);
-    }
-
-
-
     // В методе setupFilters сохраните слушатель в поле класса
     private void setupFilters(View view) {
         filterSpinner = view.findViewById(R.id.filterSpinner);
@@ -1358,7 +1565,13 @@ public class Fragment2 extends Fragment implements LibraryAdapter.OnLibraryActio
     }
 
     private String getCategoryDisplayName(String category) {
-        String currentLocale = getResources().getConfiguration().locale.getLanguage();
+        return getCategoryDisplayName(category, getResources().getConfiguration().locale.getLanguage());
+    }
+
+    /**
+     * Без обращения к ресурсам - можно вызывать из фонового фильтра
+     */
+    private static String getCategoryDisplayName(String category, String currentLocale) {
         boolean isRussian = currentLocale.equals("ru");
         boolean isBashkir = currentLocale.equals("ba");
 
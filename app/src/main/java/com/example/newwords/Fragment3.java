@@ -1,7 +1,10 @@
 package com.example.newwords;
 
+import android.app.AlertDialog;
 import android.content.Context;
+import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
 import android.graphics.Typeface;
 import android.os.Bundle;
 import android.view.LayoutInflater;
@@ -9,6 +12,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -19,6 +23,9 @@ import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.bumptech.glide.Glide;
 
+import org.json.JSONException;
+import org.json.JSONObject;
+
 public class Fragment3 extends Fragment {
 
     private TextView userNameTextView, userEmailTextView;
@@ -144,6 +151,48 @@ public class Fragment3 extends Fragment {
 
         avatarImageView.setOnClickListener(v -> refreshUserData());
         userNameTextView.setOnClickListener(v -> refreshUserData());
+
+        // Скрытая диагностика кеша - только в debug-сборке
+        boolean debuggable = (requireContext().getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        if (debuggable) {
+            avatarImageView.setOnLongClickListener(v -> {
+                showCacheDiagnostics();
+                return true;
+            });
+        }
+    }
+
+    private void showCacheDiagnostics() {
+        new CacheDiagnostics(requireContext()).buildReport(new CacheDiagnostics.OnReportListener() {
+            @Override
+            public void onReportReady(JSONObject report) {
+                if (!isAdded()) return;
+                String text;
+                try {
+                    text = report.toString(2);
+                } catch (JSONException e) {
+                    text = report.toString();
+                }
+                String compact = report.toString();
+                new AlertDialog.Builder(requireContext())
+                        .setTitle(R.string.diagnostics_title)
+                        .setMessage(text)
+                        .setPositiveButton(R.string.diagnostics_share, (dialog, which) -> {
+                            Intent share = new Intent(Intent.ACTION_SEND);
+                            share.setType("application/json");
+                            share.putExtra(Intent.EXTRA_TEXT, compact);
+                            startActivity(Intent.createChooser(share, getString(R.string.diagnostics_share_chooser)));
+                        })
+                        .setNegativeButton(R.string.diagnostics_close, null)
+                        .show();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (!isAdded()) return;
+                Toast.makeText(requireContext(), getString(R.string.diagnostics_error, e.getMessage()), Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void refreshUserData() {
@@ -46,7 +46,7 @@ public class FragmentLoginParamsOption extends Fragment {
         View view = inflater.inflate(R.layout.fragment_login_params_option, container, false);
 
         mAuth = FirebaseAuth.getInstance();
-        wordRepository = new WordRepository(getContext());
+        wordRepository = WordRepository.getInstance(requireContext());
 
         // Инициализация View элементов
         initViews(view);
@@ -225,21 +225,15 @@ public class FragmentLoginParamsOption extends Fragment {
 
     // Остальные методы (logoutUser, deleteUserAccount и т.д.) остаются без изменений
     private void logoutUser() {
-        Log.d("Logout", "🚪 Начало выхода из аккаунта с очисткой кеша");
-        Toast.makeText(getContext(), "Выход...", Toast.LENGTH_SHORT).show();
-
-        wordRepository.clearLocalCache(
-                () -> {
-                    mAuth.signOut();
-                    Log.d("Logout", "✅ Кеш очищен, выход выполнен");
-                    goToLoginActivity();
-                },
-                e -> {
-                    Log.e("Logout", "❌ Ошибка очистки кеша, но выходим", (Throwable) e);
-                    mAuth.signOut();
-                    goToLoginActivity();
-                }
-        );
+        Log.d("Logout", "🚪 Выход из аккаунта");
+
+        // Фоновая синхронизация старого аккаунта больше не нужна
+        CacheSyncScheduler.cancelAll(requireContext());
+
+        // Кеш не чистим: у аккаунта своя база (AccountScope), при следующем входе она на месте,
+        // а другой аккаунт откроет свою
+        mAuth.signOut();
+        goToLoginActivity();
     }
 
     private void goToLoginActivity() {
@@ -1,11 +1,7 @@
 package com.example.newwords;
 
-import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
 import android.content.SharedPreferences;
-import android.os.Build;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.util.Log;
@@ -21,8 +17,6 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
-import java.util.Calendar;
-
 public class FragmentNotificationsOption extends Fragment {
 
     private RadioGroup notificationOptionsGroup;
@@ -220,140 +214,17 @@ public class FragmentNotificationsOption extends Fragment {
         }
     }
 
+    // Будильники ставит и снимает NotificationScheduler - Intent у установки и отмены общий
     private void scheduleDailyNotification(String time) {
-        try {
-            String[] timeParts = time.split(":");
-            int hour = Integer.parseInt(timeParts[0]);
-            int minute = Integer.parseInt(timeParts[1]);
-
-            Calendar calendar = Calendar.getInstance();
-            calendar.set(Calendar.HOUR_OF_DAY, hour);
-            calendar.set(Calendar.MINUTE, minute);
-            calendar.set(Calendar.SECOND, 0);
-            calendar.set(Calendar.MILLISECOND, 0);
-
-            Log.d("Notifications", "Устанавливаем уведомление на: " + calendar.getTime());
-
-            // Если время уже прошло сегодня, установим на завтра
-            if (calendar.getTimeInMillis() <= System.currentTimeMillis()) {
-                calendar.add(Calendar.DAY_OF_YEAR, 1);
-                Log.d("Notifications", "Время прошло, устанавливаем на завтра: " + calendar.getTime());
-            }
-
-            Intent notificationIntent = new Intent(requireContext(), NotificationReceiver.class);
-            notificationIntent.setAction("DAILY_REMINDER");
-            notificationIntent.putExtra("title", "Пора учить слова!");
-            notificationIntent.putExtra("message", "Не забудьте позаниматься сегодня ✨");
-
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                    requireContext(),
-                    1001,
-                    notificationIntent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-
-            AlarmManager alarmManager = (AlarmManager) requireContext().getSystemService(Context.ALARM_SERVICE);
-
-            if (alarmManager != null) {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    alarmManager.setExactAndAllowWhileIdle(
-                            AlarmManager.RTC_WAKEUP,
-                            calendar.getTimeInMillis(),
-                            pendingIntent
-                    );
-                } else {
-                    alarmManager.setExact(
-                            AlarmManager.RTC_WAKEUP,
-                            calendar.getTimeInMillis(),
-                            pendingIntent
-                    );
-                }
-
-                Log.d("Notifications", "Ежедневное уведомление установлено на: " + calendar.getTime());
-            }
-
-        } catch (Exception e) {
-            Log.e("Notifications", "Ошибка установки напоминания", e);
-            Toast.makeText(requireContext(), "Ошибка установки напоминания: " + e.getMessage(), Toast.LENGTH_LONG).show();
-        }
+        NotificationScheduler.scheduleDailyNotification(requireContext(), time);
     }
+
     private void scheduleInactivityNotification() {
-        try {
-            Calendar calendar = Calendar.getInstance();
-            calendar.add(Calendar.DAY_OF_YEAR, 1); // Через 1 день
-            calendar.set(Calendar.SECOND, 0);
-            calendar.set(Calendar.MILLISECOND, 0);
-
-            Intent notificationIntent = new Intent(requireContext(), NotificationReceiver.class);
-            notificationIntent.setAction("INACTIVITY_REMINDER");
-            notificationIntent.putExtra("title", "Мы по вам скучаем!");
-            notificationIntent.putExtra("message", "Вы давно не занимались. Возвращайтесь! 📚");
-
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                    requireContext(),
-                    1002,
-                    notificationIntent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-
-            AlarmManager alarmManager = (AlarmManager) requireContext().getSystemService(Context.ALARM_SERVICE);
-
-            if (alarmManager != null) {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    alarmManager.setExactAndAllowWhileIdle(
-                            AlarmManager.RTC_WAKEUP,
-                            calendar.getTimeInMillis(),
-                            pendingIntent
-                    );
-                } else {
-                    alarmManager.setExact(
-                            AlarmManager.RTC_WAKEUP,
-                            calendar.getTimeInMillis(),
-                            pendingIntent
-                    );
-                }
-                Log.d("Notifications", "Уведомление о бездействии установлено на: " + calendar.getTime());
-            }
-        } catch (Exception e) {
-            Log.e("Notifications", "Ошибка установки уведомления о бездействии", e);
-            Toast.makeText(requireContext(), "Ошибка установки напоминания: " + e.getMessage(), Toast.LENGTH_LONG).show();
-        }
+        NotificationScheduler.scheduleInactivityNotification(requireContext());
     }
 
     private void cancelAllNotifications() {
-        try {
-            AlarmManager alarmManager = (AlarmManager) requireContext().getSystemService(Context.ALARM_SERVICE);
-
-            // Отменяем ежедневное уведомление
-            Intent dailyIntent = new Intent(requireContext(), NotificationReceiver.class);
-            PendingIntent dailyPending = PendingIntent.getBroadcast(
-                    requireContext(),
-                    1001,
-                    dailyIntent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-            if (alarmManager != null && dailyPending != null) {
-                alarmManager.cancel(dailyPending);
-                dailyPending.cancel();
-            }
-
-            // Отменяем уведомление о бездействии
-            Intent inactivityIntent = new Intent(requireContext(), NotificationReceiver.class);
-            PendingIntent inactivityPending = PendingIntent.getBroadcast(
-                    requireContext(),
-                    1002,
-                    inactivityIntent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-            if (alarmManager != null && inactivityPending != null) {
-                alarmManager.cancel(inactivityPending);
-                inactivityPending.cancel();
-            }
-
-            Log.d("Notifications", "Все уведомления отменены");
-        } catch (Exception e) {
-            Log.e("Notifications", "Ошибка отмены уведомлений", e);
-        }
+        NotificationScheduler.cancelAllNotifications(requireContext());
     }
 
     @Override
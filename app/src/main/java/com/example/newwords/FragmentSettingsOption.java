@@ -5,6 +5,7 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
+import android.net.Uri;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -18,6 +19,8 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.fragment.app.Fragment;
 
 import com.google.firebase.auth.FirebaseAuth;
@@ -25,6 +28,10 @@ import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.auth.UserProfileChangeRequest;
 import com.google.firebase.firestore.FirebaseFirestore;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
 public class FragmentSettingsOption extends Fragment {
 
     // Интерфейс для обратного вызова
@@ -37,11 +44,18 @@ public class FragmentSettingsOption extends Fragment {
     private TextView currentUsernameTextView;
     private EditText newUsernameEditText;
     private Button saveUsernameButton, backButton;
-    private TextView languageTextView, themeTextView;
+    private TextView languageTextView, themeTextView, backupTextView;
 
     private FirebaseAuth mAuth;
     private FirebaseFirestore db;
 
+    // Резервная копия: файл выбирает система, LocalBackup пишет и читает его потоком
+    private LocalBackup localBackup;
+    private final ActivityResultLauncher<String> backupFileCreator =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument(LocalBackup.MIME_TYPE), this::onBackupFileCreated);
+    private final ActivityResultLauncher<String[]> backupFilePicker =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::onBackupFilePicked);
+
     // Метод для установки слушателя
     public void setOnUsernameChangedListener(OnUsernameChangedListener listener) {
         this.usernameChangedListener = listener;
@@ -87,6 +101,7 @@ public class FragmentSettingsOption extends Fragment {
         backButton = view.findViewById(R.id.backButton);
         languageTextView = view.findViewById(R.id.languageTextView);
         themeTextView = view.findViewById(R.id.themeTextView);
+        backupTextView = view.findViewById(R.id.backupTextView);
     }
 
     private void loadCurrentUserData() {
@@ -143,6 +158,10 @@ public class FragmentSettingsOption extends Fragment {
         if (themeTextView != null) {
             themeTextView.setOnClickListener(v -> showThemeDialog());
         }
+
+        if (backupTextView != null) {
+            backupTextView.setOnClickListener(v -> showBackupDialog());
+        }
     }
 
     private void saveNewUsername() {
@@ -360,6 +379,106 @@ public class FragmentSettingsOption extends Fragment {
         dialog.show();
     }
 
+    private void showBackupDialog() {
+        AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
+        LayoutInflater inflater = LayoutInflater.from(getContext());
+        View dialogView = inflater.inflate(R.layout.dialog_language_theme, null);
+
+        TextView titleTextView = dialogView.findViewById(R.id.titleTextView);
+        titleTextView.setText(R.string.backup_dialog_title);
+
+        TextView option1 = dialogView.findViewById(R.id.option1);
+        TextView option2 = dialogView.findViewById(R.id.option2);
+        TextView option3 = dialogView.findViewById(R.id.option3);
+        Button cancelButton = dialogView.findViewById(R.id.cancelButton);
+
+        option1.setText(R.string.backup_option_export);
+        option2.setText(R.string.backup_option_restore);
+        option3.setVisibility(View.GONE);
+
+        builder.setView(dialogView);
+
+        AlertDialog dialog = builder.create();
+        dialog.requestWindowFeature(Window.FEATURE_NO_TITLE);
+
+        if (dialog.getWindow() != null) {
+            dialog.getWindow().setBackgroundDrawable(new ColorDrawable(Color.TRANSPARENT));
+        }
+
+        option1.setOnClickListener(v -> {
+            String date = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+            backupFileCreator.launch("newwords-backup-" + date + ".json.gz");
+            dialog.dismiss();
+        });
+
+        option2.setOnClickListener(v -> {
+            new AlertDialog.Builder(requireContext())
+                    .setTitle(R.string.backup_restore_confirm_title)
+                    .setMessage(R.string.backup_restore_confirm_msg)
+                    .setPositiveButton(R.string.backup_restore_confirm_btn, (d, which) ->
+                            // Часть провайдеров не знает application/gzip
+                            backupFilePicker.launch(new String[]{LocalBackup.MIME_TYPE, "application/octet-stream"}))
+                    .setNegativeButton(R.string.common_cancel, null)
+                    .show();
+            dialog.dismiss();
+        });
+
+        cancelButton.setOnClickListener(v -> dialog.dismiss());
+
+        dialog.show();
+    }
+
+    private void onBackupFileCreated(@Nullable Uri uri) {
+        if (uri == null || getContext() == null) return;
+        AlertDialog progressDialog = showBackupProgress(R.string.backup_progress_export);
+        getLocalBackup().exportTo(uri, backupListener(progressDialog, R.string.backup_export_done));
+    }
+
+    private void onBackupFilePicked(@Nullable Uri uri) {
+        if (uri == null || getContext() == null) return;
+        AlertDialog progressDialog = showBackupProgress(R.string.backup_progress_restore);
+        getLocalBackup().restoreFrom(uri, backupListener(progressDialog, R.string.backup_restore_done));
+    }
+
+    private LocalBackup getLocalBackup() {
+        if (localBackup == null) {
+            localBackup = new LocalBackup(requireContext());
+        }
+        return localBackup;
+    }
+
+    private AlertDialog showBackupProgress(int titleRes) {
+        return new AlertDialog.Builder(requireContext())
+                .setTitle(titleRes)
+                .setMessage(getString(R.string.backup_progress_words, 0, 0))
+                .setCancelable(false)
+                .show();
+    }
+
+    private LocalBackup.OnBackupListener backupListener(AlertDialog progressDialog, int doneRes) {
+        return new LocalBackup.OnBackupListener() {
+            @Override
+            public void onProgress(int words, int totalWords) {
+                if (!isAdded()) return;
+                progressDialog.setMessage(getString(R.string.backup_progress_words, words, totalWords));
+            }
+
+            @Override
+            public void onComplete(int words) {
+                progressDialog.dismiss();
+                if (!isAdded()) return;
+                Toast.makeText(getContext(), getString(doneRes, words), Toast.LENGTH_LONG).show();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                progressDialog.dismiss();
+                if (!isAdded()) return;
+                Toast.makeText(getContext(), getString(R.string.backup_error, e.getMessage()), Toast.LENGTH_LONG).show();
+            }
+        };
+    }
+
     @Override
     public void onResume() {
         super.onResume();
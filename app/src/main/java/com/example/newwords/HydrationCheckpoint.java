@@ -0,0 +1,53 @@
+package com.example.newwords;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+import androidx.room.TypeConverters;
+
+import java.util.Date;
+
+/**
+ * Отметка о полностью загруженной библиотеке при первичной загрузке языка.
+ * Пишется в той же транзакции, что и слова библиотеки, поэтому после убийства
+ * приложения загрузка продолжается со следующей библиотеки, а не с нуля.
+ */
+@Entity(tableName = "hydration_checkpoints")
+@TypeConverters(DateConverter.class)
+public class HydrationCheckpoint {
+    @PrimaryKey
+    @NonNull
+    private String libraryId;
+    private String language;
+    private int wordCount;
+    private long bytes;
+    private Date completedAt;
+
+    public HydrationCheckpoint() {
+        this.libraryId = "";
+    }
+
+    public HydrationCheckpoint(@NonNull String libraryId, String language, int wordCount, long bytes) {
+        this.libraryId = libraryId;
+        this.language = language;
+        this.wordCount = wordCount;
+        this.bytes = bytes;
+        this.completedAt = new Date();
+    }
+
+    @NonNull
+    public String getLibraryId() { return libraryId; }
+    public void setLibraryId(@NonNull String libraryId) { this.libraryId = libraryId; }
+
+    public String getLanguage() { return language; }
+    public void setLanguage(String language) { this.language = language; }
+
+    public int getWordCount() { return wordCount; }
+    public void setWordCount(int wordCount) { this.wordCount = wordCount; }
+
+    public long getBytes() { return bytes; }
+    public void setBytes(long bytes) { this.bytes = bytes; }
+
+    public Date getCompletedAt() { return completedAt; }
+    public void setCompletedAt(Date completedAt) { this.completedAt = completedAt; }
+}
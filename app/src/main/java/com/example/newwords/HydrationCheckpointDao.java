@@ -0,0 +1,28 @@
+package com.example.newwords;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface HydrationCheckpointDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertCheckpoint(HydrationCheckpoint checkpoint);
+
+    @Query("SELECT * FROM hydration_checkpoints WHERE language = :language")
+    List<HydrationCheckpoint> getCheckpointsForLanguage(String language);
+
+    @Query("DELETE FROM hydration_checkpoints WHERE libraryId = :libraryId")
+    void deleteCheckpoint(String libraryId);
+
+    // Язык загружен целиком - продолжать нечего
+    @Query("DELETE FROM hydration_checkpoints WHERE language = :language")
+    void deleteCheckpointsForLanguage(String language);
+
+    @Query("DELETE FROM hydration_checkpoints")
+    void clearAllCheckpoints();
+}
@@ -0,0 +1,202 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Ленивая загрузка языков: слова и прогресс языка качаются только при его первом выборе.
+ * Состояние каждого языка хранится отдельно, загрузка одного языка идёт не больше одного раза.
+ * Прерванная загрузка продолжается с последней сохранённой библиотеки (HydrationCheckpoint).
+ */
+public class LanguageHydrator {
+    private static final String TAG = "LanguageHydrator";
+    static final String KEY_LOADED_PREFIX = "loaded_";
+    private static final String KEY_MIGRATED = "migrated_from_eager_cache";
+
+    static final String[] SUPPORTED_LANGUAGES = {"ba", "en", "ru"};
+
+    public enum LoadState {
+        NOT_LOADED,
+        LOADING,
+        LOADED,
+        FAILED
+    }
+
+    public interface HydrationListener {
+        void onProgress(String language, int librariesDone, int librariesTotal, long bytes);
+
+        void onStateChanged(String language, LoadState state);
+    }
+
+    private static volatile LanguageHydrator INSTANCE;
+
+    private final Context appContext;
+    // Отметки о загрузке относятся к базе аккаунта - у каждого uid свои
+    private final String userId;
+    private final SharedPreferences prefs;
+    private final Map<String, LoadState> states = new ConcurrentHashMap<>();
+    private final List<HydrationListener> listeners = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private LanguageHydrator(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.userId = AccountScope.currentUserId();
+        this.prefs = AccountScope.prefs(appContext, AccountScope.LANGUAGE_HYDRATION, userId);
+    }
+
+    public static LanguageHydrator getInstance(Context context) {
+        String currentUserId = AccountScope.currentUserId();
+        LanguageHydrator instance = INSTANCE;
+        if (instance == null || !instance.userId.equals(currentUserId)) {
+            synchronized (LanguageHydrator.class) {
+                instance = INSTANCE;
+                if (instance == null || !instance.userId.equals(currentUserId)) {
+                    instance = new LanguageHydrator(context);
+                    INSTANCE = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    public LoadState getState(String language) {
+        LoadState state = states.get(language);
+        if (state != null) {
+            return state;
+        }
+        return prefs.getBoolean(KEY_LOADED_PREFIX + language, false) ? LoadState.LOADED : LoadState.NOT_LOADED;
+    }
+
+    public boolean isHydrated(String language) {
+        return getState(language) == LoadState.LOADED;
+    }
+
+    /**
+     * Языки, слова которых уже лежат в кеше (их и нужно периодически синхронизировать)
+     */
+    public List<String> getHydratedLanguages() {
+        List<String> result = new ArrayList<>();
+        for (String language : SUPPORTED_LANGUAGES) {
+            if (isHydrated(language)) {
+                result.add(language);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Раньше при первом запуске грузились все языки сразу. У таких установок отметок
+     * о загрузке нет, но кеш есть - считаем загруженными языки, которые уже синхронизировались.
+     */
+    public void migrateFromEagerCache() {
+        if (prefs.getBoolean(KEY_MIGRATED, false)) {
+            return;
+        }
+        SharedPreferences cachePrefs = AccountScope.prefs(appContext, AccountScope.CACHE_METADATA, userId);
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String language : SUPPORTED_LANGUAGES) {
+            if (cachePrefs.getLong("last_sync_" + language, 0) > 0) {
+                editor.putBoolean(KEY_LOADED_PREFIX + language, true);
+                Log.d(TAG, "📦 Язык " + language + " уже в кеше со старой версии");
+            }
+        }
+        editor.putBoolean(KEY_MIGRATED, true).apply();
+    }
+
+    /**
+     * Гарантирует, что язык загружен. Уже загруженный язык сразу отдаёт LOADED,
+     * идущая загрузка просто получает ещё одного слушателя.
+     */
+    public void ensureHydrated(String language, HydrationListener listener) {
+        if (listener != null && !listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+
+        LoadState state = getState(language);
+        if (state == LoadState.LOADED || state == LoadState.LOADING) {
+            notifyState(language, state);
+            return;
+        }
+
+        synchronized (this) {
+            if (getState(language) == LoadState.LOADING) {
+                return;
+            }
+            states.put(language, LoadState.LOADING);
+        }
+        notifyState(language, LoadState.LOADING);
+
+        boolean includePublic = !PublicSnapshot.hasPublicWords(appContext, language);
+        WordRepository.getInstance(appContext).hydrateLanguage(language, includePublic,
+                new WordRepository.OnHydrationProgressListener() {
+                    @Override
+                    public void onProgress(int librariesDone, int librariesTotal, long bytes) {
+                        notifyProgress(language, librariesDone, librariesTotal, bytes);
+                    }
+
+                    @Override
+                    public void onComplete(int wordCount) {
+                        prefs.edit().putBoolean(KEY_LOADED_PREFIX + language, true).apply();
+                        states.put(language, LoadState.LOADED);
+                        Log.d(TAG, "✅ Язык " + language + " загружен (" + wordCount + " слов)");
+                        CacheSyncScheduler.schedulePeriodicSync(appContext);
+                        notifyState(language, LoadState.LOADED);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        states.put(language, LoadState.FAILED);
+                        Log.e(TAG, "❌ Язык " + language + " не загружен, повторим при следующем выборе", e);
+                        notifyState(language, LoadState.FAILED);
+                    }
+                });
+    }
+
+    /**
+     * Слова языка уже в базе не из загрузки (восстановление из резервной копии)
+     */
+    public void markHydrated(String language) {
+        prefs.edit().putBoolean(KEY_LOADED_PREFIX + language, true).apply();
+        states.put(language, LoadState.LOADED);
+        notifyState(language, LoadState.LOADED);
+    }
+
+    public void removeListener(HydrationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Забывает все загруженные языки (после очистки кеша)
+     */
+    public void reset() {
+        states.clear();
+        // Отметку миграции оставляем: после сброса кеш уже грузится по-новому
+        prefs.edit().clear().putBoolean(KEY_MIGRATED, true).apply();
+        Log.d(TAG, "🧹 Состояния загрузки языков сброшены");
+    }
+
+    private void notifyProgress(String language, int done, int total, long bytes) {
+        mainHandler.post(() -> {
+            for (HydrationListener listener : listeners) {
+                listener.onProgress(language, done, total, bytes);
+            }
+        });
+    }
+
+    private void notifyState(String language, LoadState state) {
+        mainHandler.post(() -> {
+            for (HydrationListener listener : listeners) {
+                listener.onStateChanged(language, state);
+            }
+        });
+    }
+}
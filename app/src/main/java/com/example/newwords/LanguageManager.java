@@ -13,9 +13,11 @@ public class LanguageManager {
     private static final String KEY_ACTIVE_LIBRARIES_PREFIX = "active_libs_";
 
     private final SharedPreferences prefs;
+    private final Context appContext;
     private String currentLanguage = "en";
 
     public LanguageManager(Context context) {
+        appContext = context.getApplicationContext();
         prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         currentLanguage = prefs.getString(KEY_CURRENT_LANGUAGE, "en");
     }
@@ -40,6 +42,9 @@ public class LanguageManager {
             currentLanguage = languageCode;
             prefs.edit().putString(KEY_CURRENT_LANGUAGE, languageCode).apply();
             Log.d(TAG, "Язык изменен на: " + languageCode);
+
+            // Слова нового языка качаем только сейчас, при первом выборе
+            LanguageHydrator.getInstance(appContext).ensureHydrated(languageCode, null);
         }
     }
 
@@ -51,6 +56,8 @@ public class LanguageManager {
             currentLanguage = languageCode;
             prefs.edit().putString(KEY_CURRENT_LANGUAGE, languageCode).apply();
             Log.d(TAG, "Язык изменен на: " + languageCode);
+
+            LanguageHydrator.getInstance(appContext).ensureHydrated(languageCode, null);
         }
     }
 
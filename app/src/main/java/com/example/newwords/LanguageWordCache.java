@@ -0,0 +1,178 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Общий для всех экранов кеш слов активных библиотек по языкам (LRU на MAX_LANGUAGES языка).
+ * Первый запрос языка читает Room и конвертирует слова, дальше экраны получают сам снимок.
+ *
+ * Снимки сбрасывают сами пути записи - так же, как они обновляют WordSearchIndex:
+ * invalidateLibrary по библиотеке слова, invalidateLanguage, invalidateAll. Сброс вызывается
+ * после записи. У каждого языка счётчик версий: снимок, во время чтения которого язык
+ * сбросили, в кеш не кладётся.
+ *
+ * Снимок неизменяемый и общий: список не меняется, а слово, которое экран собирается
+ * поменять (прогресс в сессии, избранное, правка), он сначала копирует - new WordItem(word).
+ */
+public class LanguageWordCache {
+    private static final String TAG = "LanguageWordCache";
+
+    // Текущий язык и предыдущий: переключение туда-обратно не читает Room заново,
+    // а слова остальных языков не держатся в памяти весь процесс
+    private static final int MAX_LANGUAGES = 2;
+
+    private static volatile LanguageWordCache INSTANCE;
+
+    private final AppDatabase localDb;
+    private final Object lock = new Object();
+
+    // accessOrder = true: самый давно запрошенный язык вытесняется первым
+    private final LinkedHashMap<String, List<WordItem>> snapshots = new LinkedHashMap<String, List<WordItem>>(4, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<WordItem>> eldest) {
+            return size() > MAX_LANGUAGES;
+        }
+    };
+    // Версия языка растёт при каждом его сбросе, epoch - при сбросе всех языков сразу
+    private final Map<String, Long> versions = new HashMap<>();
+    private long epoch;
+    // Язык каждой библиотеки прочитанных языков: запись по libraryId сбрасывает только свой язык
+    private final Map<String, String> libraryLanguages = new HashMap<>();
+
+    private LanguageWordCache(Context context) {
+        this.localDb = AppDatabase.getInstance(context.getApplicationContext());
+    }
+
+    public static LanguageWordCache getInstance(Context context) {
+        // Другой аккаунт - другая база (AppDatabase.getInstance), данные старой не годятся
+        AppDatabase current = AppDatabase.getInstance(context.getApplicationContext());
+        LanguageWordCache instance = INSTANCE;
+        if (instance == null || instance.localDb != current) {
+            synchronized (LanguageWordCache.class) {
+                instance = INSTANCE;
+                if (instance == null || instance.localDb != current) {
+                    instance = new LanguageWordCache(context);
+                    INSTANCE = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Смена аккаунта (AccountScope.onAccountChanged): снимки прежнего аккаунта держат его
+     * слова в памяти - отпускаем сразу, следующий getInstance откроет кеш новой базы
+     */
+    static void release(AppDatabase previous) {
+        synchronized (LanguageWordCache.class) {
+            LanguageWordCache instance = INSTANCE;
+            if (instance != null && instance.localDb == previous) {
+                instance.invalidateAll();
+                INSTANCE = null;
+            }
+        }
+    }
+
+    /**
+     * Слова активных библиотек языка: общий неизменяемый снимок, слова перед изменением
+     * копировать. Вызывать не из UI-потока.
+     */
+    public List<WordItem> getActiveWords(String language, WordLoader loader) {
+        long startVersion;
+        synchronized (lock) {
+            List<WordItem> snapshot = snapshots.get(language);
+            if (snapshot != null) {
+                Log.d(TAG, "⚡ Снимок " + language + " из памяти: " + snapshot.size() + " слов");
+                return snapshot;
+            }
+            startVersion = versionOf(language);
+        }
+
+        List<LocalWordLibrary> libraries = new ArrayList<>();
+        List<WordItem> loaded = new ArrayList<>();
+        // Библиотеки и слова читаем одной транзакцией, чтобы они соответствовали друг другу
+        localDb.runInTransaction(() -> {
+            libraries.addAll(localDb.libraryDao().getLibrariesByLanguage(language));
+            loaded.addAll(loader.load(language));
+        });
+        List<WordItem> words = Collections.unmodifiableList(loaded);
+
+        synchronized (lock) {
+            for (LocalWordLibrary library : libraries) {
+                libraryLanguages.put(library.getLibraryId(), language);
+            }
+            if (versionOf(language) == startVersion) {
+                snapshots.put(language, words);
+            } else {
+                // Язык сбросили, пока читали: прочитанное могло не застать запись
+                Log.d(TAG, "🔄 Снимок " + language + " устарел во время чтения, в кеш не кладём");
+            }
+        }
+        return words;
+    }
+
+    public interface WordLoader {
+        List<WordItem> load(String language);
+    }
+
+    /**
+     * После записи слов, прогресса или активности библиотеки. Язык неизвестной кешу
+     * библиотеки (новая, ещё не читалась) не угадываем - сбрасываем все языки
+     */
+    public void invalidateLibrary(String libraryId) {
+        synchronized (lock) {
+            String language = libraryId != null ? libraryLanguages.get(libraryId) : null;
+            if (language != null) {
+                invalidateLanguageLocked(language);
+            } else {
+                invalidateAllLocked();
+            }
+        }
+    }
+
+    public void invalidateLanguage(String language) {
+        synchronized (lock) {
+            invalidateLanguageLocked(language);
+        }
+    }
+
+    /**
+     * После массовых записей (очистка кеша, восстановление копии, синхронизация)
+     */
+    public void invalidateAll() {
+        synchronized (lock) {
+            invalidateAllLocked();
+        }
+    }
+
+    private void invalidateLanguageLocked(String language) {
+        Long version = versions.get(language);
+        versions.put(language, version != null ? version + 1 : 1);
+        if (snapshots.remove(language) != null) {
+            Log.d(TAG, "🔄 Снимок " + language + " сброшен");
+        }
+    }
+
+    private void invalidateAllLocked() {
+        epoch++;
+        libraryLanguages.clear();
+        if (!snapshots.isEmpty()) {
+            snapshots.clear();
+            Log.d(TAG, "🔄 Все снимки сброшены");
+        }
+    }
+
+    // Обе части только растут: совпадение значит, что язык не сбрасывали
+    private long versionOf(String language) {
+        Long version = versions.get(language);
+        return epoch + (version != null ? version : 0);
+    }
+}
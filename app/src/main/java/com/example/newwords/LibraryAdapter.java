@@ -11,23 +11,54 @@ import android.widget.Switch;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
-public class LibraryAdapter extends RecyclerView.Adapter<LibraryAdapter.ViewHolder> {
+/**
+ * Библиотеки на ListAdapter: дифф в фоне, строки опознаются по libraryId.
+ * Переключение активности перерисовывает только свитч нужной строки (PAYLOAD_ACTIVE).
+ */
+public class LibraryAdapter extends ListAdapter<WordLibrary, LibraryAdapter.ViewHolder> {
+
+    static final String PAYLOAD_ACTIVE = "active";
 
-    private List<WordLibrary> libraries;
     private Map<String, Boolean> activeLibraries;
     private OnLibraryActionListener listener;
+    // Последний отданный в submitList размер: getItemCount догонит его только после диффа
+    private int submittedCount;
+
+    private static final DiffUtil.ItemCallback<WordLibrary> DIFF_CALLBACK = new DiffUtil.ItemCallback<WordLibrary>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull WordLibrary oldItem, @NonNull WordLibrary newItem) {
+            return oldItem.getLibraryId().equals(newItem.getLibraryId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull WordLibrary oldItem, @NonNull WordLibrary newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                    && Objects.equals(oldItem.getSubcategory(), newItem.getSubcategory())
+                    && Objects.equals(oldItem.getCategory(), newItem.getCategory())
+                    && Objects.equals(oldItem.getCreatedBy(), newItem.getCreatedBy())
+                    && oldItem.getWordCount() == newItem.getWordCount()
+                    && oldItem.isActive() == newItem.isActive();
+        }
+    };
 
     public LibraryAdapter(List<WordLibrary> libraries, OnLibraryActionListener listener) {
-        this.libraries = new ArrayList<>(libraries);
+        super(DIFF_CALLBACK);
         this.activeLibraries = new HashMap<>();
         this.listener = listener;
+        setHasStableIds(true);
+        updateLibraries(libraries);
     }
 
     @NonNull
@@ -40,57 +71,85 @@ public class LibraryAdapter extends RecyclerView.Adapter<LibraryAdapter.ViewHold
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        WordLibrary library = libraries.get(position);
+        WordLibrary library = getItem(position);
         holder.bind(library);
     }
 
     @Override
-    public int getItemCount() {
-        return libraries.size();
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_ACTIVE)) {
+            holder.bindActiveState(getItem(position));
+            return;
+        }
+        super.onBindViewHolder(holder, position, payloads);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return WordListAdapter.stableId(getItem(position).getLibraryId());
+    }
+
+    /**
+     * Сколько строк будет после последнего updateLibraries (дифф может ещё считаться)
+     */
+    public int getSubmittedItemCount() {
+        return submittedCount;
     }
 
     public void updateLibraries(List<WordLibrary> newLibraries) {
-        this.libraries.clear();
-        this.libraries.addAll(newLibraries);
-        notifyDataSetChanged();
+        submittedCount = newLibraries.size();
+        submitList(new ArrayList<>(newLibraries));
     }
 
+    /**
+     * Перерисовывает свитчи только тех строк, чья активность действительно поменялась
+     */
     public void updateActiveLibraries(Map<String, Boolean> activeLibraries) {
+        List<WordLibrary> current = getCurrentList();
+        List<Integer> changed = new ArrayList<>();
+        for (int i = 0; i < current.size(); i++) {
+            WordLibrary library = current.get(i);
+            if (isActive(library, this.activeLibraries) != isActive(library, activeLibraries)) {
+                changed.add(i);
+            }
+        }
+
         this.activeLibraries.clear();
         this.activeLibraries.putAll(activeLibraries);
-        notifyDataSetChanged();
+        for (int position : changed) {
+            notifyItemChanged(position, PAYLOAD_ACTIVE);
+        }
     }
 
     public void filterLibraries(String query, List<WordLibrary> allLibraries) {
-        this.libraries.clear();
-        if (query == null || query.trim().isEmpty()) {
-            this.libraries.addAll(allLibraries);
-        } else {
-            String lowerQuery = query.toLowerCase().trim();
-            for (WordLibrary library : allLibraries) {
-                String name = library.getLocalizedName().toLowerCase();
-                String description = library.getLocalizedDescription().toLowerCase();
-
-                if (name.contains(lowerQuery) || description.contains(lowerQuery)) {
-                    this.libraries.add(library);
-                }
+        List<WordLibrary> result = new ArrayList<>();
+        String normalizedQuery = SearchNormalizer.normalize(query);
+        for (WordLibrary library : allLibraries) {
+            if (SearchNormalizer.matches(library.getSearchKey(), normalizedQuery)) {
+                result.add(library);
             }
         }
-        notifyDataSetChanged();
+        updateLibraries(result);
     }
 
     public void updateLibraryState(String libraryId, boolean isActive) {
         if (activeLibraries.containsKey(libraryId)) {
             activeLibraries.put(libraryId, isActive);
         }
-        for (int i = 0; i < libraries.size(); i++) {
-            if (libraries.get(i).getLibraryId().equals(libraryId)) {
-                notifyItemChanged(i);
+        List<WordLibrary> current = getCurrentList();
+        for (int i = 0; i < current.size(); i++) {
+            if (current.get(i).getLibraryId().equals(libraryId)) {
+                notifyItemChanged(i, PAYLOAD_ACTIVE);
                 break;
             }
         }
     }
 
+    private static boolean isActive(WordLibrary library, Map<String, Boolean> states) {
+        Boolean state = states.get(library.getLibraryId());
+        return state != null ? state : library.isActive();
+    }
+
     public class ViewHolder extends RecyclerView.ViewHolder {
         private TextView libraryName;
         private TextView libraryDescription;
@@ -147,6 +206,8 @@ public class LibraryAdapter extends RecyclerView.Adapter<LibraryAdapter.ViewHold
                                 isUpdating = false;
                                 if (getAdapterPosition() != RecyclerView.NO_POSITION) {
                                     activeLibraries.put(currentLibrary.getLibraryId(), originalState);
+                                    // Свитч уже переключён пользователем - возвращаем только его
+                                    notifyItemChanged(getAdapterPosition(), PAYLOAD_ACTIVE);
                                     listener.onLibraryToggleError(currentLibrary.getLibraryId(), originalState);
                                 }
                             }
@@ -165,6 +226,8 @@ public class LibraryAdapter extends RecyclerView.Adapter<LibraryAdapter.ViewHold
                                 isUpdating = false;
                                 if (getAdapterPosition() != RecyclerView.NO_POSITION) {
                                     activeLibraries.put(currentLibrary.getLibraryId(), originalState);
+                                    // Свитч уже переключён пользователем - возвращаем только его
+                                    notifyItemChanged(getAdapterPosition(), PAYLOAD_ACTIVE);
                                     listener.onLibraryToggleError(currentLibrary.getLibraryId(), originalState);
                                 }
                             }
@@ -198,10 +261,7 @@ public class LibraryAdapter extends RecyclerView.Adapter<LibraryAdapter.ViewHold
                 librarySubcategory.setVisibility(View.GONE);
             }
 
-            boolean isActive = activeLibraries.containsKey(library.getLibraryId())
-                    ? activeLibraries.get(library.getLibraryId())
-                    : library.isActive();
-            librarySwitch.setChecked(isActive);
+            librarySwitch.setChecked(isActive(library, activeLibraries));
 
             // Показываем кнопку для всех библиотек
             manageButton.setVisibility(View.VISIBLE);
@@ -235,6 +295,13 @@ public class LibraryAdapter extends RecyclerView.Adapter<LibraryAdapter.ViewHold
             isUpdating = false;
         }
 
+        public void bindActiveState(WordLibrary library) {
+            currentLibrary = library;
+            isUpdating = true;
+            librarySwitch.setChecked(isActive(library, activeLibraries));
+            isUpdating = false;
+        }
+
         private String getCategoryDisplayName(String category) {
             switch (category) {
                 case "basic": return "Базовый";
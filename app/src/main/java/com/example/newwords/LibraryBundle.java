@@ -0,0 +1,178 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+
+import androidx.core.util.Consumer;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Сжатый бандл публичной библиотеки: один gzip JSON со всеми словами вместо
+ * чтения каждого документа words. Собирается scripts/publish_library_bundles.py.
+ *
+ * Формат:
+ * {"format": 1, "libraryId": "...", "version": 1700000000000,
+ *  "words": [{"id", "word", "translation", "note", "difficulty", "createdAt"}, ...]}
+ *
+ * version - хеш слов: тот же, что bundleVersion в документе библиотеки. Он сохраняется
+ * в local_libraries.contentVersion, и сверка (WordRepository.syncPublicLibraries) перекачивает
+ * библиотеку, только когда версия на сервере разошлась с сохранённой.
+ */
+public class LibraryBundle {
+    private static final String TAG = "LibraryBundle";
+
+    static final int FORMAT_VERSION = 1;
+
+    private static final String CACHE_DIR = "library_bundles";
+    private static final int CONNECT_TIMEOUT_MS = 15_000;
+    private static final int READ_TIMEOUT_MS = 60_000;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private LibraryBundle() {
+    }
+
+    /**
+     * Адрес бандла: локальная подмена из library_bundle_base_url (для проверки
+     * без Firebase) или bundleUrl, записанный скриптом в документ библиотеки.
+     */
+    static String resolveUrl(Context context, WordLibrary library) {
+        String baseUrl = context.getString(R.string.library_bundle_base_url);
+        if (!baseUrl.isEmpty()) {
+            return baseUrl + "/" + library.getLibraryId() + ".json.gz";
+        }
+        String url = library.getBundleUrl();
+        return url != null && !url.isEmpty() ? url : null;
+    }
+
+    /**
+     * Скачивает бандл во временный файл: разбор и запись в Room идут уже без сети
+     */
+    static File download(Context context, String url, String libraryId) throws IOException {
+        File dir = new File(context.getCacheDir(), CACHE_DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Не удалось создать " + dir);
+        }
+        File file = new File(dir, libraryId + ".json.gz");
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        try {
+            int code = connection.getResponseCode();
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + code + " для бандла " + libraryId);
+            }
+            try (InputStream in = connection.getInputStream();
+                 OutputStream out = new FileOutputStream(file)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        } finally {
+            connection.disconnect();
+        }
+
+        Log.d(TAG, "📥 Бандл " + libraryId + ": " + file.length() / 1024 + " КБ");
+        return file;
+    }
+
+    /**
+     * Потоково разбирает бандл и отдаёт слова по одному, не держа весь список в памяти.
+     *
+     * @return версия бандла
+     */
+    static long readWords(File file, String libraryId, Consumer<WordItem> consumer) throws IOException {
+        long version = 0;
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+             JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                switch (field) {
+                    case "format":
+                        int format = reader.nextInt();
+                        if (format != FORMAT_VERSION) {
+                            throw new IOException("Неизвестный формат бандла: " + format);
+                        }
+                        break;
+                    case "version":
+                        version = reader.nextLong();
+                        break;
+                    case "words":
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            WordItem word = readWord(reader);
+                            if (word.getWordId() != null) {
+                                word.setLibraryId(libraryId);
+                                word.setCustomWord(false);
+                                consumer.accept(word);
+                            }
+                        }
+                        reader.endArray();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return version;
+    }
+
+    private static WordItem readWord(JsonReader reader) throws IOException {
+        WordItem word = new WordItem();
+        word.setDifficulty(3);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "id":
+                    word.setWordId(reader.nextString());
+                    break;
+                case "word":
+                    word.setWord(reader.nextString());
+                    break;
+                case "translation":
+                    word.setTranslation(reader.nextString());
+                    break;
+                case "note":
+                    word.setNote(reader.nextString());
+                    break;
+                case "difficulty":
+                    word.setDifficulty(reader.nextInt());
+                    break;
+                case "createdAt":
+                    word.setCreatedAt(new Date(reader.nextLong()));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return word;
+    }
+}
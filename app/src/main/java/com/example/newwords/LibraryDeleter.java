@@ -0,0 +1,254 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Удаление пользовательской библиотеки целиком: слова, их word_progress, active_libraries,
+ * сама библиотека и её строки в Room.
+ *
+ * Слова идут страницами по documentId и удаляются батчами (слово + его прогресс в одном батче),
+ * одновременно в полёте не больше MAX_IN_FLIGHT_BATCHES батчей. Документ библиотеки удаляется
+ * последним, а незавершённое удаление запоминается в SharedPreferences и продолжается
+ * при следующем запуске (resumePending) - уже удалённые страницы просто не найдутся.
+ */
+public class LibraryDeleter {
+    private static final String TAG = "LibraryDeleter";
+    private static final String PREFS_NAME = "library_deletions";
+
+    // 500 записей на батч: слово + его word_progress
+    private static final int BATCH_WRITES = 500;
+    private static final int WORDS_PER_PAGE = BATCH_WRITES / 2;
+    private static final int MAX_IN_FLIGHT_BATCHES = 3;
+
+    public interface OnDeleteListener {
+        void onProgress(int deletedWords);
+        void onComplete(int deletedWords);
+        void onError(Exception e);
+    }
+
+    private static volatile LibraryDeleter INSTANCE;
+
+    private final Context appContext;
+    private final SharedPreferences prefs;
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Что уже стоит в очереди исполнителя в этом процессе
+    private final Set<String> scheduled = new HashSet<>();
+
+    private LibraryDeleter(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static LibraryDeleter getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (LibraryDeleter.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new LibraryDeleter(context);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Удаляет библиотеку. Локальные строки исчезают сразу, серверная часть - в фоне.
+     * Колбэки - в UI-потоке.
+     */
+    public void delete(String libraryId, OnDeleteListener listener) {
+        String userId = currentUserId();
+        if (userId == null) {
+            listener.onError(new IllegalStateException("Пользователь не авторизован"));
+            return;
+        }
+        markPending(userId, libraryId);
+        schedule(userId, libraryId, listener);
+    }
+
+    /**
+     * Продолжает прерванные удаления текущего пользователя (вызывается на старте)
+     */
+    public void resumePending() {
+        String userId = currentUserId();
+        if (userId == null) return;
+        for (String libraryId : getPending(userId)) {
+            Log.d(TAG, "🔁 Продолжаем удаление библиотеки " + libraryId);
+            schedule(userId, libraryId, null);
+        }
+    }
+
+    /**
+     * Библиотека в процессе удаления - в списках её уже не показываем
+     */
+    public boolean isPendingDeletion(String libraryId) {
+        String userId = currentUserId();
+        return userId != null && getPending(userId).contains(libraryId);
+    }
+
+    private void schedule(String userId, String libraryId, OnDeleteListener listener) {
+        synchronized (scheduled) {
+            if (!scheduled.add(libraryId)) {
+                // Уже удаляется - новый слушатель узнает результат из списка библиотек
+                if (listener != null) {
+                    listener.onComplete(0);
+                }
+                return;
+            }
+        }
+        executor.execute(() -> {
+            try {
+                int deleted = run(userId, libraryId, listener);
+                clearPending(userId, libraryId);
+                Log.d(TAG, "✅ Библиотека " + libraryId + " удалена, слов: " + deleted);
+                if (listener != null) {
+                    mainHandler.post(() -> listener.onComplete(deleted));
+                }
+            } catch (Exception e) {
+                // Отметка остаётся - продолжим при следующем запуске
+                Log.e(TAG, "❌ Удаление библиотеки " + libraryId + " прервано", e);
+                if (listener != null) {
+                    mainHandler.post(() -> listener.onError(e));
+                }
+            } finally {
+                synchronized (scheduled) {
+                    scheduled.remove(libraryId);
+                }
+            }
+        });
+    }
+
+    private int run(String userId, String libraryId, OnDeleteListener listener) throws Exception {
+        // 1. Room - одной транзакцией, экран сразу перестаёт видеть библиотеку
+        AppDatabase localDb = AppDatabase.getInstance(appContext);
+        // Аккаунт сменился, пока удаление ждало очереди: его строки уйдут при следующем запуске
+        if (!localDb.acquire()) {
+            throw new IllegalStateException("Аккаунт сменился");
+        }
+        try {
+            localDb.runInTransaction(() -> {
+                localDb.wordDao().deleteWordsByLibrary(libraryId);
+                localDb.libraryDao().deleteLibrary(libraryId);
+                // Иначе повторная загрузка языка сочтёт библиотеку уже скачанной
+                localDb.checkpointDao().deleteCheckpoint(libraryId);
+            });
+        } finally {
+            localDb.release();
+        }
+        WordSearchIndex.getInstance(appContext).removeLibrary(libraryId);
+        LanguageWordCache.getInstance(appContext).invalidateLibrary(libraryId);
+
+        DocumentReference userRef = db.collection("users").document(userId);
+        DocumentReference libraryRef = userRef.collection("custom_libraries").document(libraryId);
+        CollectionReference progressRef = userRef.collection("word_progress");
+
+        // 2. Слова страницами: из документа нужен только id, прогресс удаляется тем же батчем.
+        // Следующую страницу берём курсором, не дожидаясь коммита предыдущей
+        int deleted = 0;
+        ArrayDeque<Task<Void>> inFlight = new ArrayDeque<>();
+        DocumentSnapshot cursor = null;
+        while (true) {
+            Query page = libraryRef.collection("words")
+                    .orderBy(FieldPath.documentId())
+                    .limit(WORDS_PER_PAGE);
+            if (cursor != null) {
+                page = page.startAfter(cursor);
+            }
+            List<DocumentSnapshot> docs = Tasks.await(page.get()).getDocuments();
+            if (docs.isEmpty()) break;
+
+            WriteBatch batch = db.batch();
+            for (DocumentSnapshot doc : docs) {
+                batch.delete(doc.getReference());
+                batch.delete(progressRef.document(doc.getId()));
+            }
+            inFlight.add(batch.commit());
+            deleted += docs.size();
+            cursor = docs.get(docs.size() - 1);
+
+            if (inFlight.size() >= MAX_IN_FLIGHT_BATCHES) {
+                Tasks.await(inFlight.poll());
+            }
+            reportProgress(listener, deleted);
+            if (docs.size() < WORDS_PER_PAGE) break;
+        }
+        while (!inFlight.isEmpty()) {
+            Tasks.await(inFlight.poll());
+        }
+
+        // 3. Прогресс, чьих слов уже нет (удалены раньше поштучно) - по полю libraryId
+        while (true) {
+            QuerySnapshot orphans = Tasks.await(progressRef
+                    .whereEqualTo("libraryId", libraryId)
+                    .limit(BATCH_WRITES)
+                    .get());
+            if (orphans.isEmpty()) break;
+            WriteBatch batch = db.batch();
+            for (DocumentSnapshot doc : orphans.getDocuments()) {
+                batch.delete(doc.getReference());
+            }
+            Tasks.await(batch.commit());
+            if (orphans.size() < BATCH_WRITES) break;
+        }
+
+        // 4. Активность и сама библиотека - последними: пока документ есть, удаление можно продолжить
+        WriteBatch finalBatch = db.batch();
+        finalBatch.delete(userRef.collection("active_libraries").document(libraryId));
+        finalBatch.delete(libraryRef);
+        Tasks.await(finalBatch.commit());
+        return deleted;
+    }
+
+    private void reportProgress(OnDeleteListener listener, int deleted) {
+        Log.d(TAG, "🗑️ Удалено слов: " + deleted);
+        if (listener != null) {
+            mainHandler.post(() -> listener.onProgress(deleted));
+        }
+    }
+
+    private synchronized void markPending(String userId, String libraryId) {
+        Set<String> pending = getPending(userId);
+        pending.add(libraryId);
+        prefs.edit().putStringSet(userId, pending).apply();
+    }
+
+    private synchronized void clearPending(String userId, String libraryId) {
+        Set<String> pending = getPending(userId);
+        pending.remove(libraryId);
+        prefs.edit().putStringSet(userId, pending).apply();
+    }
+
+    private synchronized Set<String> getPending(String userId) {
+        // Набор из getStringSet менять нельзя - работаем с копией
+        return new HashSet<>(prefs.getStringSet(userId, new HashSet<>()));
+    }
+
+    private static String currentUserId() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        return user != null ? user.getUid() : null;
+    }
+}
@@ -68,7 +68,7 @@ public class LibraryWordsFragment extends Fragment {
         }
 
         // Инициализируем репозиторий
-        wordRepository = new WordRepository(getContext());
+        wordRepository = WordRepository.getInstance(requireContext());
         Log.d(TAG, "onCreateView: репозиторий создан");
 
         // Находим View элементы
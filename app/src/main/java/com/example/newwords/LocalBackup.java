@@ -0,0 +1,435 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Резервная копия локальной базы: local_libraries, local_words (вместе с прогрессом)
+ * и user_stats текущего пользователя в одном gzip-файле JSON.
+ *
+ * Формат: заголовок (format, version, schemaVersion, createdAt, userId, wordCount),
+ * затем массивы libraries, stats и words - слова последними, их много.
+ * Выгрузка идёт страницами по wordId внутри одной транзакции во временный файл (в uri он
+ * копируется уже после неё), восстановление читает файл потоком -
+ * в памяти всегда одна страница, сколько бы слов ни было в профиле.
+ *
+ * Восстановление заменяет кеш одной транзакцией, после чего WordRepository.reconcileAfterRestore
+ * докачивает только то, что изменилось на сервере позже момента копии.
+ */
+public class LocalBackup {
+    private static final String TAG = "LocalBackup";
+
+    static final String FORMAT = "newwords-backup";
+    // Версия формата файла (не схемы Room): меняется, только если старые копии больше не читаются
+    static final int FORMAT_VERSION = 1;
+    public static final String MIME_TYPE = "application/gzip";
+
+    private static final int PAGE_SIZE = 500;
+
+    public interface OnBackupListener {
+        void onProgress(int words, int totalWords);
+        void onComplete(int words);
+        void onError(Exception e);
+    }
+
+    // Шапка файла, прочитанная до данных
+    private static class Header {
+        String format;
+        int version;
+        int schemaVersion;
+        long createdAt;
+        String userId;
+        int wordCount;
+    }
+
+    private final Context appContext;
+    private final AppDatabase localDb;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Gson gson;
+
+    public LocalBackup(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.localDb = AppDatabase.getInstance(appContext);
+        // Даты - миллисекундами: формат Gson по умолчанию зависит от локали устройства
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(Date.class, new TypeAdapter<Date>() {
+                    @Override
+                    public void write(JsonWriter out, Date value) throws IOException {
+                        if (value == null) {
+                            out.nullValue();
+                        } else {
+                            out.value(value.getTime());
+                        }
+                    }
+
+                    @Override
+                    public Date read(JsonReader in) throws IOException {
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                            return null;
+                        }
+                        return new Date(in.nextLong());
+                    }
+                })
+                .create();
+    }
+
+    // ========== ВЫГРУЗКА ==========
+
+    /**
+     * Пишет копию в uri (файл из ActivityResultContracts.CreateDocument). Колбэки - в UI-потоке
+     */
+    public void exportTo(Uri uri, OnBackupListener listener) {
+        String userId = currentUserId();
+        if (userId == null) {
+            listener.onError(new IllegalStateException("Пользователь не авторизован"));
+            return;
+        }
+
+        new Thread(() -> {
+            long started = System.currentTimeMillis();
+            File temp = null;
+            try {
+                // Одна транзакция на всю выгрузку: запись посреди страниц (прогресс, синхронизация)
+                // не даст копию из половины старых и половины новых данных. В транзакции пишем
+                // только во временный файл на устройстве - медленный uri (облачный провайдер)
+                // получает его уже после, не задерживая запись в Room
+                File file = File.createTempFile("backup", ".gz", appContext.getCacheDir());
+                temp = file;
+                acquireDatabase();
+                int words;
+                try {
+                    words = localDb.runInTransaction(() -> {
+                        try (OutputStream output = new FileOutputStream(file)) {
+                            return writeBackup(output, userId, listener);
+                        }
+                    });
+                } finally {
+                    localDb.release();
+                }
+                copyToUri(file, uri);
+                Log.d(TAG, "✅ Копия сохранена: " + words + " слов за "
+                        + (System.currentTimeMillis() - started) + " мс");
+                mainHandler.post(() -> listener.onComplete(words));
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Ошибка сохранения копии", e);
+                mainHandler.post(() -> listener.onError(e));
+            } finally {
+                if (temp != null) {
+                    temp.delete();
+                }
+            }
+        }).start();
+    }
+
+    // База не закроется посреди копии, даже если аккаунт сменят (AppDatabase.acquire)
+    private void acquireDatabase() {
+        if (!localDb.acquire()) {
+            throw new IllegalStateException("Аккаунт сменился");
+        }
+    }
+
+    private void copyToUri(File file, Uri uri) throws IOException {
+        try (InputStream input = new FileInputStream(file);
+             OutputStream output = appContext.getContentResolver().openOutputStream(uri)) {
+            if (output == null) {
+                throw new IOException("Не удалось открыть файл: " + uri);
+            }
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private int writeBackup(OutputStream output, String userId, OnBackupListener listener) throws IOException {
+        int totalWords = localDb.wordDao().getWordCount();
+
+        GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(output));
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+        writer.beginObject();
+        writer.name("format").value(FORMAT);
+        writer.name("version").value(FORMAT_VERSION);
+        writer.name("schemaVersion").value(AppDatabase.VERSION);
+        writer.name("createdAt").value(System.currentTimeMillis());
+        writer.name("userId").value(userId);
+        writer.name("wordCount").value(totalWords);
+
+        writer.name("libraries").beginArray();
+        for (LocalWordLibrary library : localDb.libraryDao().getAllLibraries()) {
+            gson.toJson(library, LocalWordLibrary.class, writer);
+        }
+        writer.endArray();
+
+        writer.name("stats").beginArray();
+        UserStats stats = localDb.statsDao().getStats(userId);
+        if (stats != null) {
+            gson.toJson(stats, UserStats.class, writer);
+        }
+        writer.endArray();
+
+        // Слова страницами по первичному ключу; страница сразу уходит в поток и отпускается
+        writer.name("words").beginArray();
+        int written = 0;
+        String after = "";
+        while (true) {
+            List<LocalWordItem> page = localDb.wordDao().getWordsPage(after, PAGE_SIZE);
+            for (LocalWordItem word : page) {
+                gson.toJson(word, LocalWordItem.class, writer);
+            }
+            written += page.size();
+            if (page.size() < PAGE_SIZE) break;
+            after = page.get(page.size() - 1).getWordId();
+            reportProgress(listener, written, totalWords);
+        }
+        writer.endArray();
+
+        writer.endObject();
+        // finish() дописывает хвост gzip, сам поток закрывает вызывающий
+        writer.flush();
+        gzip.finish();
+        gzip.flush();
+        return written;
+    }
+
+    // ========== ВОССТАНОВЛЕНИЕ ==========
+
+    /**
+     * Заменяет локальный кеш содержимым копии и запускает досинхронизацию с сервером.
+     * Колбэки - в UI-потоке; onComplete приходит после записи в Room, не дожидаясь сети.
+     */
+    public void restoreFrom(Uri uri, OnBackupListener listener) {
+        String userId = currentUserId();
+        if (userId == null) {
+            listener.onError(new IllegalStateException("Пользователь не авторизован"));
+            return;
+        }
+
+        new Thread(() -> {
+            long started = System.currentTimeMillis();
+            Header header = new Header();
+            Set<String> languages = new HashSet<>();
+            int[] restored = new int[1];
+            try (InputStream input = appContext.getContentResolver().openInputStream(uri)) {
+                if (input == null) {
+                    throw new IOException("Не удалось открыть файл: " + uri);
+                }
+                JsonReader reader = new JsonReader(new InputStreamReader(
+                        new GZIPInputStream(new BufferedInputStream(input)), StandardCharsets.UTF_8));
+
+                // Ошибка разбора посреди файла откатывает транзакцию - кеш остаётся прежним
+                acquireDatabase();
+                try {
+                    localDb.runInTransaction(() -> {
+                        restored[0] = readBackup(reader, header, userId, languages, listener);
+                        return null;
+                    });
+                } finally {
+                    localDb.release();
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Ошибка восстановления копии", e);
+                WordSearchIndex.getInstance(appContext).invalidate();
+                LanguageWordCache.getInstance(appContext).invalidateAll();
+                mainHandler.post(() -> listener.onError(e));
+                return;
+            }
+
+            Log.d(TAG, "✅ Восстановлено " + restored[0] + " слов за "
+                    + (System.currentTimeMillis() - started) + " мс, языки: " + languages);
+            afterRestore(header, languages);
+            mainHandler.post(() -> listener.onComplete(restored[0]));
+        }).start();
+    }
+
+    private int readBackup(JsonReader reader, Header header, String userId,
+                           Set<String> languages, OnBackupListener listener) throws IOException {
+        boolean cleared = false;
+        int restored = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "format":
+                    header.format = reader.nextString();
+                    break;
+                case "version":
+                    header.version = reader.nextInt();
+                    break;
+                case "schemaVersion":
+                    header.schemaVersion = reader.nextInt();
+                    break;
+                case "createdAt":
+                    header.createdAt = reader.nextLong();
+                    break;
+                case "userId":
+                    header.userId = reader.nextString();
+                    break;
+                case "wordCount":
+                    header.wordCount = reader.nextInt();
+                    break;
+                case "libraries":
+                case "stats":
+                case "words":
+                    // Шапка пишется первой: к началу данных она уже проверена
+                    if (!cleared) {
+                        checkHeader(header, userId);
+                        clearLocalData();
+                        cleared = true;
+                    }
+                    if (name.equals("libraries")) {
+                        readLibraries(reader, languages);
+                    } else if (name.equals("stats")) {
+                        readStats(reader, userId);
+                    } else {
+                        restored = readWords(reader, header.wordCount, listener);
+                    }
+                    break;
+                default:
+                    // Поля из более новых версий формата
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!cleared) {
+            throw new IOException("В файле нет данных резервной копии");
+        }
+        return restored;
+    }
+
+    private void checkHeader(Header header, String userId) throws IOException {
+        if (!FORMAT.equals(header.format)) {
+            throw new IOException("Это не резервная копия NewWords");
+        }
+        if (header.version > FORMAT_VERSION) {
+            throw new IOException("Копия сделана более новой версией приложения");
+        }
+        // Прогресс копии относится к её аккаунту: чужой прогресс поверх своего не кладём
+        if (!userId.equals(header.userId)) {
+            throw new IOException("Копия сделана для другого аккаунта");
+        }
+        if (header.schemaVersion != AppDatabase.VERSION) {
+            Log.w(TAG, "⚠️ Копия схемы " + header.schemaVersion + ", база " + AppDatabase.VERSION
+                    + " - неизвестные поля пропустятся");
+        }
+    }
+
+    private void clearLocalData() {
+        localDb.wordDao().clearAllWords();
+        localDb.libraryDao().clearAllLibraries();
+        localDb.checkpointDao().clearAllCheckpoints();
+    }
+
+    private void readLibraries(JsonReader reader, Set<String> languages) throws IOException {
+        List<LocalWordLibrary> libraries = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            LocalWordLibrary library = gson.fromJson(reader, LocalWordLibrary.class);
+            // Ключи поиска - производные поля: в копии старой версии их нет
+            library.updateSearchKeys();
+            libraries.add(library);
+            if (library.getLanguageFrom() != null) {
+                languages.add(library.getLanguageFrom());
+            }
+        }
+        reader.endArray();
+        localDb.libraryDao().insertLibraries(libraries);
+    }
+
+    private void readStats(JsonReader reader, String userId) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            UserStats stats = gson.fromJson(reader, UserStats.class);
+            if (userId.equals(stats.getUserId())) {
+                localDb.statsDao().insertStats(stats);
+            }
+        }
+        reader.endArray();
+    }
+
+    private int readWords(JsonReader reader, int totalWords, OnBackupListener listener) throws IOException {
+        List<LocalWordItem> page = new ArrayList<>(PAGE_SIZE);
+        int restored = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            LocalWordItem word = gson.fromJson(reader, LocalWordItem.class);
+            word.updateDerivedKeys();
+            page.add(word);
+            if (page.size() >= PAGE_SIZE) {
+                localDb.wordDao().insertWords(page);
+                restored += page.size();
+                page.clear();
+                reportProgress(listener, restored, totalWords);
+            }
+        }
+        reader.endArray();
+        if (!page.isEmpty()) {
+            localDb.wordDao().insertWords(page);
+            restored += page.size();
+        }
+        return restored;
+    }
+
+    /**
+     * Кеш заменён целиком: индекс поиска строится заново, загруженными считаются только
+     * языки копии, а сервер досылает только изменения позже createdAt
+     */
+    private void afterRestore(Header header, Set<String> languages) {
+        WordSearchIndex.getInstance(appContext).invalidate();
+        LanguageWordCache.getInstance(appContext).invalidateAll();
+        // Прежние отметки относились к заменённому кешу: язык, которого нет в копии, иначе
+        // остался бы «загруженным» без слов, а публичных слов снимка в базе больше нет
+        PublicSnapshot.reset(appContext);
+        LanguageHydrator hydrator = LanguageHydrator.getInstance(appContext);
+        hydrator.reset();
+        for (String language : languages) {
+            hydrator.markHydrated(language);
+        }
+        mainHandler.post(() -> WordRepository.getInstance(appContext)
+                .reconcileAfterRestore(header.createdAt, languages, () ->
+                        Log.d(TAG, "🔄 Досинхронизация после восстановления завершена")));
+    }
+
+    private void reportProgress(OnBackupListener listener, int words, int totalWords) {
+        mainHandler.post(() -> listener.onProgress(words, totalWords));
+    }
+
+    private static String currentUserId() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        return user != null ? user.getUid() : null;
+    }
+}
@@ -49,6 +49,16 @@ public interface LocalLibraryDao {
     @Query("SELECT * FROM local_libraries WHERE isActive = 1")
     List<LocalWordLibrary> getActiveLibraries();
 
+    @Query("SELECT * FROM local_libraries WHERE isPublic = 1")
+    List<LocalWordLibrary> getPublicLibraries();
+
+    // Версия слов библиотеки - пишется в одной транзакции со словами
+    @Query("UPDATE local_libraries SET contentVersion = :version WHERE libraryId = :libraryId")
+    void setContentVersion(String libraryId, long version);
+
+    @Query("SELECT libraryId FROM local_libraries WHERE isPublic = 0")
+    List<String> getCustomLibraryIds();
+
 
 
     @Query("SELECT COUNT(*) FROM local_libraries WHERE libraryId = :libraryId AND isActive = 1")
@@ -68,6 +78,14 @@ public interface LocalLibraryDao {
     @Query("UPDATE local_libraries SET wordCount = CASE WHEN wordCount > 0 THEN wordCount - 1 ELSE 0 END WHERE libraryId = :libraryId")
     void decrementWordCount(String libraryId);
 
+    // Пачка слов из импорта - тем же приращением, что и FieldValue.increment(n) на сервере
+    @Query("UPDATE local_libraries SET wordCount = wordCount + :delta WHERE libraryId = :libraryId")
+    void addToWordCount(String libraryId, int delta);
+
+    // Значение после сверки с сервером (count()-агрегация)
+    @Query("UPDATE local_libraries SET wordCount = :wordCount WHERE libraryId = :libraryId")
+    void setWordCount(String libraryId, int wordCount);
+
     @Query("SELECT * FROM local_libraries WHERE languageFrom = :language")
     List<LocalWordLibrary> getLibrariesByLanguage(String language);
     // LocalLibraryDao.java
@@ -77,4 +95,19 @@ public interface LocalLibraryDao {
     // в интерфейсе LibraryDao
     @Query("UPDATE local_libraries SET isActive = 0")
     void deactivateAllLibraries();
+
+    @Query("SELECT COUNT(*) FROM local_libraries")
+    int getLibraryCount();
+
+    @Query("SELECT COUNT(*) FROM local_libraries WHERE isActive = 1")
+    int getActiveLibraryCount();
+
+    // Сводка по языкам для CacheDiagnostics (declaredWords - сумма wordCount библиотек)
+    @Query("SELECT languageFrom AS language, " +
+            "COUNT(*) AS libraries, " +
+            "IFNULL(SUM(isActive), 0) AS activeLibraries, " +
+            "IFNULL(SUM(isPublic), 0) AS publicLibraries, " +
+            "IFNULL(SUM(wordCount), 0) AS declaredWords " +
+            "FROM local_libraries GROUP BY languageFrom")
+    List<CacheDiagnostics.LibraryStats> getLibraryStatsByLanguage();
 }
\ No newline at end of file
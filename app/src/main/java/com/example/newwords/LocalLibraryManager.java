@@ -7,9 +7,11 @@ import java.util.List;
 public class LocalLibraryManager {
     private static final String TAG = "LocalLibraryManager";
     private AppDatabase localDb;
+    private final LanguageWordCache wordCache;
 
     public LocalLibraryManager(Context context) {
         this.localDb = AppDatabase.getInstance(context);
+        this.wordCache = LanguageWordCache.getInstance(context);
     }
 
     /**
@@ -25,6 +27,7 @@ public class LocalLibraryManager {
     public void setLibraryActiveStatus(String libraryId, boolean isActive) {
         Log.d(TAG, "Установка статуса библиотеки " + libraryId + " = " + isActive);
         localDb.libraryDao().updateLibraryActiveStatus(libraryId, isActive);
+        wordCache.invalidateLibrary(libraryId);
     }
 
     /**
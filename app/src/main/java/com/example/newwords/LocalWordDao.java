@@ -28,6 +28,10 @@ public interface LocalWordDao {
     @Query("SELECT * FROM local_words WHERE libraryId = :libraryId")
     List<LocalWordItem> getWordsByLibrary(String libraryId);
 
+    // Только ключи поиска - для построения WordSearchIndex без загрузки целых слов
+    @Query("SELECT wordId, libraryId, searchWord, searchTranslation, searchNote FROM local_words")
+    List<WordSearchIndex.Row> getSearchRows();
+
     @Query("SELECT * FROM local_words WHERE isFavorite = 1")
     List<LocalWordItem> getFavoriteWords();
 
@@ -36,9 +40,67 @@ public interface LocalWordDao {
             "WHERE l.isActive = 1")
     List<LocalWordItem> getWordsFromActiveLibraries();
 
+    @Query("SELECT COUNT(*) FROM local_words")
+    int getWordCount();
+
+    @Query("SELECT COUNT(*) FROM local_words w " +
+            "JOIN local_libraries l ON w.libraryId = l.libraryId " +
+            "WHERE l.isActive = 1")
+    int getActiveWordCount();
+
+    // Слова, чьей библиотеки нет в кеше - в сессии они никогда не попадут
+    @Query("SELECT COUNT(*) FROM local_words WHERE libraryId IS NULL " +
+            "OR libraryId NOT IN (SELECT libraryId FROM local_libraries)")
+    int getOrphanWordCount();
+
+    /**
+     * Сводка по языкам для CacheDiagnostics. Условия те же, что в SimpleRepetitionSystem:
+     * новое - stage 0 без показов, выучено - stage >= 6, к показу - не выучено и (stage 0 или срок подошёл)
+     */
+    @Query("SELECT l.languageFrom AS language, " +
+            "COUNT(*) AS words, " +
+            "IFNULL(SUM(l.isActive), 0) AS activeWords, " +
+            "IFNULL(SUM(CASE WHEN w.reviewStage = 0 AND w.consecutiveShows = 0 THEN 1 ELSE 0 END), 0) AS newWords, " +
+            "IFNULL(SUM(CASE WHEN w.reviewStage BETWEEN 1 AND 5 THEN 1 ELSE 0 END), 0) AS learningWords, " +
+            "IFNULL(SUM(CASE WHEN w.reviewStage >= 6 THEN 1 ELSE 0 END), 0) AS learnedWords, " +
+            "IFNULL(SUM(CASE WHEN l.isActive = 1 AND w.reviewStage < 6 AND (w.reviewStage = 0 " +
+            "  OR w.nextReviewDate IS NULL OR w.nextReviewDate < :now) THEN 1 ELSE 0 END), 0) AS dueWords, " +
+            "IFNULL(SUM(w.isFavorite), 0) AS favorites, " +
+            "IFNULL(SUM(w.isCustomWord), 0) AS customWords " +
+            "FROM local_words w JOIN local_libraries l ON w.libraryId = l.libraryId " +
+            "GROUP BY l.languageFrom")
+    List<CacheDiagnostics.WordStats> getWordStatsByLanguage(long now);
+
     @Query("SELECT * FROM local_words WHERE wordId = :wordId")
     LocalWordItem getWordById(String wordId);
 
+    // Где лежит слово в Firestore - без загрузки всей строки
+    @Query("SELECT libraryId, isCustomWord FROM local_words WHERE wordId = :wordId")
+    WordRepository.WordLocation getWordLocation(String wordId);
+
+    // Пользовательское слово с тем же ключом (WordDedup) в этой библиотеке или в другой
+    // пользовательской библиотеке того же языка; своя библиотека - первой.
+    // Поиск по индексу (dedupKey, libraryId), без перебора слов
+    @Query("SELECT * FROM local_words WHERE dedupKey = :dedupKey AND (libraryId = :libraryId " +
+            "OR libraryId IN (SELECT libraryId FROM local_libraries WHERE isPublic = 0 " +
+            "AND languageFrom = (SELECT languageFrom FROM local_libraries WHERE libraryId = :libraryId))) " +
+            "ORDER BY libraryId = :libraryId DESC LIMIT 1")
+    LocalWordItem findDuplicate(String dedupKey, String libraryId);
+
+    // Другое слово библиотеки с тем же ключом - проверка перед правкой слова
+    @Query("SELECT COUNT(*) FROM local_words WHERE dedupKey = :dedupKey AND libraryId = :libraryId " +
+            "AND wordId != :wordId")
+    int countOtherDuplicates(String dedupKey, String libraryId, String wordId);
+
+    // Страница по первичному ключу для потоковой выгрузки (LocalBackup): без OFFSET,
+    // каждая следующая страница - поиск по индексу от последнего wordId
+    @Query("SELECT * FROM local_words WHERE wordId > :afterWordId ORDER BY wordId LIMIT :limit")
+    List<LocalWordItem> getWordsPage(String afterWordId, int limit);
+
+    // Не больше 999 параметров за запрос - вызывающий режет список на части
+    @Query("SELECT * FROM local_words WHERE wordId IN (:wordIds)")
+    List<LocalWordItem> getWordsByIds(List<String> wordIds);
+
     @Query("DELETE FROM local_words WHERE wordId = :wordId")
     void deleteWord(@NonNull String wordId);
     @Query("DELETE FROM local_words WHERE libraryId = :libraryId")
@@ -47,6 +109,15 @@ public interface LocalWordDao {
     @Query("DELETE FROM local_words")
     void clearAllWords();
 
+    // После перекачки публичной библиотеки: слова, которых не было в свежей выгрузке
+    @Query("SELECT wordId FROM local_words WHERE libraryId = :libraryId AND isCustomWord = 0 " +
+            "AND (lastSynced IS NULL OR lastSynced < :syncedBefore)")
+    List<String> getStaleWordIds(String libraryId, long syncedBefore);
+
+    @Query("DELETE FROM local_words WHERE libraryId = :libraryId AND isCustomWord = 0 " +
+            "AND (lastSynced IS NULL OR lastSynced < :syncedBefore)")
+    int deleteStaleWords(String libraryId, long syncedBefore);
+
     @Query("UPDATE local_words SET isFavorite = :isFav WHERE wordId = :id")
     void updateFavoriteStatus(String id, boolean isFav);
 
@@ -96,6 +167,36 @@ public interface LocalWordDao {
     @Query("UPDATE local_words SET consecutiveShows = 0 WHERE wordId = :wordId")
     void resetConsecutiveShows(String wordId);
 
+    /**
+     * Слова к повторению по языкам и часовым корзинам до horizon (DueSummary):
+     * hour 0 - срок уже наступил, k - наступит в течение k-го часа после now.
+     * Как в getDueWords - только слова со сроком; новые (этап 0 без показов, в том числе
+     * строки снимка публичных библиотек) повторения не ждут и не считаются
+     */
+    @Query("SELECT l.languageFrom AS language, " +
+            "CASE WHEN w.nextReviewDate <= :now THEN 0 " +
+            "ELSE (w.nextReviewDate - :now - 1) / " + DueSummary.HOUR_MS + " + 1 END AS hour, " +
+            "COUNT(*) AS words " +
+            "FROM local_words w JOIN local_libraries l ON w.libraryId = l.libraryId " +
+            "WHERE l.isActive = 1 AND w.reviewStage < 6 " +
+            "AND (w.reviewStage > 0 OR w.consecutiveShows > 0) " +
+            "AND w.nextReviewDate IS NOT NULL AND w.nextReviewDate <= :horizon " +
+            "GROUP BY language, hour")
+    List<DueSummary.Bucket> getDueBuckets(long now, long horizon);
+
+    /**
+     * Слова тех же условий, что в getDueBuckets, но со сроком позже horizon (DueSummary):
+     * по языку - самый ранний и самый поздний срок и число слов
+     */
+    @Query("SELECT l.languageFrom AS language, " +
+            "MIN(w.nextReviewDate) AS first, MAX(w.nextReviewDate) AS last, COUNT(*) AS words " +
+            "FROM local_words w JOIN local_libraries l ON w.libraryId = l.libraryId " +
+            "WHERE l.isActive = 1 AND w.reviewStage < 6 " +
+            "AND (w.reviewStage > 0 OR w.consecutiveShows > 0) " +
+            "AND w.nextReviewDate > :horizon " +
+            "GROUP BY language")
+    List<DueSummary.LaterBucket> getLaterDue(long horizon);
+
     /**
      * Получить слова, готовые к повторению (nextReviewDate <= сейчас И не выучены)
      */
@@ -1,13 +1,17 @@
 package com.example.newwords;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.TypeConverters;
 import androidx.annotation.NonNull;
 
 import java.util.Date;
 
-@Entity(tableName = "local_words")
+@Entity(tableName = "local_words",
+        // Поиск дублей (WordDedup, findDuplicate). Не уникальный: дубли, уже лежащие на сервере,
+        // приходят при загрузке вставкой REPLACE - уникальный индекс молча удалял бы одно из слов
+        indices = {@Index(value = {"dedupKey", "libraryId"})})
 @TypeConverters(Converters.class)
 public class LocalWordItem {
     @PrimaryKey
@@ -33,6 +37,16 @@ public class LocalWordItem {
     private Date nextReviewDate;
     private int consecutiveShows;
 
+    // Нормализованные ключи поиска (SearchNormalizer). Индексов нет: поиск идёт по
+    // WordSearchIndex в памяти, а индексы только замедляли бы массовую запись.
+    // Считаются явно в updateDerivedKeys() перед записью
+    private String searchWord;
+    private String searchTranslation;
+    private String searchNote;
+    // Ключ дублей (WordDedup.key) - только у пользовательских слов: в публичных
+    // библиотеках совпадения не наши
+    private String dedupKey;
+
     // ДОБАВЬ ГЕТТЕРЫ И СЕТТЕРЫ:
     public int getReviewStage() { return reviewStage; }
     public void setReviewStage(int reviewStage) { this.reviewStage = reviewStage; }
@@ -71,6 +85,7 @@ public class LocalWordItem {
         this.createdAt = word.getCreatedAt();
         this.lastReviewed = word.getLastReviewed();
         this.lastSynced = new Date();
+        updateDerivedKeys();
     }
 
     // === ГЕТТЕРЫ ===
@@ -105,4 +120,29 @@ public class LocalWordItem {
     public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
     public void setLastReviewed(Date lastReviewed) { this.lastReviewed = lastReviewed; }
     public void setLastSynced(Date lastSynced) { this.lastSynced = lastSynced; }
-}
\ No newline at end of file
+
+    /**
+     * Пересчитывает ключи поиска и дублей из текста слова. Вызывается при сборке записи
+     * и после правки word/translation/note - сеттеры ключи не трогают, так что
+     * чтение из Room их не пересчитывает
+     */
+    public void updateDerivedKeys() {
+        searchWord = SearchNormalizer.normalize(word);
+        searchTranslation = SearchNormalizer.normalize(translation);
+        searchNote = SearchNormalizer.normalize(note);
+        dedupKey = isCustomWord ? WordDedup.key(word, translation) : null;
+    }
+
+    // === КЛЮЧИ ПОИСКА ===
+    public String getSearchWord() { return searchWord; }
+    public String getSearchTranslation() { return searchTranslation; }
+    public String getSearchNote() { return searchNote; }
+
+    public void setSearchWord(String searchWord) { this.searchWord = searchWord; }
+    public void setSearchTranslation(String searchTranslation) { this.searchTranslation = searchTranslation; }
+    public void setSearchNote(String searchNote) { this.searchNote = searchNote; }
+
+    public String getDedupKey() { return dedupKey; }
+
+    public void setDedupKey(String dedupKey) { this.dedupKey = dedupKey; }
+}
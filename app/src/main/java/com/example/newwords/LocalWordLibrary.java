@@ -28,6 +28,15 @@ public class LocalWordLibrary {
     private String createdBy;
     private Date lastSynced;
 
+    // Нормализованные ключи поиска по всем переводам названия и описания (SearchNormalizer),
+    // считаются явно в updateSearchKeys()
+    private String searchName;
+    private String searchDescription;
+
+    // bundleVersion библиотеки, с которой скачаны её слова (0 - неизвестна).
+    // Метаданные её не трогают: меняется только вместе со словами
+    private long contentVersion;
+
     // Конструкторы, геттеры и сеттеры
     public LocalWordLibrary() {
         this.libraryId = ""; // Инициализируем пустой строкой
@@ -46,6 +55,7 @@ public class LocalWordLibrary {
         this.createdBy = library.getCreatedBy();
         this.lastSynced = new Date();
         this.isActive = library.getIsActive();
+        updateSearchKeys();
     }
 
     // === ГЕТТЕРЫ ===
@@ -78,4 +88,22 @@ public class LocalWordLibrary {
     public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
     public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
     public void setLastSynced(Date lastSynced) { this.lastSynced = lastSynced; }
-}
\ No newline at end of file
+
+    /**
+     * Пересчитывает ключи поиска из названия и описания - при сборке записи перед сохранением
+     */
+    public void updateSearchKeys() {
+        searchName = SearchNormalizer.normalizeAll(name);
+        searchDescription = SearchNormalizer.normalizeAll(description);
+    }
+
+    // === КЛЮЧИ ПОИСКА ===
+    public String getSearchName() { return searchName; }
+    public String getSearchDescription() { return searchDescription; }
+
+    public void setSearchName(String searchName) { this.searchName = searchName; }
+    public void setSearchDescription(String searchDescription) { this.searchDescription = searchDescription; }
+
+    public long getContentVersion() { return contentVersion; }
+    public void setContentVersion(long contentVersion) { this.contentVersion = contentVersion; }
+}
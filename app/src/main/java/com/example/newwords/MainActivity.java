@@ -9,7 +9,11 @@ import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.text.format.Formatter;
 import android.util.Log;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -38,13 +42,21 @@ public class MainActivity extends AppCompatActivity {
     private WordRepository wordRepository;
     private boolean isFirstLaunch;
 
+    private View initialLoadPanel;
+    private TextView initialLoadText;
+    private ProgressBar initialLoadProgress;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         SplashScreen splashScreen = SplashScreen.installSplashScreen(this);
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        wordRepository = new WordRepository(this);
+        wordRepository = WordRepository.getInstance(this);
+
+        initialLoadPanel = findViewById(R.id.initialLoadPanel);
+        initialLoadText = findViewById(R.id.initialLoadText);
+        initialLoadProgress = findViewById(R.id.initialLoadProgress);
 
         // Инициализация App Check
         FirebaseAppCheck firebaseAppCheck = FirebaseAppCheck.getInstance();
@@ -62,6 +74,10 @@ public class MainActivity extends AppCompatActivity {
 
         initializeCacheSmart();
         wordRepository.checkAndResetDailyProgress();
+        ViewPrewarmer.prewarmWhenIdle(this);
+        if (StackCardAdapter.isSpeakPreferenceEnabled(this)) {
+            TextToSpeechManager.warmUpWhenIdle(this, new LanguageManager(this).getCurrentLanguage());
+        }
 
         viewPager = findViewById(R.id.viewPager);
         bottomNavigationView = findViewById(R.id.bottomNavigationView);
@@ -95,13 +111,24 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void initializeCacheSmart() {
-        SharedPreferences prefs = getSharedPreferences("app", MODE_PRIVATE);
-        isFirstLaunch = prefs.getBoolean("is_first_launch", true);
+        // Отметка своя у каждого аккаунта: новая база аккаунта может быть уже не пустой
+        // (публичное из снимка), но его собственные данные ещё не загружены
+        SharedPreferences prefs = AccountScope.prefs(this, AccountScope.CACHE_METADATA);
+        isFirstLaunch = prefs.getBoolean(AccountScope.KEY_FIRST_LAUNCH, true);
 
         if (isFirstLaunch) {
             Log.d(TAG, "🎉 ПЕРВЫЙ ЗАПУСК - загружаем ВСЕ данные в кеш");
             showLoadingIndicator();
-            loadAllLanguagesForFirstTime();
+            // Снимок из APK копируется при первом открытии базы - только после него
+            // PublicSnapshot знает, лежат ли публичные слова на месте
+            new Thread(() -> {
+                try {
+                    AppDatabase.getInstance(this).getOpenHelper().getWritableDatabase();
+                } catch (Exception e) {
+                    Log.e(TAG, "❌ Ошибка открытия базы", e);
+                }
+                runOnUiThread(this::loadAllLanguagesForFirstTime);
+            }).start();
         } else {
             Log.d(TAG, "⚡ Не первый запуск - проверяем наличие кеша");
 
@@ -115,7 +142,10 @@ public class MainActivity extends AppCompatActivity {
                         loadAllLanguagesForFirstTime();
                     } else {
                         Log.d(TAG, "✅ Кеш в порядке: " + wordCount + " слов, " + libraryCount + " библиотек");
+                        LanguageHydrator.getInstance(MainActivity.this).migrateFromEagerCache();
                         checkAndRefreshStaleCache();
+                        // Удаление библиотеки могло оборваться вместе с процессом
+                        LibraryDeleter.getInstance(MainActivity.this).resumePending();
                         // ✅ Добавляем синхронизацию статистики
                         syncStatsIfNeeded();
                     }
@@ -135,30 +165,60 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * ГЛАВНЫЙ МЕТОД ЗАГРУЗКИ - использует forceLoadWordsForLanguage
+     * ГЛАВНЫЙ МЕТОД ЗАГРУЗКИ: метаданные библиотек всех языков (дёшево)
+     * и слова только текущего языка. Остальные языки грузятся при первом выборе.
      */
     private void loadAllLanguagesForFirstTime() {
-        String[] languages = {"ba", "en", "ru"};
+        LanguageHydrator hydrator = LanguageHydrator.getInstance(this);
+        // Сюда попадаем и при пустом кеше - старые отметки о загрузке недействительны
+        hydrator.reset();
+
+        String currentLanguage = new LanguageManager(this).getCurrentLanguage();
         AtomicInteger loadedCount = new AtomicInteger(0);
 
-        for (String lang : languages) {
-            wordRepository.forceLoadWordsForLanguage(lang, new WordRepository.OnSuccessListener() {
-                @Override
-                public void onSuccess() {
-                    int completed = loadedCount.incrementAndGet();
-                    Log.d(TAG, "✅ Загружен " + lang + " (" + completed + "/" + languages.length + ")");
+        // Если база создана из снимка APK, публичные библиотеки уже на месте:
+        // остаётся сверить их с сервером
+        boolean fromSnapshot = PublicSnapshot.isInstalled(this);
+        int totalSteps = fromSnapshot ? 3 : 2;
 
-                    if (completed == languages.length) {
-                        finishFirstTimeInitialization();
-                    }
+        Runnable onStepDone = () -> {
+            int completed = loadedCount.incrementAndGet();
+            Log.d(TAG, "✅ Первичная загрузка: шаг " + completed + "/" + totalSteps);
+            if (completed == totalSteps) {
+                finishFirstTimeInitialization();
+            }
+        };
+
+        wordRepository.loadLibraryMetadataForAllLanguages(onStepDone::run);
+
+        hydrator.ensureHydrated(currentLanguage, new LanguageHydrator.HydrationListener() {
+            @Override
+            public void onProgress(String language, int librariesDone, int librariesTotal, long bytes) {
+                if (!language.equals(currentLanguage)) return;
+                Log.d(TAG, "💧 " + language + ": " + librariesDone + "/" + librariesTotal + " библиотек");
+                showLoadingProgress(librariesDone, librariesTotal, bytes);
+            }
+
+            @Override
+            public void onStateChanged(String language, LanguageHydrator.LoadState state) {
+                if (!language.equals(currentLanguage)
+                        || state == LanguageHydrator.LoadState.LOADING) {
+                    return;
                 }
-            });
+                hydrator.removeListener(this);
+                onStepDone.run();
+            }
+        });
+
+        if (fromSnapshot) {
+            // Неудачная сверка не держит первый запуск: повторит периодическая синхронизация
+            wordRepository.syncPublicLibraries(synced -> onStepDone.run());
         }
     }
 
     private void finishFirstTimeInitialization() {
-        SharedPreferences prefs = getSharedPreferences("app", MODE_PRIVATE);
-        prefs.edit().putBoolean("is_first_launch", false).apply();
+        SharedPreferences prefs = AccountScope.prefs(this, AccountScope.CACHE_METADATA);
+        prefs.edit().putBoolean(AccountScope.KEY_FIRST_LAUNCH, false).apply();
 
         // 🔥 ДЕАКТИВИРУЕМ ВСЕ БИБЛИОТЕКИ ПОСЛЕ ПЕРВОЙ ЗАГРУЗКИ
         wordRepository.deactivateAllLibrariesInCache();
@@ -183,20 +243,10 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void checkAndRefreshStaleCache() {
-        if (!isNetworkAvailable()) {
-            Log.d(TAG, "📴 Нет интернета, пропускаем проверку кеша");
-            return;
-        }
-
-        new Thread(() -> {
-            String[] languages = {"ba", "en", "ru"};
-            for (String lang : languages) {
-                if (wordRepository.isCacheStale(lang)) {
-                    Log.d(TAG, "🔄 Кеш устарел для " + lang + ", обновляем фоном");
-                    wordRepository.smartSyncForLanguage(lang, null);
-                }
-            }
-        }).start();
+        // Никакой сети на старте: WorkManager сам дождётся подходящих условий,
+        // а воркер проверит isCacheStale для каждого языка по очереди
+        CacheSyncScheduler.enqueueStaleRefresh(this);
+        CacheSyncScheduler.schedulePeriodicSync(this);
     }
 
     private boolean isNetworkAvailable() {
@@ -207,11 +257,34 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void showLoadingIndicator() {
-        runOnUiThread(() -> Toast.makeText(this, "Первичная загрузка данных...", Toast.LENGTH_SHORT).show());
+        runOnUiThread(() -> {
+            initialLoadText.setText(R.string.initial_load_started);
+            initialLoadProgress.setIndeterminate(true);
+            initialLoadPanel.setVisibility(View.VISIBLE);
+        });
+    }
+
+    /**
+     * Реальный прогресс первичной загрузки: библиотеки и примерный объём
+     */
+    private void showLoadingProgress(int librariesDone, int librariesTotal, long bytes) {
+        if (librariesTotal == 0) return;
+        initialLoadProgress.setIndeterminate(false);
+        initialLoadProgress.setMax(librariesTotal);
+        initialLoadProgress.setProgress(librariesDone);
+        initialLoadText.setText(getString(R.string.initial_load_progress,
+                librariesDone, librariesTotal, Formatter.formatShortFileSize(this, bytes)));
+        initialLoadPanel.setVisibility(View.VISIBLE);
     }
 
     private void hideLoadingIndicator() {
-        runOnUiThread(() -> Toast.makeText(this, "Готово к работе!", Toast.LENGTH_SHORT).show());
+        runOnUiThread(() -> initialLoadPanel.setVisibility(View.GONE));
+    }
+
+    @Override
+    protected void onDestroy() {
+        ViewPrewarmer.release(this);
+        super.onDestroy();
     }
 
     @Override
@@ -6,7 +6,6 @@ import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Build;
 import android.util.Log;
 
@@ -19,85 +18,50 @@ public class NotificationReceiver extends BroadcastReceiver {
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        Log.d("NotificationReceiver", "Получено уведомление: " + intent.getAction());
-
-        String title = intent.getStringExtra("title");
-        String message = intent.getStringExtra("message");
-
-        if (title == null) title = "Пора учить слова!";
-        if (message == null) message = "Не забудьте позаниматься сегодня ✨";
-
-        Log.d("NotificationReceiver", "Показываем уведомление: " + title);
-
-        showNotification(context, title, message);
+        String action = intent.getAction();
+        Log.d("NotificationReceiver", "Получено уведомление: " + action);
+
+        // Сводка читается из SharedPreferences - не в главном потоке, goAsync держит
+        // процесс живым до finish()
+        PendingResult pendingResult = goAsync();
+        Context appContext = context.getApplicationContext();
+        new Thread(() -> {
+            try {
+                deliver(appContext, action);
+            } catch (Exception e) {
+                Log.e("NotificationReceiver", "Ошибка обработки напоминания", e);
+            } finally {
+                pendingResult.finish();
+            }
+        }).start();
+    }
 
-        // Перепланируем уведомления в зависимости от типа
-        if ("DAILY_REMINDER".equals(intent.getAction())) {
-            Log.d("NotificationReceiver", "Перепланируем ежедневное уведомление");
-            rescheduleDailyNotification(context);
-        } else if ("INACTIVITY_REMINDER".equals(intent.getAction())) {
+    private void deliver(Context context, String action) {
+        if (NotificationScheduler.ACTION_INACTIVITY.equals(action)) {
             Log.d("NotificationReceiver", "Перепланируем уведомление о бездействии");
             NotificationScheduler.scheduleInactivityNotification(context);
+        } else if (NotificationScheduler.ACTION_DAILY.equals(action)) {
+            NotificationScheduler.refreshDailyNotification(context);
         }
-    }
 
-    private void rescheduleDailyNotification(Context context) {
-        try {
-            SharedPreferences preferences = context.getSharedPreferences("NotificationPrefs", Context.MODE_PRIVATE);
-            String type = preferences.getString("notification_type", "none");
-            String time = preferences.getString("notification_time", "19:00");
-
-            // Перепланируем только если тип всё еще "once_a_day"
-            if ("once_a_day".equals(type)) {
-                String[] timeParts = time.split(":");
-                int hour = Integer.parseInt(timeParts[0]);
-                int minute = Integer.parseInt(timeParts[1]);
-
-                // Устанавливаем на завтра в то же время
-                java.util.Calendar calendar = java.util.Calendar.getInstance();
-                calendar.add(java.util.Calendar.DAY_OF_YEAR, 1);
-                calendar.set(java.util.Calendar.HOUR_OF_DAY, hour);
-                calendar.set(java.util.Calendar.MINUTE, minute);
-                calendar.set(java.util.Calendar.SECOND, 0);
-                calendar.set(java.util.Calendar.MILLISECOND, 0);
-
-                Intent notificationIntent = new Intent(context, NotificationReceiver.class);
-                notificationIntent.setAction("DAILY_REMINDER");
-                notificationIntent.putExtra("title", "Пора учить слова!");
-                notificationIntent.putExtra("message", "Не забудьте позаниматься сегодня ✨");
-
-                android.app.PendingIntent pendingIntent = android.app.PendingIntent.getBroadcast(
-                        context,
-                        1001,
-                        notificationIntent,
-                        android.app.PendingIntent.FLAG_UPDATE_CURRENT | android.app.PendingIntent.FLAG_IMMUTABLE
-                );
+        int due = DueSummary.countDue(context, System.currentTimeMillis());
+        if (due == 0) {
+            Log.d("NotificationReceiver", "Слов к повторению нет - напоминание не показываем");
+            return;
+        }
 
-                android.app.AlarmManager alarmManager =
-                        (android.app.AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-
-                if (alarmManager != null) {
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                        alarmManager.setExactAndAllowWhileIdle(
-                                android.app.AlarmManager.RTC_WAKEUP,
-                                calendar.getTimeInMillis(),
-                                pendingIntent
-                        );
-                    } else {
-                        alarmManager.setExact(
-                                android.app.AlarmManager.RTC_WAKEUP,
-                                calendar.getTimeInMillis(),
-                                pendingIntent
-                        );
-                    }
-                    Log.d("NotificationReceiver", "Ежедневное уведомление перепланировано на: " + calendar.getTime());
-                }
-            } else {
-                Log.d("NotificationReceiver", "Тип уведомления изменился, перепланирование отменено");
-            }
-        } catch (Exception e) {
-            Log.e("NotificationReceiver", "Ошибка перепланирования ежедневного уведомления", e);
+        String title;
+        String message;
+        if (NotificationScheduler.ACTION_INACTIVITY.equals(action)) {
+            title = context.getString(R.string.notification_inactivity_title);
+            message = context.getString(R.string.notification_inactivity_message, due);
+        } else {
+            title = context.getString(R.string.notification_due_title);
+            message = context.getString(R.string.notification_due_message, due);
         }
+
+        Log.d("NotificationReceiver", "Показываем уведомление: " + title + ", слов " + due);
+        showNotification(context, title, message);
     }
 
     private void showNotification(Context context, String title, String message) {
@@ -5,17 +5,26 @@ import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.os.Build;
 import android.util.Log;
 
 import java.util.Calendar;
 
+/**
+ * Будильники напоминаний. Все неточные: система сдвигает их и объединяет с будильниками
+ * других приложений, в Doze - до ближайшего окна обслуживания. Напоминанию о словах минуты
+ * не важны, а лишних точных пробуждений у устройства нет.
+ */
 public class NotificationScheduler {
 
+    static final String ACTION_DAILY = "DAILY_REMINDER";
+    static final String ACTION_INACTIVITY = "INACTIVITY_REMINDER";
+
     private static final int DAILY_NOTIFICATION_ID = 1001;
     private static final int INACTIVITY_NOTIFICATION_ID = 1002;
 
-    // ОСТАВЬТЕ этот метод, но он больше не используется напрямую
+    /**
+     * Ежедневное напоминание около time ("HH:mm"), повторяющийся будильник
+     */
     public static void scheduleDailyNotification(Context context, String time) {
         try {
             String[] timeParts = time.split(":");
@@ -26,39 +35,21 @@ public class NotificationScheduler {
             calendar.set(Calendar.HOUR_OF_DAY, hour);
             calendar.set(Calendar.MINUTE, minute);
             calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
 
             if (calendar.getTimeInMillis() <= System.currentTimeMillis()) {
                 calendar.add(Calendar.DAY_OF_YEAR, 1);
             }
 
-            Intent notificationIntent = new Intent(context, NotificationReceiver.class);
-            notificationIntent.setAction("DAILY_REMINDER");
-            notificationIntent.putExtra("title", "Пора учить слова!");
-            notificationIntent.putExtra("message", "Не забудьте позаниматься сегодня ✨");
-
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                    context,
-                    DAILY_NOTIFICATION_ID,
-                    notificationIntent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-
             AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
 
             if (alarmManager != null) {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    alarmManager.setExactAndAllowWhileIdle(
-                            AlarmManager.RTC_WAKEUP,
-                            calendar.getTimeInMillis(),
-                            pendingIntent
-                    );
-                } else {
-                    alarmManager.setExact(
-                            AlarmManager.RTC_WAKEUP,
-                            calendar.getTimeInMillis(),
-                            pendingIntent
-                    );
-                }
+                alarmManager.setInexactRepeating(
+                        AlarmManager.RTC_WAKEUP,
+                        calendar.getTimeInMillis(),
+                        AlarmManager.INTERVAL_DAY,
+                        pendingIntent(context, DAILY_NOTIFICATION_ID, ACTION_DAILY)
+                );
                 Log.d("NotificationScheduler", "Ежедневное уведомление установлено: " + calendar.getTime());
             }
 
@@ -67,6 +58,20 @@ public class NotificationScheduler {
         }
     }
 
+    /**
+     * После срабатывания ежедневного напоминания: тип мог смениться, а будильник от прежних
+     * версий был одноразовым - ставим повторяющийся заново или снимаем
+     */
+    static void refreshDailyNotification(Context context) {
+        SharedPreferences preferences = context.getSharedPreferences("NotificationPrefs", Context.MODE_PRIVATE);
+        if ("once_a_day".equals(preferences.getString("notification_type", "none"))) {
+            scheduleDailyNotification(context, preferences.getString("notification_time", "19:00"));
+        } else {
+            Log.d("NotificationScheduler", "Тип уведомления изменился, ежедневное снято");
+            cancel(context, DAILY_NOTIFICATION_ID, ACTION_DAILY);
+        }
+    }
+
     public static void scheduleInactivityNotification(Context context) {
         try {
             Calendar calendar = Calendar.getInstance();
@@ -74,34 +79,15 @@ public class NotificationScheduler {
             calendar.set(Calendar.SECOND, 0);
             calendar.set(Calendar.MILLISECOND, 0);
 
-            Intent notificationIntent = new Intent(context, NotificationReceiver.class);
-            notificationIntent.setAction("INACTIVITY_REMINDER");
-            notificationIntent.putExtra("title", "Мы по вам скучаем!");
-            notificationIntent.putExtra("message", "Вы давно не занимались. Возвращайтесь! 📚");
-
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                    context,
-                    INACTIVITY_NOTIFICATION_ID,
-                    notificationIntent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-
             AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
 
             if (alarmManager != null) {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    alarmManager.setExactAndAllowWhileIdle(
-                            AlarmManager.RTC_WAKEUP,
-                            calendar.getTimeInMillis(),
-                            pendingIntent
-                    );
-                } else {
-                    alarmManager.setExact(
-                            AlarmManager.RTC_WAKEUP,
-                            calendar.getTimeInMillis(),
-                            pendingIntent
-                    );
-                }
+                // set() неточный: срабатывание объединяется с соседними будильниками
+                alarmManager.set(
+                        AlarmManager.RTC_WAKEUP,
+                        calendar.getTimeInMillis(),
+                        pendingIntent(context, INACTIVITY_NOTIFICATION_ID, ACTION_INACTIVITY)
+                );
                 Log.d("NotificationScheduler", "Уведомление о бездействии установлено: " + calendar.getTime());
             }
         } catch (Exception e) {
@@ -110,39 +96,9 @@ public class NotificationScheduler {
     }
 
     public static void cancelAllNotifications(Context context) {
-        try {
-            AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-
-            // Отменяем ежедневное уведомление
-            Intent dailyIntent = new Intent(context, NotificationReceiver.class);
-            PendingIntent dailyPending = PendingIntent.getBroadcast(
-                    context,
-                    DAILY_NOTIFICATION_ID,
-                    dailyIntent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-            if (alarmManager != null && dailyPending != null) {
-                alarmManager.cancel(dailyPending);
-                dailyPending.cancel();
-            }
-
-            // Отменяем уведомление о бездействии
-            Intent inactivityIntent = new Intent(context, NotificationReceiver.class);
-            PendingIntent inactivityPending = PendingIntent.getBroadcast(
-                    context,
-                    INACTIVITY_NOTIFICATION_ID,
-                    inactivityIntent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-            if (alarmManager != null && inactivityPending != null) {
-                alarmManager.cancel(inactivityPending);
-                inactivityPending.cancel();
-            }
-
-            Log.d("NotificationScheduler", "Все уведомления отменены");
-        } catch (Exception e) {
-            Log.e("NotificationScheduler", "Ошибка отмены уведомлений", e);
-        }
+        cancel(context, DAILY_NOTIFICATION_ID, ACTION_DAILY);
+        cancel(context, INACTIVITY_NOTIFICATION_ID, ACTION_INACTIVITY);
+        Log.d("NotificationScheduler", "Все уведомления отменены");
     }
 
     public static void resetInactivityTimer(Context context) {
@@ -151,7 +107,7 @@ public class NotificationScheduler {
             String type = preferences.getString("notification_type", "none");
 
             if ("after_inactivity".equals(type)) {
-                cancelInactivityNotification(context);
+                cancel(context, INACTIVITY_NOTIFICATION_ID, ACTION_INACTIVITY);
                 scheduleInactivityNotification(context);
                 Log.d("NotificationScheduler", "Таймер бездействия сброшен");
             }
@@ -160,23 +116,29 @@ public class NotificationScheduler {
         }
     }
 
-    private static void cancelInactivityNotification(Context context) {
+    private static void cancel(Context context, int requestCode, String action) {
         try {
             AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-
-            Intent inactivityIntent = new Intent(context, NotificationReceiver.class);
-            PendingIntent inactivityPending = PendingIntent.getBroadcast(
-                    context,
-                    INACTIVITY_NOTIFICATION_ID,
-                    inactivityIntent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-            if (alarmManager != null && inactivityPending != null) {
-                alarmManager.cancel(inactivityPending);
-                inactivityPending.cancel();
+            PendingIntent pending = pendingIntent(context, requestCode, action);
+            if (alarmManager != null) {
+                alarmManager.cancel(pending);
             }
+            pending.cancel();
         } catch (Exception e) {
-            Log.e("NotificationScheduler", "Ошибка отмены уведомления о бездействии", e);
+            Log.e("NotificationScheduler", "Ошибка отмены уведомления " + action, e);
         }
     }
-}
\ No newline at end of file
+
+    // Отмена находит будильник, только если Intent совпадает вместе с action -
+    // поэтому и установка, и отмена строят его здесь
+    private static PendingIntent pendingIntent(Context context, int requestCode, String action) {
+        Intent intent = new Intent(context, NotificationReceiver.class);
+        intent.setAction(action);
+        return PendingIntent.getBroadcast(
+                context,
+                requestCode,
+                intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Снимок публичных библиотек, собранный scripts/snapshot_public_libraries.py
+ * и положенный в assets/database. На первом запуске Room открывается прямо из него,
+ * а метка snapshotAt - момент, до которого публичные данные заведомо есть локально.
+ * Изменения после снимка догоняет сверка версий (WordRepository.syncPublicLibraries).
+ */
+public class PublicSnapshot {
+    private static final String TAG = "PublicSnapshot";
+
+    static final String ASSET_DIR = "database";
+    static final String ASSET_DATABASE = ASSET_DIR + "/public_libraries.db";
+    static final String ASSET_META = ASSET_DIR + "/public_libraries_meta.json";
+
+    private static final String KEY_SNAPSHOT_AT = "public_snapshot_at";
+    private static final String KEY_SEEDED_PREFIX = "public_seeded_";
+
+    private PublicSnapshot() {
+    }
+
+    /**
+     * Есть ли снимок в APK и совпадает ли его схема с текущей версией Room
+     */
+    static boolean isBundled(Context context, int schemaVersion) {
+        JsonObject meta = readMeta(context);
+        if (meta == null) {
+            return false;
+        }
+        int bundledVersion = meta.has("schemaVersion") ? meta.get("schemaVersion").getAsInt() : -1;
+        if (bundledVersion != schemaVersion) {
+            Log.w(TAG, "⚠️ Снимок собран для схемы " + bundledVersion + ", а Room ждёт " + schemaVersion);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Запоминает метку снимка после первого успешного открытия базы, созданной из него.
+     * userId - владелец базы: к моменту открытия текущий аккаунт мог смениться
+     */
+    static void markInstalled(Context context, String userId) {
+        JsonObject meta = readMeta(context);
+        if (meta == null || !meta.has("snapshotAt")) {
+            return;
+        }
+        long snapshotAt = meta.get("snapshotAt").getAsLong();
+        AccountScope.prefs(context, AccountScope.CACHE_METADATA, userId).edit()
+                .putLong(KEY_SNAPSHOT_AT, snapshotAt).apply();
+        Log.d(TAG, "📦 База создана из снимка от " + snapshotAt);
+    }
+
+    /**
+     * Была ли локальная база создана из снимка (и ещё не сброшена)
+     */
+    public static boolean isInstalled(Context context) {
+        return getSnapshotAt(context) > 0;
+    }
+
+    /**
+     * Момент, до которого публичные данные уже есть локально (0 - снимка нет)
+     */
+    public static long getSnapshotAt(Context context) {
+        return prefs(context).getLong(KEY_SNAPSHOT_AT, 0);
+    }
+
+    /**
+     * Сдвигает метку после успешной сверки публичных библиотек (WordRepository.syncPublicLibraries)
+     */
+    public static void advanceTo(Context context, long timestamp) {
+        prefs(context).edit().putLong(KEY_SNAPSHOT_AT, timestamp).apply();
+    }
+
+    public static void reset(Context context) {
+        SharedPreferences.Editor editor = prefs(context).edit().remove(KEY_SNAPSHOT_AT);
+        for (String language : LanguageHydrator.SUPPORTED_LANGUAGES) {
+            editor.remove(KEY_SEEDED_PREFIX + language);
+        }
+        editor.apply();
+    }
+
+    /**
+     * Публичные слова языка уже лежат в базе: из снимка или скопированы из базы
+     * другого аккаунта - тогда при загрузке языка их не качаем
+     */
+    public static boolean hasPublicWords(Context context, String language) {
+        return isInstalled(context) || prefs(context).getBoolean(KEY_SEEDED_PREFIX + language, false);
+    }
+
+    /**
+     * База аккаунта userId заполнена публичными библиотеками из базы аккаунта sourceUserId.
+     * У источника со снимком публичное есть целиком - переносим его метку, и сверка
+     * догонит остальное. Без снимка полны только языки, которые источник загрузил.
+     */
+    static void markSeeded(Context context, String userId, String sourceUserId) {
+        SharedPreferences source = AccountScope.prefs(context, AccountScope.CACHE_METADATA, sourceUserId);
+        SharedPreferences.Editor editor = AccountScope.prefs(context, AccountScope.CACHE_METADATA, userId).edit();
+        long snapshotAt = source.getLong(KEY_SNAPSHOT_AT, 0);
+        if (snapshotAt > 0) {
+            editor.putLong(KEY_SNAPSHOT_AT, snapshotAt);
+        } else {
+            for (String language : AccountScope.loadedLanguages(context, sourceUserId)) {
+                editor.putBoolean(KEY_SEEDED_PREFIX + language, true);
+            }
+        }
+        editor.apply();
+        Log.d(TAG, "📦 Публичные библиотеки взяты из базы аккаунта " + sourceUserId);
+    }
+
+    private static JsonObject readMeta(Context context) {
+        try (InputStream in = context.getAssets().open(ASSET_META);
+             InputStreamReader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return new Gson().fromJson(reader, JsonObject.class);
+        } catch (IOException e) {
+            // Снимок не собран - обычная сборка без assets/database
+            return null;
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Не удалось прочитать метаданные снимка", e);
+            return null;
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return AccountScope.prefs(context, AccountScope.CACHE_METADATA);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.newwords;
+
+import java.util.Map;
+
+/**
+ * Нормализация текста для поиска: нижний регистр без учёта локали, ё -> е
+ * и башкирские буквы -> ближайшие русские (ә -> а, ө -> о, ү -> у, ғ -> г, ҡ -> к,
+ * ң -> н, ҙ -> з, ҫ -> с, һ -> х), пробелы схлопываются.
+ * Ключи считаются один раз при записи (LocalWordItem.updateDerivedKeys, LocalWordLibrary.updateSearchKeys),
+ * при поиске нормализуется только сам запрос.
+ *
+ * Та же функция есть в scripts/snapshot_public_libraries.py - менять вместе;
+ * общие примеры для обеих лежат в app/src/test/resources/search_normalizer_vectors.json.
+ */
+public final class SearchNormalizer {
+
+    // Разделитель полей в составном ключе: в нормализованном запросе его не бывает,
+    // поэтому совпадение не может «перешагнуть» из слова в перевод
+    static final char FIELD_SEPARATOR = '\u0001';
+
+    private SearchNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == FIELD_SEPARATOR) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            sb.append(fold(Character.toLowerCase(c)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Составной ключ из уже нормализованных полей
+     */
+    public static String combine(String... normalizedParts) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : normalizedParts) {
+            if (sb.length() > 0) {
+                sb.append(FIELD_SEPARATOR);
+            }
+            if (part != null) {
+                sb.append(part);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Ключ локализованного поля (название, описание библиотеки): все переводы сразу
+     */
+    public static String normalizeAll(Map<String, String> localized) {
+        if (localized == null || localized.isEmpty()) {
+            return "";
+        }
+        String[] parts = new String[localized.size()];
+        int i = 0;
+        for (String value : localized.values()) {
+            parts[i++] = normalize(value);
+        }
+        return combine(parts);
+    }
+
+    /**
+     * @param normalizedQuery результат normalize() - считается один раз на запрос
+     */
+    public static boolean matches(String searchKey, String normalizedQuery) {
+        return normalizedQuery.isEmpty() || (searchKey != null && searchKey.contains(normalizedQuery));
+    }
+
+    private static char fold(char c) {
+        switch (c) {
+            case 'ё': return 'е';
+            case 'ә': return 'а';
+            case 'ө': return 'о';
+            case 'ү': return 'у';
+            case 'ғ': return 'г';
+            case 'ҡ': return 'к';
+            case 'ң': return 'н';
+            case 'ҙ': return 'з';
+            case 'ҫ': return 'с';
+            case 'һ': return 'х';
+            default: return c;
+        }
+    }
+}
@@ -27,10 +27,12 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public class SearchWordsFragment extends Fragment implements
         WordListAdapter.OnWordDeleteListener,
-        WordListAdapter.OnWordClickListener {
+        WordListAdapter.OnWordClickListener,
+        WordListAdapter.OnWordReplacedListener {
 
     private static final String TAG = "SearchWordsFragment";
     private static final String ARG_LANGUAGE = "current_language";
@@ -49,6 +51,8 @@ public class SearchWordsFragment extends Fragment implements
     private TextToSpeechManager ttsManager;
     private String currentLanguage = "en";
     private ImageView favoriteFilterButton;
+    private FilterPipeline<WordQuery, WordQueryResult> filterPipeline;
+    private WordSearchIndex searchIndex;
 
     // ✅ Флаг для отслеживания режима фильтрации
     private boolean isShowingFavoritesOnly = false;
@@ -73,8 +77,11 @@ public class SearchWordsFragment extends Fragment implements
         }
         Log.d(TAG, "SearchWordsFragment создан для языка: " + currentLanguage);
 
-        wordRepository = new WordRepository(getContext());
+        wordRepository = WordRepository.getInstance(requireContext());
         ttsManager = TextToSpeechManager.getInstance(getContext());
+        searchIndex = WordSearchIndex.getInstance(requireContext());
+        searchIndex.ensureBuilt();
+        filterPipeline = createFilterPipeline();
 
         initViews(view);
         setupRecyclerView();
@@ -151,33 +158,91 @@ public class SearchWordsFragment extends Fragment implements
         favoriteFilterButton.setBackgroundResource(android.R.color.transparent);
     }
 
-    // ✅ Применение текущих фильтров (поиск + избранное)
+    // ✅ Применение текущих фильтров (поиск + избранное) - без задержки
     private void applyFilter() {
-        String query = searchEditText.getText().toString();
+        if (filterPipeline != null) {
+            filterPipeline.requestNow();
+        }
+    }
+
+    /**
+     * Входные данные фильтра: копия списка и параметры на момент запроса
+     */
+    private static class WordQuery {
+        final List<WordItem> words;
+        final String text;
+        final boolean favoritesOnly;
+        final WordSearchIndex index;
+
+        WordQuery(List<WordItem> words, String text, boolean favoritesOnly, WordSearchIndex index) {
+            this.words = words;
+            this.text = text;
+            this.favoritesOnly = favoritesOnly;
+            this.index = index;
+        }
+    }
+
+    private static class WordQueryResult {
+        final List<WordItem> words;
+        final String text;
+        final boolean favoritesOnly;
+
+        WordQueryResult(List<WordItem> words, String text, boolean favoritesOnly) {
+            this.words = words;
+            this.text = text;
+            this.favoritesOnly = favoritesOnly;
+        }
+    }
+
+    private FilterPipeline<WordQuery, WordQueryResult> createFilterPipeline() {
+        return new FilterPipeline<>(FilterPipeline.DEFAULT_DEBOUNCE_MS,
+                () -> new WordQuery(new ArrayList<>(allWords),
+                        searchEditText.getText().toString(), isShowingFavoritesOnly, searchIndex),
+                SearchWordsFragment::filterWords,
+                this::showFilterResult);
+    }
 
-        if (query.isEmpty() && !isShowingFavoritesOnly) {
+    /**
+     * Фоновая часть: поиск + избранное
+     */
+    private static WordQueryResult filterWords(WordQuery query, FilterPipeline.Cancellation cancellation) {
+        if (query.text.isEmpty() && !query.favoritesOnly) {
             // Без фильтров - показываем все
-            filteredWords.clear();
-            filteredWords.addAll(allWords);
-        } else {
-            filteredWords.clear();
-            String queryLower = query.toLowerCase();
+            return new WordQueryResult(query.words, query.text, false);
+        }
 
-            for (WordItem word : allWords) {
-                // Проверяем фильтр избранного
-                boolean matchesFavorite = !isShowingFavoritesOnly || word.isFavorite();
+        List<WordItem> result = new ArrayList<>();
+        // Нормализуем только запрос: ключи слов посчитаны при записи в кеш
+        String normalizedQuery = SearchNormalizer.normalize(query.text);
+        // Совпадения из триграммного индекса; пока он строится - проверяем ключи по списку
+        Set<String> matchedIds = normalizedQuery.isEmpty() ? null : query.index.search(normalizedQuery);
 
-                // Проверяем поисковый запрос
-                boolean matchesSearch = query.isEmpty() ||
-                        (word.getWord() != null && word.getWord().toLowerCase().contains(queryLower)) ||
-                        (word.getTranslation() != null && word.getTranslation().toLowerCase().contains(queryLower)) ||
-                        (word.getNote() != null && word.getNote().toLowerCase().contains(queryLower));
+        for (int i = 0; i < query.words.size(); i++) {
+            if ((i & 0xFF) == 0 && cancellation.isCancelled()) {
+                break;
+            }
+            WordItem word = query.words.get(i);
 
-                if (matchesFavorite && matchesSearch) {
-                    filteredWords.add(word);
-                }
+            // Проверяем фильтр избранного
+            boolean matchesFavorite = !query.favoritesOnly || word.isFavorite();
+
+            // Проверяем поисковый запрос
+            boolean matchesSearch = matchedIds != null
+                    ? matchedIds.contains(word.getWordId())
+                    : SearchNormalizer.matches(word.getSearchKey(), normalizedQuery);
+
+            if (matchesFavorite && matchesSearch) {
+                result.add(word);
             }
         }
+        return new WordQueryResult(result, query.text, query.favoritesOnly);
+    }
+
+    private void showFilterResult(WordQueryResult result) {
+        if (wordAdapter == null) return;
+
+        filteredWords = result.words;
+        String query = result.text;
 
         // Обновляем адаптер
         wordAdapter.updateWords(filteredWords);
@@ -185,9 +250,9 @@ public class SearchWordsFragment extends Fragment implements
         // Показываем/скрываем пустое состояние
         if (filteredWords.isEmpty()) {
             String emptyMessage;
-            if (isShowingFavoritesOnly && query.isEmpty()) {
+            if (result.favoritesOnly && query.isEmpty()) {
                 emptyMessage = "Нет избранных слов\nДобавьте слова в избранное, нажав на сердечко";
-            } else if (isShowingFavoritesOnly && !query.isEmpty()) {
+            } else if (result.favoritesOnly && !query.isEmpty()) {
                 emptyMessage = "Нет избранных слов по запросу \"" + query + "\"";
             } else if (!query.isEmpty()) {
                 emptyMessage = "Слова по запросу \"" + query + "\" не найдены";
@@ -204,6 +269,7 @@ public class SearchWordsFragment extends Fragment implements
         wordAdapter = new WordListAdapter(new ArrayList<>(), wordRepository, true);
         wordAdapter.setOnWordDeleteListener(this);
         wordAdapter.setOnWordClickListener(this);
+        wordAdapter.setOnWordReplacedListener(this);
         wordsRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         wordsRecyclerView.setAdapter(wordAdapter);
     }
@@ -216,7 +282,8 @@ public class SearchWordsFragment extends Fragment implements
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 updateClearButtonVisibility(s.toString());
-                applyFilter(); // ✅ Используем общий метод applyFilter
+                // Фильтруем, когда ввод затих, и не в UI-потоке
+                filterPipeline.request();
             }
 
             @Override
@@ -305,11 +372,24 @@ public class SearchWordsFragment extends Fragment implements
         applyFilter();                 // ← ЭТО ПЕРЕСОЗДАСТ filteredWords заново
     }
 
+    @Override
+    public void onWordReplaced(WordItem original, WordItem updated) {
+        // Адаптер уже показывает копию - без перерисовки держим её и в списках экрана
+        int index = allWords.indexOf(original);
+        if (index != -1) {
+            allWords.set(index, updated);
+        }
+        index = filteredWords.indexOf(original);
+        if (index != -1) {
+            filteredWords.set(index, updated);
+        }
+    }
+
     @Override
     public void onResume() {
         super.onResume();
         if (ttsManager != null) {
-            ttsManager.restart();
+            ttsManager.warmUp(currentLanguage);
         }
     }
 
@@ -321,6 +401,10 @@ public class SearchWordsFragment extends Fragment implements
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (filterPipeline != null) {
+            filterPipeline.close();
+            filterPipeline = null;
+        }
     }
 
     @Override
@@ -349,13 +433,8 @@ public class SearchWordsFragment extends Fragment implements
             @Override
             public void onPlayPronunciation(String wordText) {
                 if (ttsManager != null) {
-                    if (!ttsManager.isInitialized()) {
-                        ttsManager.restart();
-                        new android.os.Handler(android.os.Looper.getMainLooper())
-                                .postDelayed(() -> ttsManager.speak(wordText), 300);
-                    } else {
-                        ttsManager.speak(wordText);
-                    }
+                    // Если движок ещё поднимается, слово прозвучит сразу после его onInit
+                    ttsManager.speak(wordText, currentLanguage);
                 }
             }
         });
@@ -400,18 +479,20 @@ public class SearchWordsFragment extends Fragment implements
             String newNote = editNote.getText().toString().trim();
 
             if (!newWord.isEmpty() && !newTranslation.isEmpty()) {
-                word.setWord(newWord);
-                word.setTranslation(newTranslation);
-                word.setNote(newNote);
+                // Слово из общего снимка (LanguageWordCache) не меняем - правим копию
+                WordItem edited = new WordItem(word);
+                edited.setWord(newWord);
+                edited.setTranslation(newTranslation);
+                edited.setNote(newNote);
 
-                wordRepository.updateWord(word, new WordRepository.OnWordUpdatedListener() {
+                wordRepository.updateWord(edited, new WordRepository.OnWordUpdatedListener() {
                     @Override
                     public void onWordUpdated() {
                         if (getActivity() != null) {
                             getActivity().runOnUiThread(() -> {
                                 int index = allWords.indexOf(word);
                                 if (index != -1) {
-                                    allWords.set(index, word);
+                                    allWords.set(index, edited);
                                     applyFilter();
                                 }
                                 Toast.makeText(getContext(), "Слово обновлено", Toast.LENGTH_SHORT).show();
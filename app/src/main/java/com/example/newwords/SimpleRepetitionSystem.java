@@ -148,6 +148,19 @@ public class SimpleRepetitionSystem {
         return isDue;
     }
 
+    /**
+     * Этап с ближайшим снизу интервалом (перенос прогресса из Anki). Минимум 1 - слово уже повторялось
+     */
+    public static int stageForInterval(int days) {
+        int stage = 1;
+        for (int i = 1; i <= MAX_STAGE; i++) {
+            if (REVIEW_INTERVALS[i] <= days) {
+                stage = i;
+            }
+        }
+        return stage;
+    }
+
     /**
      * Проверяет, является ли слово выученным
      */
@@ -12,14 +12,33 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.viewpager2.widget.ViewPager2;
 
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Колода карточек поверх ViewPager2: каждая карточка - своя страница со стабильным id.
+ * Следующие PREBIND_AHEAD карточек привязываются заранее (offscreenPageLimit),
+ * переход к следующей - прокрутка на одну страницу, где двигается только уходящая карточка.
+ */
 public class StackCardAdapter extends RecyclerView.Adapter<StackCardAdapter.ViewHolder> {
 
     private static final String PREFS_NAME = "StackCardPrefs";
     private static final String KEY_SPEAK_ENABLED = "speak_enabled";
 
+    // Сколько карточек после текущей держим уже привязанными
+    static final int PREBIND_AHEAD = 2;
+    private static final String PAYLOAD_SPEAK = "speak";
+
+    /**
+     * Хук для подготовки карточек (аудио, данные) до того, как их покажут:
+     * приходит текущая карточка и PREBIND_AHEAD следующих
+     */
+    public interface OnPrefetchListener {
+        void onPrefetch(List<WordItem> upcomingWords);
+    }
+
     private List<WordItem> wordList;
     private OnCardActionListener listener;
     private int currentPosition = 0;
@@ -27,11 +46,40 @@ public class StackCardAdapter extends RecyclerView.Adapter<StackCardAdapter.View
     private Context context;
     private TextToSpeechManager ttsManager;
     private boolean isSpeakEnabled = false; // 🔇 ПО УМОЛЧАНИЮ ВЫКЛЮЧЕНА!
+    private ViewPager2 viewPager;
+    private OnPrefetchListener prefetchListener;
+    private String speechLanguage;
 
     public StackCardAdapter(List<WordItem> wordList, OnCardActionListener listener, WordRepository wordRepository) {
         this.wordList = wordList;
         this.listener = listener;
         this.wordRepository = wordRepository;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Подключает колоду к ViewPager2: предварительная привязка и анимация стопки
+     */
+    public void attachTo(ViewPager2 pager) {
+        this.viewPager = pager;
+        pager.setOffscreenPageLimit(PREBIND_AHEAD);
+        pager.setPageTransformer(new StackPageTransformer());
+        pager.setAdapter(this);
+        pager.setCurrentItem(currentPosition, false);
+        notifyPrefetch();
+    }
+
+    /**
+     * Язык изучения (languageFrom библиотек сессии) - на нём и озвучиваем
+     */
+    public void setSpeechLanguage(String language) {
+        this.speechLanguage = language;
+        warmUpSpeech();
+    }
+
+    public void setOnPrefetchListener(OnPrefetchListener listener) {
+        this.prefetchListener = listener;
+        notifyPrefetch();
     }
 
     @Override
@@ -42,6 +90,21 @@ public class StackCardAdapter extends RecyclerView.Adapter<StackCardAdapter.View
 
         // Загружаем настройку озвучки (по умолчанию false)
         loadSpeakPreference();
+        warmUpSpeech();
+    }
+
+    private void warmUpSpeech() {
+        if (isSpeakEnabled && ttsManager != null && speechLanguage != null) {
+            ttsManager.warmUp(speechLanguage);
+        }
+    }
+
+    /**
+     * Включена ли озвучка карточек - без адаптера (прогрев движка при старте)
+     */
+    public static boolean isSpeakPreferenceEnabled(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .getBoolean(KEY_SPEAK_ENABLED, false);
     }
 
     /**
@@ -73,8 +136,19 @@ public class StackCardAdapter extends RecyclerView.Adapter<StackCardAdapter.View
         isSpeakEnabled = !isSpeakEnabled;
         saveSpeakPreference(isSpeakEnabled);
 
-        // Уведомляем все видимые карточки об изменении иконки
-        notifyItemRangeChanged(0, getItemCount());
+        // Меняем только иконку на текущей и заранее привязанных карточках
+        int count = Math.min(PREBIND_AHEAD + 1, wordList.size() - currentPosition);
+        if (count > 0) {
+            notifyItemRangeChanged(currentPosition, count, PAYLOAD_SPEAK);
+        }
+
+        if (isSpeakEnabled) {
+            // Пока озвучка была выключена, движок не поднимали и аудио не готовили
+            warmUpSpeech();
+            notifyPrefetch();
+        } else if (ttsManager != null) {
+            ttsManager.flush();
+        }
 
         String message = isSpeakEnabled ? "🔊 Озвучка включена" : "🔇 Озвучка выключена";
         if (context != null) {
@@ -90,47 +164,117 @@ public class StackCardAdapter extends RecyclerView.Adapter<StackCardAdapter.View
     }
 
     /**
-     * Озвучивает слово (если включена озвучка)
+     * Озвучивает слово (если включена озвучка). Произношения встают в очередь за текущим,
+     * а не обрывают его - движок сам дождётся инициализации
      */
     private void speakWord(String word) {
         if (isSpeakEnabled && ttsManager != null) {
             Log.d("StackCardAdapter", "🔊 Озвучиваем слово: " + word);
-            ttsManager.speak(word);
+            ttsManager.enqueue(word, speechLanguage, null);
         }
     }
 
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_card, parent, false);
+        View view = ViewPrewarmer.obtain(R.layout.item_card, parent);
+        if (view == null) {
+            view = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.item_card, parent, false);
+        }
         return new ViewHolder(view);
     }
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        if (position == 0 && currentPosition < wordList.size()) {
-            WordItem wordItem = wordList.get(currentPosition);
-            holder.bind(wordItem);
-            holder.itemView.setVisibility(View.VISIBLE);
-        } else {
-            holder.itemView.setVisibility(View.GONE);
+        holder.bind(wordList.get(position));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_SPEAK)) {
+            holder.updateSpeakButtonIcon();
+            return;
         }
+        super.onBindViewHolder(holder, position, payloads);
     }
 
     @Override
     public int getItemCount() {
-        return Math.min(wordList.size() - currentPosition, 3);
+        return wordList.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String wordId = wordList.get(position).getWordId();
+        return wordId != null ? WordListAdapter.stableId(wordId) : position;
+    }
+
+    /**
+     * Сколько карточек ещё не пройдено
+     */
+    public int getRemainingCards() {
+        return Math.max(wordList.size() - currentPosition, 0);
     }
 
     private void moveToNextCard() {
         currentPosition++;
-        notifyDataSetChanged();
 
         if (currentPosition >= wordList.size()) {
             if (listener != null) {
                 listener.onAllCardsCompleted();
             }
+            return;
+        }
+
+        // Следующая карточка уже привязана - просто прокручиваем на одну страницу
+        if (viewPager != null) {
+            viewPager.setCurrentItem(currentPosition, true);
+        }
+        notifyPrefetch();
+    }
+
+    private void notifyPrefetch() {
+        if (prefetchListener == null) return;
+        int from = Math.min(currentPosition, wordList.size());
+        int to = Math.min(currentPosition + 1 + PREBIND_AHEAD, wordList.size());
+        if (from < to) {
+            prefetchListener.onPrefetch(new ArrayList<>(wordList.subList(from, to)));
+        }
+    }
+
+    /**
+     * Стопка: уходящая карточка улетает с поворотом и затуханием,
+     * следующая лежит на месте под ней и лишь слегка увеличивается
+     */
+    private static class StackPageTransformer implements ViewPager2.PageTransformer {
+        private static final float MIN_SCALE = 0.92f;
+        private static final float MAX_ROTATION = 12f;
+
+        @Override
+        public void transformPage(@NonNull View page, float position) {
+            if (position < -1f || position > 1f) {
+                page.setAlpha(0f);
+                return;
+            }
+            page.setAlpha(1f);
+            if (position <= 0f) {
+                // Уходящая (или текущая) карточка - обычная прокрутка плюс поворот
+                page.setTranslationX(0f);
+                page.setTranslationZ(0f);
+                page.setRotation(MAX_ROTATION * position);
+                page.setAlpha(1f + position);
+                page.setScaleX(1f);
+                page.setScaleY(1f);
+            } else {
+                // Следующая карточка стоит на месте под текущей
+                float scale = MIN_SCALE + (1f - MIN_SCALE) * (1f - position);
+                page.setTranslationX(-page.getWidth() * position);
+                page.setTranslationZ(-1f);
+                page.setRotation(0f);
+                page.setScaleX(scale);
+                page.setScaleY(scale);
+            }
         }
     }
 
@@ -231,7 +375,7 @@ public class StackCardAdapter extends RecyclerView.Adapter<StackCardAdapter.View
         /**
          * 🆕 Обновляет иконку кнопки озвучки в зависимости от состояния
          */
-        private void updateSpeakButtonIcon() {
+        void updateSpeakButtonIcon() {
             if (speakToggleButton != null) {
                 if (isSpeakEnabled) {
                     speakToggleButton.setImageResource(R.drawable.ic_volume_up);
@@ -1,27 +1,99 @@
 package com.example.newwords;
 
 import android.content.Context;
+import android.content.SharedPreferences;
+import android.media.AudioAttributes;
+import android.media.MediaPlayer;
+import android.os.Handler;
+import android.os.Looper;
 import android.speech.tts.TextToSpeech;
 import android.speech.tts.UtteranceProgressListener;
-import android.os.Build;
+import android.speech.tts.Voice;
 import android.os.Bundle;
-import androidx.annotation.NonNull;
+import android.util.Log;
+
 import androidx.annotation.Nullable;
 
-import java.util.HashMap;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Озвучка слов. На каждый язык изучения свой движок TextToSpeech (небольшой пул по языку),
+ * движки поднимаются и прогреваются заранее - в простое после старта приложения.
+ *
+ * Произношения идут через очередь: каждое ждёт предыдущее и сообщает о завершении,
+ * а пока движок языка поднимается, очередь просто ждёт его onInit.
+ * Аудио ближайших карточек синтезируется в файлы заранее (TtsAudioCache)
+ * и воспроизводится из кеша без участия движка.
+ *
+ * Всё состояние меняется только в UI-потоке.
+ */
+public class TextToSpeechManager {
+    private static final String TAG = "TextToSpeechManager";
+
+    private static final String PREFS_NAME = "tts_prefs";
+    private static final String KEY_VOICE_PREFIX = "voice_";
+    private static final String KEY_LOCALE_PREFIX = "locale_";
+    private static final String SYNTH_PREFIX = "synth_";
+    private static final String SAY_PREFIX = "say_";
+    private static final String WARMUP_PREFIX = "warmup_";
+    private static final String DEFAULT_LANGUAGE = "en";
+    // Больше нескольких карточек вперёд готовить незачем - при быстрой листовке старое выбрасываем
+    private static final int MAX_PENDING_SYNTHESIS = 8;
+    // Язык изучения + язык, на который только что переключились
+    private static final int MAX_ENGINES = 2;
+
+    /**
+     * Завершение произношения (в UI-потоке). spoken = false - ошибка движка или очередь сброшена
+     */
+    public interface UtteranceListener {
+        void onUtteranceDone(String text, boolean spoken);
+    }
 
-public class TextToSpeechManager implements TextToSpeech.OnInitListener {
+    private static class Utterance {
+        final String text;
+        final String language;
+        final UtteranceListener listener;
+        // id живой озвучки в движке, ключ ожидаемого файла или ожидание onInit
+        String sayId;
+        String awaitingKey;
+        boolean waitingForEngine;
+
+        Utterance(String text, String language, UtteranceListener listener) {
+            this.text = text;
+            this.language = language;
+            this.listener = listener;
+        }
+    }
 
     private static volatile TextToSpeechManager instance;
-    private TextToSpeech tts;
-    private Context context;
-    private boolean isInitialized = false;
+    private final Context context;
     private boolean isShuttingDown = false;
 
+    private final TtsAudioCache audioCache;
+    private final ExecutorService cacheExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // accessOrder = true: движок давно не нужного языка закрывается первым (trimEngines)
+    private final LinkedHashMap<String, Engine> engines = new LinkedHashMap<>(4, 0.75f, true);
+
+    private final ArrayDeque<Utterance> utterances = new ArrayDeque<>();
+    private Utterance current;
+    private long utteranceSeq = 0;
+    private String defaultLanguage = DEFAULT_LANGUAGE;
+    private MediaPlayer player;
+
     private TextToSpeechManager(Context context) {
         this.context = context.getApplicationContext();
-        initTTS();
+        this.audioCache = new TtsAudioCache(this.context);
     }
 
     public static TextToSpeechManager getInstance(Context context) {
@@ -31,137 +103,571 @@ public class TextToSpeechManager implements TextToSpeech.OnInitListener {
                     instance = new TextToSpeechManager(context);
                 }
             }
-        } else {
-            // Проверяем, не умер ли TTS движок
-            if (instance.tts == null) {
-                instance.initTTS();
-            }
         }
         return instance;
     }
 
-    private void initTTS() {
-        if (isShuttingDown) return;
+    /**
+     * Поднимает и прогревает движок языка, когда главный поток освободится после старта.
+     * Вызывать из UI-потока.
+     */
+    public static void warmUpWhenIdle(Context context, String language) {
+        Context appContext = context.getApplicationContext();
+        Looper.myQueue().addIdleHandler(() -> {
+            getInstance(appContext).warmUp(language);
+            return false;
+        });
+    }
 
-        // Если TTS уже существует, сначала его остановим
-        if (tts != null) {
-            try {
-                tts.stop();
-                tts.shutdown();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            tts = null;
-        }
+    /**
+     * Движок языка поднимается заранее, язык становится языком по умолчанию для speak(text)
+     */
+    public void warmUp(String language) {
+        if (isShuttingDown || language == null) return;
+        defaultLanguage = language;
+        obtainEngine(language);
+    }
 
-        isInitialized = false;
-        tts = new TextToSpeech(context, this);
+    public void speak(String text) {
+        speak(text, defaultLanguage);
     }
 
-    @Override
-    public void onInit(int status) {
-        if (status == TextToSpeech.SUCCESS) {
-            int result = tts.setLanguage(Locale.US);
+    /**
+     * Сбрасывает очередь и произносит слово
+     */
+    public void speak(String text, String language) {
+        if (text == null || text.isEmpty()) return;
+        flush();
+        enqueue(text, language, null);
+    }
 
-            if (result == TextToSpeech.LANG_MISSING_DATA ||
-                    result == TextToSpeech.LANG_NOT_SUPPORTED) {
-                isInitialized = false;
-            } else {
-                // Устанавливаем скорость и высоту речи
-                tts.setSpeechRate(0.9f);  // Немного медленнее для лучшего понимания
-                tts.setPitch(1.0f);
+    /**
+     * Ставит произношение в очередь после уже запланированных. Подряд одинаковые слова схлопываются.
+     */
+    public void enqueue(String text, String language, @Nullable UtteranceListener listener) {
+        if (text == null || text.isEmpty() || isShuttingDown) return;
+        String lang = language != null ? language : defaultLanguage;
 
-                // Добавляем слушатель для отслеживания завершения
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                    tts.setOnUtteranceProgressListener(new UtteranceProgressListener() {
-                        @Override
-                        public void onStart(String utteranceId) {}
+        Utterance last = utterances.peekLast() != null ? utterances.peekLast() : current;
+        if (last != null && last.text.equals(text) && last.language.equals(lang)) {
+            if (listener != null) {
+                listener.onUtteranceDone(text, false);
+            }
+            return;
+        }
+        utterances.addLast(new Utterance(text, lang, listener));
+        playNext();
+    }
 
-                        @Override
-                        public void onDone(String utteranceId) {
-                            // Озвучивание завершено
-                        }
+    /**
+     * Готовит аудио для слов заранее (ближайшие карточки сессии).
+     * Уже озвученные слова берутся из кеша и повторно не синтезируются.
+     */
+    public void presynthesize(List<String> texts, String language) {
+        if (texts == null || isShuttingDown) return;
+        obtainEngine(language != null ? language : defaultLanguage).presynthesize(texts);
+    }
 
-                        @Override
-                        public void onError(String utteranceId) {
-                            // Ошибка при озвучивании
-                        }
-                    });
+    /**
+     * Останавливает текущее произношение и выбрасывает очередь
+     */
+    public void flush() {
+        List<Utterance> dropped = new ArrayList<>(utterances);
+        utterances.clear();
+        Utterance playing = current;
+        current = null;
+        if (playing != null) {
+            dropped.add(0, playing);
+            if (playing.sayId != null) {
+                Engine engine = engines.get(playing.language);
+                if (engine != null) {
+                    engine.stopSpeech();
                 }
-
-                isInitialized = true;
             }
-        } else {
-            isInitialized = false;
+            stopPlayer();
+        }
+        trimEngines();
+        for (Utterance utterance : dropped) {
+            if (utterance.listener != null) {
+                utterance.listener.onUtteranceDone(utterance.text, false);
+            }
         }
     }
 
-    public void speak(String text) {
-        if (text == null || text.isEmpty()) return;
+    private void playNext() {
+        if (current != null || isShuttingDown) return;
+        Utterance next = utterances.pollFirst();
+        if (next == null) return;
+        current = next;
 
-        // Проверяем, не закрыт ли TTS
-        if (tts == null) {
-            // Пересоздаем TTS
-            initTTS();
-            // Ждем инициализации перед озвучиванием
-            retrySpeak(text, 0);
+        Engine engine = obtainEngine(next.language);
+        String key = engine.keyFor(next.text);
+        if (key.equals(engine.inFlightKey)) {
+            // Файл вот-вот будет готов - играем его, а не синтезируем второй раз вживую
+            next.awaitingKey = key;
             return;
         }
 
-        // Ждем инициализации
-        if (!isInitialized) {
-            retrySpeak(text, 0);
+        cacheExecutor.execute(() -> {
+            File cached = audioCache.get(key);
+            mainHandler.post(() -> {
+                if (current != next) return; // очередь сбросили
+                if (cached != null) {
+                    playFile(next, cached);
+                } else {
+                    speakLive(next, engine);
+                    // Повторы этого слова пойдут уже из кеша
+                    engine.presynthesize(Collections.singletonList(next.text));
+                }
+            });
+        });
+    }
+
+    private void speakLive(Utterance utterance, Engine engine) {
+        if (engine.closed) {
+            // Движок закрыли, пока искали файл в кеше - его onInit уже не придёт
+            engine = obtainEngine(utterance.language);
+        }
+        if (engine.failed) {
+            finishUtterance(utterance, false);
             return;
         }
+        if (!engine.ready) {
+            // Продолжим из onInit движка
+            utterance.waitingForEngine = true;
+            return;
+        }
+        utterance.waitingForEngine = false;
+        utterance.sayId = SAY_PREFIX + (++utteranceSeq);
+        try {
+            int result = engine.tts.speak(utterance.text, TextToSpeech.QUEUE_ADD, null, utterance.sayId);
+            if (result != TextToSpeech.SUCCESS) {
+                finishUtterance(utterance, false);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Ошибка озвучки, пересоздаём движок " + engine.language, e);
+            discardEngine(engine);
+            finishUtterance(utterance, false);
+        }
+    }
 
+    /**
+     * Воспроизводит готовый файл. Движок для этого не нужен - звук сразу
+     */
+    private void playFile(Utterance utterance, File file) {
         try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                tts.speak(text, TextToSpeech.QUEUE_FLUSH, null, "utterance_" + System.currentTimeMillis());
-            } else {
-                HashMap<String, String> params = new HashMap<>();
-                params.put(TextToSpeech.Engine.KEY_PARAM_UTTERANCE_ID, "utterance_" + System.currentTimeMillis());
-                tts.speak(text, TextToSpeech.QUEUE_FLUSH, params);
+            if (player == null) {
+                player = new MediaPlayer();
+                player.setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_MEDIA)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+                        .build());
             }
+            player.reset();
+            player.setOnCompletionListener(mp -> finishUtterance(utterance, true));
+            player.setOnErrorListener((mp, what, extra) -> {
+                releasePlayer();
+                if (current == utterance) {
+                    speakLive(utterance, obtainEngine(utterance.language));
+                }
+                return true;
+            });
+            player.setDataSource(file.getAbsolutePath());
+            // Локальный wav в пару десятков КБ готовится мгновенно
+            player.prepare();
+            player.start();
         } catch (Exception e) {
-            e.printStackTrace();
-            // Если ошибка, пробуем пересоздать TTS
-            initTTS();
+            Log.w(TAG, "⚠️ Не удалось воспроизвести файл, озвучиваем вживую: " + utterance.text, e);
+            releasePlayer();
+            speakLive(utterance, obtainEngine(utterance.language));
         }
     }
 
-    private void retrySpeak(final String text, final int attempt) {
-        if (attempt > 5) return; // Максимум 5 попыток
+    private void finishUtterance(Utterance utterance, boolean spoken) {
+        if (current != utterance) return;
+        current = null;
+        // Лишний движок мог остаться открытым ради этого произношения
+        trimEngines();
+        if (utterance.listener != null) {
+            utterance.listener.onUtteranceDone(utterance.text, spoken);
+        }
+        playNext();
+    }
 
-        new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-            if (isInitialized && tts != null) {
-                speak(text);
-            } else if (attempt < 5) {
-                retrySpeak(text, attempt + 1);
+    private void stopPlayer() {
+        if (player != null) {
+            try {
+                if (player.isPlaying()) {
+                    player.stop();
+                }
+            } catch (IllegalStateException e) {
+                releasePlayer();
             }
-        }, 200); // Ждем 200ms между попытками
+        }
     }
 
-    public void shutdown() {
-        isShuttingDown = true;
-        if (tts != null) {
+    private void releasePlayer() {
+        if (player != null) {
+            player.release();
+            player = null;
+        }
+    }
+
+    private Engine obtainEngine(String language) {
+        Engine engine = engines.get(language);
+        if (engine == null) {
+            engine = new Engine(language);
+            engines.put(language, engine);
+            trimEngines();
+        }
+        return engine;
+    }
+
+    /**
+     * Закрывает давно не нужные движки сверх MAX_ENGINES. Движок языка текущего произношения
+     * не трогаем: очередь ждёт его onDone или onInit - он закроется после завершения произношения
+     */
+    private void trimEngines() {
+        Iterator<Engine> iterator = engines.values().iterator();
+        while (engines.size() > MAX_ENGINES && iterator.hasNext()) {
+            Engine engine = iterator.next();
+            if (current != null && current.language.equals(engine.language)) continue;
+            iterator.remove();
+            engine.shutdown();
+        }
+    }
+
+    private void discardEngine(Engine engine) {
+        if (engines.get(engine.language) == engine) {
+            engines.remove(engine.language);
+        }
+        engine.shutdown();
+        // Закрытый движок колбэков больше не пришлёт - ждущее его произношение завершаем сами,
+        // иначе очередь встанет
+        Utterance utterance = current;
+        if (utterance != null && utterance.language.equals(engine.language)
+                && (utterance.sayId != null || utterance.awaitingKey != null || utterance.waitingForEngine)) {
+            finishUtterance(utterance, false);
+        }
+    }
+
+    private SharedPreferences prefs() {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Локаль движка для кода языка приложения
+     */
+    private static Locale localeFor(String language) {
+        switch (language) {
+            case "ru": return new Locale("ru", "RU");
+            case "ba": return new Locale("ba", "RU");
+            default: return Locale.US;
+        }
+    }
+
+    /**
+     * Башкирский поддерживают не все движки - тогда читаем кириллицу русским голосом
+     */
+    @Nullable
+    private static Locale fallbackFor(String language) {
+        return "ba".equals(language) ? new Locale("ru", "RU") : null;
+    }
+
+    private static String warmUpText(String language) {
+        switch (language) {
+            case "ru": return "привет";
+            case "ba": return "сәләм";
+            default: return "hello";
+        }
+    }
+
+    /**
+     * Движок одного языка и его конвейер синтеза в файлы
+     */
+    private class Engine implements TextToSpeech.OnInitListener {
+        final String language;
+        final TextToSpeech tts;
+        Locale locale;
+        String voiceName;
+        boolean ready = false;
+        boolean failed = false;
+        boolean closed = false;
+
+        // В движке одновременно не больше одного синтеза, чтобы живая озвучка не стояла за пачкой файлов
+        final ArrayDeque<String> synthesisQueue = new ArrayDeque<>();
+        String inFlightKey;
+        String inFlightText;
+
+        Engine(String language) {
+            this.language = language;
+            // Локаль и голос прошлого запуска - чтобы кеш работал ещё до инициализации движка
+            String savedLocale = prefs().getString(KEY_LOCALE_PREFIX + language, null);
+            this.locale = savedLocale != null ? Locale.forLanguageTag(savedLocale) : localeFor(language);
+            this.voiceName = prefs().getString(KEY_VOICE_PREFIX + language, null);
+            this.tts = new TextToSpeech(context, this);
+            Log.d(TAG, "🔈 Поднимаем движок озвучки для языка " + language);
+        }
+
+        @Override
+        public void onInit(int status) {
+            mainHandler.post(() -> onEngineInit(status));
+        }
+
+        private void onEngineInit(int status) {
+            if (closed) return;
+            if (status != TextToSpeech.SUCCESS || !applyLanguage()) {
+                Log.w(TAG, "⚠️ Движок озвучки для " + language + " недоступен");
+                failed = true;
+                synthesisQueue.clear();
+                resumeWaitingUtterance();
+                return;
+            }
+
+            // Устанавливаем скорость и высоту речи
+            tts.setSpeechRate(0.9f);  // Немного медленнее для лучшего понимания
+            tts.setPitch(1.0f);
+            tts.setOnUtteranceProgressListener(new UtteranceProgressListener() {
+                @Override
+                public void onStart(String utteranceId) {}
+
+                @Override
+                public void onDone(String utteranceId) {
+                    mainHandler.post(() -> onUtteranceFinished(utteranceId, true));
+                }
+
+                @Override
+                public void onError(String utteranceId) {
+                    mainHandler.post(() -> onUtteranceFinished(utteranceId, false));
+                }
+
+                @Override
+                public void onStop(String utteranceId, boolean interrupted) {
+                    mainHandler.post(() -> onUtteranceStopped(utteranceId));
+                }
+            });
+
+            rememberVoice();
+            ready = true;
+            Log.d(TAG, "✅ Движок озвучки готов: " + language + " → " + locale.toLanguageTag());
+
+            if (!resumeWaitingUtterance() && synthesisQueue.isEmpty()) {
+                // Первый синтез подгружает голос - пусть это случится сейчас, а не на первой карточке
+                File scratch = audioCache.tempFileFor(WARMUP_PREFIX + language);
+                tts.synthesizeToFile(warmUpText(language), new Bundle(), scratch, WARMUP_PREFIX + language);
+            }
+            startNextSynthesis();
+        }
+
+        private boolean applyLanguage() {
+            int result = tts.setLanguage(locale);
+            if (isUnsupported(result) && fallbackFor(language) != null) {
+                locale = fallbackFor(language);
+                result = tts.setLanguage(locale);
+            }
+            if (isUnsupported(result) && !locale.equals(localeFor(language))) {
+                // Сохранённая локаль могла пропасть вместе с голосом
+                locale = localeFor(language);
+                result = tts.setLanguage(locale);
+            }
+            return !isUnsupported(result);
+        }
+
+        private boolean isUnsupported(int result) {
+            return result == TextToSpeech.LANG_MISSING_DATA || result == TextToSpeech.LANG_NOT_SUPPORTED;
+        }
+
+        /**
+         * Продолжает произношение, которое ждало этот движок. true - если такое было
+         */
+        private boolean resumeWaitingUtterance() {
+            Utterance utterance = current;
+            if (utterance == null || !utterance.waitingForEngine || !utterance.language.equals(language)) {
+                return false;
+            }
+            speakLive(utterance, this);
+            return true;
+        }
+
+        private void rememberVoice() {
+            String name = null;
+            try {
+                Voice voice = tts.getVoice();
+                if (voice != null) {
+                    name = voice.getName();
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "⚠️ Не удалось получить голос движка", e);
+            }
+            voiceName = name;
+            prefs().edit()
+                    .putString(KEY_VOICE_PREFIX + language, name)
+                    .putString(KEY_LOCALE_PREFIX + language, locale.toLanguageTag())
+                    .apply();
+        }
+
+        String keyFor(String text) {
+            return TtsAudioCache.key(text, locale, voiceName);
+        }
+
+        void presynthesize(List<String> texts) {
+            for (String text : texts) {
+                if (text == null || text.trim().isEmpty()) continue;
+                if (text.equals(inFlightText) || synthesisQueue.contains(text)) continue;
+                synthesisQueue.addLast(text);
+            }
+            while (synthesisQueue.size() > MAX_PENDING_SYNTHESIS) {
+                synthesisQueue.pollFirst();
+            }
+            startNextSynthesis();
+        }
+
+        /**
+         * Берёт следующее слово из очереди: если оно уже в кеше - пропускает,
+         * иначе отдаёт движку synthesizeToFile
+         */
+        private void startNextSynthesis() {
+            if (!ready || closed || inFlightText != null) return;
+
+            String text = synthesisQueue.pollFirst();
+            if (text == null) return;
+
+            String key = keyFor(text);
+            inFlightKey = key;
+            inFlightText = text;
+
+            cacheExecutor.execute(() -> {
+                File cached = audioCache.get(key);
+                File target = cached != null ? null : audioCache.tempFileFor(key);
+                mainHandler.post(() -> {
+                    if (closed || !key.equals(inFlightKey)) return;
+                    if (cached != null) {
+                        onSynthesisFinished(key, cached);
+                        return;
+                    }
+                    int result = tts.synthesizeToFile(text, new Bundle(), target, SYNTH_PREFIX + key);
+                    if (result != TextToSpeech.SUCCESS) {
+                        Log.w(TAG, "⚠️ Движок не принял синтез: " + text);
+                        audioCache.discard(key);
+                        onSynthesisFinished(key, null);
+                    }
+                });
+            });
+        }
+
+        private void onUtteranceFinished(String utteranceId, boolean success) {
+            if (utteranceId == null || closed) return;
+            if (utteranceId.startsWith(SAY_PREFIX)) {
+                if (current != null && utteranceId.equals(current.sayId)) {
+                    finishUtterance(current, success);
+                }
+            } else if (utteranceId.startsWith(SYNTH_PREFIX)) {
+                String key = utteranceId.substring(SYNTH_PREFIX.length());
+                // Файл переносим в фоне, состояние меняем в UI-потоке
+                cacheExecutor.execute(() -> {
+                    File file = null;
+                    if (success) {
+                        file = audioCache.commit(key);
+                    } else {
+                        audioCache.discard(key);
+                    }
+                    File result = file;
+                    mainHandler.post(() -> onSynthesisFinished(key, result));
+                });
+            } else if (utteranceId.startsWith(WARMUP_PREFIX)) {
+                cacheExecutor.execute(() -> audioCache.discard(utteranceId));
+            }
+        }
+
+        private void onUtteranceStopped(String utteranceId) {
+            if (utteranceId == null || closed) return;
+            if (utteranceId.startsWith(SYNTH_PREFIX)) {
+                // stop() при сбросе очереди выкидывает и синтез - вернём его в очередь
+                String key = utteranceId.substring(SYNTH_PREFIX.length());
+                if (!key.equals(inFlightKey)) return;
+                audioCache.discard(key);
+                synthesisQueue.addFirst(inFlightText);
+                inFlightKey = null;
+                inFlightText = null;
+                startNextSynthesis();
+            } else if (utteranceId.startsWith(WARMUP_PREFIX)) {
+                cacheExecutor.execute(() -> audioCache.discard(utteranceId));
+            }
+        }
+
+        private void onSynthesisFinished(String key, @Nullable File file) {
+            if (!key.equals(inFlightKey)) return;
+            String text = inFlightText;
+            inFlightKey = null;
+            inFlightText = null;
+
+            if (file != null) {
+                Log.d(TAG, "💾 Озвучка готова: " + text);
+            }
+            Utterance utterance = current;
+            if (utterance != null && key.equals(utterance.awaitingKey)) {
+                utterance.awaitingKey = null;
+                if (file != null) {
+                    playFile(utterance, file);
+                } else {
+                    speakLive(utterance, this);
+                }
+            }
+            startNextSynthesis();
+        }
+
+        void stopSpeech() {
+            if (ready && !closed) {
+                tts.stop();
+            }
+        }
+
+        void shutdown() {
+            closed = true;
+            ready = false;
+            synthesisQueue.clear();
+            if (inFlightKey != null) {
+                audioCache.discard(inFlightKey);
+            }
+            inFlightKey = null;
+            inFlightText = null;
             try {
                 tts.stop();
                 tts.shutdown();
             } catch (Exception e) {
                 e.printStackTrace();
             }
-            tts = null;
+            Log.d(TAG, "🔇 Движок озвучки закрыт: " + language);
+        }
+    }
+
+    public void shutdown() {
+        isShuttingDown = true;
+        flush();
+        releasePlayer();
+        for (Engine engine : engines.values()) {
+            engine.shutdown();
         }
+        engines.clear();
         instance = null;
     }
 
+    /**
+     * Готов ли движок языка по умолчанию
+     */
     public boolean isInitialized() {
-        return isInitialized && tts != null;
+        Engine engine = engines.get(defaultLanguage);
+        return engine != null && engine.ready;
     }
 
+    /**
+     * Пересоздаёт движок языка по умолчанию, если он не поднялся
+     */
     public void restart() {
-        if (tts == null || !isInitialized) {
-            initTTS();
+        Engine engine = engines.get(defaultLanguage);
+        if (engine != null && engine.failed) {
+            discardEngine(engine);
         }
+        obtainEngine(defaultLanguage);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,177 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Дисковый LRU-кеш озвученных слов (wav от TextToSpeech.synthesizeToFile).
+ * Ключ - хеш от текста, языка и голоса: смена голоса даёт новые файлы, старые вытесняются сами.
+ *
+ * Порядок обращений держим в памяти (access-order LinkedHashMap), при старте восстанавливаем
+ * его по lastModified файлов - setLastModified на части устройств не работает, поэтому на него
+ * опираемся только между запусками.
+ */
+public class TtsAudioCache {
+    private static final String TAG = "TtsAudioCache";
+    private static final String DIR_NAME = "tts_audio";
+    private static final String EXTENSION = ".wav";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Слово в wav - 20-60 КБ, этого хватает на несколько сотен слов
+    private static final long MAX_BYTES = 20L * 1024 * 1024;
+
+    private final File dir;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes = 0;
+    private boolean loaded = false;
+
+    public TtsAudioCache(Context context) {
+        this.dir = new File(context.getApplicationContext().getCacheDir(), DIR_NAME);
+    }
+
+    /**
+     * Ключ файла: текст без учёта регистра и крайних пробелов + язык + голос
+     */
+    public static String key(String text, Locale locale, @Nullable String voice) {
+        String raw = text.trim().toLowerCase(locale) + "|" + locale.toLanguageTag() + "|" + (voice != null ? voice : "");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(raw.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(String.format(Locale.ROOT, "%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 есть на всех Android, но на всякий случай
+            return Integer.toHexString(raw.hashCode()) + "_" + raw.length();
+        }
+    }
+
+    /**
+     * Готовый файл или null. Обращение сдвигает запись в начало LRU
+     */
+    @Nullable
+    public synchronized File get(String key) {
+        ensureLoaded();
+        if (entries.get(key) == null) {
+            return null;
+        }
+        File file = fileFor(key);
+        if (!file.exists()) {
+            // Система могла почистить cacheDir
+            totalBytes -= entries.remove(key);
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * Файл, в который движок пишет синтез. После onDone - commit, после ошибки - discard
+     */
+    public File tempFileFor(String key) {
+        dir.mkdirs();
+        return new File(dir, key + TEMP_SUFFIX);
+    }
+
+    /**
+     * Переносит готовый синтез в кеш и вытесняет самые старые файлы сверх лимита
+     */
+    @Nullable
+    public synchronized File commit(String key) {
+        ensureLoaded();
+        File temp = tempFileFor(key);
+        File target = fileFor(key);
+        if (!temp.exists() || temp.length() == 0 || !temp.renameTo(target)) {
+            temp.delete();
+            Log.w(TAG, "⚠️ Синтез не сохранён: " + key);
+            return null;
+        }
+
+        Long previous = entries.put(key, target.length());
+        if (previous != null) {
+            totalBytes -= previous;
+        }
+        totalBytes += target.length();
+        trim();
+        return target;
+    }
+
+    public void discard(String key) {
+        tempFileFor(key).delete();
+    }
+
+    public synchronized void clear() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        entries.clear();
+        totalBytes = 0;
+        Log.d(TAG, "🗑️ Кеш озвучки очищен");
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        int evicted = 0;
+        while (totalBytes > MAX_BYTES && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            fileFor(eldest.getKey()).delete();
+            totalBytes -= eldest.getValue();
+            it.remove();
+            evicted++;
+        }
+        if (evicted > 0) {
+            Log.d(TAG, "🧹 Вытеснено файлов озвучки: " + evicted + ", занято " + (totalBytes / 1024) + " КБ");
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+
+        File[] files = dir.listFiles();
+        if (files == null) return;
+
+        List<File> cached = new ArrayList<>();
+        for (File file : files) {
+            if (file.getName().endsWith(EXTENSION)) {
+                cached.add(file);
+            } else {
+                // Недописанный синтез прошлого запуска
+                file.delete();
+            }
+        }
+        // Самые старые первыми - они же первыми и вытесняются
+        File[] sorted = cached.toArray(new File[0]);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : sorted) {
+            String name = file.getName();
+            entries.put(name.substring(0, name.length() - EXTENSION.length()), file.length());
+            totalBytes += file.length();
+        }
+        trim();
+        Log.d(TAG, "📂 Кеш озвучки: " + entries.size() + " файлов, " + (totalBytes / 1024) + " КБ");
+    }
+
+    private File fileFor(String key) {
+        return new File(dir, key + EXTENSION);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.newwords;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.Nullable;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+
+/**
+ * Заранее надутые в фоне view экрана тренировки и списков слов.
+ * MainActivity запускает прогрев, когда главный поток простаивает после старта,
+ * а адаптеры и WordsFragment сначала берут готовый view отсюда и только потом надувают сами.
+ *
+ * View привязаны к теме активити, поэтому выдаются только внутри той же активити.
+ */
+public final class ViewPrewarmer {
+    private static final String TAG = "ViewPrewarmer";
+
+    // Страниц ViewPager2 на экране с запасом offscreenPageLimit (см. StackCardAdapter.attachTo)
+    private static final int CARD_VIEWS = 1 + 2 * StackCardAdapter.PREBIND_AHEAD;
+    // Примерно один экран списка слов
+    private static final int WORD_ROW_VIEWS = 10;
+
+    private static WeakReference<Activity> owner = new WeakReference<>(null);
+    private static final SparseArray<ArrayDeque<View>> POOLS = new SparseArray<>();
+
+    private ViewPrewarmer() {
+    }
+
+    /**
+     * Ставит прогрев на первый простой главного потока
+     */
+    public static void prewarmWhenIdle(Activity activity) {
+        Looper.myQueue().addIdleHandler(() -> {
+            if (!activity.isFinishing() && !activity.isDestroyed()) {
+                prewarm(activity);
+            }
+            return false;
+        });
+    }
+
+    private static void prewarm(Activity activity) {
+        clear();
+        owner = new WeakReference<>(activity);
+
+        AsyncLayoutInflater inflater = new AsyncLayoutInflater(activity);
+        // Родитель нужен только для LayoutParams: карточки - страницы RecyclerView внутри ViewPager2,
+        // строки - RecyclerView, экран тренировки - android.R.id.content
+        RecyclerView recyclerParent = new RecyclerView(activity);
+        FrameLayout contentParent = new FrameLayout(activity);
+
+        AsyncLayoutInflater.OnInflateFinishedListener store = (view, resId, parent) -> {
+            if (owner.get() != activity) return;
+            ArrayDeque<View> pool = POOLS.get(resId);
+            if (pool == null) {
+                pool = new ArrayDeque<>();
+                POOLS.put(resId, pool);
+            }
+            pool.add(view);
+        };
+
+        inflater.inflate(R.layout.fragment_words, contentParent, store);
+        for (int i = 0; i < CARD_VIEWS; i++) {
+            inflater.inflate(R.layout.item_card, recyclerParent, store);
+        }
+        for (int i = 0; i < WORD_ROW_VIEWS; i++) {
+            inflater.inflate(R.layout.item_word_list, recyclerParent, store);
+        }
+        Log.d(TAG, "🔥 Прогрев view: " + CARD_VIEWS + " карточек, " + WORD_ROW_VIEWS + " строк");
+    }
+
+    /**
+     * Готовый view для layoutId или null - тогда надуваем как обычно
+     */
+    @Nullable
+    public static View obtain(int layoutId, ViewGroup parent) {
+        Activity activity = owner.get();
+        if (activity == null || findActivity(parent.getContext()) != activity) {
+            return null;
+        }
+        ArrayDeque<View> pool = POOLS.get(layoutId);
+        return pool != null ? pool.poll() : null;
+    }
+
+    /**
+     * Отпускает view вместе с активити (onDestroy)
+     */
+    public static void release(Activity activity) {
+        if (owner.get() == activity) {
+            clear();
+        }
+    }
+
+    private static void clear() {
+        POOLS.clear();
+        owner = new WeakReference<>(null);
+    }
+
+    private static Activity findActivity(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+}
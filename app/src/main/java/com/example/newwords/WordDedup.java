@@ -0,0 +1,75 @@
+package com.example.newwords;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * Ключ дублей пользовательских слов: хеш нормализованных слова и перевода.
+ * Хранится в local_words.dedupKey с индексом (dedupKey, libraryId), поэтому
+ * «есть ли уже такое слово» - поиск по индексу, а не перебор библиотеки. Индекс не уникальный:
+ * дубли не пускают проверки перед записью (добавление, правка, импорт), а уже лежащие на сервере
+ * дубли при загрузке сохраняются как есть.
+ * Язык в хеш не входит: слово принадлежит библиотеке, язык берётся у неё
+ * (LocalWordDao.findDuplicate).
+ *
+ * Нормализация строже поисковой (SearchNormalizer): только регистр и пробелы,
+ * башкирские буквы не сворачиваются - «ул» и «үл» разные слова.
+ */
+public final class WordDedup {
+
+    /**
+     * Что делать, если слово уже есть
+     */
+    public enum Policy {
+        // Оставить существующее слово как есть
+        SKIP,
+        // Дописать новую заметку к существующему слову
+        MERGE
+    }
+
+    private static final char FIELD_SEPARATOR = '\u0001';
+    // 128 бит хватает с запасом: случайное совпадение ключей на миллионах слов исключено
+    private static final int KEY_BYTES = 16;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private WordDedup() {
+    }
+
+    public static String key(String word, String translation) {
+        String source = normalize(word) + FIELD_SEPARATOR + normalize(translation);
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 есть на любом Android
+            throw new IllegalStateException(e);
+        }
+        char[] hex = new char[KEY_BYTES * 2];
+        for (int i = 0; i < KEY_BYTES; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Заметка после слияния: новая дописывается, если её ещё нет в старой
+     */
+    public static String mergeNote(String existing, String incoming) {
+        String current = existing != null ? existing.trim() : "";
+        String added = incoming != null ? incoming.trim() : "";
+        if (added.isEmpty() || current.contains(added)) {
+            return current;
+        }
+        return current.isEmpty() ? added : current + "\n" + added;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,540 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Импорт слов в пользовательскую библиотеку: список CSV/TSV (importFrom) или колода Anki
+ * (importAnkiDeck, см. AnkiDeckReader). У CSV колонки - слово, перевод, необязательная заметка;
+ * разделитель (таб, ; или ,) определяется по первой строке, кавычки CSV поддерживаются,
+ * строка-заголовок пропускается.
+ *
+ * Дубли (WordDedup) проверяются по индексу dedupKey в local_words на каждой строке:
+ * слово уже есть в этой или другой пользовательской библиотеке языка - пропускается (SKIP)
+ * или его заметка дописывается к существующему (MERGE). Повторы внутри файла - по ключам импорта.
+ *
+ * Источник читается потоком: в памяти только текущая пачка и ключи файла. Каждая пачка -
+ * один WriteBatch (слова + FieldValue.increment(n) у библиотеки) и одна транзакция Room,
+ * одновременно в полёте не больше MAX_IN_FLIGHT_BATCHES батчей. Отмена срабатывает между
+ * строками и во время ожидания коммита: всё, что уже записано, остаётся в библиотеке вместе
+ * с правильным счётчиком. Без сети коммит не подтверждается - после COMMIT_TIMEOUT_MS импорт
+ * завершается ошибкой, а не висит.
+ */
+public class WordImporter {
+    private static final String TAG = "WordImporter";
+
+    // 500 записей на батч: слова + обновление wordCount библиотеки
+    private static final int BATCH_WRITES = 500;
+    private static final int WORDS_PER_BATCH = BATCH_WRITES - 1;
+    private static final int MAX_IN_FLIGHT_BATCHES = 3;
+    // Firestore завершает commit только после ответа сервера: без сети он ждал бы вечно
+    private static final long COMMIT_TIMEOUT_MS = 30 * 1000;
+    private static final long COMMIT_POLL_MS = 500;
+
+    private static final int MAX_WORD_LENGTH = 200;
+    private static final int MAX_NOTE_LENGTH = 500;
+    // Сколько символов можно прочитать вперёд, чтобы определить разделитель
+    private static final int DETECT_LIMIT = 64 * 1024;
+
+    /**
+     * Строка источника. Прогресс заполняют только источники с историей повторений (Anki)
+     */
+    static class ImportRow {
+        String word;
+        String translation;
+        String note;
+        int reviewStage;
+        Date nextReviewDate;
+        int reviewCount;
+        int correctAnswers;
+    }
+
+    /**
+     * Источник строк импорта: отдаёт по одной, null - конец
+     */
+    interface RowSource extends Closeable {
+        @Nullable
+        ImportRow next() throws IOException;
+    }
+
+    // Источник открывается уже в фоновом потоке
+    private interface SourceOpener {
+        RowSource open() throws IOException;
+    }
+
+    public static class Result {
+        public int imported;
+        public int duplicates;
+        public int merged;
+        public int invalid;
+        public boolean cancelled;
+    }
+
+    public interface OnImportListener {
+        void onProgress(int imported, int skipped);
+        void onComplete(Result result);
+        void onError(Exception e);
+    }
+
+    // Пачка, отправленная в Firestore: в Room попадает только после успешного коммита
+    private static class PendingChunk {
+        final Task<Void> commit;
+        final List<LocalWordItem> words;
+        // Существующие слова с дописанной заметкой (MERGE)
+        final List<LocalWordItem> merged;
+        final long startedAt = SystemClock.elapsedRealtime();
+
+        PendingChunk(Task<Void> commit, List<LocalWordItem> words, List<LocalWordItem> merged) {
+            this.commit = commit;
+            this.words = words;
+            this.merged = merged;
+        }
+    }
+
+    private final Context appContext;
+    private final AppDatabase localDb;
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+    public WordImporter(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.localDb = AppDatabase.getInstance(appContext);
+    }
+
+    /**
+     * Импортирует список CSV/TSV в библиотеку. Колбэки - в UI-потоке
+     */
+    public void importFrom(Uri uri, String libraryId, WordDedup.Policy policy, OnImportListener listener) {
+        start(libraryId, policy, listener, () -> {
+            InputStream input = appContext.getContentResolver().openInputStream(uri);
+            if (input == null) {
+                throw new IOException("Не удалось открыть файл: " + uri);
+            }
+            return new CsvSource(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        });
+    }
+
+    /**
+     * Импортирует колоду Anki (.apkg) в библиотеку.
+     *
+     * @param withProgress перенести этап и дату повторения из интервалов Anki
+     */
+    public void importAnkiDeck(Uri uri, String libraryId, boolean withProgress,
+                               WordDedup.Policy policy, OnImportListener listener) {
+        start(libraryId, policy, listener, () -> AnkiDeckReader.open(appContext, uri, withProgress));
+    }
+
+    private void start(String libraryId, WordDedup.Policy policy, OnImportListener listener,
+                       SourceOpener opener) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            listener.onError(new IllegalStateException("Пользователь не авторизован"));
+            return;
+        }
+        String userId = user.getUid();
+        cancelled.set(false);
+
+        executor.execute(() -> {
+            long started = System.currentTimeMillis();
+            // База не закроется посреди импорта, даже если аккаунт сменят
+            if (!localDb.acquire()) {
+                mainHandler.post(() -> listener.onError(new IllegalStateException("Аккаунт сменился")));
+                return;
+            }
+            try (RowSource source = opener.open()) {
+                Result result = run(source, userId, libraryId, policy, listener);
+                Log.d(TAG, "✅ Импорт в " + libraryId + ": " + result.imported + " слов, дублей "
+                        + result.duplicates + " (объединено " + result.merged + ")"
+                        + ", пропущено строк " + result.invalid
+                        + (result.cancelled ? " (отменён)" : "")
+                        + " за " + (System.currentTimeMillis() - started) + " мс");
+                mainHandler.post(() -> listener.onComplete(result));
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Ошибка импорта в " + libraryId, e);
+                mainHandler.post(() -> listener.onError(e));
+            } finally {
+                localDb.release();
+            }
+        });
+    }
+
+    /**
+     * Останавливает импорт после текущей пачки
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    private Result run(RowSource source, String userId, String libraryId, WordDedup.Policy policy,
+                       OnImportListener listener) throws Exception {
+        if (localDb.libraryDao().getLibraryById(libraryId) == null) {
+            // Только что созданная библиотека попадает в кеш со следующим списком библиотек,
+            // вместе с серверным wordCount
+            Log.d(TAG, "📭 Библиотеки " + libraryId + " ещё нет в кеше");
+        }
+
+        // Ключи слов этого импорта: уже сохранённые проверяются по индексу базы,
+        // а слова из пачек в полёте в базе ещё не видны
+        Set<String> seen = new HashSet<>();
+
+        DocumentReference userRef = db.collection("users").document(userId);
+        DocumentReference libraryRef = userRef.collection("custom_libraries").document(libraryId);
+        CollectionReference wordsRef = libraryRef.collection("words");
+
+        Result result = new Result();
+        ArrayDeque<PendingChunk> inFlight = new ArrayDeque<>();
+        List<WordItem> chunk = new ArrayList<>(WORDS_PER_BATCH);
+        List<LocalWordItem> merged = new ArrayList<>();
+
+        ImportRow row;
+        while ((row = source.next()) != null) {
+            if (cancelled.get()) {
+                result.cancelled = true;
+                break;
+            }
+
+            WordItem word = toWord(row, userId, libraryId);
+            if (word == null) {
+                result.invalid++;
+                continue;
+            }
+            String key = WordDedup.key(word.getWord(), word.getTranslation());
+            if (!seen.add(key)) {
+                result.duplicates++;
+                continue;
+            }
+            LocalWordItem existing = localDb.wordDao().findDuplicate(key, libraryId);
+            if (existing != null) {
+                result.duplicates++;
+                if (policy == WordDedup.Policy.MERGE) {
+                    String note = WordDedup.mergeNote(existing.getNote(), word.getNote());
+                    if (!note.equals(existing.getNote())) {
+                        existing.setNote(note);
+                        existing.updateDerivedKeys();
+                        merged.add(existing);
+                        result.merged++;
+                    }
+                }
+            } else {
+                chunk.add(word);
+            }
+
+            if (chunk.size() + merged.size() >= WORDS_PER_BATCH) {
+                inFlight.add(commitChunk(chunk, merged, userRef, libraryRef, wordsRef));
+                chunk = new ArrayList<>(WORDS_PER_BATCH);
+                merged = new ArrayList<>();
+                saveCommitted(inFlight, MAX_IN_FLIGHT_BATCHES - 1, libraryId, listener, result);
+                if (result.cancelled) {
+                    return result;
+                }
+            }
+        }
+
+        if ((!chunk.isEmpty() || !merged.isEmpty()) && !result.cancelled) {
+            inFlight.add(commitChunk(chunk, merged, userRef, libraryRef, wordsRef));
+        }
+        saveCommitted(inFlight, 0, libraryId, listener, result);
+        return result;
+    }
+
+    /**
+     * Сохраняет пачки по порядку, пока в полёте больше keepInFlight. Ошибка или отмена во время
+     * ожидания - пачки за ней всё равно дожидаются (saveRemaining): они могли пройти на сервере
+     */
+    private void saveCommitted(ArrayDeque<PendingChunk> inFlight, int keepInFlight, String libraryId,
+                               OnImportListener listener, Result result) throws Exception {
+        while (inFlight.size() > keepInFlight) {
+            PendingChunk pending = inFlight.poll();
+            boolean committed;
+            try {
+                committed = awaitCommit(pending, true);
+            } catch (Exception e) {
+                saveRemaining(inFlight, libraryId, listener, result);
+                throw e;
+            }
+            if (!committed) {
+                // Отменили, пока ждали: эта пачка тоже может дойти до сервера - ждём её вместе с остальными
+                result.cancelled = true;
+                inFlight.addFirst(pending);
+                saveRemaining(inFlight, libraryId, listener, result);
+                return;
+            }
+            result.imported += saveLocally(pending, libraryId);
+            reportProgress(listener, result);
+        }
+    }
+
+    /**
+     * Импорт прерван: уже отправленные пачки сохраняются в Room, если сервер их подтвердил,
+     * иначе слова оказались бы в Firestore, но не в кеше и не в локальном счётчике
+     */
+    private void saveRemaining(ArrayDeque<PendingChunk> inFlight, String libraryId,
+                               OnImportListener listener, Result result) {
+        PendingChunk pending;
+        while ((pending = inFlight.poll()) != null) {
+            try {
+                awaitCommit(pending, false);
+                result.imported += saveLocally(pending, libraryId);
+                reportProgress(listener, result);
+            } catch (Exception e) {
+                // Пачка осталась в очереди Firestore: дойдёт с сетью, слова придут со следующей синхронизацией
+                Log.w(TAG, "⚠️ Пачка из " + pending.words.size() + " слов не подтверждена сервером", e);
+            }
+        }
+    }
+
+    /**
+     * Ждёт подтверждения пачки не дольше COMMIT_TIMEOUT_MS от её отправки
+     *
+     * @param cancellable прервать ожидание по cancel()
+     * @return false - импорт отменили, пока ждали
+     */
+    private boolean awaitCommit(PendingChunk pending, boolean cancellable) throws Exception {
+        long deadline = pending.startedAt + COMMIT_TIMEOUT_MS;
+        while (true) {
+            try {
+                Tasks.await(pending.commit, COMMIT_POLL_MS, TimeUnit.MILLISECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                if (cancellable && cancelled.get()) {
+                    return false;
+                }
+                if (SystemClock.elapsedRealtime() >= deadline) {
+                    throw new IOException("Сервер не подтвердил запись за "
+                            + COMMIT_TIMEOUT_MS / 1000 + " с - проверьте подключение к интернету");
+                }
+            }
+        }
+    }
+
+    private PendingChunk commitChunk(List<WordItem> chunk, List<LocalWordItem> merged,
+                                     DocumentReference userRef, DocumentReference libraryRef,
+                                     CollectionReference wordsRef) {
+        WriteBatch batch = db.batch();
+        for (LocalWordItem word : merged) {
+            // Дубль мог найтись в другой библиотеке языка - пишем по её пути
+            batch.update(userRef.collection("custom_libraries").document(word.getLibraryId())
+                    .collection("words").document(word.getWordId()), "note", word.getNote());
+        }
+        List<LocalWordItem> locals = new ArrayList<>(chunk.size());
+        for (WordItem word : chunk) {
+            // id выдаётся локально, без обращения к серверу
+            DocumentReference wordRef = wordsRef.document();
+            word.setWordId(wordRef.getId());
+            batch.set(wordRef, WordRepository.customWordData(word));
+            locals.add(new LocalWordItem(word));
+        }
+        if (!chunk.isEmpty()) {
+            batch.update(libraryRef, "wordCount", FieldValue.increment(chunk.size()));
+        }
+        return new PendingChunk(batch.commit(), locals, merged);
+    }
+
+    // Пачка уже подтверждена сервером (awaitCommit)
+    private int saveLocally(PendingChunk pending, String libraryId) {
+        localDb.runInTransaction(() -> {
+            localDb.wordDao().insertWords(pending.words);
+            localDb.libraryDao().addToWordCount(libraryId, pending.words.size());
+            for (LocalWordItem word : pending.merged) {
+                localDb.wordDao().updateWord(word);
+            }
+        });
+        WordSearchIndex.getInstance(appContext).putAll(pending.words);
+        WordSearchIndex.getInstance(appContext).putAll(pending.merged);
+        LanguageWordCache.getInstance(appContext).invalidateLibrary(libraryId);
+        return pending.words.size();
+    }
+
+    private void reportProgress(OnImportListener listener, Result result) {
+        int imported = result.imported;
+        int skipped = result.duplicates + result.invalid;
+        Log.d(TAG, "📥 Импортировано слов: " + imported + ", пропущено: " + skipped);
+        mainHandler.post(() -> listener.onProgress(imported, skipped));
+    }
+
+    /**
+     * Проверенное слово со стартовыми полями или null, если строка не годится
+     */
+    private static WordItem toWord(ImportRow row, String userId, String libraryId) {
+        String word = row.word != null ? row.word.trim() : "";
+        String translation = row.translation != null ? row.translation.trim() : "";
+        String note = row.note != null ? row.note.trim() : "";
+        if (word.isEmpty() || translation.isEmpty()) return null;
+        if (word.length() > MAX_WORD_LENGTH || translation.length() > MAX_WORD_LENGTH) return null;
+        if (note.length() > MAX_NOTE_LENGTH) {
+            note = note.substring(0, MAX_NOTE_LENGTH);
+        }
+
+        WordItem item = new WordItem(word, translation, note);
+        WordRepository.prepareCustomWord(item, userId, libraryId);
+        if (row.reviewStage > 0) {
+            item.setReviewStage(row.reviewStage);
+            if (row.nextReviewDate != null) {
+                item.setNextReviewDate(row.nextReviewDate);
+            }
+        }
+        item.setReviewCount(row.reviewCount);
+        item.setCorrectAnswers(row.correctAnswers);
+        return item;
+    }
+
+    // ========== CSV/TSV ==========
+
+    private static class CsvSource implements RowSource {
+        private final BufferedReader reader;
+        private final char delimiter;
+        private boolean firstRecord = true;
+
+        CsvSource(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            this.delimiter = detectDelimiter(reader);
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            List<String> fields = readRecord(reader, delimiter);
+            if (fields != null && firstRecord) {
+                firstRecord = false;
+                if (isHeader(fields)) {
+                    fields = readRecord(reader, delimiter);
+                }
+            }
+            if (fields == null) return null;
+
+            ImportRow row = new ImportRow();
+            row.word = fields.get(0);
+            row.translation = fields.size() > 1 ? fields.get(1) : null;
+            row.note = fields.size() > 2 ? fields.get(2) : null;
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    static boolean isHeader(List<String> fields) {
+        String first = SearchNormalizer.normalize(fields.get(0));
+        // Нормализованные "слово" и "һүҙ" (ү -> у, ҙ -> з)
+        return first.equals("word") || first.equals("слово") || first.equals("хуз");
+    }
+
+    /**
+     * Разделитель по первой непустой строке; reader возвращается в начало файла
+     */
+    static char detectDelimiter(BufferedReader reader) throws IOException {
+        reader.mark(DETECT_LIMIT);
+        String line;
+        int read = 0;
+        do {
+            line = reader.readLine();
+            read += line != null ? line.length() + 1 : 0;
+        } while (line != null && line.trim().isEmpty() && read < DETECT_LIMIT / 2);
+        reader.reset();
+        if (line == null) return ',';
+        if (line.indexOf('\t') >= 0) return '\t';
+        return count(line, ';') > count(line, ',') ? ';' : ',';
+    }
+
+    private static int count(String line, char c) {
+        int n = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == c) n++;
+        }
+        return n;
+    }
+
+    /**
+     * Одна запись CSV: поля в кавычках могут содержать разделитель, "" и переводы строк.
+     * Пустые строки пропускаются, null - конец файла.
+     */
+    static List<String> readRecord(BufferedReader reader, char delimiter) throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) return null;
+        } while (line.trim().isEmpty());
+
+        if (line.charAt(0) == '\uFEFF') {
+            // BOM, который Excel пишет в начало UTF-8
+            line = line.substring(1);
+        }
+        List<String> fields = new ArrayList<>();
+
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i >= line.length()) {
+                if (!quoted) break;
+                // Перевод строки внутри кавычек
+                String next = reader.readLine();
+                if (next == null) break;
+                field.append('\n');
+                line = next;
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"') {
+                    if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.toString().trim().isEmpty()) {
+                field.setLength(0);
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
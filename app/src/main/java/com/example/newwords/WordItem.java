@@ -4,6 +4,8 @@ import android.os.Parcel;
 import android.os.Parcelable;
 import android.util.Log;
 
+import com.google.firebase.firestore.Exclude;
+
 import java.io.Serializable;
 import java.util.Date;
 
@@ -28,6 +30,9 @@ public class WordItem implements Parcelable, Serializable {
     private Date nextReviewDate;
     private int consecutiveShows = 0;
 
+    // Ключ поиска (SearchNormalizer): из кеша приходит готовым, иначе считается один раз
+    private transient String searchKey;
+
     // Конструкторы
     public WordItem() {
     }
@@ -47,6 +52,33 @@ public class WordItem implements Parcelable, Serializable {
         this.nextReviewDate = new Date();
     }
 
+    /**
+     * Копия слова: LanguageWordCache отдаёт экранам общий снимок, меняют только копию
+     */
+    public WordItem(WordItem other) {
+        this.wordId = other.wordId;
+        this.word = other.word;
+        this.translation = other.translation;
+        this.note = other.note;
+        this.isFavorite = other.isFavorite;
+        this.difficulty = other.difficulty;
+        this.reviewCount = other.reviewCount;
+        this.correctAnswers = other.correctAnswers;
+        this.isCustomWord = other.isCustomWord;
+        this.libraryId = other.libraryId;
+        this.userId = other.userId;
+        this.createdAt = copyOf(other.createdAt);
+        this.lastReviewed = copyOf(other.lastReviewed);
+        this.reviewStage = other.reviewStage;
+        this.nextReviewDate = copyOf(other.nextReviewDate);
+        this.consecutiveShows = other.consecutiveShows;
+        this.searchKey = other.searchKey;
+    }
+
+    private static Date copyOf(Date date) {
+        return date != null ? new Date(date.getTime()) : null;
+    }
+
     // === ГЕТТЕРЫ ===
     public String getWordId() { return wordId; }
     public String getWord() { return word; }
@@ -67,9 +99,9 @@ public class WordItem implements Parcelable, Serializable {
 
     // === СЕТТЕРЫ ===
     public void setWordId(String wordId) { this.wordId = wordId; }
-    public void setWord(String word) { this.word = word; }
-    public void setTranslation(String translation) { this.translation = translation; }
-    public void setNote(String note) { this.note = note; }
+    public void setWord(String word) { this.word = word; this.searchKey = null; }
+    public void setTranslation(String translation) { this.translation = translation; this.searchKey = null; }
+    public void setNote(String note) { this.note = note; this.searchKey = null; }
     public void setFavorite(boolean favorite) { isFavorite = favorite; }
     public void setDifficulty(int difficulty) { this.difficulty = difficulty; }
     public void setReviewCount(int reviewCount) { this.reviewCount = reviewCount; }
@@ -147,6 +179,19 @@ public class WordItem implements Parcelable, Serializable {
         return 0;
     }
 
+    // === КЛЮЧ ПОИСКА ===
+    @Exclude
+    public String getSearchKey() {
+        if (searchKey == null) {
+            searchKey = SearchNormalizer.combine(SearchNormalizer.normalize(word),
+                    SearchNormalizer.normalize(translation), SearchNormalizer.normalize(note));
+        }
+        return searchKey;
+    }
+
+    @Exclude
+    public void setSearchKey(String searchKey) { this.searchKey = searchKey; }
+
     @Override
     public void writeToParcel(Parcel dest, int flags) {
         dest.writeString(wordId);
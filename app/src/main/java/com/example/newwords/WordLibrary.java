@@ -1,5 +1,7 @@
 package com.example.newwords;
 
+import com.google.firebase.firestore.Exclude;
+
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Locale;
@@ -22,6 +24,13 @@ public class WordLibrary {
     private Date createdAt;
     private String createdBy;
 
+    // Сжатый бандл со всеми словами (только публичные, пишет publish_library_bundles.py)
+    private String bundleUrl;
+    private long bundleVersion;
+
+    // Ключ поиска по всем переводам названия и описания (SearchNormalizer)
+    private transient String searchKey;
+
     // Состояния активности по языкам
     private Map<String, Boolean> languageActiveStates = new HashMap<>();
 
@@ -63,10 +72,22 @@ public class WordLibrary {
     // === ГЕТТЕРЫ И СЕТТЕРЫ ДЛЯ МАР (Чтобы не было ошибок в Repository) ===
 
     public Map<String, String> getName() { return name; }
-    public void setName(Map<String, String> name) { this.name = name; }
+    public void setName(Map<String, String> name) { this.name = name; this.searchKey = null; }
 
     public Map<String, String> getDescription() { return description; }
-    public void setDescription(Map<String, String> description) { this.description = description; }
+    public void setDescription(Map<String, String> description) { this.description = description; this.searchKey = null; }
+
+    @Exclude
+    public String getSearchKey() {
+        if (searchKey == null) {
+            searchKey = SearchNormalizer.combine(SearchNormalizer.normalizeAll(name),
+                    SearchNormalizer.normalizeAll(description));
+        }
+        return searchKey;
+    }
+
+    @Exclude
+    public void setSearchKey(String searchKey) { this.searchKey = searchKey; }
 
     public Map<String, String> getSubcategory() { return subcategory; }
     public void setSubcategory(Map<String, String> subcategory) { this.subcategory = subcategory; }
@@ -109,6 +130,12 @@ public class WordLibrary {
     public String getCreatedBy() { return createdBy; }
     public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
 
+    public String getBundleUrl() { return bundleUrl; }
+    public void setBundleUrl(String bundleUrl) { this.bundleUrl = bundleUrl; }
+
+    public long getBundleVersion() { return bundleVersion; }
+    public void setBundleVersion(long bundleVersion) { this.bundleVersion = bundleVersion; }
+
     public Map<String, Boolean> getLanguageActiveStates() { return languageActiveStates; }
     public void setLanguageActiveStates(Map<String, Boolean> states) { this.languageActiveStates = states; }
     public String getLocalizedSubcategory() {
@@ -8,17 +8,28 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
-public class WordListAdapter extends RecyclerView.Adapter<WordListAdapter.ViewHolder> {
+/**
+ * Список слов на ListAdapter: дифф считается в фоне, строки опознаются по wordId,
+ * а смена избранного перерисовывает только иконку своей строки (PAYLOAD_FAVORITE).
+ */
+public class WordListAdapter extends ListAdapter<WordItem, WordListAdapter.ViewHolder> {
+
+    static final String PAYLOAD_FAVORITE = "favorite";
 
-    private List<WordItem> wordList;
     private WordRepository wordRepository;
     private boolean showDeleteButton;
     private OnWordDeleteListener deleteListener;
     private OnWordClickListener clickListener; // ДОБАВЛЕНО
+    private OnWordReplacedListener replacedListener;
     private String currentLibraryId; // ID текущей библиотеки (если есть)
 
     // ДОБАВЛЕНО: интерфейс для кликов по слову
@@ -26,32 +37,65 @@ public class WordListAdapter extends RecyclerView.Adapter<WordListAdapter.ViewHo
         void onWordClick(WordItem word);
     }
 
+    private static final DiffUtil.ItemCallback<WordItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<WordItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull WordItem oldItem, @NonNull WordItem newItem) {
+            return Objects.equals(oldItem.getWordId(), newItem.getWordId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull WordItem oldItem, @NonNull WordItem newItem) {
+            return sameText(oldItem, newItem)
+                    && oldItem.isFavorite() == newItem.isFavorite()
+                    && oldItem.isCustomWord() == newItem.isCustomWord();
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull WordItem oldItem, @NonNull WordItem newItem) {
+            // Поменялось только избранное - не трогаем тексты строки
+            if (sameText(oldItem, newItem) && oldItem.isCustomWord() == newItem.isCustomWord()) {
+                return PAYLOAD_FAVORITE;
+            }
+            return null;
+        }
+
+        private boolean sameText(WordItem oldItem, WordItem newItem) {
+            return Objects.equals(oldItem.getWord(), newItem.getWord())
+                    && Objects.equals(oldItem.getTranslation(), newItem.getTranslation())
+                    && Objects.equals(oldItem.getNote(), newItem.getNote());
+        }
+    };
+
     public WordListAdapter(List<WordItem> wordList, WordRepository wordRepository, boolean showDeleteButton) {
-        this.wordList = wordList;
+        super(DIFF_CALLBACK);
         this.wordRepository = wordRepository;
         this.showDeleteButton = showDeleteButton;
+        setHasStableIds(true);
+        submitList(new ArrayList<>(wordList));
     }
 
     // Конструктор с библиотекой
     public WordListAdapter(List<WordItem> wordList, WordRepository wordRepository,
                            boolean showDeleteButton, String libraryId) {
-        this.wordList = wordList;
-        this.wordRepository = wordRepository;
-        this.showDeleteButton = showDeleteButton;
+        this(wordList, wordRepository, showDeleteButton);
         this.currentLibraryId = libraryId;
     }
 
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_word_list, parent, false);
+        View view = ViewPrewarmer.obtain(R.layout.item_word_list, parent);
+        if (view == null) {
+            view = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.item_word_list, parent, false);
+        }
         return new ViewHolder(view);
     }
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        WordItem wordItem = wordList.get(position);
+        WordItem wordItem = getItem(position);
         holder.bind(wordItem);
 
         // ДОБАВЛЕНО: устанавливаем обработчик клика на всю карточку
@@ -63,21 +107,45 @@ public class WordListAdapter extends RecyclerView.Adapter<WordListAdapter.ViewHo
     }
 
     @Override
-    public int getItemCount() {
-        return wordList.size();
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_FAVORITE)) {
+            holder.bindFavorite(getItem(position));
+            return;
+        }
+        super.onBindViewHolder(holder, position, payloads);
     }
 
+    @Override
+    public long getItemId(int position) {
+        String wordId = getItem(position).getWordId();
+        return wordId != null ? stableId(wordId) : RecyclerView.NO_ID;
+    }
+
+    /**
+     * 64-битный хеш wordId: String.hashCode даёт только 32 бита и заметно чаще совпадает
+     */
+    static long stableId(String id) {
+        long hash = 1125899906842597L;
+        for (int i = 0; i < id.length(); i++) {
+            hash = 31 * hash + id.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Новый список: дифф в фоне, перерисуются только изменившиеся строки
+     */
     public void updateWords(List<WordItem> newWords) {
-        wordList.clear();
-        wordList.addAll(newWords);
-        notifyDataSetChanged();
+        submitList(new ArrayList<>(newWords));
     }
 
     // Удаляем слово из списка по позиции
     public void removeWord(int position) {
-        if (position >= 0 && position < wordList.size()) {
-            wordList.remove(position);
-            notifyItemRemoved(position);
+        List<WordItem> current = getCurrentList();
+        if (position >= 0 && position < current.size()) {
+            List<WordItem> updated = new ArrayList<>(current);
+            updated.remove(position);
+            submitList(updated);
         }
     }
 
@@ -91,6 +159,10 @@ public class WordListAdapter extends RecyclerView.Adapter<WordListAdapter.ViewHo
         this.clickListener = listener;
     }
 
+    public void setOnWordReplacedListener(OnWordReplacedListener listener) {
+        this.replacedListener = listener;
+    }
+
     public class ViewHolder extends RecyclerView.ViewHolder {
         private TextView wordText;
         private TextView translationText;
@@ -118,6 +190,11 @@ public class WordListAdapter extends RecyclerView.Adapter<WordListAdapter.ViewHo
             // чтобы избежать дублирования и правильно передавать слово
         }
 
+        public void bindFavorite(WordItem wordItem) {
+            currentWordItem = wordItem;
+            updateFavoriteIcon(wordItem.isFavorite());
+        }
+
         public void bind(WordItem wordItem) {
             currentWordItem = wordItem;
 
@@ -149,8 +226,22 @@ public class WordListAdapter extends RecyclerView.Adapter<WordListAdapter.ViewHo
         private void toggleFavorite() {
             if (currentWordItem != null) {
                 boolean newFavoriteState = !currentWordItem.isFavorite();
+                // Слово может быть из общего снимка (LanguageWordCache) - меняем копию
+                // и ставим её на место; дифф даст PAYLOAD_FAVORITE
+                WordItem original = currentWordItem;
+                currentWordItem = new WordItem(original);
                 currentWordItem.setFavorite(newFavoriteState);
-                updateFavoriteIcon(newFavoriteState);
+                int position = getBindingAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    List<WordItem> updated = new ArrayList<>(getCurrentList());
+                    updated.set(position, currentWordItem);
+                    submitList(updated);
+                } else {
+                    updateFavoriteIcon(newFavoriteState);
+                }
+                if (replacedListener != null) {
+                    replacedListener.onWordReplaced(original, currentWordItem);
+                }
 
                 // ✅ ПРАВИЛЬНО: вызываем syncFavoriteStatus
                 wordRepository.syncFavoriteStatus(currentWordItem.getWordId(), newFavoriteState);
@@ -259,4 +350,11 @@ public class WordListAdapter extends RecyclerView.Adapter<WordListAdapter.ViewHo
     public interface OnWordDeleteListener {
         void onWordDeleted(WordItem word);
     }
+
+    /**
+     * Строка получила изменённую копию слова (избранное): экран заменяет слово в своих списках
+     */
+    public interface OnWordReplacedListener {
+        void onWordReplaced(WordItem original, WordItem updated);
+    }
 }
\ No newline at end of file
@@ -14,33 +14,64 @@ import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import android.os.Handler;
 import android.os.Looper;
 
+import androidx.core.util.Consumer;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.google.firebase.firestore.Query;
 
 public class WordRepository {
+    // Сколько слов из бандла копим перед вставкой (внутри одной транзакции)
+    private static final int BUNDLE_INSERT_CHUNK = 500;
+    // Сколько wordId в одном IN (...) - у SQLite лимит 999 параметров
+    private static final int ID_QUERY_CHUNK = 500;
+    // Сколько libraryId в одном whereIn к word_progress - лимит Firestore для in
+    private static final int PROGRESS_LIBRARY_CHUNK = 30;
+
     private final FirebaseFirestore db;
     private final String userId;
     private final AppDatabase localDb;
+    private final WordSearchIndex searchIndex;
+    private final LanguageWordCache wordCache;
+    // Библиотеки, чей wordCount уже сверен count()-запросом в этом процессе
+    private final Set<String> reconciledLibraries = ConcurrentHashMap.newKeySet();
+    // Сверка публичных библиотек уже идёт (воркеры языков могут запустить её одновременно)
+    private final AtomicBoolean publicSyncRunning = new AtomicBoolean(false);
+
+    private static volatile WordRepository INSTANCE;
 
     // ========== КОНСТРУКТОРЫ ==========
 
@@ -49,6 +80,10 @@ public class WordRepository {
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
         this.userId = user != null ? user.getUid() : "anonymous";
         this.localDb = AppDatabase.getInstance(FirebaseApp.getInstance().getApplicationContext());
+        this.searchIndex = WordSearchIndex.getInstance(FirebaseApp.getInstance().getApplicationContext());
+        this.wordCache = LanguageWordCache.getInstance(FirebaseApp.getInstance().getApplicationContext());
+        // Сводка для напоминаний следит за записями в базу сама
+        DueSummary.getInstance(FirebaseApp.getInstance().getApplicationContext());
     }
 
     public WordRepository(Context context) {
@@ -64,6 +99,30 @@ public class WordRepository {
         }
 
         this.localDb = AppDatabase.getInstance(context);
+        this.searchIndex = WordSearchIndex.getInstance(context);
+        this.wordCache = LanguageWordCache.getInstance(context);
+        // Сводка для напоминаний следит за записями в базу сама
+        DueSummary.getInstance(context);
+    }
+
+    /**
+     * Один репозиторий на приложение: экраны делят снимки слов (LanguageWordCache).
+     * userId фиксируется при создании, поэтому после смены аккаунта создаётся новый экземпляр.
+     */
+    public static WordRepository getInstance(Context context) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        String currentUserId = user != null ? user.getUid() : "anonymous";
+        WordRepository instance = INSTANCE;
+        if (instance == null || !instance.userId.equals(currentUserId)) {
+            synchronized (WordRepository.class) {
+                instance = INSTANCE;
+                if (instance == null || !instance.userId.equals(currentUserId)) {
+                    instance = new WordRepository(context.getApplicationContext());
+                    INSTANCE = instance;
+                }
+            }
+        }
+        return instance;
     }
 
     // ========== ИНТЕРФЕЙСЫ ==========
@@ -116,6 +175,14 @@ public class WordRepository {
         void onError(Exception e);
     }
 
+    /**
+     * Где лежит слово в Firestore: его библиотека и признак пользовательского слова
+     */
+    public static class WordLocation {
+        public String libraryId;
+        public boolean isCustomWord;
+    }
+
     public interface OnCacheStatusListener {
         void onStatusChecked(int libraryCount, int wordCount, int activeLibraryCount, int wordsFromActiveLibraries);
     }
@@ -128,6 +195,14 @@ public class WordRepository {
         void onError(Exception e);
     }
 
+    public interface OnHydrationProgressListener {
+        void onProgress(int librariesDone, int librariesTotal, long bytes);
+
+        void onComplete(int wordCount);
+
+        void onError(Exception e);
+    }
+
     private interface OnProgressLoadedListener {
         void onProgressLoaded(boolean success);
     }
@@ -160,6 +235,10 @@ public class WordRepository {
         word.setReviewCount(localWord.getReviewCount());
         word.setCorrectAnswers(localWord.getCorrectAnswers());
 
+        // Ключи уже посчитаны при записи в кеш
+        word.setSearchKey(SearchNormalizer.combine(localWord.getSearchWord(),
+                localWord.getSearchTranslation(), localWord.getSearchNote()));
+
         return word;
     }
 
@@ -181,6 +260,7 @@ public class WordRepository {
         local.setCustomWord(web.isCustomWord());
         local.setUserId(web.getUserId());
         local.setLastReviewed(web.getLastReviewed());
+        local.updateDerivedKeys();
 
         return local;
     }
@@ -197,6 +277,7 @@ public class WordRepository {
             web.setLanguageTo(local.getLanguageTo());
             web.setWordCount(local.getWordCount());
             web.setActive(local.isActive());
+            web.setSearchKey(SearchNormalizer.combine(local.getSearchName(), local.getSearchDescription()));
             webs.add(web);
         }
         return webs;
@@ -213,16 +294,29 @@ public class WordRepository {
         local.setLanguageTo(web.getLanguageTo());
         local.setWordCount(web.getWordCount());
         local.setActive(web.isActive());
+        local.updateSearchKeys();
         return local;
     }
     public void forceLoadWordsForLanguage(String language, OnSuccessListener listener) {
-        Log.d(TAG, "💪 ПРИНУДИТЕЛЬНАЯ ЗАГРУЗКА СЛОВ ДЛЯ: " + language);
+        forceLoadWordsForLanguage(language, true, listener);
+    }
 
-        // Загружаем ПУБЛИЧНЫЕ библиотеки
-        db.collection("word_libraries")
-                .whereEqualTo("languageFrom", language)
-                .whereEqualTo("isPublic", true)
-                .get()
+    /**
+     * @param includePublic false - публичные библиотеки уже лежат в базе из снимка APK,
+     *                      качаем только пользовательские
+     */
+    public void forceLoadWordsForLanguage(String language, boolean includePublic, OnSuccessListener listener) {
+        Log.d(TAG, "💪 ПРИНУДИТЕЛЬНАЯ ЗАГРУЗКА СЛОВ ДЛЯ: " + language + ", includePublic=" + includePublic);
+
+        // Загружаем ПУБЛИЧНЫЕ библиотеки (если их нет в снимке)
+        Task<QuerySnapshot> publicTask = includePublic
+                ? db.collection("word_libraries")
+                        .whereEqualTo("languageFrom", language)
+                        .whereEqualTo("isPublic", true)
+                        .get()
+                : Tasks.forResult(null);
+
+        publicTask
                 .addOnSuccessListener(publicSnapshot -> {
 
                     // Загружаем ПОЛЬЗОВАТЕЛЬСКИЕ библиотеки
@@ -236,13 +330,15 @@ public class WordRepository {
                                 List<WordLibrary> libraries = new ArrayList<>();
 
                                 // Добавляем публичные библиотеки
-                                for (DocumentSnapshot doc : publicSnapshot) {
-                                    WordLibrary lib = doc.toObject(WordLibrary.class);
-                                    if (lib != null) {
-                                        lib.setLibraryId(doc.getId());
-                                        lib.setCreatedBy("system");
-                                        libraries.add(lib);
-                                        Log.d(TAG, "📚 Найдена ПУБЛИЧНАЯ библиотека: " + lib.getLocalizedName());
+                                if (publicSnapshot != null) {
+                                    for (DocumentSnapshot doc : publicSnapshot) {
+                                        WordLibrary lib = doc.toObject(WordLibrary.class);
+                                        if (lib != null) {
+                                            lib.setLibraryId(doc.getId());
+                                            lib.setCreatedBy("system");
+                                            libraries.add(lib);
+                                            Log.d(TAG, "📚 Найдена ПУБЛИЧНАЯ библиотека: " + lib.getLocalizedName());
+                                        }
                                     }
                                 }
 
@@ -320,6 +416,456 @@ public class WordRepository {
                     if (listener != null) listener.onSuccess();
                 });
     }
+    // ========== ЛЕНИВАЯ ЗАГРУЗКА ЯЗЫКОВ ==========
+
+    /**
+     * Дешёвая часть первого запуска: метаданные библиотек всех языков без слов.
+     * Активность уже известных библиотек не трогаем.
+     */
+    public void loadLibraryMetadataForAllLanguages(OnSuccessListener listener) {
+        getAvailableLibraries(new OnLibrariesLoadedListener() {
+            @Override
+            public void onLibrariesLoaded(List<WordLibrary> libraries) {
+                Log.d(TAG, "📚 Метаданные библиотек: " + libraries.size());
+                saveLibrariesMetadataToCache(libraries);
+                if (listener != null) listener.onSuccess();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "❌ Ошибка загрузки метаданных библиотек", e);
+                if (listener != null) listener.onSuccess();
+            }
+        });
+    }
+
+    /**
+     * Загружает слова и прогресс ОДНОГО языка в Room (вызывается при первом выборе языка).
+     * Библиотеки не активируются, прогресс берётся из word_progress только по библиотекам языка.
+     *
+     * @param includePublic false - публичные слова уже есть в базе из снимка APK:
+     *                      прогресс к ним применяется прямо в Room
+     */
+    public void hydrateLanguage(String language, boolean includePublic, OnHydrationProgressListener listener) {
+        Log.d(TAG, "💧 Загрузка языка " + language + ", includePublic=" + includePublic);
+
+        Task<QuerySnapshot> publicTask = includePublic
+                ? db.collection("word_libraries")
+                        .whereEqualTo("languageFrom", language)
+                        .whereEqualTo("isPublic", true)
+                        .get()
+                : Tasks.forResult(null);
+        Task<QuerySnapshot> customTask = db.collection("users")
+                .document(userId)
+                .collection("custom_libraries")
+                .whereEqualTo("languageFrom", language)
+                .get();
+
+        Tasks.whenAllComplete(publicTask, customTask).addOnCompleteListener(all -> {
+            if (!publicTask.isSuccessful() || !customTask.isSuccessful()) {
+                Exception e = !publicTask.isSuccessful() ? publicTask.getException() : customTask.getException();
+                Log.e(TAG, "❌ Ошибка загрузки библиотек языка " + language, e);
+                listener.onError(e);
+                return;
+            }
+
+            List<WordLibrary> libraries = new ArrayList<>();
+            if (publicTask.getResult() != null) {
+                for (DocumentSnapshot doc : publicTask.getResult()) {
+                    WordLibrary lib = doc.toObject(WordLibrary.class);
+                    if (lib != null) {
+                        lib.setLibraryId(doc.getId());
+                        lib.setCreatedBy("system");
+                        libraries.add(lib);
+                    }
+                }
+            }
+            for (DocumentSnapshot doc : customTask.getResult()) {
+                WordLibrary lib = doc.toObject(WordLibrary.class);
+                if (lib != null) {
+                    lib.setLibraryId(doc.getId());
+                    lib.setCreatedBy(userId);
+                    libraries.add(lib);
+                }
+            }
+
+            saveLibrariesMetadataToCache(libraries);
+
+            // Библиотеки, докачанные до убийства приложения, повторно не грузим
+            Executors.newSingleThreadExecutor().execute(() -> {
+                Set<String> libraryIds = new HashSet<>();
+                for (WordLibrary lib : libraries) {
+                    libraryIds.add(lib.getLibraryId());
+                }
+                Map<String, HydrationCheckpoint> checkpoints = new HashMap<>();
+                try {
+                    if (!includePublic) {
+                        // Публичные библиотеки снимка: их слова не качаются, но прогресс по ним нужен
+                        for (LocalWordLibrary local : localDb.libraryDao().getLibrariesByLanguage(language)) {
+                            if (local.isPublic()) libraryIds.add(local.getLibraryId());
+                        }
+                    }
+                    for (HydrationCheckpoint checkpoint : localDb.checkpointDao().getCheckpointsForLanguage(language)) {
+                        checkpoints.put(checkpoint.getLibraryId(), checkpoint);
+                    }
+                } catch (Exception e) {
+                    Log.e(TAG, "❌ Ошибка чтения чекпоинтов, грузим язык целиком", e);
+                }
+
+                loadProgressForLibraries(new ArrayList<>(libraryIds), progressById -> {
+                    if (!includePublic) {
+                        applyProgressToCachedPublicWords(progressById);
+                    }
+                    new Handler(Looper.getMainLooper()).post(() -> {
+                        if (libraries.isEmpty()) {
+                            saveSyncTime(language);
+                            listener.onComplete(0);
+                            return;
+                        }
+                        hydrateLibraries(language, libraries, checkpoints, progressById, listener);
+                    });
+                });
+            });
+        });
+    }
+
+    /**
+     * word_progress только по библиотекам одного языка: whereIn по libraryId частями
+     * (у Firestore не больше 30 значений в in). Ответ - в фоновом потоке.
+     * Ошибка не останавливает загрузку: слова придут с нулевым прогрессом, как раньше
+     */
+    private void loadProgressForLibraries(List<String> libraryIds, Consumer<Map<String, DocumentSnapshot>> callback) {
+        Map<String, DocumentSnapshot> progressById = new HashMap<>();
+        if (userId.equals("anonymous") || libraryIds.isEmpty()) {
+            callback.accept(progressById);
+            return;
+        }
+
+        List<Task<QuerySnapshot>> tasks = new ArrayList<>();
+        for (int from = 0; from < libraryIds.size(); from += PROGRESS_LIBRARY_CHUNK) {
+            List<String> chunk = libraryIds.subList(from, Math.min(from + PROGRESS_LIBRARY_CHUNK, libraryIds.size()));
+            tasks.add(db.collection("users").document(userId).collection("word_progress")
+                    .whereIn("libraryId", new ArrayList<>(chunk))
+                    .get());
+        }
+
+        Tasks.whenAllComplete(tasks).addOnCompleteListener(Executors.newSingleThreadExecutor(), all -> {
+            for (Task<QuerySnapshot> task : tasks) {
+                if (task.isSuccessful() && task.getResult() != null) {
+                    for (DocumentSnapshot doc : task.getResult()) {
+                        progressById.put(doc.getId(), doc);
+                    }
+                } else {
+                    Log.w(TAG, "⚠️ Часть прогресса не загружена, слова будут с нулевым прогрессом", task.getException());
+                }
+            }
+            Log.d(TAG, "📖 Прогресс: " + progressById.size() + " слов из " + libraryIds.size() + " библиотек");
+            callback.accept(progressById);
+        });
+    }
+
+    /**
+     * Прогресс и избранное к публичным словам, которые уже лежат в Room (снимок APK),
+     * по тем же правилам, что и при загрузке слов (copyLocalProgress). Вызывать не из UI-потока
+     */
+    private void applyProgressToCachedPublicWords(Map<String, DocumentSnapshot> progressById) {
+        if (progressById.isEmpty()) {
+            return;
+        }
+        List<LocalWordItem> applied = new ArrayList<>();
+        try {
+            localDb.runInTransaction(() -> {
+                for (DocumentSnapshot doc : progressById.values()) {
+                    LocalWordItem existing = localDb.wordDao().getWordById(doc.getId());
+                    if (existing == null || existing.isCustomWord()) continue;
+                    WordItem word = convertLocalWordToWordItem(existing);
+                    applyProgressToWord(word, doc);
+                    LocalWordItem local = convertToLocalWord(word);
+                    copyLocalProgress(existing, local, true);
+                    local.setLastSynced(existing.getLastSynced());
+                    localDb.wordDao().insertWord(local);
+                    applied.add(local);
+                }
+            });
+            invalidateSnapshots(applied);
+            Log.d(TAG, "📖 Прогресс применён к " + applied.size() + " словам из снимка");
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Ошибка применения прогресса к словам снимка", e);
+        }
+    }
+
+    /**
+     * Качает слова библиотек по одной; каждая библиотека сохраняется вместе с чекпоинтом
+     */
+    private void hydrateLibraries(String language, List<WordLibrary> libraries,
+                                  Map<String, HydrationCheckpoint> checkpoints,
+                                  Map<String, DocumentSnapshot> progressById,
+                                  OnHydrationProgressListener listener) {
+        int total = libraries.size();
+        AtomicInteger done = new AtomicInteger(0);
+        AtomicInteger wordCount = new AtomicInteger(0);
+        AtomicLong bytes = new AtomicLong(0);
+        AtomicBoolean failed = new AtomicBoolean(false);
+
+        List<WordLibrary> pending = new ArrayList<>();
+        for (WordLibrary lib : libraries) {
+            HydrationCheckpoint checkpoint = checkpoints.get(lib.getLibraryId());
+            if (checkpoint != null) {
+                done.incrementAndGet();
+                wordCount.addAndGet(checkpoint.getWordCount());
+                bytes.addAndGet(checkpoint.getBytes());
+            } else {
+                pending.add(lib);
+            }
+        }
+
+        if (done.get() > 0) {
+            Log.d(TAG, "⏩ " + language + ": продолжаем с " + done.get() + "/" + total + " библиотек");
+        }
+        listener.onProgress(done.get(), total, bytes.get());
+        if (pending.isEmpty()) {
+            onLibraryHydrated(language, total, total, bytes.get(), wordCount.get(), false, listener);
+            return;
+        }
+
+        for (WordLibrary lib : pending) {
+            hydrateSingleLibrary(lib, language, progressById, checkpoint -> {
+                if (checkpoint != null) {
+                    wordCount.addAndGet(checkpoint.getWordCount());
+                    bytes.addAndGet(checkpoint.getBytes());
+                } else {
+                    failed.set(true);
+                }
+                onLibraryHydrated(language, done.incrementAndGet(), total,
+                        bytes.get(), wordCount.get(), failed.get(), listener);
+            });
+        }
+    }
+
+    /**
+     * Одна библиотека: публичная - одним сжатым бандлом, если он опубликован,
+     * иначе (и при любой ошибке бандла) - документами words из Firestore.
+     * В onDone приходит сохранённый чекпоинт или null при ошибке.
+     */
+    private void hydrateSingleLibrary(WordLibrary lib, String language,
+                                      Map<String, DocumentSnapshot> progressById,
+                                      Consumer<HydrationCheckpoint> onDone) {
+        Context appContext = FirebaseApp.getInstance().getApplicationContext();
+        String bundleUrl = isCustomLibrary(lib) ? null : LibraryBundle.resolveUrl(appContext, lib);
+        if (bundleUrl == null) {
+            hydrateLibraryFromFirestore(lib, language, progressById, onDone);
+            return;
+        }
+
+        Executors.newSingleThreadExecutor().execute(() -> {
+            HydrationCheckpoint checkpoint = null;
+            try {
+                checkpoint = saveBundleToCache(appContext, lib, bundleUrl, language, progressById);
+            } catch (Exception e) {
+                Log.w(TAG, "⚠️ Бандл " + lib.getLibraryId() + " недоступен, качаем по документам", e);
+            }
+            HydrationCheckpoint result = checkpoint;
+            new Handler(Looper.getMainLooper()).post(() -> {
+                if (result != null) {
+                    onDone.accept(result);
+                } else {
+                    hydrateLibraryFromFirestore(lib, language, progressById, onDone);
+                }
+            });
+        });
+    }
+
+    private void hydrateLibraryFromFirestore(WordLibrary lib, String language,
+                                             Map<String, DocumentSnapshot> progressById,
+                                             Consumer<HydrationCheckpoint> onDone) {
+        boolean isCustom = isCustomLibrary(lib);
+        getWordsFromSingleLibrary(lib.getLibraryId(), isCustom)
+                .addOnSuccessListener(snapshot -> {
+                    List<WordItem> words = new ArrayList<>();
+                    long libraryBytes = 0;
+                    for (QueryDocumentSnapshot document : snapshot) {
+                        WordItem word = document.toObject(WordItem.class);
+                        word.setWordId(document.getId());
+                        word.setLibraryId(lib.getLibraryId());
+                        word.setCustomWord(isCustom);
+                        loadBasicRepetitionFields(word, document);
+                        DocumentSnapshot progress = progressById.get(document.getId());
+                        if (progress != null) {
+                            applyProgressToWord(word, progress);
+                        }
+                        libraryBytes += estimateBytes(word);
+                        words.add(word);
+                    }
+                    HydrationCheckpoint checkpoint = new HydrationCheckpoint(
+                            lib.getLibraryId(), language, words.size(), libraryBytes);
+                    saveHydratedWords(words, checkpoint, lib.getBundleVersion(), progressById,
+                            saved -> onDone.accept(saved ? checkpoint : null));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "❌ Ошибка загрузки слов библиотеки " + lib.getLibraryId(), e);
+                    onDone.accept(null);
+                });
+    }
+
+    /**
+     * Скачивает бандл одним запросом и потоково пишет слова в Room одной транзакцией
+     * (вместе с чекпоинтом). Вызывать не из UI-потока.
+     */
+    private HydrationCheckpoint saveBundleToCache(Context context, WordLibrary lib, String bundleUrl,
+                                                  String language,
+                                                  Map<String, DocumentSnapshot> progressById) throws IOException {
+        String libraryId = lib.getLibraryId();
+        File file = LibraryBundle.download(context, bundleUrl, libraryId);
+        long fileBytes = file.length();
+        try {
+            HydrationCheckpoint saved = localDb.runInTransaction(() -> {
+                List<LocalWordItem> chunk = new ArrayList<>();
+                int[] count = {0};
+                // Ошибка разбора откатывает транзакцию целиком - полбиблиотеки в кеше хуже, чем ничего
+                long version = LibraryBundle.readWords(file, libraryId, word -> {
+                    int difficulty = word.getDifficulty();
+                    initializeDefaultProgress(word);
+                    word.setDifficulty(difficulty);
+                    DocumentSnapshot progress = progressById != null ? progressById.get(word.getWordId()) : null;
+                    if (progress != null) {
+                        applyProgressToWord(word, progress);
+                    }
+                    LocalWordItem local = convertToLocalWord(word);
+                    LocalWordItem existing = localDb.wordDao().getWordById(word.getWordId());
+                    if (existing != null) {
+                        copyLocalProgress(existing, local, progress != null);
+                    }
+                    local.setLastSynced(new Date());
+                    chunk.add(local);
+                    count[0]++;
+                    if (chunk.size() >= BUNDLE_INSERT_CHUNK) {
+                        localDb.wordDao().insertWords(chunk);
+                        searchIndex.putAll(chunk);
+                        chunk.clear();
+                    }
+                });
+                if (!chunk.isEmpty()) {
+                    localDb.wordDao().insertWords(chunk);
+                    searchIndex.putAll(chunk);
+                }
+                HydrationCheckpoint checkpoint = new HydrationCheckpoint(libraryId, language, count[0], fileBytes);
+                localDb.checkpointDao().insertCheckpoint(checkpoint);
+                localDb.libraryDao().setContentVersion(libraryId, version);
+                Log.d(TAG, "📦 Бандл " + libraryId + " v" + version + ": " + count[0] + " слов одним запросом");
+                return checkpoint;
+            });
+            wordCache.invalidateLibrary(libraryId);
+            return saved;
+        } catch (RuntimeException e) {
+            // Транзакция откатилась, а индекс уже получил часть слов
+            searchIndex.invalidate();
+            throw e;
+        } finally {
+            file.delete();
+        }
+    }
+
+    private void onLibraryHydrated(String language, int done, int total, long bytes, int wordCount,
+                                   boolean failed, OnHydrationProgressListener listener) {
+        listener.onProgress(done, total, bytes);
+        if (done < total) {
+            return;
+        }
+        if (failed) {
+            // Готовые библиотеки остаются в чекпоинтах - повтор докачает только остальные
+            listener.onError(new Exception("Не все библиотеки языка " + language + " загружены"));
+        } else {
+            saveSyncTime(language);
+            Log.d(TAG, "✅ Язык " + language + " загружен: " + wordCount + " слов, ~" + bytes / 1024 + " КБ");
+            // Чекпоинты нужны только чтобы продолжить прерванную загрузку. Снимаем их до отметки
+            // LOADED: оставшись, они заставили бы следующую загрузку языка (после сброса кеша
+            // или удаления слов) пропустить библиотеки
+            Executors.newSingleThreadExecutor().execute(() -> {
+                try {
+                    localDb.checkpointDao().deleteCheckpointsForLanguage(language);
+                } catch (Exception e) {
+                    Log.e(TAG, "❌ Ошибка удаления чекпоинтов " + language, e);
+                }
+                new Handler(Looper.getMainLooper()).post(() -> listener.onComplete(wordCount));
+            });
+        }
+    }
+
+    /**
+     * Примерный объём слова в UTF-8 - Firestore не отдаёт размер ответа
+     */
+    private long estimateBytes(WordItem word) {
+        long size = 0;
+        for (String text : new String[]{word.getWord(), word.getTranslation(), word.getNote()}) {
+            if (text != null) {
+                size += text.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Сохраняет метаданные библиотек, сохраняя уже выставленную активность
+     */
+    private void saveLibrariesMetadataToCache(List<WordLibrary> libraries) {
+        Executors.newSingleThreadExecutor().execute(() -> {
+            try {
+                localDb.runInTransaction(() -> {
+                    for (WordLibrary library : libraries) {
+                        LocalWordLibrary local = convertToLocal(library);
+                        LocalWordLibrary existing = localDb.libraryDao().getLibraryById(library.getLibraryId());
+                        local.setActive(existing != null && existing.isActive());
+                        local.setContentVersion(existing != null ? existing.getContentVersion() : 0);
+                        local.setPublic(!isCustomLibrary(library));
+                        local.setCreatedBy(library.getCreatedBy());
+                        local.setLastSynced(new Date());
+                        localDb.libraryDao().insertLibrary(local);
+                    }
+                });
+                Log.d(TAG, "💾 Метаданные сохранены: " + libraries.size() + " библиотек");
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Ошибка сохранения метаданных библиотек", e);
+            }
+        });
+    }
+
+    /**
+     * Сохраняет слова библиотеки, её чекпоинт и версию слов одной транзакцией, не затирая
+     * локальный прогресс. Результат (сохранено или нет) отдаётся в UI-поток.
+     */
+    private void saveHydratedWords(List<WordItem> words, HydrationCheckpoint checkpoint, long contentVersion,
+                                   Map<String, DocumentSnapshot> progressById,
+                                   Consumer<Boolean> onSaved) {
+        Executors.newSingleThreadExecutor().execute(() -> {
+            boolean saved = false;
+            try {
+                localDb.runInTransaction(() -> {
+                    List<LocalWordItem> localWords = new ArrayList<>();
+                    for (WordItem word : words) {
+                        LocalWordItem local = convertToLocalWord(word);
+                        LocalWordItem existing = localDb.wordDao().getWordById(word.getWordId());
+                        if (existing != null) {
+                            copyLocalProgress(existing, local, progressById.containsKey(word.getWordId()));
+                        }
+                        local.setLastSynced(new Date());
+                        localWords.add(local);
+                    }
+                    localDb.wordDao().insertWords(localWords);
+                    localDb.checkpointDao().insertCheckpoint(checkpoint);
+                    localDb.libraryDao().setContentVersion(checkpoint.getLibraryId(), contentVersion);
+                    searchIndex.putAll(localWords);
+                });
+                wordCache.invalidateLibrary(checkpoint.getLibraryId());
+                saved = true;
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Ошибка сохранения слов в кеш", e);
+                searchIndex.invalidate();
+            }
+            boolean result = saved;
+            new Handler(Looper.getMainLooper()).post(() -> onSaved.accept(result));
+        });
+    }
+
     // ========== ПРОГРЕСС (LOCAL) ==========
 
     private void initializeDefaultProgress(WordItem word) {
@@ -341,6 +887,7 @@ public class WordRepository {
                         word.getNextReviewDate(),
                         new Date()
                 );
+                wordCache.invalidateLibrary(word.getLibraryId());
                 Log.d(TAG, "💾 Прогресс сохранен в Room для: " + word.getWord());
             } catch (Exception e) {
                 Log.e(TAG, "❌ Ошибка сохранения прогресса в Room", e);
@@ -452,6 +999,8 @@ public class WordRepository {
                     localWords.add(convertToLocalWord(word));
                 }
                 localDb.wordDao().insertWords(localWords);
+                searchIndex.putAll(localWords);
+                invalidateSnapshots(localWords);
                 Log.d(TAG, "💾 Сохранено в кеш: " + localWords.size() + " слов");
             } catch (Exception e) {
                 Log.e(TAG, "❌ Ошибка сохранения в кеш", e);
@@ -466,9 +1015,14 @@ public class WordRepository {
                 for (WordLibrary library : libraries) {
                     LocalWordLibrary localLib = convertToLocal(library);
                     localLib.setActive(true); // ✅ ВАЖНО: УСТАНАВЛИВАЕМ active = true
+                    LocalWordLibrary existing = localDb.libraryDao().getLibraryById(library.getLibraryId());
+                    localLib.setContentVersion(existing != null ? existing.getContentVersion() : 0);
                     localLibraries.add(localLib);
                 }
                 localDb.libraryDao().insertLibraries(localLibraries);
+                for (LocalWordLibrary localLib : localLibraries) {
+                    wordCache.invalidateLibrary(localLib.getLibraryId());
+                }
                 Log.d(TAG, "💾 Сохранено в кеш: " + localLibraries.size() + " АКТИВНЫХ библиотек");
             } catch (Exception e) {
                 Log.e(TAG, "❌ Ошибка сохранения библиотек в кеш", e);
@@ -486,6 +1040,7 @@ public class WordRepository {
                     localDb.libraryDao().updateLibraryActiveStatus(lib.getLibraryId(), true);
                 }
 
+                wordCache.invalidateAll();
                 Log.d(TAG, "✅ Исправлено: " + allLibraries.size() + " библиотек теперь ACTIVE");
 
                 // Проверяем результат
@@ -921,32 +1476,73 @@ public class WordRepository {
     }
 
     /**
-     * Загружает слова ТОЛЬКО из кеша, используя активные библиотеки из кеша
+     * Слова активных библиотек языка: из общего снимка, а при его отсутствии - из Room.
+     * Вызывать не из UI-потока.
      */
-    public void getWordsFromCacheOnlyForActiveLibraries(String language, OnWordsLoadedListener listener) {
-        Log.d(TAG, "📦 [CACHE ONLY] Слова для " + language);
+    private List<WordItem> getActiveWordsSnapshot(String language) {
+        return wordCache.getActiveWords(language, lang -> {
+            List<WordItem> words = new ArrayList<>();
+            for (LocalWordLibrary lib : localDb.libraryDao().getActiveLibrariesByLanguage(lang)) {
+                for (LocalWordItem local : localDb.wordDao().getWordsByLibrary(lib.getLibraryId())) {
+                    words.add(convertLocalWordToWordItem(local));
+                }
+            }
+            return words;
+        });
+    }
 
+    /**
+     * Сбрасывает снимки LanguageWordCache библиотек записанных слов. Вызывать после записи
+     */
+    private void invalidateSnapshots(List<LocalWordItem> words) {
+        Set<String> libraryIds = new HashSet<>();
+        for (LocalWordItem word : words) {
+            libraryIds.add(word.getLibraryId());
+        }
+        for (String libraryId : libraryIds) {
+            wordCache.invalidateLibrary(libraryId);
+        }
+    }
+
+    /**
+     * Слова по списку wordId из кеша в том же порядке (восстановление сессии по токену).
+     * Слов, которых уже нет в кеше, в результате не будет.
+     */
+    public void getWordsByIds(List<String> wordIds, OnWordsLoadedListener listener) {
         Executors.newSingleThreadExecutor().execute(() -> {
             try {
-                // Берем активные библиотеки ИЗ КЕША
-                List<LocalWordLibrary> activeLibraries = localDb.libraryDao()
-                        .getActiveLibrariesByLanguage(language);
-
-                if (activeLibraries.isEmpty()) {
-                    Log.d(TAG, "📭 Нет активных библиотек в кеше для " + language);
-                    new Handler(Looper.getMainLooper()).post(() ->
-                            listener.onWordsLoaded(new ArrayList<>()));
-                    return;
+                Map<String, WordItem> byId = new HashMap<>();
+                for (int start = 0; start < wordIds.size(); start += ID_QUERY_CHUNK) {
+                    List<String> chunk = wordIds.subList(start, Math.min(start + ID_QUERY_CHUNK, wordIds.size()));
+                    for (LocalWordItem local : localDb.wordDao().getWordsByIds(chunk)) {
+                        byId.put(local.getWordId(), convertLocalWordToWordItem(local));
+                    }
                 }
-
-                List<WordItem> allWords = new ArrayList<>();
-                for (LocalWordLibrary lib : activeLibraries) {
-                    List<LocalWordItem> words = localDb.wordDao()
-                            .getWordsByLibrary(lib.getLibraryId());
-                    for (LocalWordItem w : words) {
-                        allWords.add(convertLocalWordToWordItem(w));
+                List<WordItem> words = new ArrayList<>(byId.size());
+                for (String wordId : wordIds) {
+                    WordItem word = byId.get(wordId);
+                    if (word != null) {
+                        words.add(word);
                     }
                 }
+                Log.d(TAG, "📦 Из кеша по id: " + words.size() + " из " + wordIds.size());
+                new Handler(Looper.getMainLooper()).post(() -> listener.onWordsLoaded(words));
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Ошибка загрузки слов по id", e);
+                new Handler(Looper.getMainLooper()).post(() -> listener.onError(e));
+            }
+        });
+    }
+
+    /**
+     * Загружает слова ТОЛЬКО из кеша, используя активные библиотеки из кеша
+     */
+    public void getWordsFromCacheOnlyForActiveLibraries(String language, OnWordsLoadedListener listener) {
+        Log.d(TAG, "📦 [CACHE ONLY] Слова для " + language);
+
+        Executors.newSingleThreadExecutor().execute(() -> {
+            try {
+                List<WordItem> allWords = getActiveWordsSnapshot(language);
 
                 Log.d(TAG, "✅ Из кеша: " + allWords.size() + " слов");
                 new Handler(Looper.getMainLooper()).post(() ->
@@ -1089,52 +1685,92 @@ public class WordRepository {
     public void syncFavoriteStatus(String wordId, boolean isFavorite) {
         if (userId.equals("anonymous")) return;
 
-        Map<String, Object> data = new HashMap<>();
-        data.put("isFavorite", isFavorite);
-        data.put("updatedAt", new Date());
+        Executors.newSingleThreadExecutor().execute(() -> {
+            // Библиотеку слова знает local_words - перебирать пользовательские библиотеки не нужно
+            WordLocation location = localDb.wordDao().getWordLocation(wordId);
+            if (location != null) {
+                writeFavorite(wordId, isFavorite, location);
+            } else {
+                locateWordRemotely(wordId, remote -> writeFavorite(wordId, isFavorite, remote));
+            }
+        });
+    }
 
-        // 1. Обновляем в word_progress (для публичных слов)
+    /**
+     * Запасной путь, если слова нет в кеше: libraryId хранится в word_progress (updateUserWordProgress),
+     * а пользовательская ли это библиотека - по её строке в Room
+     */
+    private void locateWordRemotely(String wordId, Consumer<WordLocation> callback) {
         db.collection("users")
                 .document(userId)
                 .collection("word_progress")
                 .document(wordId)
+                .get()
+                .addOnCompleteListener(task -> {
+                    String libraryId = task.isSuccessful() && task.getResult() != null
+                            ? task.getResult().getString("libraryId") : null;
+                    Executors.newSingleThreadExecutor().execute(() -> {
+                        WordLocation location = new WordLocation();
+                        location.libraryId = libraryId;
+                        if (libraryId != null) {
+                            LocalWordLibrary library = localDb.libraryDao().getLibraryById(libraryId);
+                            location.isCustomWord = library != null && !library.isPublic();
+                        }
+                        callback.accept(location);
+                    });
+                });
+    }
+
+    /**
+     * Избранное: word_progress - главная запись, из неё избранное приходит при загрузке.
+     * Документ пользовательского слова обновляется отдельно: если слова на сервере уже нет
+     * (удалено на другом устройстве), прогресс всё равно сохраняется, а слово не создаётся заново
+     */
+    private void writeFavorite(String wordId, boolean isFavorite, WordLocation location) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("isFavorite", isFavorite);
+        data.put("updatedAt", new Date());
+        // По libraryId прогресс качается при загрузке языка (loadProgressForLibraries)
+        if (location.libraryId != null && !location.libraryId.isEmpty()) {
+            data.put("libraryId", location.libraryId);
+        }
+
+        DocumentReference userRef = db.collection("users").document(userId);
+        userRef.collection("word_progress").document(wordId)
                 .set(data, SetOptions.merge())
                 .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "✅ isFavorite синхронизирован в word_progress: " + isFavorite);
+                    Log.d(TAG, "✅ isFavorite синхронизирован: " + isFavorite);
                     updateWordFavoriteLocal(wordId, isFavorite);
                 })
-                .addOnFailureListener(e -> Log.e(TAG, "❌ Ошибка синхронизации word_progress", e));
-
-        // 2. ТАКЖЕ ищем слово в custom_libraries и обновляем там
-        findAndUpdateFavoriteInCustomLibraries(wordId, isFavorite);
-    }
-
-    private void findAndUpdateFavoriteInCustomLibraries(String wordId, boolean isFavorite) {
-        // Ищем во всех пользовательских библиотеках
-        db.collection("users")
-                .document(userId)
-                .collection("custom_libraries")
-                .get()
-                .addOnSuccessListener(libraries -> {
-                    for (QueryDocumentSnapshot library : libraries) {
-                        String libraryId = library.getId();
-                        db.collection("users")
-                                .document(userId)
-                                .collection("custom_libraries")
-                                .document(libraryId)
-                                .collection("words")
-                                .document(wordId)
-                                .update("isFavorite", isFavorite)
-                                .addOnSuccessListener(aVoid ->
-                                        Log.d(TAG, "✅ isFavorite обновлен в библиотеке " + libraryId))
-                                .addOnFailureListener(e -> {}); // игнорируем, если слова нет в этой библиотеке
-                    }
-                });
+                .addOnFailureListener(e -> Log.e(TAG, "❌ Ошибка синхронизации избранного", e));
+
+        if (location.isCustomWord) {
+            DocumentReference wordRef = location.libraryId != null && !location.libraryId.isEmpty()
+                    ? userRef.collection("custom_libraries").document(location.libraryId)
+                            .collection("words").document(wordId)
+                    : userRef.collection("custom_words").document(wordId);
+            // update(), а не set(merge): отсутствующее слово не должно появиться заново огрызком
+            wordRef.update("isFavorite", isFavorite)
+                    .addOnSuccessListener(aVoid ->
+                            Log.d(TAG, "✅ isFavorite слова обновлён (библиотека " + location.libraryId + ")"))
+                    .addOnFailureListener(e -> {
+                        if (e instanceof FirebaseFirestoreException && ((FirebaseFirestoreException) e).getCode()
+                                == FirebaseFirestoreException.Code.NOT_FOUND) {
+                            Log.w(TAG, "⚠️ Слова " + wordId + " на сервере нет - избранное только в word_progress");
+                        } else {
+                            Log.e(TAG, "❌ Ошибка обновления избранного у слова", e);
+                        }
+                    });
+        }
     }
 
     private void updateWordFavoriteLocal(String wordId, boolean isFavorite) {
         Executors.newSingleThreadExecutor().execute(() -> {
+            WordLocation location = localDb.wordDao().getWordLocation(wordId);
             localDb.wordDao().updateFavoriteStatus(wordId, isFavorite);
+            if (location != null) {
+                wordCache.invalidateLibrary(location.libraryId);
+            }
         });
     }
     private void loadLibrariesInfo(List<String> libraryIds, OnLibrariesLoadedListener listener) {
@@ -1388,13 +2024,97 @@ public class WordRepository {
             Log.d("PROGRESS_DEBUG", "🔴🔴 [9] ПОСЛЕ обновления: todayProgress=" + (oldProgress + 1));
             return stats;
         });
-        updateStreakIfNeeded();
+        updateStreakIfNeeded();
+    }
+
+    /**
+     * Добавить слово в пользовательскую библиотеку
+     */
+    public void addWordToCustomLibrary(String libraryId, WordItem word, OnWordAddedListener listener) {
+        prepareCustomWord(word, userId, libraryId);
+        Map<String, Object> wordData = customWordData(word);
+
+        Executors.newSingleThreadExecutor().execute(() -> {
+            // Второе такое же слово в библиотеку не пускаем - проверяем до записи на сервер
+            // (диалоги предлагают слияние заранее, findDuplicate)
+            LocalWordItem existing = localDb.wordDao()
+                    .findDuplicate(WordDedup.key(word.getWord(), word.getTranslation()), libraryId);
+            if (existing != null && libraryId.equals(existing.getLibraryId())) {
+                Log.d(TAG, "⏭️ Слово уже есть в библиотеке: " + word.getWord());
+                new Handler(Looper.getMainLooper()).post(() ->
+                        listener.onError(new IllegalStateException("Слово уже есть в библиотеке")));
+                return;
+            }
+
+            // Слово и счётчик библиотеки пишутся одним батчем: либо оба, либо ничего
+            DocumentReference libraryRef = customLibraryRef(libraryId);
+            DocumentReference wordRef = libraryRef.collection("words").document();
+            WriteBatch batch = db.batch();
+            batch.set(wordRef, wordData);
+            batch.update(libraryRef, "wordCount", FieldValue.increment(1));
+
+            batch.commit()
+                    .addOnSuccessListener(aVoid -> {
+                        word.setWordId(wordRef.getId());
+
+                        // Сохраняем в локальную БД (Room) и сдвигаем локальный счётчик так же, как серверный
+                        saveWordToLocal(word, libraryId);
+
+                        listener.onWordAdded(word);
+                    })
+                    .addOnFailureListener(listener::onError);
+        });
+    }
+
+    public interface OnDuplicateCheckedListener {
+        /**
+         * @param existing такое же слово (WordDedup) в этой или другой пользовательской
+         *                 библиотеке того же языка, null - дублей нет
+         */
+        void onChecked(WordItem existing);
+    }
+
+    /**
+     * Проверка перед добавлением слова в библиотеку: поиск по индексу dedupKey.
+     * Колбэк - в UI-потоке; при ошибке чтения считаем, что дублей нет - проверка не должна
+     * мешать добавлению
+     */
+    public void findDuplicate(String libraryId, String word, String translation,
+                              OnDuplicateCheckedListener listener) {
+        String key = WordDedup.key(word, translation);
+        Executors.newSingleThreadExecutor().execute(() -> {
+            WordItem existing = null;
+            try {
+                LocalWordItem local = localDb.wordDao().findDuplicate(key, libraryId);
+                if (local != null) {
+                    existing = convertLocalWordToWordItem(local);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Ошибка проверки дублей", e);
+            }
+            WordItem result = existing;
+            new Handler(Looper.getMainLooper()).post(() -> listener.onChecked(result));
+        });
     }
 
     /**
-     * Добавить слово в пользовательскую библиотеку
+     * Политика MERGE для найденного дубля: заметка нового слова дописывается к существующему,
+     * нового слова не появляется
      */
-    public void addWordToCustomLibrary(String libraryId, WordItem word, OnWordAddedListener listener) {
+    public void mergeIntoDuplicate(WordItem existing, String note, OnWordUpdatedListener listener) {
+        String merged = WordDedup.mergeNote(existing.getNote(), note);
+        if (merged.equals(existing.getNote())) {
+            listener.onWordUpdated();
+            return;
+        }
+        existing.setNote(merged);
+        updateWord(existing, listener);
+    }
+
+    /**
+     * Начальные поля нового слова пользовательской библиотеки (ручное добавление и импорт)
+     */
+    static void prepareCustomWord(WordItem word, String userId, String libraryId) {
         word.setUserId(userId);
         word.setCustomWord(true);
         word.setLibraryId(libraryId);
@@ -1405,14 +2125,18 @@ public class WordRepository {
         word.setDifficulty(3);
         word.setReviewCount(0);
         word.setCorrectAnswers(0);
+    }
 
-        // Готовим данные для Firebase
+    /**
+     * Документ слова в custom_libraries/{libraryId}/words
+     */
+    static Map<String, Object> customWordData(WordItem word) {
         Map<String, Object> wordData = new HashMap<>();
         wordData.put("word", word.getWord());
         wordData.put("translation", word.getTranslation());
         wordData.put("note", word.getNote());
-        wordData.put("userId", userId);
-        wordData.put("libraryId", libraryId);
+        wordData.put("userId", word.getUserId());
+        wordData.put("libraryId", word.getLibraryId());
         wordData.put("isCustomWord", true);
         wordData.put("createdAt", word.getCreatedAt());
         wordData.put("reviewStage", word.getReviewStage());
@@ -1422,65 +2146,77 @@ public class WordRepository {
         wordData.put("reviewCount", word.getReviewCount());
         wordData.put("correctAnswers", word.getCorrectAnswers());
         wordData.put("isFavorite", false);
-
-        db.collection("users")
-                .document(userId)
-                .collection("custom_libraries")
-                .document(libraryId)
-                .collection("words")
-                .add(wordData)
-                .addOnSuccessListener(documentReference -> {
-                    String newId = documentReference.getId();
-                    word.setWordId(newId);
-
-                    // Сохраняем в локальную БД (Room)
-                    saveWordToLocal(word, libraryId);
-
-                    // Обновляем счетчик слов в Firebase
-                    updateLibraryWordCount(libraryId);
-
-                    listener.onWordAdded(word);
-                })
-                .addOnFailureListener(listener::onError);
+        return wordData;
     }
 
     // Вспомогательный метод для сохранения в Room
     private void saveWordToLocal(WordItem word, String libraryId) {
         Executors.newSingleThreadExecutor().execute(() -> {
             LocalWordItem localWord = convertToLocalWord(word);
-            localDb.wordDao().insertWord(localWord);
-            localDb.libraryDao().incrementWordCount(libraryId);
+            localDb.runInTransaction(() -> {
+                localDb.wordDao().insertWord(localWord);
+                localDb.libraryDao().incrementWordCount(libraryId);
+            });
+            searchIndex.put(localWord);
+            wordCache.invalidateLibrary(libraryId);
             Log.d(TAG, "💾 Слово сохранено в Room: " + word.getWord());
         });
     }
 
-    /**
-     * Обновить счетчик слов в библиотеке
-     */
-    private void updateLibraryWordCount(String libraryId) {
-        db.collection("users")
+    private DocumentReference customLibraryRef(String libraryId) {
+        return db.collection("users")
                 .document(userId)
                 .collection("custom_libraries")
-                .document(libraryId)
-                .collection("words")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful() && task.getResult() != null) {
-                        int wordCount = task.getResult().size();
+                .document(libraryId);
+    }
 
-                        Map<String, Object> updates = new HashMap<>();
-                        updates.put("wordCount", wordCount);
+    /**
+     * Сверяет wordCount пользовательских библиотек с локальным кешем и при расхождении
+     * пересчитывает его count()-агрегацией на сервере (чтение ~1 документа вместо всех слов).
+     * Обычный путь - FieldValue.increment в батче с самим словом, сюда попадаем только при дрейфе.
+     */
+    private void reconcileWordCountsIfDrifted(List<WordLibrary> customLibraries) {
+        LanguageHydrator hydrator = LanguageHydrator.getInstance(FirebaseApp.getInstance().getApplicationContext());
+        Executors.newSingleThreadExecutor().execute(() -> {
+            for (WordLibrary library : customLibraries) {
+                String libraryId = library.getLibraryId();
+                if (libraryId == null || reconciledLibraries.contains(libraryId)) continue;
+
+                // Без локальной копии библиотеки сравнивать не с чем
+                if (localDb.libraryDao().getLibraryById(libraryId) == null) continue;
+                // Слова языка ещё не загружены (или загружаются) - локальные 0 не расхождение
+                String language = library.getLanguageFrom();
+                if (language == null || !hydrator.isHydrated(language)) continue;
+                int localWords = localDb.wordDao().getWordsCountByLibrary(libraryId);
+                if (library.getWordCount() >= 0 && library.getWordCount() == localWords) continue;
+
+                Log.w(TAG, "⚠️ Дрейф счётчика " + libraryId + ": сервер=" + library.getWordCount()
+                        + ", локально=" + localWords);
+                reconciledLibraries.add(libraryId);
+                reconcileWordCount(libraryId);
+            }
+        });
+    }
 
-                        db.collection("users")
-                                .document(userId)
-                                .collection("custom_libraries")
-                                .document(libraryId)
-                                .update(updates)
-                                .addOnSuccessListener(aVoid ->
-                                        Log.d(TAG, "✅ Счетчик слов обновлен: " + wordCount))
-                                .addOnFailureListener(e ->
-                                        Log.e(TAG, "❌ Ошибка обновления счетчика", e));
-                    }
+    private void reconcileWordCount(String libraryId) {
+        DocumentReference libraryRef = customLibraryRef(libraryId);
+        libraryRef.collection("words")
+                .count()
+                .get(AggregateSource.SERVER)
+                .addOnSuccessListener(snapshot -> {
+                    long actual = snapshot.getCount();
+                    libraryRef.update("wordCount", actual)
+                            .addOnSuccessListener(aVoid ->
+                                    Log.d(TAG, "✅ Счетчик слов пересчитан: " + libraryId + " = " + actual))
+                            .addOnFailureListener(e ->
+                                    Log.e(TAG, "❌ Ошибка обновления счетчика", e));
+                    Executors.newSingleThreadExecutor().execute(() ->
+                            localDb.libraryDao().setWordCount(libraryId, (int) actual));
+                })
+                .addOnFailureListener(e -> {
+                    // Попробуем снова при следующей загрузке библиотек
+                    reconciledLibraries.remove(libraryId);
+                    Log.e(TAG, "❌ Ошибка подсчёта слов библиотеки " + libraryId, e);
                 });
     }
 
@@ -1497,8 +2233,11 @@ public class WordRepository {
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful() && task.getResult() != null) {
                         List<WordLibrary> customLibraries = new ArrayList<>();
+                        LibraryDeleter deleter = LibraryDeleter.getInstance(FirebaseApp.getInstance().getApplicationContext());
 
                         for (QueryDocumentSnapshot document : task.getResult()) {
+                            // Удаление ещё идёт в фоне - библиотеки для пользователя уже нет
+                            if (deleter.isPendingDeletion(document.getId())) continue;
                             WordLibrary library = document.toObject(WordLibrary.class);
                             library.setLibraryId(document.getId());
                             library.setCreatedBy(userId);
@@ -1507,6 +2246,7 @@ public class WordRepository {
 
                         Log.d(TAG, "✅ Загружено пользовательских библиотек: " + customLibraries.size());
                         listener.onLibrariesLoaded(customLibraries);
+                        reconcileWordCountsIfDrifted(customLibraries);
                     } else {
                         Log.e(TAG, "❌ Ошибка загрузки пользовательских библиотек", task.getException());
                         listener.onError(task.getException());
@@ -1543,7 +2283,9 @@ public class WordRepository {
                             .collection("custom_libraries")
                             .get()
                             .addOnSuccessListener(customSnapshots -> {
+                                LibraryDeleter deleter = LibraryDeleter.getInstance(FirebaseApp.getInstance().getApplicationContext());
                                 for (DocumentSnapshot doc : customSnapshots) {
+                                    if (deleter.isPendingDeletion(doc.getId())) continue;
                                     WordLibrary lib = doc.toObject(WordLibrary.class);
                                     if (lib != null) {
                                         lib.setLibraryId(doc.getId());
@@ -1587,6 +2329,7 @@ public class WordRepository {
                     Log.d(TAG, "✅ Библиотека активирована: " + libraryId);
                     updateLibraryLocalStatus(libraryId, true);
                     loadCustomLibraryWordsToCache(libraryId);
+                    loadPublicLibraryBundleIfMissing(libraryId);
                     success.onSuccess();
                 })
                 .addOnFailureListener(e -> {
@@ -1594,6 +2337,38 @@ public class WordRepository {
                     error.onError(e);
                 });
     }
+    /**
+     * Публичная библиотека, слов которой ещё нет в кеше (язык не загружался):
+     * при активации тянем её одним бандлом вместо тысяч чтений документов
+     */
+    private void loadPublicLibraryBundleIfMissing(String libraryId) {
+        Executors.newSingleThreadExecutor().execute(() -> {
+            LocalWordLibrary local = localDb.libraryDao().getLibraryById(libraryId);
+            if (local == null || !local.isPublic() || localDb.wordDao().getWordsCountByLibrary(libraryId) > 0) {
+                return;
+            }
+            new Handler(Looper.getMainLooper()).post(() ->
+                    db.collection("word_libraries").document(libraryId).get()
+                            .addOnSuccessListener(doc -> {
+                                WordLibrary lib = doc.toObject(WordLibrary.class);
+                                if (lib == null) return;
+                                lib.setLibraryId(doc.getId());
+                                lib.setCreatedBy("system");
+                                hydrateSingleLibrary(lib, lib.getLanguageFrom(), new HashMap<>(), checkpoint -> {
+                                    if (checkpoint == null) {
+                                        Log.e(TAG, "❌ Слова публичной библиотеки " + libraryId + " не загружены");
+                                        return;
+                                    }
+                                    Log.d(TAG, "💾 Слова публичной библиотеки " + libraryId + " загружены при активации");
+                                    // Загрузка вне загрузки языка - чекпоинт не нужен
+                                    Executors.newSingleThreadExecutor().execute(() ->
+                                            localDb.checkpointDao().deleteCheckpoint(libraryId));
+                                });
+                            })
+                            .addOnFailureListener(e -> Log.e(TAG, "❌ Ошибка загрузки библиотеки " + libraryId, e)));
+        });
+    }
+
     // Только для пользовательских библиотек
     private void loadCustomLibraryWordsToCache(String libraryId) {
         // Проверяем, есть ли уже слова
@@ -1703,38 +2478,21 @@ public class WordRepository {
     public void deleteCustomLibrary(String libraryId, OnSuccessListener success, OnErrorListener error) {
         Log.d(TAG, "🗑️ Удаление библиотеки: " + libraryId);
 
-        // Сначала удаляем все слова из библиотеки
-        db.collection("users")
-                .document(userId)
-                .collection("custom_libraries")
-                .document(libraryId)
-                .collection("words")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        List<Task<Void>> deleteTasks = new ArrayList<>();
+        // Слова, прогресс, активность и строки Room - батчами и с продолжением после обрыва
+        LibraryDeleter.getInstance(FirebaseApp.getInstance().getApplicationContext())
+                .delete(libraryId, new LibraryDeleter.OnDeleteListener() {
+                    @Override
+                    public void onProgress(int deletedWords) {
+                    }
 
-                        for (QueryDocumentSnapshot document : task.getResult()) {
-                            deleteTasks.add(document.getReference().delete());
-                        }
+                    @Override
+                    public void onComplete(int deletedWords) {
+                        success.onSuccess();
+                    }
 
-                        Tasks.whenAll(deleteTasks)
-                                .addOnSuccessListener(aVoid -> {
-                                    // Затем удаляем саму библиотеку
-                                    db.collection("users")
-                                            .document(userId)
-                                            .collection("custom_libraries")
-                                            .document(libraryId)
-                                            .delete()
-                                            .addOnSuccessListener(aVoid2 -> {
-                                                // Удаляем из активных библиотек
-                                                deactivateLibrary(libraryId, success, error);
-                                            })
-                                            .addOnFailureListener(error::onError);
-                                })
-                                .addOnFailureListener(error::onError);
-                    } else {
-                        error.onError(task.getException());
+                    @Override
+                    public void onError(Exception e) {
+                        error.onError(e);
                     }
                 });
     }
@@ -1746,6 +2504,7 @@ public class WordRepository {
         Executors.newSingleThreadExecutor().execute(() -> {
             try {
                 localDb.libraryDao().updateLibraryActiveStatus(libraryId, isActive);
+                wordCache.invalidateLibrary(libraryId);
                 Log.d(TAG, "💾 Room обновлен: библиотека " + libraryId + " isActive=" + isActive);
             } catch (Exception e) {
                 Log.e(TAG, "❌ Ошибка обновления Room", e);
@@ -1764,6 +2523,13 @@ public class WordRepository {
                 // Очищаем таблицы
                 localDb.libraryDao().clearAllLibraries();
                 localDb.wordDao().clearAllWords();
+                localDb.checkpointDao().clearAllCheckpoints();
+                searchIndex.clear();
+                wordCache.invalidateAll();
+                // Публичных данных из снимка больше нет - следующий вход качает всё заново
+                Context appContext = FirebaseApp.getInstance().getApplicationContext();
+                PublicSnapshot.reset(appContext);
+                LanguageHydrator.getInstance(appContext).reset();
 
                 Log.d(TAG, "✅ Локальный кеш полностью очищен!");
 
@@ -2006,26 +2772,34 @@ public class WordRepository {
     }
 
     /**
-     * Удаляет слово из пользовательской библиотеки
+     * Удаляет слово из пользовательской библиотеки. Транзакция: wordCount уменьшается,
+     * только если документ слова ещё был - повторное удаление (другое устройство, повтор
+     * после сбоя сети) счётчик не сдвигает
      */
     public void deleteWordFromLibrary(String libraryId, String wordId, OnSuccessListener success, OnErrorListener error) {
         Log.d(TAG, "🗑️ Удаление слова из библиотеки: " + libraryId + ", слово: " + wordId);
 
-        db.collection("users")
-                .document(userId)
-                .collection("custom_libraries")
-                .document(libraryId)
-                .collection("words")
-                .document(wordId)
-                .delete()
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "✅ Слово удалено из Firebase: " + wordId);
-
-                    // Обновляем счетчик слов в библиотеке
-                    updateLibraryWordCount(libraryId);
+        DocumentReference libraryRef = customLibraryRef(libraryId);
+        DocumentReference wordRef = libraryRef.collection("words").document(wordId);
 
-                    // Удаляем из локальной БД (Room)
-                    deleteWordFromLocal(wordId);
+        db.runTransaction(transaction -> {
+                    if (!transaction.get(wordRef).exists()) {
+                        return false;
+                    }
+                    transaction.delete(wordRef);
+                    transaction.update(libraryRef, "wordCount", FieldValue.increment(-1));
+                    return true;
+                })
+                .addOnSuccessListener(deleted -> {
+                    if (deleted) {
+                        Log.d(TAG, "✅ Слово удалено из Firebase: " + wordId);
+                        // Удаляем из локальной БД (Room) вместе с локальным счётчиком
+                        deleteWordFromLocal(wordId, libraryId);
+                    } else {
+                        // Счётчик на сервере уменьшил тот, кто удалил слово; локальный придёт с метаданными
+                        Log.d(TAG, "ℹ️ Слова " + wordId + " на сервере уже нет");
+                        deleteWordFromLocal(wordId);
+                    }
 
                     if (success != null) {
                         success.onSuccess();
@@ -2068,13 +2842,40 @@ public class WordRepository {
                 });
     }
 
+    /**
+     * Удаляет слово библиотеки из Room и уменьшает её локальный wordCount - в паре с increment(-1) на сервере
+     */
+    private void deleteWordFromLocal(String wordId, String libraryId) {
+        Executors.newSingleThreadExecutor().execute(() -> {
+            try {
+                localDb.runInTransaction(() -> {
+                    // Слова могло не быть в кеше - тогда и счётчик не трогаем
+                    if (localDb.wordDao().getWordById(wordId) != null) {
+                        localDb.wordDao().deleteWord(wordId);
+                        localDb.libraryDao().decrementWordCount(libraryId);
+                    }
+                });
+                searchIndex.remove(wordId);
+                wordCache.invalidateLibrary(libraryId);
+                Log.d(TAG, "💾 Слово удалено из Room: " + wordId);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Ошибка удаления слова из Room", e);
+            }
+        });
+    }
+
     /**
      * Удаляет слово из локальной БД (Room)
      */
     private void deleteWordFromLocal(String wordId) {
         Executors.newSingleThreadExecutor().execute(() -> {
             try {
+                WordLocation location = localDb.wordDao().getWordLocation(wordId);
                 localDb.wordDao().deleteWord(wordId);
+                searchIndex.remove(wordId);
+                if (location != null) {
+                    wordCache.invalidateLibrary(location.libraryId);
+                }
                 Log.d(TAG, "💾 Слово удалено из Room: " + wordId);
             } catch (Exception e) {
                 Log.e(TAG, "❌ Ошибка удаления слова из Room", e);
@@ -2229,15 +3030,16 @@ public class WordRepository {
     }
 
     /**
-     * Проверяет статус кеша (для дебага)
+     * Проверяет статус кеша. Только COUNT-запросы - вызывается на каждом старте.
+     * Подробный отчёт по языкам - CacheDiagnostics
      */
     public void checkCacheStatus(OnCacheStatusListener listener) {
         new Thread(() -> {
             try {
-                int libraryCount = localDb.libraryDao().getAllLibraries().size();
-                int wordCount = localDb.wordDao().getAllWords().size();
-                int activeLibraryCount = localDb.libraryDao().getActiveLibraries().size();
-                int wordsFromActive = localDb.wordDao().getWordsFromActiveLibraries().size();
+                int libraryCount = localDb.libraryDao().getLibraryCount();
+                int wordCount = localDb.wordDao().getWordCount();
+                int activeLibraryCount = localDb.libraryDao().getActiveLibraryCount();
+                int wordsFromActive = localDb.wordDao().getActiveWordCount();
 
                 Log.d(TAG, "📊 Статус кеша:");
                 Log.d(TAG, "   Библиотеки: " + libraryCount);
@@ -2466,6 +3268,10 @@ public class WordRepository {
             Long val = doc.getLong("correctAnswers");
             if (val != null) word.setCorrectAnswers(val.intValue());
         }
+        // По нему copyLocalProgress решает, чей прогресс свежее
+        if (doc.contains("lastReviewed")) {
+            word.setLastReviewed(doc.getDate("lastReviewed"));
+        }
         // ✅ ДОБАВЛЯЕМ ЗАГРУЗКУ isFavorite
         if (doc.contains("isFavorite")) {
             Boolean isFav = doc.getBoolean("isFavorite");
@@ -2555,6 +3361,35 @@ public class WordRepository {
         updates.put("note", word.getNote());
         updates.put("isFavorite", word.isFavorite());
 
+        if (word.getLibraryId() == null || word.getLibraryId().isEmpty()) {
+            commitWordUpdate(word, updates, listener);
+            return;
+        }
+
+        // Правка не должна сделать слово копией другого слова библиотеки: проверяем до записи
+        // на сервер, иначе Firestore и Room разошлись бы уже после успешного коммита
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        Executors.newSingleThreadExecutor().execute(() -> {
+            int duplicates;
+            try {
+                duplicates = localDb.wordDao().countOtherDuplicates(
+                        WordDedup.key(word.getWord(), word.getTranslation()),
+                        word.getLibraryId(), word.getWordId());
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Ошибка проверки дублей перед правкой", e);
+                duplicates = 0;
+            }
+            if (duplicates > 0) {
+                Log.d(TAG, "⏭️ После правки слово совпало бы с другим: " + word.getWord());
+                mainHandler.post(() ->
+                        listener.onError(new IllegalStateException("Слово уже есть в библиотеке")));
+                return;
+            }
+            mainHandler.post(() -> commitWordUpdate(word, updates, listener));
+        });
+    }
+
+    private void commitWordUpdate(WordItem word, Map<String, Object> updates, OnWordUpdatedListener listener) {
         // ОПРЕДЕЛЯЕМ ГДЕ ХРАНИТСЯ СЛОВО
         Task<Void> updateTask;
 
@@ -2623,7 +3458,10 @@ public class WordRepository {
         Executors.newSingleThreadExecutor().execute(() -> {
             try {
                 LocalWordItem localWord = convertToLocalWord(word);
+                localWord.setLastSynced(new Date());
                 localDb.wordDao().updateWord(localWord);
+                searchIndex.put(localWord);
+                wordCache.invalidateLibrary(word.getLibraryId());
                 Log.d(TAG, "💾 Слово обновлено в Room: " + word.getWord());
             } catch (Exception e) {
                 Log.e(TAG, "❌ Ошибка обновления слова в Room", e);
@@ -2797,9 +3635,8 @@ public class WordRepository {
 
     // ДОБАВЬТЕ ВСПОМОГАТЕЛЬНЫЙ МЕТОД:
     private void saveSyncTime(String language) {
-        SharedPreferences prefs = FirebaseApp.getInstance()
-                .getApplicationContext()
-                .getSharedPreferences("cache_metadata", Context.MODE_PRIVATE);
+        SharedPreferences prefs = AccountScope.prefs(
+                FirebaseApp.getInstance().getApplicationContext(), AccountScope.CACHE_METADATA, userId);
         prefs.edit().putLong("last_sync_" + language, System.currentTimeMillis()).apply();
         Log.d(TAG, "💾 Сохранено время синхронизации для " + language);
     }
@@ -2808,9 +3645,8 @@ public class WordRepository {
 
     // Проверяет, нужно ли обновить кеш (старше N дней)
     public boolean isCacheStale(String language) {
-        SharedPreferences prefs = FirebaseApp.getInstance()
-                .getApplicationContext()
-                .getSharedPreferences("cache_metadata", Context.MODE_PRIVATE);
+        SharedPreferences prefs = AccountScope.prefs(
+                FirebaseApp.getInstance().getApplicationContext(), AccountScope.CACHE_METADATA, userId);
 
         long lastSync = prefs.getLong("last_sync_" + language, 0);
         long now = System.currentTimeMillis();
@@ -2878,6 +3714,7 @@ public class WordRepository {
         new Thread(() -> {
             for (WordLibrary lib : libraries) {
                 localDb.libraryDao().updateLibraryActiveStatus(lib.getLibraryId(), true);
+                wordCache.invalidateLibrary(lib.getLibraryId());
             }
             Log.d(TAG, "✅ Отмечены как ACTIVE: " + libraries.size() + " библиотек");
         }).start();
@@ -2909,23 +3746,7 @@ public class WordRepository {
 
         Executors.newSingleThreadExecutor().execute(() -> {
             try {
-                List<LocalWordLibrary> libraries = localDb.libraryDao()
-                        .getActiveLibrariesByLanguage(language);
-
-                if (libraries.isEmpty()) {
-                    new Handler(Looper.getMainLooper()).post(() ->
-                            listener.onWordsLoaded(new ArrayList<>()));
-                    return;
-                }
-
-                List<WordItem> allWords = new ArrayList<>();
-                for (LocalWordLibrary lib : libraries) {
-                    List<LocalWordItem> words = localDb.wordDao()
-                            .getWordsByLibrary(lib.getLibraryId());
-                    for (LocalWordItem word : words) {
-                        allWords.add(convertLocalWordToWordItem(word));
-                    }
-                }
+                List<WordItem> allWords = getActiveWordsSnapshot(language);
 
                 Log.d(TAG, "⚡ Из кеша загружено: " + allWords.size() + " слов");
                 new Handler(Looper.getMainLooper()).post(() ->
@@ -3221,15 +4042,8 @@ public class WordRepository {
                     return;
                 }
 
-                // 2. Собираем ВСЕ слова из активных библиотек
-                List<WordItem> allWords = new ArrayList<>();
-                for (LocalWordLibrary lib : activeLibraries) {
-                    List<LocalWordItem> words = localDb.wordDao()
-                            .getWordsByLibrary(lib.getLibraryId());
-                    for (LocalWordItem w : words) {
-                        allWords.add(convertLocalWordToWordItem(w));
-                    }
-                }
+                // 2. Собираем ВСЕ слова из активных библиотек (общий снимок языка)
+                List<WordItem> allWords = getActiveWordsSnapshot(language);
 
                 Log.d(TAG, "Всего слов в активных библиотеках: " + allWords.size());
 
@@ -3360,12 +4174,349 @@ public class WordRepository {
             }
         });
     }
+    /**
+     * Сверка публичных библиотек с сервером: после старта из снимка APK, после восстановления
+     * копии и в периодической синхронизации (CacheSyncWorker). Публичных документов word_libraries немного - читаем все и сравниваем с Room:
+     * - новые библиотеки получают слова, если их язык уже лежит в кеше;
+     * - исчезнувшие с сервера удаляются вместе со словами и чекпоинтом;
+     * - слова остальных перекачиваются, только если bundleVersion на сервере не совпадает
+     *   с версией слов в кеше (contentVersion); слов, которых в новой выгрузке нет, не остаётся.
+     * Прогресс и избранное уже лежащих слов сохраняются. Метка снимка сдвигается только после
+     * полной сверки, в callback - удалось ли (вызывается в UI-потоке).
+     */
+    public void syncPublicLibraries(Consumer<Boolean> callback) {
+        if (!publicSyncRunning.compareAndSet(false, true)) {
+            // Вторая сверка параллельно перекачала бы те же библиотеки
+            Log.d(TAG, "⏳ Сверка публичных библиотек уже идёт");
+            callback.accept(false);
+            return;
+        }
+        Consumer<Boolean> done = synced -> {
+            publicSyncRunning.set(false);
+            callback.accept(synced);
+        };
+        Context context = FirebaseApp.getInstance().getApplicationContext();
+        long syncStartedAt = System.currentTimeMillis();
+        Log.d(TAG, "🔄 Сверка публичных библиотек с сервером");
+
+        // Только сервер: пустой ответ из офлайн-кеша Firestore удалил бы все библиотеки
+        db.collection("word_libraries")
+                .whereEqualTo("isPublic", true)
+                .get(Source.SERVER)
+                .addOnSuccessListener(snapshot -> {
+                    List<WordLibrary> libraries = new ArrayList<>();
+                    for (DocumentSnapshot doc : snapshot) {
+                        WordLibrary lib = doc.toObject(WordLibrary.class);
+                        if (lib != null) {
+                            lib.setLibraryId(doc.getId());
+                            lib.setCreatedBy("system");
+                            libraries.add(lib);
+                        }
+                    }
+
+                    Executors.newSingleThreadExecutor().execute(() -> {
+                        List<WordLibrary> outdated;
+                        try {
+                            outdated = applyPublicLibraries(context, libraries);
+                        } catch (Exception e) {
+                            Log.e(TAG, "❌ Ошибка сверки публичных библиотек", e);
+                            new Handler(Looper.getMainLooper()).post(() -> done.accept(false));
+                            return;
+                        }
+                        new Handler(Looper.getMainLooper()).post(() ->
+                                refreshPublicWords(outdated, syncStartedAt, refreshed -> {
+                                    if (refreshed) {
+                                        PublicSnapshot.advanceTo(context, syncStartedAt);
+                                        Log.d(TAG, "✅ Публичные библиотеки сверены: " + libraries.size()
+                                                + ", слова обновлены у " + outdated.size());
+                                    }
+                                    done.accept(refreshed);
+                                }));
+                    });
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "❌ Ошибка загрузки публичных библиотек для сверки", e);
+                    done.accept(false);
+                });
+    }
+
+    /**
+     * Метаданные с сервера в Room (активность и версия слов сохраняются), удаление исчезнувших.
+     * Возвращает библиотеки, чьи слова надо перекачать. Вызывать не из UI-потока.
+     */
+    private List<WordLibrary> applyPublicLibraries(Context context, List<WordLibrary> libraries) {
+        List<WordLibrary> outdated = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        localDb.runInTransaction(() -> {
+            Map<String, LocalWordLibrary> known = new HashMap<>();
+            for (LocalWordLibrary local : localDb.libraryDao().getPublicLibraries()) {
+                known.put(local.getLibraryId(), local);
+            }
+
+            for (WordLibrary lib : libraries) {
+                LocalWordLibrary existing = known.remove(lib.getLibraryId());
+                LocalWordLibrary local = convertToLocal(lib);
+                local.setActive(existing != null && existing.isActive());
+                local.setContentVersion(existing != null ? existing.getContentVersion() : 0);
+                local.setPublic(true);
+                local.setCreatedBy("system");
+                local.setLastSynced(new Date());
+                localDb.libraryDao().insertLibrary(local);
+
+                // Слова языка, который ещё не загружался, придут с его загрузкой
+                if (!hasWordsForLanguage(context, lib.getLanguageFrom())) {
+                    continue;
+                }
+                if (existing == null || lib.getBundleVersion() != existing.getContentVersion()) {
+                    outdated.add(lib);
+                }
+            }
+
+            for (String libraryId : known.keySet()) {
+                localDb.wordDao().deleteWordsByLibrary(libraryId);
+                localDb.checkpointDao().deleteCheckpoint(libraryId);
+                localDb.libraryDao().deleteLibrary(libraryId);
+                removed.add(libraryId);
+            }
+        });
+
+        for (String libraryId : removed) {
+            searchIndex.removeLibrary(libraryId);
+            wordCache.invalidateLibrary(libraryId);
+            Log.d(TAG, "🗑️ Публичная библиотека " + libraryId + " удалена на сервере");
+        }
+        return outdated;
+    }
+
+    private boolean hasWordsForLanguage(Context context, String language) {
+        return language != null && (PublicSnapshot.hasPublicWords(context, language)
+                || LanguageHydrator.getInstance(context).isHydrated(language));
+    }
+
+    /**
+     * Перекачивает слова библиотек (бандлом или документами, как при загрузке языка) и убирает
+     * слова, которых в свежей выгрузке не оказалось: у перезаписанных lastSynced не раньше syncStartedAt
+     */
+    private void refreshPublicWords(List<WordLibrary> libraries, long syncStartedAt, Consumer<Boolean> onDone) {
+        if (libraries.isEmpty()) {
+            onDone.accept(true);
+            return;
+        }
+        AtomicInteger remaining = new AtomicInteger(libraries.size());
+        AtomicBoolean failed = new AtomicBoolean(false);
+        for (WordLibrary lib : libraries) {
+            hydrateSingleLibrary(lib, lib.getLanguageFrom(), new HashMap<>(), checkpoint -> {
+                if (checkpoint == null) {
+                    failed.set(true);
+                    if (remaining.decrementAndGet() == 0) {
+                        onDone.accept(false);
+                    }
+                    return;
+                }
+                Executors.newSingleThreadExecutor().execute(() -> {
+                    try {
+                        pruneStaleWords(lib.getLibraryId(), syncStartedAt);
+                        // Перекачка вне загрузки языка - чекпоинт не нужен
+                        localDb.checkpointDao().deleteCheckpoint(lib.getLibraryId());
+                    } catch (Exception e) {
+                        Log.e(TAG, "❌ Ошибка удаления устаревших слов " + lib.getLibraryId(), e);
+                        failed.set(true);
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        new Handler(Looper.getMainLooper()).post(() -> onDone.accept(!failed.get()));
+                    }
+                });
+            });
+        }
+    }
+
+    private void pruneStaleWords(String libraryId, long syncedBefore) {
+        List<String> staleIds = localDb.wordDao().getStaleWordIds(libraryId, syncedBefore);
+        if (staleIds.isEmpty()) {
+            return;
+        }
+        localDb.wordDao().deleteStaleWords(libraryId, syncedBefore);
+        for (String wordId : staleIds) {
+            searchIndex.remove(wordId);
+        }
+        wordCache.invalidateLibrary(libraryId);
+        Log.d(TAG, "🧹 " + libraryId + ": удалено слов, исчезнувших на сервере: " + staleIds.size());
+    }
+
+    /**
+     * Переносит прогресс и избранное уже лежащего в Room слова на свежую копию с сервера.
+     *
+     * @param serverProgress к копии уже применён документ word_progress. Тогда локальный прогресс
+     *                       остаётся, только если слово повторяли позже (lastReviewed), а избранное
+     *                       берётся с сервера - локально оно меняется лишь после записи туда
+     */
+    private void copyLocalProgress(LocalWordItem from, LocalWordItem to, boolean serverProgress) {
+        if (serverProgress) {
+            if (from.getLastReviewed() != null
+                    && (to.getLastReviewed() == null || from.getLastReviewed().after(to.getLastReviewed()))) {
+                to.setReviewStage(from.getReviewStage());
+                to.setNextReviewDate(from.getNextReviewDate());
+                to.setConsecutiveShows(from.getConsecutiveShows());
+                to.setReviewCount(from.getReviewCount());
+                to.setCorrectAnswers(from.getCorrectAnswers());
+                to.setLastReviewed(from.getLastReviewed());
+            }
+            return;
+        }
+        to.setReviewStage(from.getReviewStage());
+        to.setNextReviewDate(from.getNextReviewDate());
+        to.setConsecutiveShows(from.getConsecutiveShows());
+        to.setReviewCount(from.getReviewCount());
+        to.setCorrectAnswers(from.getCorrectAnswers());
+        to.setLastReviewed(from.getLastReviewed());
+        to.setFavorite(from.isFavorite());
+    }
+
+    /**
+     * Досинхронизация после восстановления из резервной копии (LocalBackup): всё, что в копии,
+     * повторно не качается. Публичные данные - сверкой версий (syncPublicLibraries), пользовательские -
+     * syncUserChangesSince. Если прошли обе, языки копии считаются свежими.
+     */
+    public void reconcileAfterRestore(long backupCreatedAt, Set<String> languages, OnSuccessListener listener) {
+        Context context = FirebaseApp.getInstance().getApplicationContext();
+        PublicSnapshot.advanceTo(context, backupCreatedAt);
+        syncPublicLibraries(publicSynced ->
+                syncUserChangesSince(new Date(backupCreatedAt), synced -> {
+                    if (publicSynced && synced) {
+                        for (String language : languages) {
+                            saveSyncTime(language);
+                        }
+                    }
+                    if (listener != null) listener.onSuccess();
+                }));
+    }
+
+    /**
+     * Пользовательские изменения позже since: прогресс (word_progress.updatedAt), новые
+     * пользовательские библиотеки и слова (createdAt). Запросы с фильтром по времени - неизменённые
+     * документы не читаются. Удалённое на сервере не отслеживается - подчистит полная синхронизация.
+     */
+    private void syncUserChangesSince(Date since, Consumer<Boolean> callback) {
+        if (userId.equals("anonymous")) {
+            new Handler(Looper.getMainLooper()).post(() -> callback.accept(false));
+            return;
+        }
+        DocumentReference userRef = db.collection("users").document(userId);
+        LibraryDeleter deleter = LibraryDeleter.getInstance(FirebaseApp.getInstance().getApplicationContext());
+
+        Executors.newSingleThreadExecutor().execute(() -> {
+            boolean synced;
+            try {
+                QuerySnapshot progress = Tasks.await(userRef.collection("word_progress")
+                        .whereGreaterThan("updatedAt", since)
+                        .get());
+                QuerySnapshot newLibraries = Tasks.await(userRef.collection("custom_libraries")
+                        .whereGreaterThan("createdAt", since)
+                        .get());
+
+                // Новые библиотеки - целиком, уже известные - только слова, добавленные после копии
+                List<WordLibrary> libraries = new ArrayList<>();
+                List<Task<QuerySnapshot>> wordTasks = new ArrayList<>();
+                List<String> wordTaskLibraryIds = new ArrayList<>();
+                for (DocumentSnapshot doc : newLibraries) {
+                    WordLibrary lib = doc.toObject(WordLibrary.class);
+                    if (lib == null || deleter.isPendingDeletion(doc.getId())) continue;
+                    lib.setLibraryId(doc.getId());
+                    lib.setCreatedBy(userId);
+                    libraries.add(lib);
+                    wordTasks.add(doc.getReference().collection("words").get());
+                    wordTaskLibraryIds.add(doc.getId());
+                }
+                for (String libraryId : localDb.libraryDao().getCustomLibraryIds()) {
+                    if (wordTaskLibraryIds.contains(libraryId)) continue;
+                    wordTasks.add(customLibraryRef(libraryId).collection("words")
+                            .whereGreaterThan("createdAt", since)
+                            .get());
+                    wordTaskLibraryIds.add(libraryId);
+                }
+
+                List<WordItem> words = new ArrayList<>();
+                for (int i = 0; i < wordTasks.size(); i++) {
+                    String libraryId = wordTaskLibraryIds.get(i);
+                    for (QueryDocumentSnapshot document : Tasks.await(wordTasks.get(i))) {
+                        WordItem word = document.toObject(WordItem.class);
+                        word.setWordId(document.getId());
+                        word.setLibraryId(libraryId);
+                        word.setCustomWord(true);
+                        loadBasicRepetitionFields(word, document);
+                        words.add(word);
+                    }
+                }
+
+                applyUserDelta(libraries, words, progress.getDocuments());
+                Log.d(TAG, "✅ Дельта пользователя: прогресс " + progress.size() + ", библиотек "
+                        + libraries.size() + ", слов " + words.size());
+                synced = true;
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Ошибка дельты пользовательских данных", e);
+                synced = false;
+            }
+            boolean result = synced;
+            new Handler(Looper.getMainLooper()).post(() -> callback.accept(result));
+        });
+    }
+
+    private void applyUserDelta(List<WordLibrary> libraries, List<WordItem> words, List<DocumentSnapshot> progress) {
+        Map<String, LocalWordItem> changed = new HashMap<>();
+        localDb.runInTransaction(() -> {
+            for (WordLibrary lib : libraries) {
+                LocalWordLibrary local = convertToLocal(lib);
+                local.setActive(false);
+                local.setPublic(false);
+                local.setCreatedBy(userId);
+                local.setLastSynced(new Date());
+                localDb.libraryDao().insertLibrary(local);
+            }
+
+            for (WordItem word : words) {
+                if (localDb.wordDao().getWordById(word.getWordId()) != null) continue;
+                LocalWordItem local = convertToLocalWord(word);
+                local.setLastSynced(new Date());
+                localDb.wordDao().insertWord(local);
+                // Новая библиотека пришла уже с серверным wordCount
+                if (localDb.libraryDao().getLibraryById(word.getLibraryId()) != null
+                        && !containsLibrary(libraries, word.getLibraryId())) {
+                    localDb.libraryDao().incrementWordCount(word.getLibraryId());
+                }
+                changed.put(local.getWordId(), local);
+            }
+
+            for (DocumentSnapshot doc : progress) {
+                LocalWordItem existing = localDb.wordDao().getWordById(doc.getId());
+                if (existing == null) continue;
+                WordItem word = convertLocalWordToWordItem(existing);
+                applyProgressToWord(word, doc);
+                LocalWordItem local = convertToLocalWord(word);
+                local.setLastSynced(new Date());
+                localDb.wordDao().insertWord(local);
+                changed.put(local.getWordId(), local);
+            }
+        });
+        List<LocalWordItem> changedWords = new ArrayList<>(changed.values());
+        searchIndex.putAll(changedWords);
+        invalidateSnapshots(changedWords);
+        for (WordLibrary lib : libraries) {
+            wordCache.invalidateLibrary(lib.getLibraryId());
+        }
+    }
 
+    private static boolean containsLibrary(List<WordLibrary> libraries, String libraryId) {
+        for (WordLibrary lib : libraries) {
+            if (lib.getLibraryId().equals(libraryId)) return true;
+        }
+        return false;
+    }
 
     public void deactivateAllLibrariesInCache() {
         Executors.newSingleThreadExecutor().execute(() -> {
             try {
                 localDb.libraryDao().deactivateAllLibraries();
+                wordCache.invalidateAll();
                 Log.d(TAG, "✅ Все библиотеки деактивированы в кеше");
             } catch (Exception e) {
                 Log.e(TAG, "❌ Ошибка деактивации библиотек", e);
@@ -0,0 +1,398 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Триграммный индекс по ключам поиска всех слов кеша (слово, перевод, примечание - SearchNormalizer).
+ * Строится лениво в фоне из local_words и дальше обновляется точечно вместе с записью слов
+ * в WordRepository. Поиск подстроки берёт самый короткий список триграмм запроса
+ * и проверяет только эти слова, а не весь словарь.
+ *
+ * Слова нумеруются по порядку добавления, список триграммы - растущий int[] без упаковки,
+ * в нулевой ячейке которого лежит его длина.
+ * Удалённое слово помечается пустым ключом, место освобождается при уплотнении.
+ */
+public class WordSearchIndex {
+    private static final String TAG = "WordSearchIndex";
+
+    private static final int INITIAL_POSTINGS = 4;
+    private static final int MIN_COMPACT_DEAD = 1024;
+
+    /**
+     * Строка для построения индекса: только ключи, без остальных полей слова
+     */
+    public static class Row {
+        public String wordId;
+        public String libraryId;
+        public String searchWord;
+        public String searchTranslation;
+        public String searchNote;
+    }
+
+    private static volatile WordSearchIndex INSTANCE;
+
+    private final AppDatabase localDb;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // === Слова (индекс массива = номер слова) ===
+    private String[] docWordIds = new String[0];
+    private String[] docLibraryIds = new String[0];
+    private String[] docKeys = new String[0];
+    private int docCount = 0;
+    private int deadCount = 0;
+    private final Map<String, Integer> docByWordId = new HashMap<>();
+
+    // === Триграмма -> [длина, номера слов по возрастанию...] ===
+    private final Map<Long, int[]> postings = new HashMap<>();
+
+    private boolean built = false;
+    private boolean building = false;
+    // Изменения, пришедшие во время построения: применяются поверх прочитанного из базы
+    private final List<Runnable> pendingChanges = new ArrayList<>();
+
+    private WordSearchIndex(Context context) {
+        this.localDb = AppDatabase.getInstance(context.getApplicationContext());
+    }
+
+    public static WordSearchIndex getInstance(Context context) {
+        // Другой аккаунт - другая база (AppDatabase.getInstance), данные старой не годятся
+        AppDatabase current = AppDatabase.getInstance(context.getApplicationContext());
+        WordSearchIndex instance = INSTANCE;
+        if (instance == null || instance.localDb != current) {
+            synchronized (WordSearchIndex.class) {
+                instance = INSTANCE;
+                if (instance == null || instance.localDb != current) {
+                    instance = new WordSearchIndex(context);
+                    INSTANCE = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Смена аккаунта (AccountScope.onAccountChanged): построение по старой базе останавливается,
+     * индекс с её словами отпускается
+     */
+    static void release(AppDatabase previous) {
+        synchronized (WordSearchIndex.class) {
+            WordSearchIndex instance = INSTANCE;
+            if (instance != null && instance.localDb == previous) {
+                // Под блокировкой: ensureBuilt и ensureBuiltLater проверяют isShutdown под ней же
+                instance.lock.writeLock().lock();
+                try {
+                    instance.executor.shutdownNow();
+                    instance.clearDocs();
+                } finally {
+                    instance.lock.writeLock().unlock();
+                }
+                INSTANCE = null;
+            }
+        }
+    }
+
+    /**
+     * Запускает построение, если индекса ещё нет (повторные вызовы ничего не делают)
+     */
+    public void ensureBuilt() {
+        lock.writeLock().lock();
+        try {
+            if (built || building || executor.isShutdown()) return;
+            building = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        executor.execute(this::build);
+    }
+
+    // ========== ПОИСК ==========
+
+    /**
+     * Слова, ключ которых содержит запрос.
+     *
+     * @param normalizedQuery результат SearchNormalizer.normalize
+     * @return wordId совпавших слов или null, если индекс ещё строится (искать по спискам)
+     */
+    public Set<String> search(String normalizedQuery) {
+        lock.readLock().lock();
+        try {
+            if (!built) {
+                ensureBuiltLater();
+                return null;
+            }
+            Set<String> result = new HashSet<>();
+            if (normalizedQuery.length() < 3) {
+                // Триграмм нет - короткий запрос проверяем по готовым ключам
+                for (int doc = 0; doc < docCount; doc++) {
+                    if (docKeys[doc] != null && docKeys[doc].contains(normalizedQuery)) {
+                        result.add(docWordIds[doc]);
+                    }
+                }
+                return result;
+            }
+
+            int[] candidates = null;
+            for (int i = 0; i + 3 <= normalizedQuery.length(); i++) {
+                int[] list = postings.get(trigram(normalizedQuery, i));
+                if (list == null) {
+                    return result;
+                }
+                if (candidates == null || list[0] < candidates[0]) {
+                    candidates = list;
+                }
+            }
+            for (int i = 1; i <= candidates[0]; i++) {
+                int doc = candidates[i];
+                if (docKeys[doc] != null && docKeys[doc].contains(normalizedQuery)) {
+                    result.add(docWordIds[doc]);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== ОБНОВЛЕНИЯ (вызываются после записи в Room) ==========
+
+    public void put(LocalWordItem word) {
+        putAll(Collections.singletonList(word));
+    }
+
+    public void putAll(List<LocalWordItem> words) {
+        List<Row> rows = new ArrayList<>(words.size());
+        for (LocalWordItem word : words) {
+            if (word.getWordId() == null) continue;
+            Row row = new Row();
+            row.wordId = word.getWordId();
+            row.libraryId = word.getLibraryId();
+            row.searchWord = word.getSearchWord();
+            row.searchTranslation = word.getSearchTranslation();
+            row.searchNote = word.getSearchNote();
+            rows.add(row);
+        }
+        applyChange(() -> {
+            for (Row row : rows) {
+                removeDoc(row.wordId);
+                addDoc(row);
+            }
+        });
+    }
+
+    public void remove(String wordId) {
+        applyChange(() -> removeDoc(wordId));
+    }
+
+    public void removeLibrary(String libraryId) {
+        applyChange(() -> {
+            for (int doc = 0; doc < docCount; doc++) {
+                if (docKeys[doc] != null && libraryId.equals(docLibraryIds[doc])) {
+                    removeDoc(docWordIds[doc]);
+                }
+            }
+        });
+    }
+
+    /**
+     * Кеш очищен целиком
+     */
+    public void clear() {
+        applyChange(this::clearDocs);
+    }
+
+    /**
+     * Содержимое базы могло разойтись с индексом (откат транзакции) - перестроим при следующем поиске
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                // Построение уже читает базу - достаточно, чтобы его результат не считался готовым
+                pendingChanges.add(() -> built = false);
+                return;
+            }
+            built = false;
+            clearDocs();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyChange(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                pendingChanges.add(change);
+            } else if (built) {
+                change.run();
+                compactIfNeeded();
+            }
+            // Индекса ещё нет - изменение и так попадёт в него при построении из базы
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== ПОСТРОЕНИЕ ==========
+
+    private void ensureBuiltLater() {
+        // Вызывается под читающей блокировкой - запись берём уже в фоне
+        if (!executor.isShutdown()) {
+            executor.execute(this::ensureBuilt);
+        }
+    }
+
+    private void build() {
+        long start = System.currentTimeMillis();
+        List<Row> rows;
+        try {
+            rows = localDb.wordDao().getSearchRows();
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Ошибка чтения слов для индекса", e);
+            lock.writeLock().lock();
+            try {
+                building = false;
+                pendingChanges.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            clearDocs();
+            for (Row row : rows) {
+                if (row.wordId != null) {
+                    addDoc(row);
+                }
+            }
+            building = false;
+            built = true;
+            for (Runnable change : pendingChanges) {
+                change.run();
+            }
+            pendingChanges.clear();
+            compactIfNeeded();
+            Log.d(TAG, "🔎 Индекс поиска: " + (docCount - deadCount) + " слов, "
+                    + postings.size() + " триграмм за " + (System.currentTimeMillis() - start) + " мс");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addDoc(Row row) {
+        String key = SearchNormalizer.combine(nonNull(row.searchWord),
+                nonNull(row.searchTranslation), nonNull(row.searchNote));
+        int doc = docCount;
+        if (doc == docKeys.length) {
+            int capacity = Math.max(16, doc * 2);
+            docWordIds = Arrays.copyOf(docWordIds, capacity);
+            docLibraryIds = Arrays.copyOf(docLibraryIds, capacity);
+            docKeys = Arrays.copyOf(docKeys, capacity);
+        }
+        docWordIds[doc] = row.wordId;
+        docLibraryIds[doc] = row.libraryId;
+        docKeys[doc] = key;
+        docCount++;
+        docByWordId.put(row.wordId, doc);
+
+        for (int i = 0; i + 3 <= key.length(); i++) {
+            if (key.charAt(i) == SearchNormalizer.FIELD_SEPARATOR
+                    || key.charAt(i + 1) == SearchNormalizer.FIELD_SEPARATOR
+                    || key.charAt(i + 2) == SearchNormalizer.FIELD_SEPARATOR) {
+                continue;
+            }
+            addPosting(trigram(key, i), doc);
+        }
+    }
+
+    private void addPosting(long trigram, int doc) {
+        int[] list = postings.get(trigram);
+        if (list == null) {
+            list = new int[INITIAL_POSTINGS];
+            postings.put(trigram, list);
+        }
+        int size = list[0];
+        // Номера слов растут, поэтому повтор триграммы внутри слова - это последний элемент
+        if (size > 0 && list[size] == doc) {
+            return;
+        }
+        if (size + 1 == list.length) {
+            list = Arrays.copyOf(list, list.length + (list.length >> 1));
+            postings.put(trigram, list);
+        }
+        list[size + 1] = doc;
+        list[0] = size + 1;
+    }
+
+    private void removeDoc(String wordId) {
+        Integer doc = docByWordId.remove(wordId);
+        if (doc != null && docKeys[doc] != null) {
+            // Списки триграмм не трогаем: мёртвое слово отсеивается проверкой ключа
+            docKeys[doc] = null;
+            deadCount++;
+        }
+    }
+
+    /**
+     * Пересобирает индекс из живых слов, когда удалённых стало больше половины
+     */
+    private void compactIfNeeded() {
+        if (deadCount < MIN_COMPACT_DEAD || deadCount * 2 < docCount) {
+            return;
+        }
+        String[] wordIds = docWordIds;
+        String[] libraryIds = docLibraryIds;
+        String[] keys = docKeys;
+        int count = docCount;
+        clearDocs();
+        for (int doc = 0; doc < count; doc++) {
+            if (keys[doc] == null) continue;
+            // Ключ уже собран - раскладываем обратно по полям
+            String[] parts = keys[doc].split(String.valueOf(SearchNormalizer.FIELD_SEPARATOR), -1);
+            Row row = new Row();
+            row.wordId = wordIds[doc];
+            row.libraryId = libraryIds[doc];
+            row.searchWord = parts.length > 0 ? parts[0] : "";
+            row.searchTranslation = parts.length > 1 ? parts[1] : "";
+            row.searchNote = parts.length > 2 ? parts[2] : "";
+            addDoc(row);
+        }
+        Log.d(TAG, "🧹 Индекс уплотнён: " + docCount + " слов");
+    }
+
+    private void clearDocs() {
+        docWordIds = new String[0];
+        docLibraryIds = new String[0];
+        docKeys = new String[0];
+        docCount = 0;
+        deadCount = 0;
+        docByWordId.clear();
+        postings.clear();
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32)
+                | ((long) text.charAt(start + 1) << 16)
+                | text.charAt(start + 2);
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+}
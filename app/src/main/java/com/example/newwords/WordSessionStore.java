@@ -0,0 +1,113 @@
+package com.example.newwords;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.text.TextUtils;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Передача слов сессии между фрагментами по токену вместо Parcelable-списка в аргументах.
+ * Готовые объекты живут в памяти процесса, а список wordId дублируется в SharedPreferences:
+ * после пересоздания процесса фрагмент по токену поднимает те же слова из Room.
+ */
+public class WordSessionStore {
+    private static final String TAG = "WordSessionStore";
+    private static final String PREFS_NAME = "word_sessions";
+    private static final String KEY_TOKENS = "tokens";
+    private static final String ID_SEPARATOR = "\n";
+    // Дольше пары сессий на экране не бывает - старые токены вычищаем
+    private static final int MAX_STORED_SESSIONS = 3;
+
+    private static final Map<String, List<WordItem>> SESSIONS = new ConcurrentHashMap<>();
+
+    private WordSessionStore() {
+    }
+
+    /**
+     * Кладёт слова сессии и возвращает токен для аргументов фрагмента
+     */
+    public static String put(Context context, List<WordItem> words) {
+        String token = UUID.randomUUID().toString();
+        List<WordItem> copy = new ArrayList<>(words);
+        SESSIONS.put(token, copy);
+
+        List<String> ids = new ArrayList<>(copy.size());
+        for (WordItem word : copy) {
+            if (word.getWordId() != null) {
+                ids.add(word.getWordId());
+            }
+        }
+
+        SharedPreferences prefs = prefs(context);
+        List<String> tokens = getTokens(prefs);
+        tokens.add(token);
+        SharedPreferences.Editor editor = prefs.edit();
+        while (tokens.size() > MAX_STORED_SESSIONS) {
+            String stale = tokens.remove(0);
+            SESSIONS.remove(stale);
+            editor.remove(stale);
+        }
+        editor.putString(token, TextUtils.join(ID_SEPARATOR, ids))
+                .putString(KEY_TOKENS, TextUtils.join(ID_SEPARATOR, tokens))
+                .apply();
+
+        Log.d(TAG, "📦 Сессия " + token + ": " + copy.size() + " слов");
+        return token;
+    }
+
+    /**
+     * Слова из памяти процесса или null, если процесс пересоздан (тогда - getWordIds)
+     */
+    public static List<WordItem> get(String token) {
+        return token != null ? SESSIONS.get(token) : null;
+    }
+
+    /**
+     * wordId сессии для восстановления из Room
+     */
+    public static List<String> getWordIds(Context context, String token) {
+        if (token == null) {
+            return new ArrayList<>();
+        }
+        String joined = prefs(context).getString(token, "");
+        if (joined.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(joined.split(ID_SEPARATOR)));
+    }
+
+    /**
+     * Сессия больше не нужна (фрагмент закрыт окончательно)
+     */
+    public static void release(Context context, String token) {
+        if (token == null) return;
+        SESSIONS.remove(token);
+        SharedPreferences prefs = prefs(context);
+        List<String> tokens = getTokens(prefs);
+        tokens.remove(token);
+        prefs.edit()
+                .remove(token)
+                .putString(KEY_TOKENS, TextUtils.join(ID_SEPARATOR, tokens))
+                .apply();
+    }
+
+    private static List<String> getTokens(SharedPreferences prefs) {
+        String joined = prefs.getString(KEY_TOKENS, "");
+        List<String> tokens = new ArrayList<>();
+        if (!joined.isEmpty()) {
+            tokens.addAll(Arrays.asList(joined.split(ID_SEPARATOR)));
+        }
+        return tokens;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -41,10 +41,12 @@ public class WordsFragment extends Fragment implements StackCardAdapter.OnCardAc
     private ProgressBar progressBar;
     private TextView progressText;
     private String currentLanguage = "en"; // по умолчанию
-    private static final String ARG_WORDS = "words_list";  // ← ДОБАВЬ ЭТУ СТРОКУ
+    // В аргументах только токен сессии, сами слова - в WordSessionStore
+    private static final String ARG_SESSION_TOKEN = "session_token";
     private static final String TAG = "WordsFragment";
 
     private boolean hasPassedWords = false;
+    private String sessionToken;
 
     private boolean isLoading = false;
 
@@ -387,7 +389,9 @@ public class WordsFragment extends Fragment implements StackCardAdapter.OnCardAc
             Log.d(TAG, "  shouldShow ИТОГ: " + shouldShow);
 
             if (shouldShow) {
-                sessionWords.add(word);
+                // Сессия меняет прогресс и избранное - работаем с копией, а не со словом общего
+                // снимка (LanguageWordCache); копируются только слова сессии
+                sessionWords.add(new WordItem(word));
                 Log.d(TAG, "  ✅ ДОБАВЛЕНО В СЕССИЮ");
                 if (sessionWords.size() >= maxWords) break;
             } else {
@@ -459,7 +463,9 @@ public class WordsFragment extends Fragment implements StackCardAdapter.OnCardAc
             getActivity().runOnUiThread(() -> {
                 // ИСПРАВЬ ЭТУ СТРОКУ: передавай sessionWords вместо wordList
                 adapter = new StackCardAdapter(sessionWords, this, wordRepository); // ← sessionWords вместо wordList
-                viewPager2.setAdapter(adapter);
+                adapter.setSpeechLanguage(currentLanguage);
+                adapter.attachTo(viewPager2);
+                adapter.setOnPrefetchListener(this::presynthesizeUpcoming);
 
                 // Отключаем стандартные свайпы ViewPager2 (управляем кнопками)
                 viewPager2.setUserInputEnabled(false);
@@ -694,6 +700,20 @@ public class WordsFragment extends Fragment implements StackCardAdapter.OnCardAc
             }
         });
     }
+
+    /**
+     * Заранее синтезирует аудио ближайших карточек, чтобы озвучка по тапу звучала сразу
+     */
+    private void presynthesizeUpcoming(List<WordItem> upcomingWords) {
+        if (adapter == null || !adapter.isSpeakEnabled() || getContext() == null) return;
+
+        List<String> texts = new ArrayList<>(upcomingWords.size());
+        for (WordItem word : upcomingWords) {
+            texts.add(word.getWord());
+        }
+        TextToSpeechManager.getInstance(getContext()).presynthesize(texts, currentLanguage);
+    }
+
     private void setupCardStack() {
         Log.d(TAG, "Настройка колоды с " + wordList.size() + " словами");
 
@@ -701,7 +721,9 @@ public class WordsFragment extends Fragment implements StackCardAdapter.OnCardAc
             getActivity().runOnUiThread(() -> {
                 // ДОБАВЬ wordRepository КАК ТРЕТИЙ ПАРАМЕТР:
                 adapter = new StackCardAdapter(wordList, this, wordRepository);
-                viewPager2.setAdapter(adapter);
+                adapter.setSpeechLanguage(currentLanguage);
+                adapter.attachTo(viewPager2);
+                adapter.setOnPrefetchListener(this::presynthesizeUpcoming);
 
                 // Отключаем стандартные свайпы ViewPager2
                 viewPager2.setUserInputEnabled(false);
@@ -1153,11 +1175,11 @@ public class WordsFragment extends Fragment implements StackCardAdapter.OnCardAc
     }
 
     // НОВЫЙ МЕТОД - создает фрагмент с готовыми словами
-    public static WordsFragment newInstanceWithWords(List<WordItem> words, String currentLanguage) {
+    public static WordsFragment newInstanceWithWords(Context context, List<WordItem> words, String currentLanguage) {
         WordsFragment fragment = new WordsFragment();
         Bundle args = new Bundle();
         args.putString(ARG_LANGUAGE, currentLanguage);
-        args.putParcelableArrayList(ARG_WORDS, new ArrayList<>(words));  // Теперь работает
+        args.putString(ARG_SESSION_TOKEN, WordSessionStore.put(context, words));
         fragment.setArguments(args);
         return fragment;
     }
@@ -1170,8 +1192,9 @@ public class WordsFragment extends Fragment implements StackCardAdapter.OnCardAc
             currentLanguage = getArguments().getString(ARG_LANGUAGE, "en");
             Log.d(TAG, "📱 WordsFragment создан для языка: " + currentLanguage);
 
-            // Получаем переданные слова
-            ArrayList<WordItem> passedWords = getArguments().getParcelableArrayList(ARG_WORDS);
+            // Получаем переданные слова (после пересоздания процесса их в памяти нет)
+            sessionToken = getArguments().getString(ARG_SESSION_TOKEN);
+            List<WordItem> passedWords = WordSessionStore.get(sessionToken);
             if (passedWords != null && !passedWords.isEmpty()) {
                 Log.d(TAG, "📦 Использую переданные слова: " + passedWords.size() + " шт.");
                 // Сохраняем слова для использования в onCreateView
@@ -1186,22 +1209,26 @@ public class WordsFragment extends Fragment implements StackCardAdapter.OnCardAc
     public View onCreateView(@NonNull LayoutInflater inflater,
                              @Nullable ViewGroup container,
                              @Nullable Bundle savedInstanceState) {
-        View view = inflater.inflate(R.layout.fragment_words, container, false);
+        // Экран мог быть надут заранее, пока MainActivity простаивала
+        View view = container != null ? ViewPrewarmer.obtain(R.layout.fragment_words, container) : null;
+        if (view == null) {
+            view = inflater.inflate(R.layout.fragment_words, container, false);
+        }
 
-        wordRepository = new WordRepository(getContext());
-        debugRoomDatabase();  // ← ДОБАВЬТЕ ЭТУ СТРОКУ
+        wordRepository = WordRepository.getInstance(requireContext());
         viewPager2 = view.findViewById(R.id.viewPager2);
         progressBar = view.findViewById(R.id.progressBar);
         progressText = view.findViewById(R.id.progressText);
 
         setupBackButton(view);
         setupSwipeGestures(view);
-        debugCacheContentsForLanguage("ba");
         // Если есть переданные слова - используем их
         if (hasPassedWords && !wordList.isEmpty()) {
             Log.d(TAG, "📦 Использую переданные слова в onCreateView: " + wordList.size());
             processLoadedWords(wordList);
             showLoading(false);
+        } else if (sessionToken != null) {
+            restoreSessionWords();
         } else {
             loadWordsFromFirebase();
         }
@@ -1209,65 +1236,52 @@ public class WordsFragment extends Fragment implements StackCardAdapter.OnCardAc
         return view;
     }
 
-    //надо будет потом испрваить ноооо не сейяас бох с ним
-
-    private void debugRoomDatabase() {
-        new Thread(() -> {
-            try {
-                AppDatabase db = AppDatabase.getInstance(getContext());
-
-                // 1. Все библиотеки
-                List<LocalWordLibrary> allLibraries = db.libraryDao().getAllLibraries();
-                Log.d("DEBUG_ROOM", "=== ВСЕ БИБЛИОТЕКИ ===");
-                Log.d("DEBUG_ROOM", "Всего библиотек: " + allLibraries.size());
-                for (LocalWordLibrary lib : allLibraries) {
-                    Log.d("DEBUG_ROOM", "📚 " + lib.getName() +
-                            " | ID: " + lib.getLibraryId() +
-                            " | languageFrom: " + lib.getLanguageFrom() +
-                            " | isActive: " + lib.isActive() +
-                            " | wordCount: " + lib.getWordCount());
-                }
-
-                // 2. Все слова
-                List<LocalWordItem> allWords = db.wordDao().getAllWords();
-                Log.d("DEBUG_ROOM", "=== ВСЕ СЛОВА ===");
-                Log.d("DEBUG_ROOM", "Всего слов: " + allWords.size());
-                for (int i = 0; i < Math.min(10, allWords.size()); i++) {
-                    LocalWordItem w = allWords.get(i);
-                    Log.d("DEBUG_ROOM", "📖 " + w.getWord() + " -> " + w.getTranslation() +
-                            " | libraryId: " + w.getLibraryId());
-                }
-
-                // 3. Слова для конкретной библиотеки
-                List<LocalWordLibrary> baLibraries = db.libraryDao().getLibrariesByLanguage("ba");
-                Log.d("DEBUG_ROOM", "=== БИБЛИОТЕКИ ДЛЯ ЯЗЫКА ba ===");
-                Log.d("DEBUG_ROOM", "Найдено: " + baLibraries.size());
-                for (LocalWordLibrary lib : baLibraries) {
-                    Log.d("DEBUG_ROOM", "📚 " + lib.getName() + " | ID: " + lib.getLibraryId() + " | isActive: " + lib.isActive());
-
-                    // Слова в этой библиотеке
-                    List<LocalWordItem> words = db.wordDao().getWordsByLibrary(lib.getLibraryId());
-                    Log.d("DEBUG_ROOM", "   Слов в этой библиотеке: " + words.size());
-                    for (LocalWordItem w : words) {
-                        Log.d("DEBUG_ROOM", "      - " + w.getWord());
-                    }
-                }
-
-                // 4. Активные библиотеки для ba
-                List<LocalWordLibrary> activeBaLibs = db.libraryDao().getActiveLibrariesByLanguage("ba");
-                Log.d("DEBUG_ROOM", "=== АКТИВНЫЕ БИБЛИОТЕКИ ДЛЯ ba ===");
-                Log.d("DEBUG_ROOM", "Найдено активных: " + activeBaLibs.size());
-                for (LocalWordLibrary lib : activeBaLibs) {
-                    Log.d("DEBUG_ROOM", "📚 " + lib.getName());
-                    List<LocalWordItem> words = db.wordDao().getWordsByLibrary(lib.getLibraryId());
-                    Log.d("DEBUG_ROOM", "   Слов: " + words.size());
+    /**
+     * Процесс пересоздан: поднимаем слова сессии из Room по сохранённым wordId
+     */
+    private void restoreSessionWords() {
+        List<String> wordIds = WordSessionStore.getWordIds(requireContext(), sessionToken);
+        if (wordIds.isEmpty()) {
+            loadWordsFromFirebase();
+            return;
+        }
+        showLoading(true);
+        wordRepository.getWordsByIds(wordIds, new WordRepository.OnWordsLoadedListener() {
+            @Override
+            public void onWordsLoaded(List<WordItem> words) {
+                if (!isAdded()) return;
+                if (words.isEmpty()) {
+                    loadWordsFromFirebase();
+                    return;
                 }
+                Log.d(TAG, "♻️ Сессия восстановлена из кеша: " + words.size() + " слов");
+                wordList.clear();
+                wordList.addAll(words);
+                hasPassedWords = true;
+                processLoadedWords(wordList);
+                showLoading(false);
+            }
 
-            } catch (Exception e) {
-                Log.e("DEBUG_ROOM", "Ошибка", e);
+            @Override
+            public void onError(Exception e) {
+                if (!isAdded()) return;
+                loadWordsFromFirebase();
             }
-        }).start();
+        });
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        // Поворот экрана или уничтожение активити системой сессию не закрывают -
+        // токен понадобится новому экземпляру
+        if (sessionToken != null && getActivity() != null
+                && (isRemoving() || getActivity().isFinishing())
+                && !getActivity().isChangingConfigurations()) {
+            WordSessionStore.release(requireContext(), sessionToken);
+        }
     }
+
     private void checkForUpdatesInBackground() {
         // Только если есть интернет
         if (isNetworkAvailable()) {
@@ -1418,54 +1432,6 @@ public class WordsFragment extends Fragment implements StackCardAdapter.OnCardAc
             }
         });
     }
-    private void debugCacheContentsForLanguage(String language) {
-        wordRepository.getWordsFromCacheOnly(language, new WordRepository.OnWordsLoadedListener() {
-            @Override
-            public void onWordsLoaded(List<WordItem> words) {
-                Log.d(TAG, "=== ДЕБАГ КЕША ДЛЯ " + language + " ===");
-                Log.d(TAG, "Всего слов в кеше: " + words.size());
-
-                if (words.isEmpty()) {
-                    Log.d(TAG, "❌ КЕШ ПУСТ!");
-                    return;
-                }
-
-                int dueCount = 0;
-                int newCount = 0;
-                int learnedCount = 0;
-
-                for (WordItem word : words) {
-                    boolean isDue = word.isDueForReview();
-                    boolean isNew = word.isNew();
-                    boolean isLearned = word.isLearned();
-                    boolean shouldShow = SimpleRepetitionSystem.shouldShowInSession(word);
-
-                    Log.d(TAG, "━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-                    Log.d(TAG, "Слово: " + word.getWord());
-                    Log.d(TAG, "  reviewStage: " + word.getReviewStage());
-                    Log.d(TAG, "  nextReviewDate: " + word.getNextReviewDate());
-                    Log.d(TAG, "  isDue: " + isDue);
-                    Log.d(TAG, "  isNew: " + isNew);
-                    Log.d(TAG, "  isLearned: " + isLearned);
-                    Log.d(TAG, "  shouldShowInSession: " + shouldShow);
-
-                    if (shouldShow) dueCount++;
-                    if (isNew) newCount++;
-                    if (isLearned) learnedCount++;
-                }
-
-                Log.d(TAG, "=== ИТОГО ===");
-                Log.d(TAG, "Готовых к показу: " + dueCount);
-                Log.d(TAG, "Новых слов: " + newCount);
-                Log.d(TAG, "Выученных слов: " + learnedCount);
-            }
-
-            @Override
-            public void onError(Exception e) {
-                Log.e(TAG, "Ошибка дебага кеша", e);
-            }
-        });
-    }
     private void refreshCacheInBackground() {
         // Фоновое обновление, НЕ трогает UI
         wordRepository.smartSyncForLanguage(currentLanguage, new WordRepository.OnWordsLoadedListener() {
@@ -1474,7 +1440,7 @@ public class WordsFragment extends Fragment implements StackCardAdapter.OnCardAc
                 if (!freshWords.isEmpty()) {
                     Log.d(TAG, "🔄 Фоновое обновление: " + freshWords.size() + " слов");
                     // Только если текущий список пуст — обновляем
-                    if (adapter == null || adapter.getItemCount() == 0) {
+                    if (adapter == null || adapter.getRemainingCards() == 0) {
                         processLoadedWords(freshWords);
                     }
                 }
@@ -0,0 +1,54 @@
+package com.example.newwords;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Примеры из search_normalizer_vectors.json проверяет и scripts/snapshot_public_libraries.py:
+ * ключи в снимке и ключи, посчитанные приложением, должны совпадать
+ */
+public class SearchNormalizerTest {
+
+    private static class Vector {
+        String input;
+        String expected;
+    }
+
+    @Test
+    public void normalize_matchesSharedVectors() throws Exception {
+        List<Vector> vectors;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("search_normalizer_vectors.json");
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            vectors = new Gson().fromJson(reader, new TypeToken<List<Vector>>() {}.getType());
+        }
+        assertFalse(vectors.isEmpty());
+        for (Vector vector : vectors) {
+            assertEquals(vector.input, vector.expected, SearchNormalizer.normalize(vector.input));
+        }
+    }
+
+    @Test
+    public void normalize_nullIsEmpty() {
+        assertEquals("", SearchNormalizer.normalize(null));
+    }
+
+    @Test
+    public void matches_doesNotCrossFieldSeparator() {
+        String key = SearchNormalizer.combine(SearchNormalizer.normalize("cat"),
+                SearchNormalizer.normalize("кошка"));
+        assertTrue(SearchNormalizer.matches(key, "cat"));
+        assertTrue(SearchNormalizer.matches(key, "кошка"));
+        assertFalse(SearchNormalizer.matches(key, "cat кошка"));
+        assertFalse(SearchNormalizer.matches(key, "tк"));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.newwords;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Этап по интервалу в днях (перенос прогресса из импорта): наибольший этап,
+ * интервал которого не больше заданного; 1, 3, 7, 14, 30, 60 дней - этапы 1-6
+ */
+public class SimpleRepetitionSystemTest {
+
+    @Test
+    public void stageForInterval_exactIntervals() {
+        assertEquals(1, SimpleRepetitionSystem.stageForInterval(1));
+        assertEquals(2, SimpleRepetitionSystem.stageForInterval(3));
+        assertEquals(3, SimpleRepetitionSystem.stageForInterval(7));
+        assertEquals(4, SimpleRepetitionSystem.stageForInterval(14));
+        assertEquals(5, SimpleRepetitionSystem.stageForInterval(30));
+        assertEquals(6, SimpleRepetitionSystem.stageForInterval(60));
+    }
+
+    @Test
+    public void stageForInterval_betweenIntervalsRoundsDown() {
+        assertEquals(1, SimpleRepetitionSystem.stageForInterval(2));
+        assertEquals(3, SimpleRepetitionSystem.stageForInterval(13));
+        assertEquals(5, SimpleRepetitionSystem.stageForInterval(59));
+    }
+
+    @Test
+    public void stageForInterval_shortIntervalsStayOnFirstStage() {
+        assertEquals(1, SimpleRepetitionSystem.stageForInterval(0));
+        assertEquals(1, SimpleRepetitionSystem.stageForInterval(-5));
+    }
+
+    @Test
+    public void stageForInterval_longIntervalsCapAtLearned() {
+        assertEquals(6, SimpleRepetitionSystem.stageForInterval(365));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.newwords;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WordDedupTest {
+
+    @Test
+    public void key_ignoresCaseAndWhitespace() {
+        assertEquals(WordDedup.key("Cat", "Кошка"), WordDedup.key("  cat ", "кошка"));
+        assertEquals(WordDedup.key("ice cream", "мороженое"), WordDedup.key("ice   cream", "мороженое"));
+    }
+
+    @Test
+    public void key_isHex128Bits() {
+        assertTrue(WordDedup.key("cat", "кошка").matches("[0-9a-f]{32}"));
+    }
+
+    @Test
+    public void key_separatesWordAndTranslation() {
+        assertNotEquals(WordDedup.key("cat", "кошка"), WordDedup.key("cat", "кот"));
+        // Граница между полями входит в ключ
+        assertNotEquals(WordDedup.key("ab", "c"), WordDedup.key("a", "bc"));
+    }
+
+    @Test
+    public void key_doesNotFoldBashkirLetters() {
+        assertNotEquals(WordDedup.key("ул", "он"), WordDedup.key("үл", "он"));
+    }
+
+    @Test
+    public void key_nullIsEmpty() {
+        assertEquals(WordDedup.key(null, null), WordDedup.key("", "  "));
+    }
+
+    @Test
+    public void mergeNote_appendsNewNote() {
+        assertEquals("first\nsecond", WordDedup.mergeNote("first", " second "));
+    }
+
+    @Test
+    public void mergeNote_keepsExistingWhenAlreadyContained() {
+        assertEquals("pet, animal", WordDedup.mergeNote("pet, animal", "animal"));
+        assertEquals("pet", WordDedup.mergeNote(" pet ", null));
+    }
+
+    @Test
+    public void mergeNote_emptyExistingTakesIncoming() {
+        assertEquals("pet", WordDedup.mergeNote(null, "pet"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.newwords;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Разбор CSV/TSV импорта: разделитель, заголовок, записи с кавычками
+ */
+public class WordImporterCsvTest {
+
+    private static BufferedReader reader(String text) {
+        return new BufferedReader(new StringReader(text));
+    }
+
+    @Test
+    public void detectDelimiter_comma() throws IOException {
+        assertEquals(',', WordImporter.detectDelimiter(reader("cat,кошка,note\n")));
+    }
+
+    @Test
+    public void detectDelimiter_semicolonWhenMoreFrequent() throws IOException {
+        assertEquals(';', WordImporter.detectDelimiter(reader("cat;кошка, киса;note\n")));
+    }
+
+    @Test
+    public void detectDelimiter_tabWins() throws IOException {
+        assertEquals('\t', WordImporter.detectDelimiter(reader("cat\tкошка; киса, кот\n")));
+    }
+
+    @Test
+    public void detectDelimiter_skipsBlankLinesAndResetsReader() throws IOException {
+        BufferedReader reader = reader("\n   \ncat;кошка\n");
+        assertEquals(';', WordImporter.detectDelimiter(reader));
+        assertEquals("", reader.readLine());
+    }
+
+    @Test
+    public void detectDelimiter_emptyInputDefaultsToComma() throws IOException {
+        assertEquals(',', WordImporter.detectDelimiter(reader("")));
+    }
+
+    @Test
+    public void readRecord_simpleFields() throws IOException {
+        assertEquals(Arrays.asList("cat", "кошка", "pet"),
+                WordImporter.readRecord(reader("cat,кошка,pet\n"), ','));
+    }
+
+    @Test
+    public void readRecord_quotedDelimiterAndEscapedQuotes() throws IOException {
+        assertEquals(Arrays.asList("say \"hi\", please", "сказать"),
+                WordImporter.readRecord(reader("\"say \"\"hi\"\", please\",сказать\n"), ','));
+    }
+
+    @Test
+    public void readRecord_newlineInsideQuotes() throws IOException {
+        BufferedReader reader = reader("\"line one\nline two\",перевод\nnext,следующий\n");
+        assertEquals(Arrays.asList("line one\nline two", "перевод"), WordImporter.readRecord(reader, ','));
+        assertEquals(Arrays.asList("next", "следующий"), WordImporter.readRecord(reader, ','));
+    }
+
+    @Test
+    public void readRecord_stripsBomAndSkipsBlankLines() throws IOException {
+        BufferedReader reader = reader("\uFEFFcat;кошка\n\n  \ndog;собака\n");
+        assertEquals(Arrays.asList("cat", "кошка"), WordImporter.readRecord(reader, ';'));
+        assertEquals(Arrays.asList("dog", "собака"), WordImporter.readRecord(reader, ';'));
+        assertNull(WordImporter.readRecord(reader, ';'));
+    }
+
+    @Test
+    public void readRecord_keepsTrailingEmptyField() throws IOException {
+        assertEquals(Arrays.asList("cat", "кошка", ""),
+                WordImporter.readRecord(reader("cat\tкошка\t\n"), '\t'));
+    }
+
+    @Test
+    public void readRecord_unterminatedQuoteEndsAtEof() throws IOException {
+        assertEquals(Collections.singletonList("open\nrest"),
+                WordImporter.readRecord(reader("\"open\nrest"), ','));
+    }
+
+    @Test
+    public void isHeader_recognizesAllInterfaceLanguages() {
+        assertTrue(WordImporter.isHeader(Arrays.asList("Word", "Translation")));
+        assertTrue(WordImporter.isHeader(Arrays.asList("  СЛОВО ", "Перевод")));
+        assertTrue(WordImporter.isHeader(Arrays.asList("Һүҙ", "Тәржемә")));
+    }
+
+    @Test
+    public void isHeader_falseForRegularWord() {
+        List<String> fields = Arrays.asList("cat", "кошка");
+        assertFalse(WordImporter.isHeader(fields));
+        assertFalse(WordImporter.isHeader(Collections.singletonList("words")));
+    }
+}
@@ -0,0 +1,120 @@
+#!/usr/bin/env python3
+"""
+Публикует каждую публичную библиотеку (word_libraries) одним сжатым бандлом.
+
+Бандл - gzip JSON в формате LibraryBundle.FORMAT_VERSION:
+  {"format": 1, "libraryId": "...", "version": <хеш содержимого>,
+   "words": [{"id", "word", "translation", "note", "difficulty", "createdAt"}, ...]}
+
+Клиент скачивает его одним запросом вместо чтения каждого документа words.
+version - хеш слов (content_version): не меняется, пока не изменились слова, поэтому
+неизменённые бандлы не перезаливаются, а клиент перекачивает библиотеку, только если
+bundleVersion в документе разошёлся с версией слов у него в кеше.
+
+Запуск:
+  GOOGLE_APPLICATION_CREDENTIALS=key.json python3 scripts/publish_library_bundles.py <out_dir> [--upload BUCKET]
+
+Без --upload бандлы только пишутся в out_dir. Для проверки без Firebase их можно
+раздать локально (python3 -m http.server -d <out_dir> 8000) и указать
+library_bundle_base_url = http://10.0.2.2:8000 (эмулятору нужен разрешённый cleartext).
+С --upload файлы кладутся в Storage (library_bundles/<id>.json.gz), а в документ
+библиотеки записываются bundleUrl и bundleVersion.
+"""
+
+import argparse
+import gzip
+import hashlib
+import json
+import os
+
+import firebase_admin
+from firebase_admin import firestore, storage
+
+FORMAT_VERSION = 1
+
+
+def millis(value):
+    if value is None:
+        return None
+    return int(value.timestamp() * 1000)
+
+
+def as_int(value, default=3):
+    try:
+        return int(value)
+    except (TypeError, ValueError):
+        return default
+
+
+def read_words(word_docs):
+    words = []
+    for doc in word_docs:
+        w = doc.to_dict()
+        words.append({
+            "id": doc.id,
+            "word": w.get("word"),
+            "translation": w.get("translation"),
+            "note": w.get("note"),
+            "difficulty": as_int(w.get("difficulty")),
+            "createdAt": millis(w.get("createdAt")),
+        })
+    words.sort(key=lambda word: word["id"])
+    return words
+
+
+def content_version(words):
+    # Первые 63 бита SHA-256 от канонического JSON: положительный long в Java и int64 в Firestore.
+    # 0 у клиента значит «версия неизвестна», поэтому не выдаём его
+    canonical = json.dumps([FORMAT_VERSION, words], ensure_ascii=False, sort_keys=True, separators=(",", ":"))
+    digest = hashlib.sha256(canonical.encode("utf-8")).digest()
+    return int.from_bytes(digest[:8], "big") & 0x7FFFFFFFFFFFFFFF or 1
+
+
+def write_bundle(path, library_id, version, words):
+    tmp_path = path + ".tmp"
+    with gzip.open(tmp_path, "wt", encoding="utf-8", compresslevel=9) as out:
+        json.dump({
+            "format": FORMAT_VERSION,
+            "libraryId": library_id,
+            "version": version,
+            "words": words,
+        }, out, ensure_ascii=False, separators=(",", ":"))
+    os.replace(tmp_path, path)
+    return len(words)
+
+
+def main():
+    parser = argparse.ArgumentParser()
+    parser.add_argument("out_dir", nargs="?", default="build/library_bundles")
+    parser.add_argument("--upload", metavar="BUCKET", help="загрузить в Firebase Storage")
+    args = parser.parse_args()
+
+    os.makedirs(args.out_dir, exist_ok=True)
+    options = {"storageBucket": args.upload} if args.upload else None
+    firebase_admin.initialize_app(options=options)
+    client = firestore.client()
+    bucket = storage.bucket() if args.upload else None
+
+    for lib_doc in client.collection("word_libraries").where("isPublic", "==", True).stream():
+        lib = lib_doc.to_dict()
+        words = read_words(lib_doc.reference.collection("words").stream())
+        version = content_version(words)
+        if args.upload and lib.get("bundleVersion") == version:
+            print(f"{lib_doc.id}: bundle v{version} is up to date")
+            continue
+
+        path = os.path.join(args.out_dir, f"{lib_doc.id}.json.gz")
+        count = write_bundle(path, lib_doc.id, version, words)
+        print(f"{lib_doc.id}: {count} words, {os.path.getsize(path) // 1024} KB")
+
+        if bucket is not None:
+            blob = bucket.blob(f"library_bundles/{lib_doc.id}.json.gz")
+            # Отдаём как есть: клиент сам распаковывает gzip
+            blob.cache_control = "public, max-age=3600"
+            blob.upload_from_filename(path, content_type="application/octet-stream")
+            blob.make_public()
+            lib_doc.reference.update({"bundleUrl": blob.public_url, "bundleVersion": version})
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,204 @@
+#!/usr/bin/env python3
+"""
+Снимок публичных библиотек (word_libraries) в готовую SQLite-базу для APK.
+
+Результат кладётся в app/src/main/assets/database:
+  public_libraries.db         - база со схемой Room (AppDatabase.VERSION)
+  public_libraries_meta.json  - schemaVersion и snapshotAt (момент снимка)
+
+Запуск: ./gradlew :app:snapshotPublicLibraries
+  или   GOOGLE_APPLICATION_CREDENTIALS=key.json python3 scripts/snapshot_public_libraries.py <out_dir>
+
+Схема ниже должна совпадать с сущностями Room (LocalWordLibrary, LocalWordItem, UserStats, HydrationCheckpoint),
+включая индексы, иначе Room откажется открывать базу из asset.
+normalize() повторяет SearchNormalizer.normalize - ключи поиска кладутся в снимок готовыми;
+совпадение проверяется на общих примерах app/src/test/resources/search_normalizer_vectors.json.
+"""
+
+import json
+import os
+import sqlite3
+import sys
+import time
+
+import firebase_admin
+from firebase_admin import firestore
+
+SCHEMA_VERSION = 9
+
+SCHEMA = [
+    """CREATE TABLE IF NOT EXISTS `local_libraries` (
+        `libraryId` TEXT NOT NULL, `name` TEXT, `description` TEXT, `subcategory` TEXT,
+        `wordCount` INTEGER NOT NULL, `category` TEXT, `languageFrom` TEXT, `languageTo` TEXT,
+        `isPublic` INTEGER NOT NULL, `isActive` INTEGER NOT NULL, `createdAt` INTEGER,
+        `createdBy` TEXT, `lastSynced` INTEGER, `searchName` TEXT, `searchDescription` TEXT,
+        `contentVersion` INTEGER NOT NULL, PRIMARY KEY(`libraryId`))""",
+    """CREATE TABLE IF NOT EXISTS `local_words` (
+        `wordId` TEXT NOT NULL, `word` TEXT, `translation` TEXT, `note` TEXT,
+        `isFavorite` INTEGER NOT NULL, `difficulty` TEXT, `reviewCount` INTEGER NOT NULL,
+        `correctAnswers` INTEGER NOT NULL, `isCustomWord` INTEGER NOT NULL, `libraryId` TEXT,
+        `userId` TEXT, `createdAt` INTEGER, `lastReviewed` INTEGER, `lastSynced` INTEGER,
+        `reviewStage` INTEGER NOT NULL, `nextReviewDate` INTEGER, `consecutiveShows` INTEGER NOT NULL,
+        `searchWord` TEXT, `searchTranslation` TEXT, `searchNote` TEXT, `dedupKey` TEXT,
+        PRIMARY KEY(`wordId`))""",
+    # dedupKey есть только у пользовательских слов (WordDedup) - в снимке всегда NULL
+    "CREATE INDEX IF NOT EXISTS `index_local_words_dedupKey_libraryId` ON `local_words` (`dedupKey`, `libraryId`)",
+    """CREATE TABLE IF NOT EXISTS `user_stats` (
+        `userId` TEXT NOT NULL, `streakDays` INTEGER NOT NULL, `wordsInProgress` INTEGER NOT NULL,
+        `wordsLearned` INTEGER NOT NULL, `todayProgress` INTEGER NOT NULL, `dailyGoal` INTEGER NOT NULL,
+        `lastSessionDate` INTEGER, `lastUpdated` INTEGER, PRIMARY KEY(`userId`))""",
+    # Пустая: в снимке нечего докачивать, но Room проверяет наличие таблицы
+    """CREATE TABLE IF NOT EXISTS `hydration_checkpoints` (
+        `libraryId` TEXT NOT NULL, `language` TEXT, `wordCount` INTEGER NOT NULL,
+        `bytes` INTEGER NOT NULL, `completedAt` INTEGER, PRIMARY KEY(`libraryId`))""",
+]
+
+
+FIELD_SEPARATOR = "\u0001"
+FOLD = str.maketrans("ёәөүғҡңҙҫһ", "еаоугкнзсх")
+
+
+# Пробельные символы Character.isWhitespace: неразрывные пробелы (\u00a0, \u2007, \u202f)
+# Java пробелами не считает, в отличие от str.split()
+JAVA_WHITESPACE = frozenset("\t\n\u000b\f\r\u001c\u001d\u001e\u001f \u1680"
+                            "\u2000\u2001\u2002\u2003\u2004\u2005\u2006\u2008\u2009\u200a"
+                            "\u2028\u2029\u205f\u3000")
+
+# Общие с SearchNormalizerTest примеры: скрипт не пишет снимок, если ключи разошлись с Java
+VECTORS_PATH = os.path.join(os.path.dirname(os.path.abspath(__file__)), os.pardir,
+                            "app", "src", "test", "resources", "search_normalizer_vectors.json")
+
+
+def lower_char(c):
+    # Character.toLowerCase(char): по одному UTF-16 символу, без контекста
+    # (σ в конце слова не становится ς, İ -> i); вне BMP Java видит суррогаты и не меняет их
+    if ord(c) > 0xFFFF:
+        return c
+    lowered = c.lower()
+    return lowered if len(lowered) == 1 else lowered[0]
+
+
+def normalize(text):
+    # То же, что SearchNormalizer.normalize
+    if not text:
+        return ""
+    out = []
+    pending_space = False
+    for c in text:
+        if c in JAVA_WHITESPACE or c == FIELD_SEPARATOR:
+            pending_space = bool(out)
+            continue
+        if pending_space:
+            out.append(" ")
+            pending_space = False
+        out.append(lower_char(c).translate(FOLD))
+    return "".join(out)
+
+
+def check_normalizer():
+    with open(VECTORS_PATH, encoding="utf-8") as f:
+        vectors = json.load(f)
+    for vector in vectors:
+        actual = normalize(vector["input"])
+        if actual != vector["expected"]:
+            sys.exit(f"normalize() разошёлся с SearchNormalizer: {vector['input']!r} -> "
+                     f"{actual!r}, ожидалось {vector['expected']!r}")
+
+
+def normalize_all(value):
+    # То же, что SearchNormalizer.normalizeAll для локализованных полей
+    if not isinstance(value, dict):
+        return ""
+    return FIELD_SEPARATOR.join(normalize(v) for v in value.values())
+
+
+def millis(value):
+    if value is None:
+        return None
+    return int(value.timestamp() * 1000)
+
+
+def as_json_map(value):
+    # Converters.fromMap хранит Map<String, String> как JSON
+    return json.dumps(value, ensure_ascii=False) if isinstance(value, dict) else None
+
+
+def as_int(value, default=0):
+    try:
+        return int(value)
+    except (TypeError, ValueError):
+        return default
+
+
+def main(out_dir):
+    check_normalizer()
+    os.makedirs(out_dir, exist_ok=True)
+    db_path = os.path.join(out_dir, "public_libraries.db")
+    meta_path = os.path.join(out_dir, "public_libraries_meta.json")
+    tmp_path = db_path + ".tmp"
+    if os.path.exists(tmp_path):
+        os.remove(tmp_path)
+
+    firebase_admin.initialize_app()
+    client = firestore.client()
+
+    # Метку берём ДО чтения: всё, что изменится во время снимка, догонит сверка версий
+    snapshot_at = int(time.time() * 1000)
+    now = snapshot_at
+
+    conn = sqlite3.connect(tmp_path)
+    for statement in SCHEMA:
+        conn.execute(statement)
+
+    library_count = 0
+    word_count = 0
+    for lib_doc in client.collection("word_libraries").where("isPublic", "==", True).stream():
+        lib = lib_doc.to_dict()
+        words = []
+        for word_doc in lib_doc.reference.collection("words").stream():
+            w = word_doc.to_dict()
+            words.append((
+                word_doc.id, w.get("word"), w.get("translation"), w.get("note"),
+                0, str(as_int(w.get("difficulty"), 3)), 0, 0, 0, lib_doc.id,
+                None, millis(w.get("createdAt")), None, now,
+                0, now, 0,
+                normalize(w.get("word")), normalize(w.get("translation")), normalize(w.get("note")),
+                None,
+            ))
+
+        conn.execute(
+            "INSERT OR REPLACE INTO local_libraries VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)",
+            (lib_doc.id, as_json_map(lib.get("name")), as_json_map(lib.get("description")),
+             as_json_map(lib.get("subcategory")), len(words), lib.get("category"),
+             lib.get("languageFrom"), lib.get("languageTo"), 1, 0,
+             millis(lib.get("createdAt")), "system", now,
+             normalize_all(lib.get("name")), normalize_all(lib.get("description")),
+             # Версия слов (bundleVersion от publish_library_bundles.py): по ней клиент
+             # решает, перекачивать ли библиотеку при сверке
+             as_int(lib.get("bundleVersion"))))
+        conn.executemany(
+            "INSERT OR REPLACE INTO local_words VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)", words)
+
+        library_count += 1
+        word_count += len(words)
+        print(f"{lib_doc.id}: {len(words)} words")
+
+    conn.execute(f"PRAGMA user_version = {SCHEMA_VERSION}")
+    conn.commit()
+    conn.execute("VACUUM")
+    conn.close()
+    os.replace(tmp_path, db_path)
+
+    with open(meta_path, "w", encoding="utf-8") as meta:
+        json.dump({
+            "schemaVersion": SCHEMA_VERSION,
+            "snapshotAt": snapshot_at,
+            "libraries": library_count,
+            "words": word_count,
+        }, meta, indent=2)
+
+    print(f"Snapshot: {library_count} libraries, {word_count} words -> {db_path}")
+
+
+if __name__ == "__main__":
+    main(sys.argv[1] if len(sys.argv) > 1 else "app/src/main/assets/database")